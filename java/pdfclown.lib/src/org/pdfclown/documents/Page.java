@@ -46,6 +46,7 @@ import org.pdfclown.documents.contents.RotationEnum;
 import org.pdfclown.documents.contents.composition.PrimitiveComposer;
 import org.pdfclown.documents.contents.objects.ContentObject;
 import org.pdfclown.documents.contents.xObjects.FormXObject;
+import org.pdfclown.documents.contents.xObjects.ImageXObject;
 import org.pdfclown.documents.contents.xObjects.XObject;
 import org.pdfclown.documents.interaction.navigation.page.Transition;
 import org.pdfclown.objects.PdfArray;
@@ -68,7 +69,7 @@ import org.pdfclown.util.math.geom.Dimension;
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
   @since 0.0.0
-  @version 0.1.2, 12/28/12
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF10)
 public final class Page
@@ -425,6 +426,16 @@ public final class Page
     )
   {return TabOrderEnum.get((PdfName)getBaseDataObject().get(PdfName.Tabs));}
 
+  /**
+    Gets the thumbnail image of the page [PDF:1.6:8.2.3].
+
+    @return <code>null</code>, if absent.
+    @since 0.1.3
+  */
+  public ImageXObject getThumbnail(
+    )
+  {return ImageXObject.wrap(getBaseDataObject().get(PdfName.Thumb));}
+
   /**
     Gets the transition effect to be used when displaying the page during presentations.
   */
@@ -507,6 +518,14 @@ public final class Page
     )
   {getBaseDataObject().put(PdfName.Dur, value == 0 ? null : PdfReal.get(value));}
 
+  /**
+    @see #getResources()
+  */
+  public void setResources(
+    Resources value
+    )
+  {getBaseDataObject().put(PdfName.Resources, PdfObjectWrapper.getBaseObject(value));}
+
   /**
     @see #getRotation()
   */
@@ -539,6 +558,15 @@ public final class Page
     )
   {getBaseDataObject().put(PdfName.Tabs,value.getCode());}
 
+  /**
+    @see #getThumbnail()
+    @since 0.1.3
+  */
+  public void setThumbnail(
+    ImageXObject value
+    )
+  {getBaseDataObject().put(PdfName.Thumb, PdfObjectWrapper.getBaseObject(value));}
+
   /**
     @see #getTransition()
   */
@@ -25,11 +25,14 @@
 
 package org.pdfclown.documents.contents;
 
+import java.awt.BasicStroke;
 import java.awt.Graphics2D;
+import java.awt.Paint;
 import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Dimension2D;
+import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
@@ -41,6 +44,7 @@ import org.pdfclown.documents.contents.colorSpaces.Color;
 import org.pdfclown.documents.contents.colorSpaces.ColorSpace;
 import org.pdfclown.documents.contents.colorSpaces.DeviceGrayColor;
 import org.pdfclown.documents.contents.colorSpaces.DeviceGrayColorSpace;
+import org.pdfclown.documents.contents.colorSpaces.ShadingPattern;
 import org.pdfclown.documents.contents.fonts.Font;
 import org.pdfclown.documents.contents.objects.CompositeObject;
 import org.pdfclown.documents.contents.objects.ContainerObject;
@@ -51,6 +55,7 @@ import org.pdfclown.documents.contents.objects.Text;
 import org.pdfclown.documents.contents.objects.XObject;
 import org.pdfclown.documents.contents.xObjects.FormXObject;
 import org.pdfclown.objects.PdfName;
+import org.pdfclown.util.ConvertUtils;
 import org.pdfclown.util.NotImplementedException;
 import org.pdfclown.util.math.geom.Dimension;
 
@@ -122,6 +127,22 @@ public final class ContentScanner
     private double wordSpace;
 
     private ContentScanner scanner;
+
+    /*
+      NOTE: Rendering representations are cached as long as the parameters they derive from are
+      unchanged (see getFillPaint(), getStroke() and getStrokePaint()); shading pattern paints
+      also depend on the CTM they were derived from.
+    */
+    private Paint fillPaint;
+    private Color<?> fillPaintColor;
+    private ColorSpace<?> fillPaintColorSpace;
+    private AffineTransform fillPaintCtm;
+    private BasicStroke stroke;
+    private LineDash strokeLineDash;
+    private Paint strokePaint;
+    private Color<?> strokePaintColor;
+    private ColorSpace<?> strokePaintColorSpace;
+    private AffineTransform strokePaintCtm;
     // </fields>
 
     // <constructors>
@@ -199,6 +220,17 @@ public final class ContentScanner
         state.tm = new AffineTransform();
       }
       state.wordSpace = wordSpace;
+
+      state.fillPaint = fillPaint;
+      state.fillPaintColor = fillPaintColor;
+      state.fillPaintColorSpace = fillPaintColorSpace;
+      state.fillPaintCtm = fillPaintCtm;
+      state.stroke = stroke;
+      state.strokeLineDash = strokeLineDash;
+      state.strokePaint = strokePaint;
+      state.strokePaintColor = strokePaintColor;
+      state.strokePaintColorSpace = strokePaintColorSpace;
+      state.strokePaintCtm = strokePaintCtm;
     }
 
     /**
@@ -237,6 +269,28 @@ public final class ContentScanner
       )
     {return fillColorSpace;}
 
+    /**
+      Gets the rendering representation of the current color for nonstroking operations.
+      <p>The same object is returned as long as the current color space and value are unchanged.</p>
+
+      @since 0.1.3
+    */
+    public Paint getFillPaint(
+      )
+    {
+      if(fillPaint == null
+        || !isSame(fillColorSpace, fillPaintColorSpace)
+        || !fillColor.equals(fillPaintColor)
+        || (fillPaintCtm != null && !ctm.equals(fillPaintCtm)))
+      {
+        fillPaint = getPaint(fillColorSpace, fillColor);
+        fillPaintColor = fillColor;
+        fillPaintColorSpace = fillColorSpace;
+        fillPaintCtm = (fillColor instanceof ShadingPattern ? (AffineTransform)ctm.clone() : null);
+      }
+      return fillPaint;
+    }
+
     /**
       Gets the current font [PDF:1.6:5.2].
     */
@@ -373,6 +427,56 @@ public final class ContentScanner
       )
     {return scanner;}
 
+    /**
+      Gets the rendering representation of the current line parameters [PDF:1.6:4.3.2].
+      <p>The same object is returned as long as the current line parameters are unchanged.</p>
+
+      @since 0.1.3
+    */
+    public BasicStroke getStroke(
+      )
+    {
+      float width = (float)Math.abs(lineWidth);
+      int cap = lineCap.toAwt();
+      int join = lineJoin.toAwt();
+      // NOTE: Java2D rejects miter limits less than 1.
+      float miterLimit = (float)Math.max(this.miterLimit, 1);
+      if(stroke == null
+        || stroke.getLineWidth() != width
+        || stroke.getEndCap() != cap
+        || stroke.getLineJoin() != join
+        || stroke.getMiterLimit() != miterLimit
+        || strokeLineDash != lineDash)
+      {
+        float[] dashArray = null;
+        {
+          double[] lineDashArray = lineDash.getDashArray();
+          if(lineDashArray != null)
+          {
+            // NOTE: Java2D rejects dash arrays whose values are all zero.
+            for(double dashValue : lineDashArray)
+            {
+              if(dashValue > 0)
+              {
+                dashArray = ConvertUtils.toFloatArray(lineDashArray);
+                break;
+              }
+            }
+          }
+        }
+        stroke = new BasicStroke(
+          width,
+          cap,
+          join,
+          miterLimit,
+          dashArray,
+          (float)lineDash.getDashPhase()
+          );
+        strokeLineDash = lineDash;
+      }
+      return stroke;
+    }
+
     /**
       Gets the current color for stroking operations [PDF:1.6:4.5.1].
     */
@@ -387,6 +491,28 @@ public final class ContentScanner
       )
     {return strokeColorSpace;}
 
+    /**
+      Gets the rendering representation of the current color for stroking operations.
+      <p>The same object is returned as long as the current color space and value are unchanged.</p>
+
+      @since 0.1.3
+    */
+    public Paint getStrokePaint(
+      )
+    {
+      if(strokePaint == null
+        || !isSame(strokeColorSpace, strokePaintColorSpace)
+        || !strokeColor.equals(strokePaintColor)
+        || (strokePaintCtm != null && !ctm.equals(strokePaintCtm)))
+      {
+        strokePaint = getPaint(strokeColorSpace, strokeColor);
+        strokePaintColor = strokeColor;
+        strokePaintColorSpace = strokeColorSpace;
+        strokePaintCtm = (strokeColor instanceof ShadingPattern ? (AffineTransform)ctm.clone() : null);
+      }
+      return strokePaint;
+    }
+
     /**
       Gets the current text line matrix [PDF:1.6:5.3].
     */
@@ -624,6 +750,72 @@ public final class ContentScanner
     // </public>
 
     // <private>
+    /**
+      Gets whether the specified color spaces are the same (color space wrappers are instantiated
+      on each resource lookup).
+    */
+    private static boolean isSame(
+      ColorSpace<?> colorSpace1,
+      ColorSpace<?> colorSpace2
+      )
+    {
+      return colorSpace1 == colorSpace2
+        || (colorSpace2 != null
+          && colorSpace1.getClass() == colorSpace2.getClass()
+          && colorSpace1.getBaseObject().equals(colorSpace2.getBaseObject()));
+    }
+
+    /**
+      Gets the rendering representation of the specified color.
+    */
+    private Paint getPaint(
+      ColorSpace<?> colorSpace,
+      Color<?> color
+      )
+    {
+      if(color instanceof ShadingPattern)
+      {
+        /*
+          NOTE: Shading patterns are mapped to the default coordinate space of their parent content
+          stream, irrespective of the CTM at the time they are painted [PDF:1.6:4.6.1].
+        */
+        AffineTransform transform;
+        try
+        {transform = ctm.createInverse();}
+        catch(NoninvertibleTransformException e)
+        {return null;}
+        transform.concatenate(getPatternCtm());
+        return ((ShadingPattern)color).getPaint(transform);
+      }
+      else
+        return colorSpace.getPaint(color);
+    }
+
+    /**
+      Gets the transformation matrix from the default coordinate space of the current content
+      stream to the device space.
+    */
+    private AffineTransform getPatternCtm(
+      )
+    {
+      ContentScanner level = scanner;
+      while(true)
+      {
+        ContentScanner parentLevel = level.getParentLevel();
+        if(parentLevel == null)
+          return getInitialCtm();
+        else if(level.getContents() != parentLevel.getContents()) // Nested content stream.
+        {
+          AffineTransform patternCtm = (AffineTransform)parentLevel.getState().getCtm().clone();
+          IContentContext contentContext = level.getContentContext();
+          if(contentContext instanceof FormXObject)
+          {patternCtm.concatenate(((FormXObject)contentContext).getMatrix());}
+          return patternCtm;
+        }
+        level = parentLevel;
+      }
+    }
+
     private GraphicsState clone(
       ContentScanner scanner
       )
@@ -995,6 +1187,13 @@ public final class ContentScanner
     Rendering object.
   */
   private Shape renderObject;
+  /**
+    Number of content objects still allowed to be scanned by the current rendering (root level
+    only).
+
+    @see RenderingHintKey#MaxObjectCount
+  */
+  private int renderQuota = Integer.MAX_VALUE;
   /**
     Device-space size of the rendering canvas.
   */
@@ -1054,15 +1253,39 @@ public final class ContentScanner
           )
         {
           // Adjust the initial graphics state to the external form context!
-          scanner.getState().getCtm().concatenate(formXObject.getMatrix());
-          /*
-            TODO: On rendering, clip according to the form dictionary's BBox entry!
-          */
+          AffineTransform ctm = scanner.getState().getCtm();
+          ctm.concatenate(formXObject.getMatrix());
+
+          Graphics2D renderContext = scanner.getRenderContext();
+          if(renderContext != null)
+          {
+            renderContext.setTransform(ctm);
+            renderContext.clip(formXObject.getBox());
+          }
         }
       });
     moveStart();
   }
 
+  /**
+    Instantiates a child-level content scanner for the given content objects collection (for
+    example, a {@link org.pdfclown.documents.contents.fonts.Type3Font Type 3} glyph description).
+
+    @param contents Content objects collection to scan.
+    @param parentLevel Parent scan level.
+    @since 0.1.3
+  */
+  public ContentScanner(
+    Contents contents,
+    ContentScanner parentLevel
+    )
+  {
+    this.parentLevel = parentLevel;
+    this.objects = this.contents = contents;
+
+    moveStart();
+  }
+
   /**
     Instantiates a child-level content scanner.
 
@@ -1169,7 +1392,13 @@ public final class ContentScanner
   */
   public CompositeObject getParent(
     )
-  {return (parentLevel == null ? null : (CompositeObject)parentLevel.getCurrent());}
+  {
+    /*
+      NOTE: Child levels of external contents (forms, glyph descriptions) descend from operations.
+    */
+    ContentObject parent = (parentLevel == null ? null : parentLevel.getCurrent());
+    return parent instanceof CompositeObject ? (CompositeObject)parent : null;
+  }
 
   /**
     Gets the parent scan level.
@@ -1388,6 +1617,26 @@ public final class ContentScanner
     )
   {return listeners.remove(listener);}
 
+  /**
+    Removes the content objects preceding the current position at this level, preserving the
+    current graphics state.
+    <p>This is useful to release content objects which have already been consumed (for example,
+    serialized in write-through mode by {@link
+    org.pdfclown.documents.contents.composition.PrimitiveComposer PrimitiveComposer}); moving
+    backward afterwards replays just the remaining objects.</p>
+
+    @since 0.1.3
+  */
+  public void trim(
+    )
+  {
+    if(index <= 0)
+      return;
+
+    objects.subList(0, index).clear();
+    index = 0;
+  }
+
   /**
     Renders the contents into the specified context.
 
@@ -1429,24 +1678,36 @@ public final class ContentScanner
 
       // Paint the canvas background!
       renderContext.setColor(java.awt.Color.WHITE);
-      renderContext.fillRect(0,0,(int)renderSize.getWidth(),(int)renderSize.getHeight());
+      renderContext.fill(new Rectangle2D.Double(0, 0, renderSize.getWidth(), renderSize.getHeight()));
     }
 
+    ContentScanner rootLevel = getRootLevel();
     try
     {
       this.renderContext = renderContext;
       this.renderSize = renderSize;
       this.renderObject = renderObject;
+      if(rootLevel == this)
+      {
+        double maxObjectCount = RenderingHintKey.MaxObjectCount.getDoubleValue(renderContext);
+        renderQuota = (maxObjectCount > 0 && maxObjectCount < Integer.MAX_VALUE ? (int)maxObjectCount : Integer.MAX_VALUE);
+      }
 
       // Scan this level for rendering!
+      /*
+        NOTE: The quota is shared by all the levels (nested forms included), so that, once it runs
+        out, the whole rendering is truncated.
+      */
       moveStart();
-      while(moveNext());
+      while(moveNext() && --rootLevel.renderQuota > 0);
     }
     finally
     {
       this.renderContext = null;
       this.renderSize = null;
       this.renderObject = null;
+      if(rootLevel == this)
+      {renderQuota = Integer.MAX_VALUE;}
     }
   }
 
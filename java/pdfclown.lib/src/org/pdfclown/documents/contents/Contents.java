@@ -29,9 +29,12 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteOrder;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
@@ -352,6 +355,7 @@ public final class Contents
   private List<ContentObject> items;
 
   private final IContentContext contentContext;
+  private boolean writeThrough;
   // </fields>
 
   // <constructors>
@@ -377,10 +381,15 @@ public final class Contents
 
   /**
     Serializes the contents into the content stream.
+
+    @throws IllegalStateException If contents are {@link #isWriteThrough() written through}.
   */
   public void flush(
     )
   {
+    if(writeThrough)
+      throw new IllegalStateException("Contents are written through to the content stream: they can't be flushed on their own.");
+
     PdfStream stream;
     PdfDataObject baseDataObject = getBaseDataObject();
     // Are contents just a single stream object?
@@ -429,6 +438,29 @@ public final class Contents
     )
   {return contentContext;}
 
+  /**
+    Gets whether content objects are appended straight to the content stream instead of being
+    retained in this collection (see {@link
+    org.pdfclown.documents.contents.composition.PrimitiveComposer.WriteModeEnum#WriteThrough
+    write-through composition}).
+    <p>As this collection no longer reflects the content stream, it can't be {@link #flush()
+    flushed}.</p>
+
+    @since 0.1.3
+  */
+  public boolean isWriteThrough(
+    )
+  {return writeThrough;}
+
+  /**
+    @see #isWriteThrough()
+    @since 0.1.3
+  */
+  public void setWriteThrough(
+    boolean value
+    )
+  {writeThrough = value;}
+
   // <List>
   @Override
   public void add(
@@ -587,9 +619,46 @@ public final class Contents
   private void load(
     )
   {
-    @SuppressWarnings("resource")
-    ContentParser parser = new ContentParser(new ContentStream(getBaseDataObject()));
-    items = parser.parseContentObjects();
+    /*
+      NOTE: Content streams may be shared across content contexts (e.g. external forms referenced
+      by multiple pages, or common streams referenced by multiple page content arrays): as their
+      parsing moves the position of their bodies, concurrent loadings of the same streams MUST be
+      serialized. Each stream is locked in object number order, to prevent deadlocks among contexts
+      sharing multiple streams.
+    */
+    PdfDataObject baseDataObject = getBaseDataObject();
+    if(baseDataObject instanceof PdfStream) // Single stream.
+    {load(Collections.singletonList((PdfStream)baseDataObject).iterator());}
+    else // Array of streams.
+    {
+      SortedMap<Integer,PdfStream> streams = new TreeMap<Integer,PdfStream>();
+      for(PdfDirectObject stream : (PdfArray)baseDataObject)
+      {
+        PdfReference streamReference = (PdfReference)stream;
+        streams.put(streamReference.getObjectNumber(), (PdfStream)streamReference.getDataObject());
+      }
+      load(streams.values().iterator());
+    }
+  }
+
+  /**
+    Parses the content objects, once all the remaining streams have been locked.
+  */
+  private void load(
+    Iterator<PdfStream> streamIterator
+    )
+  {
+    if(streamIterator.hasNext())
+    {
+      synchronized(streamIterator.next())
+      {load(streamIterator);}
+    }
+    else
+    {
+      @SuppressWarnings("resource")
+      ContentParser parser = new ContentParser(new ContentStream(getBaseDataObject()));
+      items = parser.parseContentObjects();
+    }
   }
   // </private>
   // </interface>
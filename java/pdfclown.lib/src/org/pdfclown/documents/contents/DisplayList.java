@@ -0,0 +1,1807 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Area;
+import java.awt.geom.Dimension2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.FlatteningPathIterator;
+import java.awt.geom.Line2D;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.text.AttributedCharacterIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.pdfclown.util.math.geom.Dimension;
+
+/**
+  Display list, that is the device-level drawing commands resulting from the rendering of a
+  {@link IContentContext content context}.
+  <p>Contents are parsed and scanned just once, while recording; the resulting commands can then be
+  replayed any number of times onto any device context, even concurrently (display lists are
+  immutable).</p>
+  <p>Commands are expressed in the device space of the recording canvas: replaying honors the
+  current transformation and clip of the target context, so that the same display list can be
+  rendered, for example, by tiles (translating the target) or at a different zoom (scaling the
+  target).</p>
+  <p>Paints are resolved while recording, path geometry is pooled into primitive arrays, clip
+  regions are kept as a stack, while glyph outlines and images are just referenced (see {@link
+  #fillImmutable(Graphics2D,Shape)} and {@link #paintImage(Graphics2D,IImagePainter)}): images, in
+  particular, are resolved on replay at the actual device resolution.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+public final class DisplayList
+{
+  // <class>
+  // <classes>
+  /**
+    Image painter whose resolution is deferred to the actual device resolution.
+  */
+  public interface IImagePainter
+  {
+    /**
+      Paints the image onto the specified context.
+      <p>The image MUST be mapped from the unit square of the current user space, leaving the state
+      of the context unaltered.</p>
+
+      @param context Device context.
+      @param size Device-space size of the unit square.
+    */
+    void paint(
+      Graphics2D context,
+      Dimension2D size
+      );
+  }
+
+  /**
+    Clip stack node.
+    <p>Clip regions are kept as a chain of device-space shapes, whose intersection is computed only
+    on demand.</p>
+    <p>The intersection is published as a path which is never modified afterwards, so that concurrent
+    replays can safely share it.</p>
+  */
+  private static final class ClipNode
+  {
+    final ClipNode parent;
+    final Shape shape;
+
+    private volatile Shape area;
+
+    ClipNode(
+      ClipNode parent,
+      Shape shape
+      )
+    {
+      this.parent = parent;
+      this.shape = shape;
+    }
+
+    Shape getArea(
+      )
+    {
+      Shape area = this.area;
+      if(area == null)
+      {
+        if(parent == null)
+        {area = shape;}
+        else
+        {
+          Area intersection = new Area(parent.getArea());
+          intersection.intersect(new Area(shape));
+          area = new Path2D.Double(intersection);
+        }
+        this.area = area;
+      }
+      return area;
+    }
+
+    Shape[] toArray(
+      )
+    {
+      int count = 0;
+      for(ClipNode node = this; node != null; node = node.parent)
+      {count++;}
+      Shape[] shapes = new Shape[count];
+      for(ClipNode node = this; node != null; node = node.parent)
+      {shapes[--count] = node.shape;}
+      return shapes;
+    }
+  }
+
+  /**
+    Drawing command.
+  */
+  private static abstract class Command
+  {
+    /**
+      Device-space bounds of the painted area (<code>null</code> for state commands or unbounded
+      painting).
+    */
+    final Rectangle2D bounds;
+
+    Command(
+      )
+    {this(null);}
+
+    Command(
+      Rectangle2D bounds
+      )
+    {this.bounds = bounds;}
+
+    abstract void replay(
+      Player player
+      );
+  }
+
+  /**
+    Shape whose curves are flattened in device space.
+    <p>Replayed shapes are flattened before rasterization, as the rasterizer subdivides curves
+    differently depending on the clip bounds: this way, rendering by tiles yields exactly the same
+    pixels as rendering the whole canvas at once.</p>
+  */
+  private static final class FlatShape
+    implements Shape
+  {
+    private static final double Flatness = .05;
+    private static final int Limit = 16;
+
+    private final Shape shape;
+
+    FlatShape(
+      Shape shape
+      )
+    {this.shape = shape;}
+
+    @Override
+    public boolean contains(
+      double x,
+      double y
+      )
+    {return shape.contains(x, y);}
+
+    @Override
+    public boolean contains(
+      double x,
+      double y,
+      double width,
+      double height
+      )
+    {return shape.contains(x, y, width, height);}
+
+    @Override
+    public boolean contains(
+      Point2D point
+      )
+    {return shape.contains(point);}
+
+    @Override
+    public boolean contains(
+      Rectangle2D rect
+      )
+    {return shape.contains(rect);}
+
+    @Override
+    public Rectangle getBounds(
+      )
+    {return shape.getBounds();}
+
+    @Override
+    public Rectangle2D getBounds2D(
+      )
+    {return shape.getBounds2D();}
+
+    @Override
+    public PathIterator getPathIterator(
+      AffineTransform transform
+      )
+    {return new FlatteningPathIterator(shape.getPathIterator(transform), Flatness, Limit);}
+
+    @Override
+    public PathIterator getPathIterator(
+      AffineTransform transform,
+      double flatness
+      )
+    {return new FlatteningPathIterator(shape.getPathIterator(transform), Math.min(flatness, Flatness), Limit);}
+
+    @Override
+    public boolean intersects(
+      double x,
+      double y,
+      double width,
+      double height
+      )
+    {return shape.intersects(x, y, width, height);}
+
+    @Override
+    public boolean intersects(
+      Rectangle2D rect
+      )
+    {return shape.intersects(rect);}
+  }
+
+  /**
+    Path whose geometry is stored in the primitive arrays of the display list.
+  */
+  private final class PathShape
+    implements Shape
+  {
+    private final Rectangle2D bounds;
+    private final int pointOffset;
+    private final int segmentEnd;
+    private final int segmentOffset;
+    private final int windingRule;
+
+    PathShape(
+      int segmentOffset,
+      int segmentEnd,
+      int pointOffset,
+      int windingRule,
+      Rectangle2D bounds
+      )
+    {
+      this.segmentOffset = segmentOffset;
+      this.segmentEnd = segmentEnd;
+      this.pointOffset = pointOffset;
+      this.windingRule = windingRule;
+      this.bounds = bounds;
+    }
+
+    @Override
+    public boolean contains(
+      double x,
+      double y
+      )
+    {return new Path2D.Float(this).contains(x, y);}
+
+    @Override
+    public boolean contains(
+      double x,
+      double y,
+      double width,
+      double height
+      )
+    {return new Path2D.Float(this).contains(x, y, width, height);}
+
+    @Override
+    public boolean contains(
+      Point2D point
+      )
+    {return contains(point.getX(), point.getY());}
+
+    @Override
+    public boolean contains(
+      Rectangle2D rect
+      )
+    {return contains(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());}
+
+    @Override
+    public Rectangle getBounds(
+      )
+    {return bounds.getBounds();}
+
+    @Override
+    public Rectangle2D getBounds2D(
+      )
+    {return (Rectangle2D)bounds.clone();}
+
+    @Override
+    public PathIterator getPathIterator(
+      final AffineTransform transform
+      )
+    {
+      return new PathIterator()
+      {
+        private int pointIndex = pointOffset;
+        private int segmentIndex = segmentOffset;
+
+        @Override
+        public int currentSegment(
+          double[] coords
+          )
+        {
+          int type = segments[segmentIndex];
+          int count = PointCounts[type];
+          if(transform != null)
+          {transform.transform(points, pointIndex, coords, 0, count);}
+          else
+          {
+            for(int index = 0, length = count * 2; index < length; index++)
+            {coords[index] = points[pointIndex + index];}
+          }
+          return type;
+        }
+
+        @Override
+        public int currentSegment(
+          float[] coords
+          )
+        {
+          int type = segments[segmentIndex];
+          int count = PointCounts[type];
+          if(transform != null)
+          {transform.transform(points, pointIndex, coords, 0, count);}
+          else
+          {System.arraycopy(points, pointIndex, coords, 0, count * 2);}
+          return type;
+        }
+
+        @Override
+        public int getWindingRule(
+          )
+        {return windingRule;}
+
+        @Override
+        public boolean isDone(
+          )
+        {return segmentIndex >= segmentEnd;}
+
+        @Override
+        public void next(
+          )
+        {pointIndex += PointCounts[segments[segmentIndex++]] * 2;}
+      };
+    }
+
+    @Override
+    public PathIterator getPathIterator(
+      AffineTransform transform,
+      double flatness
+      )
+    {return new FlatteningPathIterator(getPathIterator(transform), flatness);}
+
+    @Override
+    public boolean intersects(
+      double x,
+      double y,
+      double width,
+      double height
+      )
+    {return new Path2D.Float(this).intersects(x, y, width, height);}
+
+    @Override
+    public boolean intersects(
+      Rectangle2D rect
+      )
+    {return intersects(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());}
+  }
+
+  /**
+    Replaying session.
+  */
+  private static final class Player
+  {
+    final AffineTransform baseCtm;
+    final Shape baseClip;
+    final Graphics2D context;
+    /**
+      Recording-space bounds of the target area (<code>null</code> if unbounded).
+    */
+    final Rectangle2D targetBounds;
+
+    AffineTransform ctm;
+    Stroke stroke;
+
+    Player(
+      Graphics2D context
+      )
+    {
+      this.context = context;
+      baseCtm = context.getTransform();
+      Shape clip = context.getClip();
+      baseClip = (clip != null ? baseCtm.createTransformedShape(clip) : null);
+      Rectangle2D targetBounds = null;
+      {
+        Rectangle2D deviceBounds = context.getDeviceConfiguration().getBounds();
+        if(baseClip != null)
+        {deviceBounds = deviceBounds.createIntersection(baseClip.getBounds2D());}
+        try
+        {targetBounds = baseCtm.createInverse().createTransformedShape(deviceBounds).getBounds2D();}
+        catch(NoninvertibleTransformException e)
+        {/* NOOP: Unbounded. */}
+      }
+      this.targetBounds = targetBounds;
+      ctm = baseCtm;
+      stroke = context.getStroke();
+    }
+
+    void clip(
+      Shape[] shapes,
+      boolean reset
+      )
+    {
+      if(reset)
+      {
+        context.setTransform(new AffineTransform());
+        context.setClip(baseClip);
+      }
+      context.setTransform(baseCtm);
+      for(Shape shape : shapes)
+      {context.clip(shape);}
+      context.setTransform(ctm);
+    }
+
+    void setTransform(
+      AffineTransform value
+      )
+    {
+      ctm = new AffineTransform(baseCtm);
+      ctm.concatenate(value);
+      context.setTransform(ctm);
+    }
+  }
+
+  /**
+    Recording device context.
+  */
+  private static final class Recorder
+    extends Graphics2D
+  {
+    private final DisplayList displayList;
+
+    private Color background;
+    private ClipNode clip;
+    private Color color;
+    private Composite composite;
+    private Font font;
+    private final RenderingHints hints;
+    private Paint paint;
+    private Stroke stroke;
+    private AffineTransform transform;
+    private Color xorColor;
+
+    /*
+      NOTE: Clip queries are tracked so that a clip restoration (typical of graphics state saving)
+      can reuse the original clip stack instead of pushing a new (equivalent) region.
+    */
+    private Shape queriedClip;
+    private ClipNode queriedClipNode;
+    private AffineTransform queriedClipTransform;
+
+    Recorder(
+      DisplayList displayList
+      )
+    {
+      this.displayList = displayList;
+
+      background = Color.WHITE;
+      color = Color.BLACK;
+      composite = AlphaComposite.SrcOver;
+      font = new Font(Font.DIALOG, Font.PLAIN, 12);
+      hints = new RenderingHints(null);
+      paint = color;
+      stroke = new BasicStroke();
+      transform = new AffineTransform();
+    }
+
+    private Recorder(
+      Recorder recorder
+      )
+    {
+      displayList = recorder.displayList;
+
+      background = recorder.background;
+      clip = recorder.clip;
+      color = recorder.color;
+      composite = recorder.composite;
+      font = recorder.font;
+      hints = (RenderingHints)recorder.hints.clone();
+      paint = recorder.paint;
+      stroke = recorder.stroke;
+      transform = new AffineTransform(recorder.transform);
+      xorColor = recorder.xorColor;
+    }
+
+    @Override
+    public void addRenderingHints(
+      Map<?,?> hints
+      )
+    {this.hints.putAll(hints);}
+
+    @Override
+    public void clearRect(
+      int x,
+      int y,
+      int width,
+      int height
+      )
+    {
+      Paint paint = this.paint;
+      Composite composite = this.composite;
+      Color xorColor = this.xorColor;
+      this.paint = background;
+      this.composite = AlphaComposite.Src;
+      this.xorColor = null;
+      fill(new Rectangle(x, y, width, height));
+      this.paint = paint;
+      this.composite = composite;
+      this.xorColor = xorColor;
+    }
+
+    @Override
+    public void clip(
+      Shape shape
+      )
+    {
+      if(shape == null)
+      {clip = null;}
+      else
+      {clip = new ClipNode(clip, transform.createTransformedShape(shape));}
+    }
+
+    @Override
+    public void clipRect(
+      int x,
+      int y,
+      int width,
+      int height
+      )
+    {clip(new Rectangle(x, y, width, height));}
+
+    @Override
+    public void copyArea(
+      final int x,
+      final int y,
+      final int width,
+      final int height,
+      final int dx,
+      final int dy
+      )
+    {
+      sync();
+      displayList.add(
+        new Command()
+        {
+          @Override
+          void replay(
+            Player player
+            )
+          {player.context.copyArea(x, y, width, height, dx, dy);}
+        }
+        );
+    }
+
+    @Override
+    public Graphics create(
+      )
+    {return new Recorder(this);}
+
+    @Override
+    public void dispose(
+      )
+    {/* NOOP */}
+
+    @Override
+    public void draw(
+      Shape shape
+      )
+    {
+      sync();
+      final Shape command = displayList.copy(shape);
+      double padding = 0;
+      if(stroke instanceof BasicStroke)
+      {
+        BasicStroke basicStroke = (BasicStroke)stroke;
+        padding = basicStroke.getLineWidth() / 2 * Math.max(basicStroke.getMiterLimit(), 1.5);
+      }
+      displayList.add(
+        new Command(stroke instanceof BasicStroke ? getBounds(command.getBounds2D(), padding) : null)
+        {
+          @Override
+          void replay(
+            Player player
+            )
+          {
+            /*
+              NOTE: Strokes are outlined before flattening, as the stroker would otherwise bring
+              its own curves (round joins and caps).
+            */
+            player.context.fill(flatten(player.stroke.createStrokedShape(command)));
+          }
+        }
+        );
+    }
+
+    @Override
+    public void drawArc(
+      int x,
+      int y,
+      int width,
+      int height,
+      int startAngle,
+      int arcAngle
+      )
+    {draw(new Arc2D.Float(x, y, width, height, startAngle, arcAngle, Arc2D.OPEN));}
+
+    @Override
+    public void drawGlyphVector(
+      GlyphVector glyphs,
+      float x,
+      float y
+      )
+    {fill(glyphs.getOutline(x, y));}
+
+    @Override
+    public boolean drawImage(
+      final Image image,
+      final AffineTransform transform,
+      ImageObserver observer
+      )
+    {
+      sync();
+      final AffineTransform imageTransform = (transform != null ? new AffineTransform(transform) : new AffineTransform());
+      Rectangle2D bounds = null;
+      {
+        int width = image.getWidth(null), height = image.getHeight(null);
+        if(width >= 0 && height >= 0)
+        {bounds = getBounds(imageTransform.createTransformedShape(new Rectangle(width, height)).getBounds2D(), 0);}
+      }
+      displayList.add(
+        new Command(bounds)
+        {
+          @Override
+          void replay(
+            Player player
+            )
+          {player.context.drawImage(image, imageTransform, null);}
+        }
+        );
+      return true;
+    }
+
+    @Override
+    public void drawImage(
+      BufferedImage image,
+      BufferedImageOp op,
+      int x,
+      int y
+      )
+    {
+      drawImage(
+        op != null ? op.filter(image, null) : image,
+        AffineTransform.getTranslateInstance(x, y),
+        null
+        );
+    }
+
+    @Override
+    public boolean drawImage(
+      Image image,
+      int x,
+      int y,
+      Color bgcolor,
+      ImageObserver observer
+      )
+    {
+      int width = image.getWidth(observer), height = image.getHeight(observer);
+      if(width < 0 || height < 0)
+        return false;
+
+      return drawImage(image, x, y, width, height, bgcolor, observer);
+    }
+
+    @Override
+    public boolean drawImage(
+      Image image,
+      int x,
+      int y,
+      ImageObserver observer
+      )
+    {return drawImage(image, AffineTransform.getTranslateInstance(x, y), observer);}
+
+    @Override
+    public boolean drawImage(
+      Image image,
+      int x,
+      int y,
+      int width,
+      int height,
+      Color bgcolor,
+      ImageObserver observer
+      )
+    {
+      if(bgcolor != null)
+      {
+        Paint paint = this.paint;
+        this.paint = bgcolor;
+        fill(new Rectangle(x, y, width, height));
+        this.paint = paint;
+      }
+      return drawImage(image, x, y, width, height, observer);
+    }
+
+    @Override
+    public boolean drawImage(
+      Image image,
+      int x,
+      int y,
+      int width,
+      int height,
+      ImageObserver observer
+      )
+    {
+      int imageWidth = image.getWidth(observer), imageHeight = image.getHeight(observer);
+      if(imageWidth <= 0 || imageHeight <= 0)
+        return false;
+
+      AffineTransform imageTransform = AffineTransform.getTranslateInstance(x, y);
+      imageTransform.scale((double)width / imageWidth, (double)height / imageHeight);
+      return drawImage(image, imageTransform, observer);
+    }
+
+    @Override
+    public boolean drawImage(
+      final Image image,
+      final int dx1,
+      final int dy1,
+      final int dx2,
+      final int dy2,
+      final int sx1,
+      final int sy1,
+      final int sx2,
+      final int sy2,
+      final Color bgcolor,
+      ImageObserver observer
+      )
+    {
+      sync();
+      displayList.add(
+        new Command()
+        {
+          @Override
+          void replay(
+            Player player
+            )
+          {player.context.drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, bgcolor, null);}
+        }
+        );
+      return true;
+    }
+
+    @Override
+    public boolean drawImage(
+      Image image,
+      int dx1,
+      int dy1,
+      int dx2,
+      int dy2,
+      int sx1,
+      int sy1,
+      int sx2,
+      int sy2,
+      ImageObserver observer
+      )
+    {return drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null, observer);}
+
+    @Override
+    public void drawLine(
+      int x1,
+      int y1,
+      int x2,
+      int y2
+      )
+    {draw(new Line2D.Float(x1, y1, x2, y2));}
+
+    @Override
+    public void drawOval(
+      int x,
+      int y,
+      int width,
+      int height
+      )
+    {draw(new Ellipse2D.Float(x, y, width, height));}
+
+    @Override
+    public void drawPolygon(
+      int[] xPoints,
+      int[] yPoints,
+      int nPoints
+      )
+    {draw(new Polygon(xPoints, yPoints, nPoints));}
+
+    @Override
+    public void drawPolyline(
+      int[] xPoints,
+      int[] yPoints,
+      int nPoints
+      )
+    {
+      if(nPoints <= 0)
+        return;
+
+      Path2D path = new Path2D.Float();
+      path.moveTo(xPoints[0], yPoints[0]);
+      for(int index = 1; index < nPoints; index++)
+      {path.lineTo(xPoints[index], yPoints[index]);}
+      draw(path);
+    }
+
+    @Override
+    public void drawRenderableImage(
+      final RenderableImage image,
+      AffineTransform transform
+      )
+    {
+      sync();
+      final AffineTransform imageTransform = new AffineTransform(transform);
+      displayList.add(
+        new Command()
+        {
+          @Override
+          void replay(
+            Player player
+            )
+          {player.context.drawRenderableImage(image, imageTransform);}
+        }
+        );
+    }
+
+    @Override
+    public void drawRenderedImage(
+      final RenderedImage image,
+      AffineTransform transform
+      )
+    {
+      sync();
+      final AffineTransform imageTransform = new AffineTransform(transform);
+      displayList.add(
+        new Command()
+        {
+          @Override
+          void replay(
+            Player player
+            )
+          {player.context.drawRenderedImage(image, imageTransform);}
+        }
+        );
+    }
+
+    @Override
+    public void drawRoundRect(
+      int x,
+      int y,
+      int width,
+      int height,
+      int arcWidth,
+      int arcHeight
+      )
+    {draw(new RoundRectangle2D.Float(x, y, width, height, arcWidth, arcHeight));}
+
+    @Override
+    public void drawString(
+      AttributedCharacterIterator iterator,
+      float x,
+      float y
+      )
+    {fill(new TextLayout(iterator, getFontRenderContext()).getOutline(AffineTransform.getTranslateInstance(x, y)));}
+
+    @Override
+    public void drawString(
+      AttributedCharacterIterator iterator,
+      int x,
+      int y
+      )
+    {drawString(iterator, (float)x, (float)y);}
+
+    @Override
+    public void drawString(
+      String text,
+      float x,
+      float y
+      )
+    {drawGlyphVector(font.createGlyphVector(getFontRenderContext(), text), x, y);}
+
+    @Override
+    public void drawString(
+      String text,
+      int x,
+      int y
+      )
+    {drawString(text, (float)x, (float)y);}
+
+    @Override
+    public void fill(
+      Shape shape
+      )
+    {fill(shape, false);}
+
+    /**
+      @param shape Shape to fill.
+      @param immutable Whether the shape can be retained by reference.
+    */
+    void fill(
+      Shape shape,
+      boolean immutable
+      )
+    {
+      sync();
+      final Shape command = flatten(immutable ? shape : displayList.copy(shape));
+      displayList.add(
+        new Command(getBounds(command.getBounds2D(), 0))
+        {
+          @Override
+          void replay(
+            Player player
+            )
+          {player.context.fill(command);}
+        }
+        );
+    }
+
+    @Override
+    public void fillArc(
+      int x,
+      int y,
+      int width,
+      int height,
+      int startAngle,
+      int arcAngle
+      )
+    {fill(new Arc2D.Float(x, y, width, height, startAngle, arcAngle, Arc2D.PIE));}
+
+    @Override
+    public void fillOval(
+      int x,
+      int y,
+      int width,
+      int height
+      )
+    {fill(new Ellipse2D.Float(x, y, width, height));}
+
+    @Override
+    public void fillPolygon(
+      int[] xPoints,
+      int[] yPoints,
+      int nPoints
+      )
+    {fill(new Polygon(xPoints, yPoints, nPoints));}
+
+    @Override
+    public void fillRect(
+      int x,
+      int y,
+      int width,
+      int height
+      )
+    {fill(new Rectangle(x, y, width, height));}
+
+    @Override
+    public void fillRoundRect(
+      int x,
+      int y,
+      int width,
+      int height,
+      int arcWidth,
+      int arcHeight
+      )
+    {fill(new RoundRectangle2D.Float(x, y, width, height, arcWidth, arcHeight));}
+
+    @Override
+    public Color getBackground(
+      )
+    {return background;}
+
+    @Override
+    public Shape getClip(
+      )
+    {
+      if(clip == null)
+        return null;
+
+      Shape userClip;
+      try
+      {userClip = transform.createInverse().createTransformedShape(clip.getArea());}
+      catch(NoninvertibleTransformException e)
+      {userClip = new Rectangle();}
+      queriedClip = userClip;
+      queriedClipNode = clip;
+      queriedClipTransform = new AffineTransform(transform);
+      return userClip;
+    }
+
+    @Override
+    public Rectangle getClipBounds(
+      )
+    {
+      Shape clip = getClip();
+      return clip != null ? clip.getBounds() : null;
+    }
+
+    @Override
+    public Color getColor(
+      )
+    {return color;}
+
+    @Override
+    public Composite getComposite(
+      )
+    {return composite;}
+
+    @Override
+    public GraphicsConfiguration getDeviceConfiguration(
+      )
+    {return displayList.getScratchContext().getDeviceConfiguration();}
+
+    @Override
+    public Font getFont(
+      )
+    {return font;}
+
+    @Override
+    public FontMetrics getFontMetrics(
+      Font font
+      )
+    {return displayList.getScratchContext().getFontMetrics(font);}
+
+    @Override
+    public FontRenderContext getFontRenderContext(
+      )
+    {
+      return new FontRenderContext(
+        new AffineTransform(transform),
+        RenderingHints.VALUE_TEXT_ANTIALIAS_ON.equals(hints.get(RenderingHints.KEY_TEXT_ANTIALIASING)),
+        RenderingHints.VALUE_FRACTIONALMETRICS_ON.equals(hints.get(RenderingHints.KEY_FRACTIONALMETRICS))
+        );
+    }
+
+    @Override
+    public Paint getPaint(
+      )
+    {return paint;}
+
+    @Override
+    public Object getRenderingHint(
+      RenderingHints.Key key
+      )
+    {return hints.get(key);}
+
+    @Override
+    public RenderingHints getRenderingHints(
+      )
+    {return (RenderingHints)hints.clone();}
+
+    @Override
+    public Stroke getStroke(
+      )
+    {return stroke;}
+
+    @Override
+    public AffineTransform getTransform(
+      )
+    {return new AffineTransform(transform);}
+
+    @Override
+    public boolean hit(
+      Rectangle rect,
+      Shape shape,
+      boolean onStroke
+      )
+    {
+      if(onStroke)
+      {shape = stroke.createStrokedShape(shape);}
+      return transform.createTransformedShape(shape).intersects(rect);
+    }
+
+    @Override
+    public void rotate(
+      double theta
+      )
+    {transform.rotate(theta);}
+
+    @Override
+    public void rotate(
+      double theta,
+      double x,
+      double y
+      )
+    {transform.rotate(theta, x, y);}
+
+    @Override
+    public void scale(
+      double sx,
+      double sy
+      )
+    {transform.scale(sx, sy);}
+
+    @Override
+    public void setBackground(
+      Color value
+      )
+    {background = value;}
+
+    @Override
+    public void setClip(
+      int x,
+      int y,
+      int width,
+      int height
+      )
+    {setClip(new Rectangle(x, y, width, height));}
+
+    @Override
+    public void setClip(
+      Shape value
+      )
+    {
+      if(value == null)
+      {clip = null;}
+      else if(value == queriedClip && transform.equals(queriedClipTransform))
+      {clip = queriedClipNode;}
+      else
+      {clip = new ClipNode(null, transform.createTransformedShape(value));}
+    }
+
+    @Override
+    public void setColor(
+      Color value
+      )
+    {
+      if(value == null)
+        return;
+
+      paint = color = value;
+    }
+
+    @Override
+    public void setComposite(
+      Composite value
+      )
+    {
+      if(value == null)
+        return;
+
+      composite = value;
+      xorColor = null;
+    }
+
+    @Override
+    public void setFont(
+      Font value
+      )
+    {
+      if(value == null)
+        return;
+
+      font = value;
+    }
+
+    @Override
+    public void setPaint(
+      Paint value
+      )
+    {
+      if(value == null)
+        return;
+
+      paint = value;
+      if(value instanceof Color)
+      {color = (Color)value;}
+    }
+
+    @Override
+    public void setPaintMode(
+      )
+    {
+      composite = AlphaComposite.SrcOver;
+      xorColor = null;
+    }
+
+    @Override
+    public void setRenderingHint(
+      RenderingHints.Key key,
+      Object value
+      )
+    {hints.put(key, value);}
+
+    @Override
+    public void setRenderingHints(
+      Map<?,?> hints
+      )
+    {
+      this.hints.clear();
+      this.hints.putAll(hints);
+    }
+
+    @Override
+    public void setStroke(
+      Stroke value
+      )
+    {
+      if(value == null)
+        return;
+
+      stroke = value;
+    }
+
+    @Override
+    public void setTransform(
+      AffineTransform value
+      )
+    {transform = new AffineTransform(value);}
+
+    @Override
+    public void setXORMode(
+      Color value
+      )
+    {xorColor = value;}
+
+    @Override
+    public void shear(
+      double shx,
+      double shy
+      )
+    {transform.shear(shx, shy);}
+
+    @Override
+    public void transform(
+      AffineTransform value
+      )
+    {transform.concatenate(value);}
+
+    @Override
+    public void translate(
+      double tx,
+      double ty
+      )
+    {transform.translate(tx, ty);}
+
+    @Override
+    public void translate(
+      int x,
+      int y
+      )
+    {transform.translate(x, y);}
+
+    void paintImage(
+      final IImagePainter painter
+      )
+    {
+      sync();
+      displayList.add(
+        new Command(getBounds(new Rectangle(1, 1), 0))
+        {
+          @Override
+          void replay(
+            Player player
+            )
+          {painter.paint(player.context, getUnitSize(player.ctm));}
+        }
+        );
+    }
+
+    /**
+      Gets the device-space bounds of the specified user-space area.
+
+      @param bounds User-space area.
+      @param padding User-space padding around the area.
+    */
+    private Rectangle2D getBounds(
+      Rectangle2D bounds,
+      double padding
+      )
+    {
+      if(padding > 0)
+      {
+        bounds = new Rectangle2D.Double(
+          bounds.getX() - padding,
+          bounds.getY() - padding,
+          bounds.getWidth() + padding * 2,
+          bounds.getHeight() + padding * 2
+          );
+      }
+      bounds = transform.createTransformedShape(bounds).getBounds2D();
+      // NOTE: Antialiasing may bleed into the surrounding pixels.
+      return new Rectangle2D.Double(
+        bounds.getX() - 1,
+        bounds.getY() - 1,
+        bounds.getWidth() + 2,
+        bounds.getHeight() + 2
+        );
+    }
+
+    /**
+      Brings the replaying state in line with the current state.
+      <p>State changes are recorded lazily, just before the drawing commands they affect, so that
+      redundant changes (such as transformations set by content operations which don't paint
+      anything) cost nothing on replay.</p>
+    */
+    private void sync(
+      )
+    {
+      DisplayList displayList = this.displayList;
+
+      // Rendering hints.
+      for(Map.Entry<Object,Object> hint : hints.entrySet())
+      {
+        final RenderingHints.Key key = (RenderingHints.Key)hint.getKey();
+        final Object value = hint.getValue();
+        if(value.equals(displayList.syncedHints.get(key)))
+          continue;
+
+        displayList.add(
+          new Command()
+          {
+            @Override
+            void replay(
+              Player player
+              )
+            {player.context.setRenderingHint(key, value);}
+          }
+          );
+        displayList.syncedHints.put(key, value);
+      }
+
+      // Composite.
+      if(composite != displayList.syncedComposite
+        || xorColor != displayList.syncedXorColor)
+      {
+        final Composite composite = this.composite;
+        final Color xorColor = this.xorColor;
+        displayList.add(
+          new Command()
+          {
+            @Override
+            void replay(
+              Player player
+              )
+            {
+              if(xorColor != null)
+              {player.context.setXORMode(xorColor);}
+              else
+              {player.context.setComposite(composite);}
+            }
+          }
+          );
+        displayList.syncedComposite = composite;
+        displayList.syncedXorColor = xorColor;
+      }
+
+      // Paint.
+      if(paint != displayList.syncedPaint)
+      {
+        final Paint paint = this.paint;
+        displayList.add(
+          new Command()
+          {
+            @Override
+            void replay(
+              Player player
+              )
+            {player.context.setPaint(paint);}
+          }
+          );
+        displayList.syncedPaint = paint;
+      }
+
+      // Stroke.
+      if(stroke != displayList.syncedStroke)
+      {
+        final Stroke stroke = this.stroke;
+        displayList.add(
+          new Command()
+          {
+            @Override
+            void replay(
+              Player player
+              )
+            {
+              player.context.setStroke(stroke);
+              player.stroke = stroke;
+            }
+          }
+          );
+        displayList.syncedStroke = stroke;
+      }
+
+      // Transform.
+      if(!transform.equals(displayList.syncedTransform))
+      {
+        final AffineTransform transform = new AffineTransform(this.transform);
+        displayList.add(
+          new Command()
+          {
+            @Override
+            void replay(
+              Player player
+              )
+            {player.setTransform(transform);}
+          }
+          );
+        displayList.syncedTransform = transform;
+      }
+
+      // Clip.
+      if(!displayList.clipSynced || clip != displayList.syncedClip)
+      {
+        /*
+          NOTE: Clip regions nested into the current one are just intersected, whilst any other
+          change resets the target clip to its base region.
+        */
+        final boolean reset = !(displayList.clipSynced
+          && clip != null
+          && clip.parent == displayList.syncedClip);
+        final Shape[] shapes = (clip == null
+          ? new Shape[0]
+          : reset ? clip.toArray() : new Shape[]{clip.shape});
+        displayList.add(
+          new Command()
+          {
+            @Override
+            void replay(
+              Player player
+              )
+            {player.clip(shapes, reset);}
+          }
+          );
+        displayList.syncedClip = clip;
+        displayList.clipSynced = true;
+      }
+    }
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  /**
+    Point count by path segment type.
+  */
+  private static final int[] PointCounts = {1, 1, 2, 3, 0};
+  // </fields>
+
+  // <interface>
+  // <public>
+  /**
+    Fills the specified shape, guaranteed not to change (such as a cached glyph outline).
+    <p>Display lists retain such shapes by reference, instead of copying their geometry.</p>
+
+    @param context Device context.
+    @param shape Shape to fill.
+  */
+  public static void fillImmutable(
+    Graphics2D context,
+    Shape shape
+    )
+  {
+    if(context instanceof Recorder)
+    {((Recorder)context).fill(shape, true);}
+    else
+    {context.fill(shape);}
+  }
+
+  /**
+    Paints the image provided by the specified painter.
+    <p>Display lists defer the resolution of such images to their replay, so that they are painted
+    at the actual device resolution (for example, at the current zoom of a viewer).</p>
+
+    @param context Device context.
+    @param painter Image painter.
+  */
+  public static void paintImage(
+    Graphics2D context,
+    IImagePainter painter
+    )
+  {
+    if(context instanceof Recorder)
+    {((Recorder)context).paintImage(painter);}
+    else
+    {painter.paint(context, getUnitSize(context.getTransform()));}
+  }
+  // </public>
+
+  // <private>
+  private static Shape flatten(
+    Shape shape
+    )
+  {return shape instanceof Rectangle2D ? shape : new FlatShape(shape);}
+
+  /**
+    Gets the device-space size of the unit square mapped by the specified transformation.
+  */
+  private static Dimension2D getUnitSize(
+    AffineTransform transform
+    )
+  {
+    return new Dimension(
+      Math.ceil(Math.hypot(transform.getScaleX(), transform.getShearY())),
+      Math.ceil(Math.hypot(transform.getShearX(), transform.getScaleY()))
+      );
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  private final List<Command> commands = new ArrayList<Command>();
+  private final Dimension2D size;
+
+  /*
+    NOTE: Path geometry is pooled into primitive arrays: segment types and their point coordinates
+    (user-space) respectively.
+  */
+  private float[] points = new float[1024];
+  private int pointsLength;
+  private byte[] segments = new byte[256];
+  private int segmentsLength;
+
+  /*
+    NOTE: The following fields represent the replaying state at the end of the recorded commands;
+    they are used during recording only.
+  */
+  private boolean clipSynced;
+  private Graphics2D scratchContext;
+  private ClipNode syncedClip;
+  private Composite syncedComposite;
+  private final RenderingHints syncedHints = new RenderingHints(null);
+  private Paint syncedPaint;
+  private Stroke syncedStroke;
+  private AffineTransform syncedTransform;
+  private Color syncedXorColor;
+  // </fields>
+
+  // <constructors>
+  /**
+    Records the specified content context at its natural size (that is one device-space unit per
+    default user-space unit).
+    <p>Such a display list is suitable to be replayed at any zoom through {@link
+    #render(Graphics2D,Dimension2D)}.</p>
+
+    @param contentContext Content context to render.
+  */
+  public DisplayList(
+    IContentContext contentContext
+    )
+  {
+    this(
+      contentContext,
+      contentContext.getRotation().transform(
+        new Dimension(contentContext.getBox().getWidth(), contentContext.getBox().getHeight())
+        )
+      );
+  }
+
+  /**
+    Records the specified content context.
+
+    @param contentContext Content context to render.
+    @param size Rendering canvas size.
+  */
+  public DisplayList(
+    IContentContext contentContext,
+    Dimension2D size
+    )
+  {
+    this.size = new Dimension(size.getWidth(), size.getHeight());
+
+    try
+    {contentContext.render(new Recorder(this), size);}
+    finally
+    {
+      if(scratchContext != null)
+      {
+        scratchContext.dispose();
+        scratchContext = null;
+      }
+      syncedClip = null;
+      syncedComposite = null;
+      syncedHints.clear();
+      syncedPaint = null;
+      syncedStroke = null;
+      syncedTransform = null;
+      syncedXorColor = null;
+    }
+    ((ArrayList<Command>)commands).trimToSize();
+    points = Arrays.copyOf(points, pointsLength);
+    segments = Arrays.copyOf(segments, segmentsLength);
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Gets the number of recorded commands.
+  */
+  public int getCommandCount(
+    )
+  {return commands.size();}
+
+  /**
+    Gets the size of the canvas the display list was recorded on.
+  */
+  public Dimension2D getSize(
+    )
+  {return size;}
+
+  /**
+    Replays the display list onto the specified device context, scaling it to the specified canvas
+    size.
+
+    @param context Target device context.
+    @param size Target canvas size.
+    @see #render(Graphics2D)
+  */
+  public void render(
+    Graphics2D context,
+    Dimension2D size
+    )
+  {
+    AffineTransform transform = context.getTransform();
+    try
+    {
+      context.scale(
+        size.getWidth() / this.size.getWidth(),
+        size.getHeight() / this.size.getHeight()
+        );
+      render(context);
+    }
+    finally
+    {context.setTransform(transform);}
+  }
+
+  /**
+    Replays the display list onto the specified device context.
+    <p>The current transformation and clip of the context are applied to the whole display list
+    (for example, translating the context by the negated origin of a tile renders just that tile
+    of the canvas); painting commands falling outside the device bounds and the clip of the context
+    are skipped. The state of the context is restored at the end.</p>
+
+    @param context Target device context.
+  */
+  public void render(
+    Graphics2D context
+    )
+  {
+    AffineTransform transform = context.getTransform();
+    Shape clip = context.getClip();
+    Paint paint = context.getPaint();
+    Stroke stroke = context.getStroke();
+    Composite composite = context.getComposite();
+    RenderingHints hints = context.getRenderingHints();
+    try
+    {
+      Player player = new Player(context);
+      Rectangle2D targetBounds = player.targetBounds;
+      for(Command command : commands)
+      {
+        // Skip painting outside the target area!
+        if(targetBounds != null
+          && command.bounds != null
+          && !command.bounds.intersects(targetBounds))
+          continue;
+
+        command.replay(player);
+      }
+    }
+    finally
+    {
+      context.setRenderingHints(hints);
+      context.setPaintMode();
+      context.setComposite(composite);
+      context.setStroke(stroke);
+      context.setPaint(paint);
+      context.setTransform(transform);
+      context.setClip(clip);
+    }
+  }
+  // </public>
+
+  // <private>
+  private void add(
+    Command command
+    )
+  {commands.add(command);}
+
+  /**
+    Gets an immutable copy of the specified shape.
+  */
+  private Shape copy(
+    Shape shape
+    )
+  {
+    if(shape instanceof Rectangle2D)
+      return (Shape)((Rectangle2D)shape).clone();
+
+    int segmentOffset = segmentsLength, pointOffset = pointsLength;
+    float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+    float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+    PathIterator iterator = shape.getPathIterator(null);
+    float[] coords = new float[6];
+    for(; !iterator.isDone(); iterator.next())
+    {
+      int type = iterator.currentSegment(coords);
+      int length = PointCounts[type] * 2;
+      if(segmentsLength == segments.length)
+      {segments = Arrays.copyOf(segments, segmentsLength * 2);}
+      if(pointsLength + length > points.length)
+      {points = Arrays.copyOf(points, Math.max(points.length * 2, pointsLength + length));}
+
+      segments[segmentsLength++] = (byte)type;
+      for(int index = 0; index < length;)
+      {
+        float x = coords[index++], y = coords[index++];
+        points[pointsLength++] = x;
+        points[pointsLength++] = y;
+        minX = Math.min(minX, x); maxX = Math.max(maxX, x);
+        minY = Math.min(minY, y); maxY = Math.max(maxY, y);
+      }
+    }
+    return new PathShape(
+      segmentOffset,
+      segmentsLength,
+      pointOffset,
+      iterator.getWindingRule(),
+      minX <= maxX
+        ? new Rectangle2D.Float(minX, minY, maxX - minX, maxY - minY)
+        : new Rectangle2D.Float()
+      );
+  }
+
+  private Graphics2D getScratchContext(
+    )
+  {
+    if(scratchContext == null)
+    {scratchContext = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();}
+    return scratchContext;
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
@@ -0,0 +1,126 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+/**
+  Rendering hint keys controlling the level of detail of content rendering.
+  <p>These hints are set on the rendering context before {@link IContentContext#render(Graphics2D,
+  java.awt.geom.Dimension2D) rendering}, trading fidelity for speed where the output resolution
+  can't show the difference (for example, thumbnails); they are ignored by the other Java 2D
+  operations. Absent hints keep full fidelity.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+public final class RenderingHintKey
+  extends RenderingHints.Key
+{
+  // <class>
+  // <static>
+  // <fields>
+  /**
+    Whether images are resolved at reduced fidelity ({@link Boolean} value).
+    <p>Rasters are accepted down to half the device resolution they are painted at, JPEG images
+    are decoded directly at the coarsest adequate resolution and painted with bilinear
+    interpolation.</p>
+  */
+  public static final RenderingHintKey DraftImages = new RenderingHintKey(0, Boolean.class);
+  /**
+    Maximum number of content objects to scan per rendering ({@link Number} value; non-positive
+    for unlimited).
+    <p>Once the limit is exceeded, the rendering is truncated, capping the work spent on
+    exceptionally complex contents.</p>
+  */
+  public static final RenderingHintKey MaxObjectCount = new RenderingHintKey(1, Number.class);
+  /**
+    Minimum device-space extent of the paths to paint ({@link Number} value, typically in pixels).
+    <p>Paths whose bounding box is smaller than this size in both dimensions are skipped.</p>
+  */
+  public static final RenderingHintKey MinPathSize = new RenderingHintKey(2, Number.class);
+  /**
+    Minimum device-space font size of the text to paint as glyphs ({@link Number} value, typically
+    in pixels).
+    <p>Smaller text is greeked, that is painted as a translucent bar covering its extent instead of
+    its glyph outlines.</p>
+  */
+  public static final RenderingHintKey MinTextSize = new RenderingHintKey(3, Number.class);
+  // </fields>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  private final Class<?> valueClass;
+  // </fields>
+
+  // <constructors>
+  private RenderingHintKey(
+    int key,
+    Class<?> valueClass
+    )
+  {
+    super(key);
+    this.valueClass = valueClass;
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Gets the boolean value of this hint in the specified rendering context.
+
+    @return <code>false</code>, if the hint is absent.
+  */
+  public boolean getBooleanValue(
+    Graphics2D context
+    )
+  {return Boolean.TRUE.equals(context.getRenderingHint(this));}
+
+  /**
+    Gets the numeric value of this hint in the specified rendering context.
+
+    @return <code>0</code>, if the hint is absent.
+  */
+  public double getDoubleValue(
+    Graphics2D context
+    )
+  {
+    Object value = context.getRenderingHint(this);
+    return value instanceof Number ? ((Number)value).doubleValue() : 0;
+  }
+
+  @Override
+  public boolean isCompatibleValue(
+    Object value
+    )
+  {return valueClass.isInstance(value);}
+  // </public>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
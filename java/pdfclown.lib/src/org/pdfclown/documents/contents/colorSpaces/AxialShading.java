@@ -0,0 +1,191 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.colorSpaces;
+
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+
+import org.pdfclown.PDF;
+import org.pdfclown.VersionEnum;
+import org.pdfclown.objects.PdfDictionary;
+import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfName;
+
+/**
+  Axial shading, varying color along a line between two points [PDF:1.6:4.6.3].
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+@PDF(VersionEnum.PDF13)
+public final class AxialShading
+  extends Shading<PdfDictionary>
+{
+  // <class>
+  // <classes>
+  private final class AxialPaint
+    extends ShadingPaint
+  {
+    private final int[] colorTable;
+    private final double[] coords;
+    private final boolean[] extension;
+
+    AxialPaint(
+      AffineTransform transform,
+      boolean background
+      )
+    {
+      super(transform, getBackgroundRGB(background), isExtended(getExtension()));
+
+      double[] domain = getDomain();
+      colorTable = getColorTable(domain[0], domain[1]);
+      coords = getCoords();
+      extension = getExtension();
+    }
+
+    @Override
+    protected Context createContext(
+      AffineTransform transform,
+      Rectangle deviceBounds
+      )
+    {
+      return new Context(transform)
+        {
+          @Override
+          protected void paint(
+            int[] pixels,
+            int scanlineStride,
+            int x,
+            int y,
+            int width,
+            int height
+            )
+          {
+            double x0 = coords[0], y0 = coords[1];
+            double dx = coords[2] - x0, dy = coords[3] - y0;
+            double length = dx * dx + dy * dy;
+            if(length == 0) // NOTE: Degenerate axis.
+            {dx = dy = 0; length = 1;}
+            int lastColorIndex = colorTable.length - 1;
+            int lowColor = (extension[0] ? colorTable[0] : background);
+            int highColor = (extension[1] ? colorTable[lastColorIndex] : background);
+
+            /*
+              NOTE: As the parametric variable s is a linear function of the device coordinates, it's
+              computed once per row and incremented across pixels.
+            */
+            double sStep = (inverseTransform.getScaleX() * dx + inverseTransform.getShearY() * dy) / length;
+            double[] point = new double[2];
+            for(
+              int row = 0;
+              row < height;
+              row++
+              )
+            {
+              point[0] = x + .5; point[1] = y + row + .5;
+              inverseTransform.transform(point, 0, point, 0, 1);
+              double s = ((point[0] - x0) * dx + (point[1] - y0) * dy) / length;
+              for(
+                int offset = row * scanlineStride,
+                  limit = offset + width;
+                offset < limit;
+                offset++,
+                  s += sStep
+                )
+              {
+                if(s < 0)
+                {pixels[offset] = lowColor;}
+                else if(s > 1)
+                {pixels[offset] = highColor;}
+                else
+                {pixels[offset] = colorTable[(int)(s * lastColorIndex + .5)];}
+              }
+            }
+          }
+        };
+    }
+  }
+  // </classes>
+
+  // <static>
+  // <interface>
+  // <private>
+  private static boolean isExtended(
+    boolean[] extension
+    )
+  {return extension[0] && extension[1];}
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <constructors>
+  //TODO:IMPL new element constructor!
+
+  AxialShading(
+    PdfDirectObject baseObject
+    )
+  {super(baseObject);}
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Gets the starting and ending coordinates of the axis, expressed in shading space
+    (<code>[x0 y0 x1 y1]</code>).
+  */
+  public double[] getCoords(
+    )
+  {return getNumbers(PdfName.Coords, null);}
+
+  /**
+    Gets the limiting values of the parametric variable (<code>[t0 t1]</code>), which is mapped
+    over the axis from its starting point to its ending one.
+  */
+  public double[] getDomain(
+    )
+  {return getNumbers(PdfName.Domain, new double[]{0, 1});}
+
+  /**
+    Gets whether the shading has to be extended beyond the starting and ending points of the axis,
+    respectively.
+  */
+  public boolean[] getExtension(
+    )
+  {return getBooleans(PdfName.Extend, new boolean[]{false, false});}
+
+  @Override
+  public Paint getPaint(
+    AffineTransform transform,
+    boolean background
+    )
+  {return new AxialPaint(transform, background);}
+  // </public>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
@@ -25,7 +25,6 @@
 
 package org.pdfclown.documents.contents.colorSpaces;
 
-import java.awt.Paint;
 import java.util.List;
 
 import org.pdfclown.PDF;
@@ -42,7 +41,7 @@ import org.pdfclown.util.NotImplementedException;
   single-component color value [PDF:1.6:4.5.4].
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
-  @version 0.1.1, 11/09/11
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF11)
 public final class CalGrayColorSpace
@@ -95,15 +94,6 @@ public final class CalGrayColorSpace
       : new double[]{gammaObject.getDoubleValue()}
       );
   }
-
-  @Override
-  public Paint getPaint(
-    Color<?> color
-    )
-  {
-    // FIXME: temporary hack
-    return new java.awt.Color(0,0,0);
-  }
   // </public>
   // </interface>
   // </dynamic>
@@ -25,7 +25,6 @@
 
 package org.pdfclown.documents.contents.colorSpaces;
 
-import java.awt.Paint;
 import java.util.List;
 
 import org.pdfclown.PDF;
@@ -43,7 +42,7 @@ import org.pdfclown.util.NotImplementedException;
   green and blue color values [PDF:1.6:4.5.4].
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
-  @version 0.1.1, 11/09/11
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF11)
 public final class CalRGBColorSpace
@@ -85,6 +84,31 @@ public final class CalRGBColorSpace
     )
   {return CalRGBColor.Default;}
 
+  /**
+    Gets the linear interpretation of the decoded A, B and C components with respect to the final
+    XYZ representation.
+
+    @return Matrix components (X<sub>A</sub>, Y<sub>A</sub>, Z<sub>A</sub>, X<sub>B</sub>,
+      Y<sub>B</sub>, Z<sub>B</sub>, X<sub>C</sub>, Y<sub>C</sub>, Z<sub>C</sub>).
+    @since 0.1.3
+  */
+  public double[] getMatrix(
+    )
+  {
+    PdfArray matrixObject = (PdfArray)getDictionary().get(PdfName.Matrix);
+    double[] matrix = new double[]{1, 0, 0, 0, 1, 0, 0, 0, 1};
+    if(matrixObject != null)
+    {
+      for(
+        int index = 0;
+        index < matrix.length;
+        index++
+        )
+      {matrix[index] = ((PdfNumber<?>)matrixObject.get(index)).getDoubleValue();}
+    }
+    return matrix;
+  }
+
   @Override
   public double[] getGamma(
     )
@@ -105,15 +129,6 @@ public final class CalRGBColorSpace
         }
       );
   }
-
-  @Override
-  public Paint getPaint(
-    Color<?> color
-    )
-  {
-    // FIXME: temporary hack
-    return new java.awt.Color(0,0,0);
-  }
   // </public>
   // </interface>
   // </dynamic>
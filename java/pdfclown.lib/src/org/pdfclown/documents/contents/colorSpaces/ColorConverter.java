@@ -0,0 +1,1002 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.colorSpaces;
+
+import java.awt.color.CMMException;
+import java.awt.color.ICC_ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.awt.color.ProfileDataException;
+import java.awt.image.ColorConvertOp;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Hashtable;
+
+import org.pdfclown.documents.functions.Function;
+import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfNumber;
+import org.pdfclown.objects.PdfReference;
+import org.pdfclown.objects.PdfStream;
+import org.pdfclown.util.IDataWrapper;
+
+/**
+  Conversion of color values into sRGB.
+  <p>Converters are meant to be reused: expensive conversions (ICC profiles, CIE-based, process and
+  special color spaces) are sampled into color lookup tables (CLUTs) interpolated on each conversion,
+  indexed color spaces are resolved into sRGB palettes, and whole rows of colors are converted at
+  once. Converters of indirect color spaces and ICC profiles are shared within the document.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+public abstract class ColorConverter
+{
+  // <class>
+  // <classes>
+  /**
+    Conversion sampled into a color lookup table.
+    <p>The table is built on the first conversion, so that the same color is always converted the
+    same way; color spaces with more than 4 components are always converted directly.</p>
+  */
+  private static abstract class SampledConverter
+    extends ColorConverter
+  {
+    /**
+      Number of table samples along each dimension, by component count.
+    */
+    private static final int[] GridSizes = new int[]{0, 256, 65, 33, 17};
+
+    /**
+      Per-thread buffers of the single-color conversion (component values and sRGB components).
+    */
+    private final ThreadLocal<float[][]> buffers = new ThreadLocal<float[][]>()
+      {
+        @Override
+        protected float[][] initialValue(
+          )
+        {return new float[][]{new float[componentCount], new float[3]};}
+      };
+    private int gridSize;
+    private int[] strides;
+    private volatile float[] table;
+
+    protected SampledConverter(
+      float[] ranges
+      )
+    {super(ranges);}
+
+    @Override
+    public int getRGB(
+      float[] components,
+      int offset
+      )
+    {
+      float[][] buffers = this.buffers.get();
+      float[] table = this.table;
+      if(table == null)
+      {
+        if(componentCount >= GridSizes.length)
+        {
+          float[] inputs = buffers[0];
+          for(
+            int index = 0;
+            index < componentCount;
+            index++
+            )
+          {inputs[index] = clip(components[offset + index], index);}
+          float[] rgb = buffers[1];
+          sample(inputs, rgb, 1);
+          return packRGB(rgb[0], rgb[1], rgb[2]);
+        }
+        table = getTable();
+      }
+
+      // Multilinear interpolation.
+      int gridSize = this.gridSize;
+      int baseIndex = 0;
+      float[] fractions = buffers[0];
+      for(
+        int index = 0;
+        index < componentCount;
+        index++
+        )
+      {
+        float low = ranges[index * 2], high = ranges[index * 2 + 1];
+        float position = (high > low ? (clip(components[offset + index], index) - low) / (high - low) * (gridSize - 1) : 0);
+        int gridIndex = (int)position;
+        if(gridIndex >= gridSize - 1)
+        {gridIndex = gridSize - 2;}
+        fractions[index] = position - gridIndex;
+        baseIndex += gridIndex * strides[index];
+      }
+      float red = 0, green = 0, blue = 0;
+      for(
+        int corner = 0,
+          cornerCount = 1 << componentCount;
+        corner < cornerCount;
+        corner++
+        )
+      {
+        float weight = 1;
+        int cornerIndex = baseIndex;
+        for(
+          int index = 0;
+          index < componentCount;
+          index++
+          )
+        {
+          if((corner & (1 << index)) != 0)
+          {
+            weight *= fractions[index];
+            cornerIndex += strides[index];
+          }
+          else
+          {weight *= 1 - fractions[index];}
+        }
+        if(weight == 0)
+          continue;
+
+        cornerIndex *= 3;
+        red += weight * table[cornerIndex];
+        green += weight * table[cornerIndex + 1];
+        blue += weight * table[cornerIndex + 2];
+      }
+      return packRGB(red, green, blue);
+    }
+
+    @Override
+    public void getRGB(
+      float[] components,
+      int[] rgbs,
+      int rgbOffset,
+      int count
+      )
+    {
+      if(componentCount < GridSizes.length)
+      {getTable();}
+      super.getRGB(components, rgbs, rgbOffset, count);
+    }
+
+    /**
+      Converts the specified colors.
+
+      @param inputs Color components (within the component ranges).
+      @param rgbs Target sRGB components (0-255 range).
+      @param count Number of colors.
+    */
+    protected abstract void sample(
+      float[] inputs,
+      float[] rgbs,
+      int count
+      );
+
+    private float clip(
+      float value,
+      int index
+      )
+    {
+      float low = ranges[index * 2], high = ranges[index * 2 + 1];
+      return value < low ? low : value > high ? high : value;
+    }
+
+    private synchronized float[] getTable(
+      )
+    {
+      if(table == null)
+      {
+        int gridSize = GridSizes[componentCount];
+        int[] strides = new int[componentCount];
+        int pointCount = 1;
+        for(
+          int index = componentCount - 1;
+          index >= 0;
+          index--
+          )
+        {
+          strides[index] = pointCount;
+          pointCount *= gridSize;
+        }
+
+        float[] inputs = new float[pointCount * componentCount];
+        for(
+          int pointIndex = 0,
+            inputIndex = 0;
+          pointIndex < pointCount;
+          pointIndex++
+          )
+        {
+          for(
+            int index = 0;
+            index < componentCount;
+            index++
+            )
+          {
+            float low = ranges[index * 2], high = ranges[index * 2 + 1];
+            inputs[inputIndex++] = low + (pointIndex / strides[index] % gridSize) * (high - low) / (gridSize - 1);
+          }
+        }
+        float[] table = new float[pointCount * 3];
+        sample(inputs, table, pointCount);
+
+        this.gridSize = gridSize;
+        this.strides = strides;
+        this.table = table;
+      }
+      return table;
+    }
+  }
+
+  private static final class CalGrayConverter
+    extends SampledConverter
+  {
+    private final double gamma;
+    private final double[] whitePoint;
+
+    CalGrayConverter(
+      CalGrayColorSpace colorSpace
+      )
+    {
+      super(new float[]{0, 1});
+
+      gamma = colorSpace.getGamma()[0];
+      whitePoint = colorSpace.getWhitePoint();
+    }
+
+    @Override
+    protected void sample(
+      float[] inputs,
+      float[] rgbs,
+      int count
+      )
+    {
+      for(
+        int index = 0;
+        index < count;
+        index++
+        )
+      {
+        double level = Math.pow(inputs[index], gamma);
+        toSRGB(whitePoint[0] * level, whitePoint[1] * level, whitePoint[2] * level, whitePoint, rgbs, index * 3);
+      }
+    }
+  }
+
+  private static final class CalRGBConverter
+    extends SampledConverter
+  {
+    private final double[] gamma;
+    private final double[] matrix;
+    private final double[] whitePoint;
+
+    CalRGBConverter(
+      CalRGBColorSpace colorSpace
+      )
+    {
+      super(new float[]{0, 1, 0, 1, 0, 1});
+
+      gamma = colorSpace.getGamma();
+      matrix = colorSpace.getMatrix();
+      whitePoint = colorSpace.getWhitePoint();
+    }
+
+    @Override
+    protected void sample(
+      float[] inputs,
+      float[] rgbs,
+      int count
+      )
+    {
+      for(
+        int index = 0;
+        index < count;
+        index++
+        )
+      {
+        double a = Math.pow(inputs[index * 3], gamma[0]);
+        double b = Math.pow(inputs[index * 3 + 1], gamma[1]);
+        double c = Math.pow(inputs[index * 3 + 2], gamma[2]);
+        toSRGB(
+          matrix[0] * a + matrix[3] * b + matrix[6] * c,
+          matrix[1] * a + matrix[4] * b + matrix[7] * c,
+          matrix[2] * a + matrix[5] * b + matrix[8] * c,
+          whitePoint,
+          rgbs,
+          index * 3
+          );
+      }
+    }
+  }
+
+  /**
+    DeviceCMYK conversion.
+    <p>Process colors are interpreted according to a polynomial approximation of a coated press
+    profile (SWOP), which renders print-oriented documents far more faithfully than the naive
+    complement formula.</p>
+  */
+  private static final class CMYKConverter
+    extends SampledConverter
+  {
+    CMYKConverter(
+      )
+    {super(new float[]{0, 1, 0, 1, 0, 1, 0, 1});}
+
+    @Override
+    protected void sample(
+      float[] inputs,
+      float[] rgbs,
+      int count
+      )
+    {
+      for(
+        int index = 0;
+        index < count;
+        index++
+        )
+      {
+        double c = inputs[index * 4], m = inputs[index * 4 + 1], y = inputs[index * 4 + 2], k = inputs[index * 4 + 3];
+        rgbs[index * 3] = (float)(255
+          + c * (-4.387332384609988 * c + 54.48615194189176 * m + 18.82290502165302 * y + 212.25662451639585 * k - 285.2331026137004)
+          + m * (1.7149763477362134 * m - 5.6096736904047315 * y - 17.873870861415444 * k - 5.497006427196366)
+          + y * (-2.5217340131683033 * y - 21.248923337353073 * k + 17.5119270841813)
+          + k * (-21.86122147463605 * k - 189.48180835922747));
+        rgbs[index * 3 + 1] = (float)(255
+          + c * (8.841041422036149 * c + 60.118027045597366 * m + 6.871425592049007 * y + 31.159100130055922 * k - 79.2970844816548)
+          + m * (-15.310361306967817 * m + 17.575251261109482 * y + 131.35250912493976 * k - 190.9453302588951)
+          + y * (4.444339102852739 * y + 9.8632861493405 * k - 24.86741582555878)
+          + k * (-20.737325471181034 * k - 187.80453709719578));
+        rgbs[index * 3 + 2] = (float)(255
+          + c * (0.8842522430003296 * c + 8.078677503112928 * m + 30.89978309703729 * y - 0.23883238689178934 * k - 14.183576799673286)
+          + m * (10.49593273432072 * m + 63.02378494754052 * y + 50.606957656360734 * k - 112.23884253719248)
+          + y * (0.03296041114873217 * y + 115.60384449646641 * k - 193.58209356861505)
+          + k * (-22.33816807309886 * k - 180.12613974708367));
+      }
+    }
+  }
+
+  private static final class GrayConverter
+    extends ColorConverter
+  {
+    GrayConverter(
+      )
+    {super(new float[]{0, 1});}
+
+    @Override
+    public int getRGB(
+      float[] components,
+      int offset
+      )
+    {
+      float level = components[offset] * 255;
+      return packRGB(level, level, level);
+    }
+  }
+
+  /**
+    ICC-based conversion.
+    <p>The profile transformation (performed by the platform color management module) is used to
+    sample the table only. As damaged profiles may fail on transformation only, in such case the
+    alternate color space takes over.</p>
+  */
+  private static final class ICCConverter
+    extends SampledConverter
+  {
+    private final ICCBasedColorSpace colorSpace;
+    /**
+      Profile transformation (<code>null</code> if the profile turned out to be unusable).
+    */
+    private ColorConvertOp operation;
+
+    ICCConverter(
+      float[] ranges,
+      ICCBasedColorSpace colorSpace,
+      ICC_ColorSpace profileSpace
+      )
+    {
+      super(ranges);
+
+      this.colorSpace = colorSpace;
+      operation = new ColorConvertOp(profileSpace, java.awt.color.ColorSpace.getInstance(java.awt.color.ColorSpace.CS_sRGB), null);
+    }
+
+    @Override
+    protected synchronized void sample(
+      float[] inputs,
+      float[] rgbs,
+      int count
+      )
+    {
+      if(operation != null)
+      {
+        try
+        {
+          transform(inputs, rgbs, count);
+          return;
+        }
+        catch(CMMException e)
+        {operation = null;}
+        catch(ProfileDataException e)
+        {operation = null;}
+        catch(IllegalArgumentException e)
+        {operation = null;}
+      }
+
+      ColorConverter alternateConverter = colorSpace.getAlternateSpace().getConverter();
+      for(
+        int index = 0;
+        index < count;
+        index++
+        )
+      {
+        int rgb = alternateConverter.getRGB(inputs, index * componentCount);
+        rgbs[index * 3] = (rgb >> 16) & 0xff;
+        rgbs[index * 3 + 1] = (rgb >> 8) & 0xff;
+        rgbs[index * 3 + 2] = rgb & 0xff;
+      }
+    }
+
+    private void transform(
+      float[] inputs,
+      float[] rgbs,
+      int count
+      )
+    {
+      WritableRaster source = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, count, 1, componentCount, null);
+      byte[] sourceData = ((DataBufferByte)source.getDataBuffer()).getData();
+      for(
+        int index = 0,
+          length = count * componentCount;
+        index < length;
+        index++
+        )
+      {
+        int componentIndex = index % componentCount;
+        float low = ranges[componentIndex * 2], high = ranges[componentIndex * 2 + 1];
+        sourceData[index] = (byte)Math.round(high > low ? (inputs[index] - low) / (high - low) * 255 : 0);
+      }
+      WritableRaster target = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, count, 1, 3, null);
+      operation.filter(source, target);
+      byte[] targetData = ((DataBufferByte)target.getDataBuffer()).getData();
+      for(
+        int index = 0,
+          length = count * 3;
+        index < length;
+        index++
+        )
+      {rgbs[index] = targetData[index] & 0xff;}
+    }
+  }
+
+  private static final class IndexedConverter
+    extends ColorConverter
+  {
+    private final int[] palette;
+
+    IndexedConverter(
+      IndexedColorSpace colorSpace
+      )
+    {
+      super(new float[]{0, ((PdfNumber<?>)colorSpace.getBaseDataObject().resolve(2)).getIntValue()});
+
+      /*
+        NOTE: The whole color table is converted at once into the target space.
+      */
+      ColorConverter baseConverter = colorSpace.getBaseSpace().getConverter();
+      int baseComponentCount = baseConverter.componentCount;
+      byte[] lookup = ((IDataWrapper)colorSpace.getBaseDataObject().resolve(3)).toByteArray();
+      int colorCount = (int)ranges[1] + 1;
+      float[] baseComponents = new float[colorCount * baseComponentCount];
+      for(
+        int index = 0;
+        index < baseComponents.length;
+        index++
+        )
+      {
+        int componentIndex = index % baseComponentCount;
+        float low = baseConverter.ranges[componentIndex * 2], high = baseConverter.ranges[componentIndex * 2 + 1];
+        baseComponents[index] = low + (index < lookup.length ? lookup[index] & 0xff : 0) * (high - low) / 255;
+      }
+      palette = new int[colorCount];
+      baseConverter.getRGB(baseComponents, palette, 0, colorCount);
+    }
+
+    @Override
+    public float[] getDefaultDecode(
+      int bitsPerComponent
+      )
+    {return new float[]{0, (1 << bitsPerComponent) - 1};}
+
+    @Override
+    public int getRGB(
+      float[] components,
+      int offset
+      )
+    {
+      int index = Math.round(components[offset]);
+      return palette[index < 0 ? 0 : index < palette.length ? index : palette.length - 1];
+    }
+  }
+
+  private static final class LabConverter
+    extends SampledConverter
+  {
+    private final double[] whitePoint;
+
+    LabConverter(
+      LabColorSpace colorSpace
+      )
+    {
+      super(toRanges((PdfArray)colorSpace.getDictionary().resolve(PdfName.Range), new float[]{0, 100, -100, 100, -100, 100}, 1));
+
+      whitePoint = colorSpace.getWhitePoint();
+    }
+
+    @Override
+    protected void sample(
+      float[] inputs,
+      float[] rgbs,
+      int count
+      )
+    {
+      for(
+        int index = 0;
+        index < count;
+        index++
+        )
+      {
+        double m = (inputs[index * 3] + 16) / 116d;
+        toSRGB(
+          whitePoint[0] * inverseLab(m + inputs[index * 3 + 1] / 500d),
+          whitePoint[1] * inverseLab(m),
+          whitePoint[2] * inverseLab(m - inputs[index * 3 + 2] / 200d),
+          whitePoint,
+          rgbs,
+          index * 3
+          );
+      }
+    }
+
+    private double inverseLab(
+      double value
+      )
+    {return value >= 6 / 29d ? value * value * value : 108 / 841d * (value - 4 / 29d);}
+  }
+
+  private static final class RGBConverter
+    extends ColorConverter
+  {
+    RGBConverter(
+      )
+    {super(new float[]{0, 1, 0, 1, 0, 1});}
+
+    @Override
+    public int getRGB(
+      float[] components,
+      int offset
+      )
+    {return packRGB(components[offset] * 255, components[offset + 1] * 255, components[offset + 2] * 255);}
+  }
+
+  /**
+    Separation and DeviceN conversion through the tint transform into the alternate color space.
+  */
+  private static final class TintConverter
+    extends SampledConverter
+  {
+    private final ColorConverter alternateConverter;
+    /**
+      Per-thread buffers of the tint transform (input and output values).
+    */
+    private final ThreadLocal<double[][]> tintBuffers = new ThreadLocal<double[][]>()
+      {
+        @Override
+        protected double[][] initialValue(
+          )
+        {return new double[][]{new double[componentCount], new double[alternateConverter.componentCount]};}
+      };
+    /**
+      Per-thread buffers of the single-color conversion into the alternate color space.
+    */
+    private final ThreadLocal<float[]> alternateBuffers = new ThreadLocal<float[]>()
+      {
+        @Override
+        protected float[] initialValue(
+          )
+        {return new float[alternateConverter.componentCount];}
+      };
+    private final Function<?> tintFunction;
+
+    TintConverter(
+      SpecialDeviceColorSpace colorSpace
+      )
+    {
+      super(getUnitRanges(colorSpace.getComponentCount()));
+
+      alternateConverter = colorSpace.getAlternateSpace().getConverter();
+      tintFunction = colorSpace.getTintFunction();
+    }
+
+    @Override
+    protected void sample(
+      float[] inputs,
+      float[] rgbs,
+      int count
+      )
+    {
+      double[][] tintBuffers = this.tintBuffers.get();
+      double[] tints = tintBuffers[0];
+      double[] alternateComponents = tintBuffers[1];
+      // NOTE: Single colors (direct conversion) are converted without allocations.
+      float[] alternateColors = (count == 1 ? alternateBuffers.get() : new float[count * alternateComponents.length]);
+      for(
+        int index = 0,
+          inputIndex = 0,
+          alternateIndex = 0;
+        index < count;
+        index++
+        )
+      {
+        for(
+          int componentIndex = 0;
+          componentIndex < tints.length;
+          componentIndex++
+          )
+        {tints[componentIndex] = inputs[inputIndex++];}
+        tintFunction.calculate(tints, alternateComponents);
+        for(double alternateComponent : alternateComponents)
+        {alternateColors[alternateIndex++] = (float)alternateComponent;}
+      }
+
+      if(count == 1)
+      {
+        int rgb = alternateConverter.getRGB(alternateColors, 0);
+        rgbs[0] = (rgb >> 16) & 0xff;
+        rgbs[1] = (rgb >> 8) & 0xff;
+        rgbs[2] = rgb & 0xff;
+        return;
+      }
+
+      int[] alternateRGBs = new int[count];
+      alternateConverter.getRGB(alternateColors, alternateRGBs, 0, count);
+      for(
+        int index = 0;
+        index < count;
+        index++
+        )
+      {
+        int rgb = alternateRGBs[index];
+        rgbs[index * 3] = (rgb >> 16) & 0xff;
+        rgbs[index * 3 + 1] = (rgb >> 8) & 0xff;
+        rgbs[index * 3 + 2] = rgb & 0xff;
+      }
+    }
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  private static final ColorConverter DeviceCMYK = new CMYKConverter();
+  private static final ColorConverter DeviceGray = new GrayConverter();
+  private static final ColorConverter DeviceRGB = new RGBConverter();
+  // </fields>
+
+  // <interface>
+  // <public>
+  /**
+    Gets the converter of the specified color space.
+    <p>Converters are shared across the document for indirect color spaces and ICC profiles.</p>
+
+    @throws UnsupportedOperationException If the color space has no color values (pattern).
+  */
+  public static ColorConverter get(
+    ColorSpace<?> colorSpace
+    )
+  {
+    PdfDirectObject key = (colorSpace instanceof ICCBasedColorSpace
+      ? ((ICCBasedColorSpace)colorSpace).getBaseDataObject().get(1)
+      : colorSpace.getBaseObject());
+    if(key instanceof PdfReference)
+    {
+      PdfReference reference = (PdfReference)key;
+      // Has the converter been already instantiated?
+      Hashtable<PdfReference,Object> cache = reference.getIndirectObject().getFile().getDocument().cache;
+      synchronized(cache)
+      {
+        ColorConverter converter = (ColorConverter)cache.get(reference);
+        if(converter == null)
+        {cache.put(reference, converter = createConverter(colorSpace));}
+        return converter;
+      }
+    }
+    return createConverter(colorSpace);
+  }
+  // </public>
+
+  // <private>
+  private static ColorConverter createConverter(
+    ColorSpace<?> colorSpace
+    )
+  {
+    if(colorSpace instanceof DeviceGrayColorSpace)
+      return DeviceGray;
+    else if(colorSpace instanceof DeviceRGBColorSpace)
+      return DeviceRGB;
+    else if(colorSpace instanceof DeviceCMYKColorSpace)
+      return DeviceCMYK;
+    else if(colorSpace instanceof ICCBasedColorSpace)
+      return createICCConverter((ICCBasedColorSpace)colorSpace);
+    else if(colorSpace instanceof IndexedColorSpace)
+      return new IndexedConverter((IndexedColorSpace)colorSpace);
+    else if(colorSpace instanceof SpecialDeviceColorSpace)
+      return new TintConverter((SpecialDeviceColorSpace)colorSpace);
+    else if(colorSpace instanceof CalGrayColorSpace)
+      return new CalGrayConverter((CalGrayColorSpace)colorSpace);
+    else if(colorSpace instanceof CalRGBColorSpace)
+      return new CalRGBConverter((CalRGBColorSpace)colorSpace);
+    else if(colorSpace instanceof LabColorSpace)
+      return new LabConverter((LabColorSpace)colorSpace);
+    else
+      throw new UnsupportedOperationException(colorSpace.getClass().getSimpleName() + " conversion unsupported.");
+  }
+
+  private static ColorConverter createICCConverter(
+    ICCBasedColorSpace colorSpace
+    )
+  {
+    int componentCount = colorSpace.getComponentCount();
+    PdfStream profileStream = colorSpace.getProfile();
+    try
+    {
+      ICC_Profile profile = ICC_Profile.getInstance(profileStream.getBody().toByteArray());
+      if(profile.getNumComponents() == componentCount)
+        return new ICCConverter(
+          toRanges((PdfArray)profileStream.getHeader().resolve(PdfName.Range), getUnitRanges(componentCount), componentCount),
+          colorSpace,
+          new ICC_ColorSpace(profile)
+          );
+    }
+    catch(IllegalArgumentException e)
+    {/* NOOP: Damaged or unsupported profile. */}
+    catch(CMMException e)
+    {/* NOOP: Damaged or unsupported profile. */}
+    catch(ProfileDataException e)
+    {/* NOOP: Damaged or unsupported profile. */}
+    /*
+      NOTE: Unusable profiles are replaced by their alternate (or, by default, device) color space.
+    */
+    return colorSpace.getAlternateSpace().getConverter();
+  }
+
+  private static float[] getUnitRanges(
+    int componentCount
+    )
+  {
+    float[] ranges = new float[componentCount * 2];
+    for(
+      int index = 1;
+      index < ranges.length;
+      index += 2
+      )
+    {ranges[index] = 1;}
+    return ranges;
+  }
+
+  /**
+    Packs the specified sRGB components (0-255 range).
+  */
+  private static int packRGB(
+    float red,
+    float green,
+    float blue
+    )
+  {return (toByte(red) << 16) | (toByte(green) << 8) | toByte(blue);}
+
+  private static int toByte(
+    float value
+    )
+  {return value <= 0 ? 0 : value >= 255 ? 255 : (int)(value + .5f);}
+
+  /**
+    Gets the component ranges defined by the specified array.
+
+    @param rangesObject Ranges array.
+    @param defaultRanges Ranges to use where undefined.
+    @param offset Index of the first component defined by the ranges array.
+  */
+  private static float[] toRanges(
+    PdfArray rangesObject,
+    float[] defaultRanges,
+    int offset
+    )
+  {
+    float[] ranges = defaultRanges.clone();
+    if(rangesObject != null)
+    {
+      for(
+        int index = 0,
+          length = Math.min(rangesObject.size(), ranges.length - offset * 2);
+        index < length;
+        index++
+        )
+      {ranges[offset * 2 + index] = ((PdfNumber<?>)rangesObject.resolve(index)).getFloatValue();}
+    }
+    return ranges;
+  }
+
+  /**
+    Converts the specified CIE 1931 XYZ tristimulus value into sRGB components (0-255 range).
+    <p>The source white point is mapped to the sRGB (D65) one through von Kries scaling.</p>
+  */
+  private static void toSRGB(
+    double x,
+    double y,
+    double z,
+    double[] whitePoint,
+    float[] rgbs,
+    int offset
+    )
+  {
+    x *= .9505 / whitePoint[0];
+    y /= whitePoint[1];
+    z *= 1.089 / whitePoint[2];
+    rgbs[offset] = gammaEncode(3.2406 * x - 1.5372 * y - .4986 * z);
+    rgbs[offset + 1] = gammaEncode(-.9689 * x + 1.8758 * y + .0415 * z);
+    rgbs[offset + 2] = gammaEncode(.0557 * x - .2040 * y + 1.0570 * z);
+  }
+
+  /**
+    Applies the sRGB transfer function to the specified linear component.
+
+    @return Encoded component (0-255 range).
+  */
+  private static float gammaEncode(
+    double value
+    )
+  {
+    if(value <= 0)
+      return 0;
+    else if(value >= 1)
+      return 255;
+
+    return (float)(255 * (value <= .0031308 ? 12.92 * value : 1.055 * Math.pow(value, 1 / 2.4) - .055));
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  /**
+    Number of components of the source color space.
+  */
+  protected final int componentCount;
+  /**
+    Component ranges (low and high value pairs).
+  */
+  protected final float[] ranges;
+  // </fields>
+
+  // <constructors>
+  protected ColorConverter(
+    float[] ranges
+    )
+  {
+    this.ranges = ranges;
+    componentCount = ranges.length / 2;
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Gets the number of components of the source color space.
+  */
+  public final int getComponentCount(
+    )
+  {return componentCount;}
+
+  /**
+    Gets the decode array mapping image samples to color components by default [PDF:1.6:4.8.4].
+
+    @param bitsPerComponent Sample size.
+  */
+  public float[] getDefaultDecode(
+    int bitsPerComponent
+    )
+  {return ranges.clone();}
+
+  /**
+    Converts the specified color.
+
+    @param components Color components.
+    @param offset Position of the first component of the color.
+    @return Packed sRGB value (<code>0xRRGGBB</code>).
+  */
+  public abstract int getRGB(
+    float[] components,
+    int offset
+    );
+
+  /**
+    Converts the specified colors.
+    <p>This is the preferred way to convert image samples: sampled conversions are resolved through
+    their lookup table, and runs of identical colors are converted once.</p>
+
+    @param components Color components of consecutive colors.
+    @param rgbs Target packed sRGB values (<code>0xRRGGBB</code>).
+    @param rgbOffset Position of the first target value.
+    @param count Number of colors.
+  */
+  public void getRGB(
+    float[] components,
+    int[] rgbs,
+    int rgbOffset,
+    int count
+    )
+  {
+    int lastRGB = 0;
+    for(
+      int index = 0,
+        offset = 0;
+      index < count;
+      index++,
+        offset += componentCount
+      )
+    {
+      if(index == 0 || !isRepeated(components, offset))
+      {lastRGB = getRGB(components, offset);}
+      rgbs[rgbOffset + index] = lastRGB;
+    }
+  }
+  // </public>
+
+  // <private>
+  /**
+    Gets whether the color at the specified position equals the previous one.
+  */
+  private boolean isRepeated(
+    float[] components,
+    int offset
+    )
+  {
+    for(
+      int index = 0;
+      index < componentCount;
+      index++
+      )
+    {
+      if(components[offset + index] != components[offset - componentCount + index])
+        return false;
+    }
+    return true;
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
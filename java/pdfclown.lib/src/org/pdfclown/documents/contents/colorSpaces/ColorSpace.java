@@ -34,13 +34,14 @@ import org.pdfclown.objects.PdfArray;
 import org.pdfclown.objects.PdfDataObject;
 import org.pdfclown.objects.PdfDirectObject;
 import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfNumber;
 import org.pdfclown.objects.PdfObjectWrapper;
 
 /**
   Color space [PDF:1.6:4.5].
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
-  @version 0.1.2, 12/28/12
+  @version 0.1.3
 */
 public abstract class ColorSpace<TDataObject extends PdfDirectObject>
   extends PdfObjectWrapper<TDataObject>
@@ -103,6 +104,10 @@ public abstract class ColorSpace<TDataObject extends PdfDirectObject>
   // </static>
 
   // <dynamic>
+  // <fields>
+  private ColorConverter converter;
+  // </fields>
+
   // <constructors>
   protected ColorSpace(
     Document context,
@@ -131,6 +136,20 @@ public abstract class ColorSpace<TDataObject extends PdfDirectObject>
     IContentContext context
     );
 
+  /**
+    Gets the conversion of color values in this color space into sRGB.
+
+    @throws UnsupportedOperationException If this color space has no color values (pattern).
+    @since 0.1.3
+  */
+  public ColorConverter getConverter(
+    )
+  {
+    if(converter == null)
+    {converter = ColorConverter.get(this);}
+    return converter;
+  }
+
   /**
     Gets the number of components used to represent a color value.
   */
@@ -148,9 +167,20 @@ public abstract class ColorSpace<TDataObject extends PdfDirectObject>
 
     @param color Color value to convert into an equivalent rendering representation.
   */
-  public abstract Paint getPaint(
+  public Paint getPaint(
     Color<?> color
-    );
+    )
+  {
+    List<PdfDirectObject> componentObjects = color.getComponents();
+    float[] components = new float[componentObjects.size()];
+    for(
+      int index = 0;
+      index < components.length;
+      index++
+      )
+    {components[index] = ((PdfNumber<?>)componentObjects.get(index)).getFloatValue();}
+    return new java.awt.Color(getConverter().getRGB(components, 0));
+  }
   // </public>
   // </interface>
   // </dynamic>
@@ -25,7 +25,6 @@
 
 package org.pdfclown.documents.contents.colorSpaces;
 
-import java.awt.Paint;
 import java.util.List;
 
 import org.pdfclown.PDF;
@@ -40,7 +39,7 @@ import org.pdfclown.util.NotImplementedException;
   Device Cyan-Magenta-Yellow-Key color space [PDF:1.6:4.5.3].
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
-  @version 0.1.1, 11/01/11
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF11)
 public final class DeviceCMYKColorSpace
@@ -94,23 +93,6 @@ public final class DeviceCMYKColorSpace
   public DeviceCMYKColor getDefaultColor(
     )
   {return DeviceCMYKColor.Default;}
-
-  @Override
-  public Paint getPaint(
-    Color<?> color
-    )
-  {
-    DeviceCMYKColor spaceColor = (DeviceCMYKColor)color;
-    /*
-      NOTE: This convertion algorithm was from Apache FOP.
-    */
-    //FIXME: verify whether this algorithm is effective (limit checking seems quite ugly to me!).
-    float keyCorrection = (float)spaceColor.getK() / 2.5f;
-    float r = 1 - (float)spaceColor.getC() + keyCorrection; if(r > 1){r=1;} else if(r < 0){r=0;}
-    float g = 1 - (float)spaceColor.getM() + keyCorrection; if(g > 1){g=1;} else if(g < 0){g=0;}
-    float b = 1 - (float)spaceColor.getY() + keyCorrection; if(b > 1){b=1;} else if(b < 0){b=0;}
-    return new java.awt.Color(r, g, b);
-  }
   // </public>
   // </interface>
   // </dynamic>
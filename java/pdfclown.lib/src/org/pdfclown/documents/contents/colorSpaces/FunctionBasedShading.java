@@ -0,0 +1,245 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.colorSpaces;
+
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+
+import org.pdfclown.PDF;
+import org.pdfclown.VersionEnum;
+import org.pdfclown.objects.PdfDictionary;
+import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfName;
+
+/**
+  Function-based shading, defining the color of every point in its domain through a 2-input
+  function [PDF:1.6:4.6.3].
+  <p>The function is sampled once over a regular grid, whose colors are then bilinearly
+  interpolated on painting.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+@PDF(VersionEnum.PDF13)
+public final class FunctionBasedShading
+  extends Shading<PdfDictionary>
+{
+  // <class>
+  // <classes>
+  private final class FunctionBasedPaint
+    extends ShadingPaint
+  {
+    private final int[] colorGrid;
+    private final double[] domain;
+    private final double[] matrix;
+
+    FunctionBasedPaint(
+      AffineTransform transform,
+      boolean background
+      )
+    {
+      super(transform, getBackgroundRGB(background), false);
+
+      colorGrid = getColorGrid();
+      domain = getDomain();
+      matrix = getMatrix();
+    }
+
+    @Override
+    protected Context createContext(
+      AffineTransform transform,
+      Rectangle deviceBounds
+      )
+    {
+      // NOTE: Painting maps device space back to the function domain.
+      AffineTransform domainTransform = new AffineTransform(transform);
+      domainTransform.concatenate(new AffineTransform(matrix));
+      return new Context(domainTransform)
+        {
+          @Override
+          protected void paint(
+            int[] pixels,
+            int scanlineStride,
+            int x,
+            int y,
+            int width,
+            int height
+            )
+          {
+            double x0 = domain[0], y0 = domain[2];
+            double xScale = (domain[1] > x0 ? (ColorGridSize - 1) / (domain[1] - x0) : 0);
+            double yScale = (domain[3] > y0 ? (ColorGridSize - 1) / (domain[3] - y0) : 0);
+            double uStep = inverseTransform.getScaleX() * xScale, vStep = inverseTransform.getShearY() * yScale;
+            double[] point = new double[2];
+            for(
+              int row = 0;
+              row < height;
+              row++
+              )
+            {
+              point[0] = x + .5; point[1] = y + row + .5;
+              inverseTransform.transform(point, 0, point, 0, 1);
+              // NOTE: (u,v) are the grid coordinates of the current point.
+              double u = (point[0] - x0) * xScale, v = (point[1] - y0) * yScale;
+              for(
+                int offset = row * scanlineStride,
+                  limit = offset + width;
+                offset < limit;
+                offset++,
+                  u += uStep,
+                  v += vStep
+                )
+              {
+                if(!(u >= 0 && u <= ColorGridSize - 1 && v >= 0 && v <= ColorGridSize - 1))
+                {pixels[offset] = background; continue;}
+
+                int column = Math.min((int)u, ColorGridSize - 2), line = Math.min((int)v, ColorGridSize - 2);
+                double uFraction = u - column, vFraction = v - line;
+                int index = line * ColorGridSize + column;
+                pixels[offset] = interpolate(
+                  interpolate(colorGrid[index], colorGrid[index + 1], uFraction),
+                  interpolate(colorGrid[index + ColorGridSize], colorGrid[index + ColorGridSize + 1], uFraction),
+                  vFraction
+                  );
+              }
+            }
+          }
+        };
+    }
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  /**
+    Number of samples along each dimension of the color grid.
+  */
+  private static final int ColorGridSize = 128;
+  // </fields>
+
+  // <interface>
+  // <private>
+  /**
+    Linearly interpolates the specified RGB values.
+  */
+  private static int interpolate(
+    int rgb1,
+    int rgb2,
+    double fraction
+    )
+  {
+    if(rgb1 == rgb2)
+      return rgb1;
+
+    int r1 = (rgb1 >> 16) & 0xff, g1 = (rgb1 >> 8) & 0xff, b1 = rgb1 & 0xff;
+    return 0xff000000
+      | ((r1 + (int)((((rgb2 >> 16) & 0xff) - r1) * fraction + .5)) << 16)
+      | ((g1 + (int)((((rgb2 >> 8) & 0xff) - g1) * fraction + .5)) << 8)
+      | (b1 + (int)(((rgb2 & 0xff) - b1) * fraction + .5));
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  private int[] colorGrid;
+  // </fields>
+
+  // <constructors>
+  //TODO:IMPL new element constructor!
+
+  FunctionBasedShading(
+    PdfDirectObject baseObject
+    )
+  {super(baseObject);}
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Gets the rectangular domain of the coordinates (<code>[x0 x1 y0 y1]</code>).
+  */
+  public double[] getDomain(
+    )
+  {return getNumbers(PdfName.Domain, new double[]{0, 1, 0, 1});}
+
+  /**
+    Gets the transformation matrix mapping the coordinate space specified by the {@link #getDomain()
+    domain} into the shading space.
+  */
+  public double[] getMatrix(
+    )
+  {return getNumbers(PdfName.Matrix, new double[]{1, 0, 0, 1, 0, 0});}
+
+  @Override
+  public Paint getPaint(
+    AffineTransform transform,
+    boolean background
+    )
+  {return new FunctionBasedPaint(transform, background);}
+  // </public>
+
+  // <private>
+  /**
+    Gets the RGB values of the function evenly sampled over the domain (row-major order).
+  */
+  private synchronized int[] getColorGrid(
+    )
+  {
+    if(colorGrid == null)
+    {
+      double[] domain = getDomain();
+      int[] colorGrid = new int[ColorGridSize * ColorGridSize];
+      double[] inputs = new double[2];
+      for(
+        int line = 0,
+          index = 0;
+        line < ColorGridSize;
+        line++
+        )
+      {
+        inputs[1] = domain[2] + (domain[3] - domain[2]) * line / (ColorGridSize - 1);
+        for(
+          int column = 0;
+          column < ColorGridSize;
+          column++
+          )
+        {
+          inputs[0] = domain[0] + (domain[1] - domain[0]) * column / (ColorGridSize - 1);
+          colorGrid[index++] = getRGB(inputs);
+        }
+      }
+      this.colorGrid = colorGrid;
+    }
+    return colorGrid;
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
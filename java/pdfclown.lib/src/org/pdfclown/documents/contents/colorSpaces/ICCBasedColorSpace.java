@@ -25,7 +25,6 @@
 
 package org.pdfclown.documents.contents.colorSpaces;
 
-import java.awt.Paint;
 import java.util.List;
 
 import org.pdfclown.PDF;
@@ -33,7 +32,10 @@ import org.pdfclown.VersionEnum;
 import org.pdfclown.documents.Document;
 import org.pdfclown.documents.contents.IContentContext;
 import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfDataObject;
 import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfNumber;
 import org.pdfclown.objects.PdfStream;
 import org.pdfclown.util.NotImplementedException;
 
@@ -41,7 +43,7 @@ import org.pdfclown.util.NotImplementedException;
   ICC-based color space [PDF:1.6:4.5.4].
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
-  @version 0.1.1, 04/10/11
+  @version 0.1.3
 */
 // TODO:IMPL improve profile support (see ICC.1:2003-09 spec)!!!
 @PDF(VersionEnum.PDF13)
@@ -73,28 +75,65 @@ public final class ICCBasedColorSpace
     IContentContext context
     )
   {
-    return new DeviceRGBColor(components); // FIXME:temporary hack...
+    /*
+      NOTE: Color values are represented according to the device color space with the same number
+      of components, as the profile is applied on conversion only (see getConverter()).
+    */
+    switch(getComponentCount())
+    {
+      case 1:
+        return new DeviceGrayColor(components);
+      case 4:
+        return new DeviceCMYKColor(components);
+      default:
+        return new DeviceRGBColor(components);
+    }
   }
 
-  @Override
-  public int getComponentCount()
+  /**
+    Gets the color space to be used in case the profile is unusable.
+
+    @since 0.1.3
+  */
+  public ColorSpace<?> getAlternateSpace(
+    )
   {
-    // FIXME: Auto-generated method stub
-    return 0;
+    PdfDirectObject alternateObject = getProfile().getHeader().get(PdfName.Alternate);
+    if(alternateObject != null)
+      return ColorSpace.wrap(alternateObject);
+
+    switch(getComponentCount())
+    {
+      case 1:
+        return DeviceGrayColorSpace.Default;
+      case 4:
+        return DeviceCMYKColorSpace.Default;
+      default:
+        return DeviceRGBColorSpace.Default;
+    }
   }
 
   @Override
-  public Color<?> getDefaultColor(
+  public int getComponentCount(
     )
-  {return DeviceGrayColor.Default;} // FIXME:temporary hack...
+  {
+    PdfDataObject componentCountObject = getProfile().getHeader().resolve(PdfName.N);
+    return componentCountObject instanceof PdfNumber<?> ? ((PdfNumber<?>)componentCountObject).getIntValue() : 3;
+  }
 
   @Override
-  public Paint getPaint(
-    Color<?> color
+  public Color<?> getDefaultColor(
     )
   {
-    // FIXME: temporary hack
-    return new java.awt.Color(0,0,0);
+    switch(getComponentCount())
+    {
+      case 1:
+        return DeviceGrayColor.Black;
+      case 4:
+        return new DeviceCMYKColor(0, 0, 0, 0);
+      default:
+        return DeviceRGBColor.Black;
+    }
   }
 
   public PdfStream getProfile(
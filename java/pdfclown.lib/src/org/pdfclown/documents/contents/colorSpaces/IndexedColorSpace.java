@@ -25,7 +25,6 @@
 
 package org.pdfclown.documents.contents.colorSpaces;
 
-import java.awt.Paint;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -45,7 +44,7 @@ import org.pdfclown.util.NotImplementedException;
   Indexed color space [PDF:1.6:4.5.5].
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
-  @version 0.1.2, 02/04/12
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF11)
 public final class IndexedColorSpace
@@ -138,16 +137,6 @@ public final class IndexedColorSpace
   public Color<?> getDefaultColor(
     )
   {return IndexedColor.Default;}
-
-  @Override
-  public Paint getPaint(
-    Color<?> color
-    )
-  {
-    return getBaseSpace().getPaint(
-      getBaseColor((IndexedColor)color)
-      );
-  }
   // </public>
 
   // <private>
@@ -25,7 +25,6 @@
 
 package org.pdfclown.documents.contents.colorSpaces;
 
-import java.awt.Paint;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -46,7 +45,7 @@ import org.pdfclown.util.math.Interval;
   components of a CIE 1976 L*a*b* space [PDF:1.6:4.5.4].
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
-  @version 0.1.1, 11/09/11
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF11)
 public final class LabColorSpace
@@ -141,15 +140,6 @@ public final class LabColorSpace
     }
     return ranges;
   }
-
-  @Override
-  public Paint getPaint(
-    Color<?> color
-    )
-  {
-    // FIXME: temporary hack
-    return new java.awt.Color(0,0,0);
-  }
   // </public>
   // </interface>
   // </dynamic>
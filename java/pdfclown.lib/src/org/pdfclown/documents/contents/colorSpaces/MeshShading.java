@@ -0,0 +1,770 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.colorSpaces;
+
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+
+import org.pdfclown.PDF;
+import org.pdfclown.VersionEnum;
+import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfInteger;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfStream;
+
+/**
+  Mesh shading, defining colors over a set of triangles or patches (free-form, lattice-form,
+  Coons patch and tensor-product patch meshes) [PDF:1.6:4.6.3].
+  <p>The mesh is decoded and tessellated into Gouraud-shaded triangles once, then rasterized for
+  each painted area.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+@PDF(VersionEnum.PDF13)
+public final class MeshShading
+  extends Shading<PdfStream>
+{
+  // <class>
+  // <classes>
+  /**
+    Mesh data reader.
+  */
+  private static final class DataReader
+  {
+    private final byte[] data;
+    private long position;
+
+    DataReader(
+      byte[] data
+      )
+    {this.data = data;}
+
+    /**
+      Skips the remaining bits of the current byte.
+    */
+    public void align(
+      )
+    {position = (position + 7) & ~7L;}
+
+    /**
+      Gets whether the specified number of bits is available.
+    */
+    public boolean hasBits(
+      long count
+      )
+    {return position + count <= (long)data.length * 8;}
+
+    /**
+      Reads the specified number of bits (most significant first).
+    */
+    public long read(
+      int count
+      )
+    {
+      long value = 0;
+      while(count > 0)
+      {
+        int bitIndex = (int)(position & 7);
+        int chunkLength = Math.min(8 - bitIndex, count);
+        value = (value << chunkLength)
+          | ((data[(int)(position >> 3)] >> (8 - bitIndex - chunkLength)) & ((1 << chunkLength) - 1));
+        position += chunkLength;
+        count -= chunkLength;
+      }
+      return value;
+    }
+
+    /**
+      Reads the specified number of bits, mapping them into the specified range.
+    */
+    public double read(
+      int count,
+      double low,
+      double high
+      )
+    {return low + read(count) * (high - low) / (Math.pow(2, count) - 1);}
+  }
+
+  private final class MeshPaint
+    extends ShadingPaint
+  {
+    private final int[] colorTable;
+    private final double[] colorTableLimits;
+    private final float[] triangles;
+
+    MeshPaint(
+      AffineTransform transform,
+      boolean background
+      )
+    {
+      super(transform, getBackgroundRGB(background), false);
+
+      triangles = getTriangles();
+      if(getFunctions() != null)
+      {
+        double[] decode = getNumbers(PdfName.Decode, null);
+        colorTableLimits = new double[]{decode[4], decode[5]};
+        colorTable = getColorTable(colorTableLimits[0], colorTableLimits[1]);
+      }
+      else
+      {
+        colorTableLimits = null;
+        colorTable = null;
+      }
+    }
+
+    @Override
+    protected Context createContext(
+      AffineTransform transform,
+      Rectangle deviceBounds
+      )
+    {
+      /*
+        NOTE: Triangles are mapped to device space once per context, then rasterized directly into
+        each requested raster (device bounds may be as large as the whole filled shape).
+      */
+      int valueCount = (colorTable != null ? 1 : 3);
+      int vertexLength = 2 + valueCount;
+      int triangleLength = vertexLength * 3;
+      int triangleCount = triangles.length / triangleLength;
+      final double[] devicePoints = new double[triangleCount * 6];
+      for(
+        int triangleIndex = 0;
+        triangleIndex < triangleCount;
+        triangleIndex++
+        )
+      {
+        for(
+          int vertexIndex = 0;
+          vertexIndex < 3;
+          vertexIndex++
+          )
+        {
+          int vertexOffset = triangleIndex * triangleLength + vertexIndex * vertexLength;
+          devicePoints[triangleIndex * 6 + vertexIndex * 2] = triangles[vertexOffset];
+          devicePoints[triangleIndex * 6 + vertexIndex * 2 + 1] = triangles[vertexOffset + 1];
+        }
+      }
+      transform.transform(devicePoints, 0, devicePoints, 0, triangleCount * 3);
+
+      return new Context(transform)
+        {
+          @Override
+          protected void paint(
+            int[] pixels,
+            int scanlineStride,
+            int x,
+            int y,
+            int width,
+            int height
+            )
+          {
+            for(
+              int row = 0;
+              row < height;
+              row++
+              )
+            {java.util.Arrays.fill(pixels, row * scanlineStride, row * scanlineStride + width, background);}
+
+            for(
+              int triangleIndex = 0,
+                triangleCount = devicePoints.length / 6;
+              triangleIndex < triangleCount;
+              triangleIndex++
+              )
+            {rasterize(triangleIndex, devicePoints, pixels, scanlineStride, x, y, width, height);}
+          }
+        };
+    }
+
+    /**
+      Renders the specified triangle into the specified device area.
+
+      @param triangleIndex Triangle index.
+      @param devicePoints Triangle vertex coordinates, expressed in device space.
+      @param pixels Area pixels.
+      @param scanlineStride Area scanline stride.
+      @param areaX Area horizontal offset, expressed in device space.
+      @param areaY Area vertical offset, expressed in device space.
+      @param areaWidth Area width.
+      @param areaHeight Area height.
+    */
+    private void rasterize(
+      int triangleIndex,
+      double[] devicePoints,
+      int[] pixels,
+      int scanlineStride,
+      int areaX,
+      int areaY,
+      int areaWidth,
+      int areaHeight
+      )
+    {
+      int pointOffset = triangleIndex * 6;
+      double x0 = devicePoints[pointOffset], y0 = devicePoints[pointOffset + 1];
+      double x1 = devicePoints[pointOffset + 2], y1 = devicePoints[pointOffset + 3];
+      double x2 = devicePoints[pointOffset + 4], y2 = devicePoints[pointOffset + 5];
+      int minX = Math.max(areaX, (int)Math.floor(Math.min(x0, Math.min(x1, x2))));
+      int maxX = Math.min(areaX + areaWidth - 1, (int)Math.ceil(Math.max(x0, Math.max(x1, x2))));
+      int minY = Math.max(areaY, (int)Math.floor(Math.min(y0, Math.min(y1, y2))));
+      int maxY = Math.min(areaY + areaHeight - 1, (int)Math.ceil(Math.max(y0, Math.max(y1, y2))));
+      if(minX > maxX || minY > maxY)
+        return;
+
+      double area = (x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0);
+      if(Math.abs(area) < 1e-12)
+        return;
+
+      int valueCount = (colorTable != null ? 1 : 3);
+      int vertexLength = 2 + valueCount;
+      int value0Offset = triangleIndex * vertexLength * 3 + 2;
+      int value1Offset = value0Offset + vertexLength;
+      int value2Offset = value1Offset + vertexLength;
+      double colorScale = (colorTable != null && colorTableLimits[1] != colorTableLimits[0]
+        ? (colorTable.length - 1) / (colorTableLimits[1] - colorTableLimits[0])
+        : 0);
+      /*
+        NOTE: Barycentric weights are linear functions of the device coordinates, so they are
+        computed once per row and incremented across pixels.
+      */
+      double weight1Step = (y2 - y0) / area, weight2Step = -(y1 - y0) / area;
+      for(
+        int y = minY;
+        y <= maxY;
+        y++
+        )
+      {
+        double cx = minX + .5, cy = y + .5;
+        double weight1 = ((cx - x0) * (y2 - y0) - (cy - y0) * (x2 - x0)) / area;
+        double weight2 = ((x1 - x0) * (cy - y0) - (y1 - y0) * (cx - x0)) / area;
+        for(
+          int x = minX,
+            offset = (y - areaY) * scanlineStride + (minX - areaX);
+          x <= maxX;
+          x++,
+            offset++,
+            weight1 += weight1Step,
+            weight2 += weight2Step
+          )
+        {
+          double weight0 = 1 - weight1 - weight2;
+          if(weight0 < -WeightTolerance || weight1 < -WeightTolerance || weight2 < -WeightTolerance)
+            continue;
+
+          if(colorTable != null)
+          {
+            double value = weight0 * triangles[value0Offset]
+              + weight1 * triangles[value1Offset]
+              + weight2 * triangles[value2Offset];
+            int colorIndex = (int)((value - colorTableLimits[0]) * colorScale + .5);
+            pixels[offset] = colorTable[colorIndex < 0 ? 0 : colorIndex >= colorTable.length ? colorTable.length - 1 : colorIndex];
+          }
+          else
+          {
+            int rgb = 0xff000000;
+            for(
+              int valueIndex = 0;
+              valueIndex < 3;
+              valueIndex++
+              )
+            {
+              rgb |= toByte(
+                weight0 * triangles[value0Offset + valueIndex]
+                  + weight1 * triangles[value1Offset + valueIndex]
+                  + weight2 * triangles[value2Offset + valueIndex]
+                ) << (16 - valueIndex * 8);
+            }
+            pixels[offset] = rgb;
+          }
+        }
+      }
+    }
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  private static final int FreeFormType = 4;
+  private static final int LatticeFormType = 5;
+  private static final int TensorPatchType = 7;
+
+  /**
+    Number of subdivisions along each dimension of a patch.
+  */
+  private static final int PatchDivisionCount = 16;
+  /**
+    Patch control point indices (row-major 4x4 grid) in the order they are stored.
+  */
+  private static final int[] PatchPointIndexes = new int[]{0, 1, 2, 3, 7, 11, 15, 14, 13, 12, 8, 4, 5, 6, 10, 9};
+  /**
+    Control point indices of the previous patch edge shared by the next patch, by edge flag.
+  */
+  private static final int[][] PatchSharedPointIndexes = new int[][]
+    {
+      null,
+      {3, 7, 11, 15},
+      {15, 14, 13, 12},
+      {12, 8, 4, 0}
+    };
+  /**
+    Corner color indices (c00, c03, c33, c30) of the previous patch edge shared by the next patch,
+    by edge flag.
+  */
+  private static final int[][] PatchSharedColorIndexes = new int[][]
+    {
+      null,
+      {1, 2},
+      {2, 3},
+      {3, 0}
+    };
+
+  private static final double WeightTolerance = 1e-9;
+  // </fields>
+
+  // <interface>
+  // <private>
+  /**
+    Gets the cubic Bernstein polynomials evaluated at the specified parameter.
+  */
+  private static double[] getBernsteinValues(
+    double t
+    )
+  {
+    double s = 1 - t;
+    return new double[]{s * s * s, 3 * t * s * s, 3 * t * t * s, t * t * t};
+  }
+
+  private static int toByte(
+    double value
+    )
+  {
+    int byteValue = (int)(value + .5);
+    return byteValue < 0 ? 0 : byteValue > 255 ? 255 : byteValue;
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  private float[] triangles;
+  private int triangleLength;
+  // </fields>
+
+  // <constructors>
+  //TODO:IMPL new element constructor!
+
+  MeshShading(
+    PdfDirectObject baseObject
+    )
+  {super(baseObject);}
+  // </constructors>
+
+  // <interface>
+  // <public>
+  @Override
+  public Paint getPaint(
+    AffineTransform transform,
+    boolean background
+    )
+  {return new MeshPaint(transform, background);}
+  // </public>
+
+  // <private>
+  private void addTriangle(
+    float[] vertex0,
+    float[] vertex1,
+    float[] vertex2
+    )
+  {
+    int vertexLength = vertex0.length;
+    if(triangles.length < triangleLength + vertexLength * 3)
+    {
+      float[] triangles = new float[this.triangles.length * 2];
+      System.arraycopy(this.triangles, 0, triangles, 0, triangleLength);
+      this.triangles = triangles;
+    }
+    System.arraycopy(vertex0, 0, triangles, triangleLength, vertexLength); triangleLength += vertexLength;
+    System.arraycopy(vertex1, 0, triangles, triangleLength, vertexLength); triangleLength += vertexLength;
+    System.arraycopy(vertex2, 0, triangles, triangleLength, vertexLength); triangleLength += vertexLength;
+  }
+
+  /**
+    Gets the mesh tessellation into triangles, expressed in shading space.
+    <p>Each vertex is represented by its coordinates followed by either its parametric value (in
+    case of function) or its RGB components (0-255 range).</p>
+  */
+  private synchronized float[] getTriangles(
+    )
+  {
+    if(triangles == null)
+    {
+      triangles = new float[1024];
+      triangleLength = 0;
+      tessellate();
+      float[] triangles = new float[triangleLength];
+      System.arraycopy(this.triangles, 0, triangles, 0, triangleLength);
+      this.triangles = triangles;
+    }
+    return triangles;
+  }
+
+  /**
+    Reads a color, converting it into its vertex values.
+  */
+  private void readColor(
+    DataReader reader,
+    int bitsPerComponent,
+    double[] decode,
+    double[] components,
+    float[] target,
+    int targetOffset
+    )
+  {
+    for(
+      int index = 0;
+      index < components.length;
+      index++
+      )
+    {components[index] = reader.read(bitsPerComponent, decode[4 + index * 2], decode[5 + index * 2]);}
+    if(getFunctions() != null)
+    {target[targetOffset] = (float)components[0];}
+    else
+    {
+      int rgb = getRGB(getColorSpace(), components);
+      target[targetOffset] = (rgb >> 16) & 0xff;
+      target[targetOffset + 1] = (rgb >> 8) & 0xff;
+      target[targetOffset + 2] = rgb & 0xff;
+    }
+  }
+
+  /**
+    Reads a vertex (coordinates and color).
+  */
+  private float[] readVertex(
+    DataReader reader,
+    int bitsPerCoordinate,
+    int bitsPerComponent,
+    double[] decode,
+    double[] components,
+    int vertexLength
+    )
+  {
+    float[] vertex = new float[vertexLength];
+    vertex[0] = (float)reader.read(bitsPerCoordinate, decode[0], decode[1]);
+    vertex[1] = (float)reader.read(bitsPerCoordinate, decode[2], decode[3]);
+    readColor(reader, bitsPerComponent, decode, components, vertex, 2);
+    return vertex;
+  }
+
+  private void tessellate(
+    )
+  {
+    int shadingType = ((PdfInteger)getDictionary().get(PdfName.ShadingType)).getRawValue();
+    int bitsPerCoordinate = ((PdfInteger)getDictionary().get(PdfName.BitsPerCoordinate)).getRawValue();
+    int bitsPerComponent = ((PdfInteger)getDictionary().get(PdfName.BitsPerComponent)).getRawValue();
+    double[] decode = getNumbers(PdfName.Decode, null);
+    boolean parametric = (getFunctions() != null);
+    double[] components = new double[parametric ? 1 : getColorSpace().getComponentCount()];
+    int vertexLength = 2 + (parametric ? 1 : 3);
+    DataReader reader = new DataReader(getBaseDataObject().getBody().toByteArray());
+    int colorBits = components.length * bitsPerComponent;
+    int vertexBits = bitsPerCoordinate * 2 + colorBits;
+
+    if(shadingType == LatticeFormType)
+    {
+      int verticesPerRow = ((PdfInteger)getDictionary().get(PdfName.VerticesPerRow)).getRawValue();
+      float[][] lastRow = null;
+      while(reader.hasBits((long)vertexBits * verticesPerRow))
+      {
+        float[][] row = new float[verticesPerRow][];
+        for(
+          int index = 0;
+          index < verticesPerRow;
+          index++
+          )
+        {row[index] = readVertex(reader, bitsPerCoordinate, bitsPerComponent, decode, components, vertexLength);}
+        if(lastRow != null)
+        {
+          for(
+            int index = 1;
+            index < verticesPerRow;
+            index++
+            )
+          {
+            addTriangle(lastRow[index - 1], lastRow[index], row[index - 1]);
+            addTriangle(lastRow[index], row[index], row[index - 1]);
+          }
+        }
+        lastRow = row;
+      }
+      return;
+    }
+
+    int bitsPerFlag = ((PdfInteger)getDictionary().get(PdfName.BitsPerFlag)).getRawValue();
+    if(shadingType == FreeFormType)
+    {
+      /*
+        NOTE: Each vertex begins at a byte boundary; its flag defines whether it starts a new
+        triangle (0) or it shares the edge of the previous triangle opposite to its first (1) or
+        second (2) vertex.
+      */
+      float[] vertexA = null, vertexB = null, vertexC = null;
+      while(reader.hasBits(bitsPerFlag + vertexBits))
+      {
+        int flag = (int)reader.read(bitsPerFlag);
+        float[] vertex = readVertex(reader, bitsPerCoordinate, bitsPerComponent, decode, components, vertexLength);
+        reader.align();
+        if(flag == 0 || vertexA == null)
+        {
+          vertexA = vertex;
+          for(
+            int index = 0;
+            index < 2;
+            index++
+            )
+          {
+            if(!reader.hasBits(bitsPerFlag + vertexBits))
+              return;
+
+            reader.read(bitsPerFlag);
+            vertex = readVertex(reader, bitsPerCoordinate, bitsPerComponent, decode, components, vertexLength);
+            reader.align();
+            if(index == 0)
+            {vertexB = vertex;}
+            else
+            {vertexC = vertex;}
+          }
+        }
+        else if(flag == 1)
+        {vertexA = vertexB; vertexB = vertexC; vertexC = vertex;}
+        else
+        {vertexB = vertexC; vertexC = vertex;}
+        addTriangle(vertexA, vertexB, vertexC);
+      }
+    }
+    else // Patch meshes.
+    {
+      /*
+        NOTE: Each patch begins at a byte boundary; its flag defines whether it starts anew (0) or
+        it shares one of the edges of the previous patch (1-3).
+      */
+      boolean tensor = (shadingType == TensorPatchType);
+      double[][] points = new double[16][];
+      float[][] colors = new float[4][];
+      boolean started = false;
+      while(reader.hasBits(bitsPerFlag))
+      {
+        int flag = (int)reader.read(bitsPerFlag);
+        if(flag < 0 || flag > 3 || (flag > 0 && !started))
+          break;
+
+        int firstPointIndex = (flag == 0 ? 0 : 4);
+        int lastPointIndex = (tensor ? 16 : 12);
+        int firstColorIndex = (flag == 0 ? 0 : 2);
+        if(!reader.hasBits(
+          (long)(lastPointIndex - firstPointIndex) * bitsPerCoordinate * 2
+            + (long)(4 - firstColorIndex) * colorBits
+          ))
+          break;
+
+        if(flag > 0)
+        {
+          double[][] lastPoints = points.clone();
+          float[][] lastColors = colors.clone();
+          int[] sharedPointIndexes = PatchSharedPointIndexes[flag];
+          for(
+            int index = 0;
+            index < 4;
+            index++
+            )
+          {points[PatchPointIndexes[index]] = lastPoints[sharedPointIndexes[index]];}
+          colors[0] = lastColors[PatchSharedColorIndexes[flag][0]];
+          colors[1] = lastColors[PatchSharedColorIndexes[flag][1]];
+        }
+        for(
+          int index = firstPointIndex;
+          index < lastPointIndex;
+          index++
+          )
+        {
+          points[PatchPointIndexes[index]] = new double[]
+            {
+              reader.read(bitsPerCoordinate, decode[0], decode[1]),
+              reader.read(bitsPerCoordinate, decode[2], decode[3])
+            };
+        }
+        for(
+          int index = firstColorIndex;
+          index < 4;
+          index++
+          )
+        {
+          colors[index] = new float[vertexLength - 2];
+          readColor(reader, bitsPerComponent, decode, components, colors[index], 0);
+        }
+        reader.align();
+        started = true;
+
+        if(!tensor)
+        {
+          /*
+            NOTE: Coons patch interior control points are implicitly defined by its boundary
+            [PDF:1.6:4.6.3].
+          */
+          for(
+            int coordinate = 0;
+            coordinate < 2;
+            coordinate++
+            )
+          {
+            double p00 = points[0][coordinate], p01 = points[1][coordinate], p02 = points[2][coordinate], p03 = points[3][coordinate];
+            double p10 = points[4][coordinate], p13 = points[7][coordinate];
+            double p20 = points[8][coordinate], p23 = points[11][coordinate];
+            double p30 = points[12][coordinate], p31 = points[13][coordinate], p32 = points[14][coordinate], p33 = points[15][coordinate];
+            if(coordinate == 0)
+            {
+              points[5] = new double[2];
+              points[6] = new double[2];
+              points[9] = new double[2];
+              points[10] = new double[2];
+            }
+            points[5][coordinate] = (-4 * p00 + 6 * (p01 + p10) - 2 * (p03 + p30) + 3 * (p31 + p13) - p33) / 9;
+            points[6][coordinate] = (-4 * p03 + 6 * (p02 + p13) - 2 * (p00 + p33) + 3 * (p32 + p10) - p30) / 9;
+            points[9][coordinate] = (-4 * p30 + 6 * (p31 + p20) - 2 * (p33 + p00) + 3 * (p01 + p23) - p03) / 9;
+            points[10][coordinate] = (-4 * p33 + 6 * (p32 + p23) - 2 * (p30 + p03) + 3 * (p02 + p20) - p00) / 9;
+          }
+        }
+        tessellatePatch(points, colors, vertexLength);
+      }
+    }
+  }
+
+  /**
+    Tessellates the specified tensor-product patch.
+
+    @param points Control points (row-major 4x4 grid, where rows correspond to the u parameter).
+    @param colors Corner colors (c00, c03, c33, c30).
+    @param vertexLength Vertex length.
+  */
+  private void tessellatePatch(
+    double[][] points,
+    float[][] colors,
+    int vertexLength
+    )
+  {
+    int gridSize = PatchDivisionCount + 1;
+    double[][] bernsteinValues = new double[gridSize][];
+    for(
+      int index = 0;
+      index < gridSize;
+      index++
+      )
+    {bernsteinValues[index] = getBernsteinValues((double)index / PatchDivisionCount);}
+
+    // Surface evaluation.
+    float[][] vertices = new float[gridSize * gridSize][];
+    for(
+      int uIndex = 0;
+      uIndex < gridSize;
+      uIndex++
+      )
+    {
+      double u = (double)uIndex / PatchDivisionCount;
+      double[] uValues = bernsteinValues[uIndex];
+      for(
+        int vIndex = 0;
+        vIndex < gridSize;
+        vIndex++
+        )
+      {
+        double v = (double)vIndex / PatchDivisionCount;
+        double[] vValues = bernsteinValues[vIndex];
+        double x = 0, y = 0;
+        for(
+          int i = 0;
+          i < 4;
+          i++
+          )
+        {
+          for(
+            int j = 0;
+            j < 4;
+            j++
+            )
+          {
+            double weight = uValues[i] * vValues[j];
+            double[] point = points[i * 4 + j];
+            x += point[0] * weight;
+            y += point[1] * weight;
+          }
+        }
+        float[] vertex = new float[vertexLength];
+        vertex[0] = (float)x;
+        vertex[1] = (float)y;
+        for(
+          int index = 2;
+          index < vertexLength;
+          index++
+          )
+        {
+          vertex[index] = (float)(
+            (1 - u) * (1 - v) * colors[0][index - 2]
+              + (1 - u) * v * colors[1][index - 2]
+              + u * v * colors[2][index - 2]
+              + u * (1 - v) * colors[3][index - 2]
+            );
+        }
+        vertices[uIndex * gridSize + vIndex] = vertex;
+      }
+    }
+
+    // Triangulation.
+    for(
+      int uIndex = 0;
+      uIndex < PatchDivisionCount;
+      uIndex++
+      )
+    {
+      for(
+        int vIndex = 0;
+        vIndex < PatchDivisionCount;
+        vIndex++
+        )
+      {
+        int index = uIndex * gridSize + vIndex;
+        addTriangle(vertices[index], vertices[index + 1], vertices[index + gridSize]);
+        addTriangle(vertices[index + 1], vertices[index + gridSize + 1], vertices[index + gridSize]);
+      }
+    }
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
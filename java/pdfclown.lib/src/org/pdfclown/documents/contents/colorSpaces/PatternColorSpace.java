@@ -26,6 +26,7 @@
 package org.pdfclown.documents.contents.colorSpaces;
 
 import java.awt.Paint;
+import java.awt.geom.AffineTransform;
 import java.util.List;
 
 import org.pdfclown.PDF;
@@ -41,7 +42,7 @@ import org.pdfclown.util.NotImplementedException;
   Pattern color space [PDF:1.6:4.5.5].
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
-  @version 0.1.1, 04/10/11
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF12)
 public final class PatternColorSpace
@@ -117,8 +118,13 @@ public final class PatternColorSpace
     Color<?> color
     )
   {
-    // FIXME: Auto-generated method stub
-    return null;
+    /*
+      NOTE: Shading patterns are rendered here in the default coordinate space of their parent
+      content stream; content scanning maps them to the actual device space (see
+      ContentScanner.GraphicsState.getFillPaint()).
+    */
+    //TODO:IMPL tiling patterns!
+    return (color instanceof ShadingPattern ? ((ShadingPattern)color).getPaint(new AffineTransform()) : null);
   }
 
   /**
@@ -0,0 +1,214 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.colorSpaces;
+
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+
+import org.pdfclown.PDF;
+import org.pdfclown.VersionEnum;
+import org.pdfclown.objects.PdfDictionary;
+import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfName;
+
+/**
+  Radial shading, varying color between two circles [PDF:1.6:4.6.3].
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+@PDF(VersionEnum.PDF13)
+public final class RadialShading
+  extends Shading<PdfDictionary>
+{
+  // <class>
+  // <classes>
+  private final class RadialPaint
+    extends ShadingPaint
+  {
+    private final int[] colorTable;
+    private final double[] coords;
+    private final boolean[] extension;
+
+    RadialPaint(
+      AffineTransform transform,
+      boolean background
+      )
+    {
+      super(transform, getBackgroundRGB(background), false);
+
+      double[] domain = getDomain();
+      colorTable = getColorTable(domain[0], domain[1]);
+      coords = getCoords();
+      extension = getExtension();
+    }
+
+    @Override
+    protected Context createContext(
+      AffineTransform transform,
+      Rectangle deviceBounds
+      )
+    {
+      return new Context(transform)
+        {
+          @Override
+          protected void paint(
+            int[] pixels,
+            int scanlineStride,
+            int x,
+            int y,
+            int width,
+            int height
+            )
+          {
+            double x0 = coords[0], y0 = coords[1], r0 = coords[2];
+            double dx = coords[3] - x0, dy = coords[4] - y0, dr = coords[5] - r0;
+            int lastColorIndex = colorTable.length - 1;
+
+            /*
+              NOTE: The parametric variable s of each point is the greatest root of
+              |p - c(s)| = r(s), where c(s) = c0 + s * (c1 - c0) and r(s) = r0 + s * (r1 - r0) >= 0,
+              that is a * s^2 - 2 * b * s + c = 0 [PDF:1.6:4.6.3].
+            */
+            double a = dx * dx + dy * dy - dr * dr;
+            double xStep = inverseTransform.getScaleX(), yStep = inverseTransform.getShearY();
+            double[] point = new double[2];
+            for(
+              int row = 0;
+              row < height;
+              row++
+              )
+            {
+              point[0] = x + .5; point[1] = y + row + .5;
+              inverseTransform.transform(point, 0, point, 0, 1);
+              double px = point[0] - x0, py = point[1] - y0;
+              for(
+                int offset = row * scanlineStride,
+                  limit = offset + width;
+                offset < limit;
+                offset++,
+                  px += xStep,
+                  py += yStep
+                )
+              {
+                double b = px * dx + py * dy + r0 * dr;
+                double c = px * px + py * py - r0 * r0;
+                double s;
+                if(a == 0)
+                {
+                  if(b == 0)
+                  {pixels[offset] = background; continue;}
+
+                  s = c / (2 * b);
+                  if(!isValid(s, r0, dr))
+                  {pixels[offset] = background; continue;}
+                }
+                else
+                {
+                  double discriminant = b * b - a * c;
+                  if(discriminant < 0)
+                  {pixels[offset] = background; continue;}
+
+                  double root = Math.sqrt(discriminant);
+                  s = (b + root) / a;
+                  double s2 = (b - root) / a;
+                  if(s2 > s)
+                  {double swap = s; s = s2; s2 = swap;}
+                  if(!isValid(s, r0, dr))
+                  {
+                    s = s2;
+                    if(!isValid(s, r0, dr))
+                    {pixels[offset] = background; continue;}
+                  }
+                }
+                pixels[offset] = colorTable[(int)((s < 0 ? 0 : s > 1 ? 1 : s) * lastColorIndex + .5)];
+              }
+            }
+          }
+
+          private boolean isValid(
+            double s,
+            double r0,
+            double dr
+            )
+          {
+            return r0 + s * dr >= 0
+              && (s >= 0 || extension[0])
+              && (s <= 1 || extension[1]);
+          }
+        };
+    }
+  }
+  // </classes>
+
+  // <dynamic>
+  // <constructors>
+  //TODO:IMPL new element constructor!
+
+  RadialShading(
+    PdfDirectObject baseObject
+    )
+  {super(baseObject);}
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Gets the centers and radii of the starting and ending circles, expressed in shading space
+    (<code>[x0 y0 r0 x1 y1 r1]</code>).
+  */
+  public double[] getCoords(
+    )
+  {return getNumbers(PdfName.Coords, null);}
+
+  /**
+    Gets the limiting values of the parametric variable (<code>[t0 t1]</code>), which is mapped
+    from the starting circle to the ending one.
+  */
+  public double[] getDomain(
+    )
+  {return getNumbers(PdfName.Domain, new double[]{0, 1});}
+
+  /**
+    Gets whether the shading has to be extended beyond the starting and ending circles,
+    respectively.
+  */
+  public boolean[] getExtension(
+    )
+  {return getBooleans(PdfName.Extend, new boolean[]{false, false});}
+
+  @Override
+  public Paint getPaint(
+    AffineTransform transform,
+    boolean background
+    )
+  {return new RadialPaint(transform, background);}
+  // </public>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
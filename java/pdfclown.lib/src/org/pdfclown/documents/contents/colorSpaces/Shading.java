@@ -25,37 +25,155 @@
 
 package org.pdfclown.documents.contents.colorSpaces;
 
+import java.awt.Paint;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.util.Hashtable;
+
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
 import org.pdfclown.documents.Document;
+import org.pdfclown.documents.functions.Function;
+import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfBoolean;
 import org.pdfclown.objects.PdfDataObject;
+import org.pdfclown.objects.PdfDictionary;
 import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfInteger;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfNumber;
 import org.pdfclown.objects.PdfObjectWrapper;
+import org.pdfclown.objects.PdfReference;
+import org.pdfclown.objects.PdfStream;
+import org.pdfclown.objects.Rectangle;
 
 /**
   Shading object [PDF:1.6:4.6.3].
+  <p>Shadings are rendered through {@link #getPaint(AffineTransform, boolean) paints} whose colors
+  are precomputed (as lookup tables or tessellations) once per shading: as this makes them
+  considerably more expensive to instantiate than to paint, indirect shadings are {@link
+  #wrap(PdfDirectObject) shared} across their users.</p>
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
-  @version 0.1.2, 12/21/12
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF13)
-public class Shading<TDataObject extends PdfDataObject>
+public abstract class Shading<TDataObject extends PdfDataObject>
   extends PdfObjectWrapper<TDataObject>
 {
-  //TODO:shading types!
   // <class>
   // <static>
+  // <fields>
+  /**
+    Number of entries of color lookup tables.
+  */
+  static final int ColorTableSize = 1024;
+
+  private static final int FunctionBasedShadingType = 1;
+  private static final int AxialShadingType = 2;
+  private static final int RadialShadingType = 3;
+  private static final int FreeFormMeshShadingType = 4;
+  private static final int LatticeFormMeshShadingType = 5;
+  private static final int CoonsPatchMeshShadingType = 6;
+  private static final int TensorPatchMeshShadingType = 7;
+  // </fields>
+
   // <interface>
   // <public>
-  public static Shading<? extends PdfDataObject> wrap(
+  /**
+    Wraps the specified base object into a shading object.
+    <p>Indirect shadings are retrieved from the document's common cache, so that their precomputed
+    colors are shared.</p>
+
+    @param baseObject Base object of a shading object.
+    @return Shading object corresponding to the base object.
+  */
+  public static Shading<?> wrap(
     PdfDirectObject baseObject
     )
-  {return null;} //TODO:shading types!
+  {
+    if(baseObject == null)
+      return null;
+
+    if(baseObject instanceof PdfReference)
+    {
+      PdfReference reference = (PdfReference)baseObject;
+      // Has the shading been already instantiated?
+      Hashtable<PdfReference,Object> cache = reference.getIndirectObject().getFile().getDocument().cache;
+      synchronized(cache)
+      {
+        Shading<?> shading = (Shading<?>)cache.get(reference);
+        if(shading == null)
+        {cache.put(reference, shading = createShading(reference));}
+        return shading;
+      }
+    }
+    return createShading(baseObject);
+  }
   // </public>
+
+  // <protected>
+  /**
+    Gets the RGB value of the specified color.
+
+    @param colorSpace Color space the color components are interpreted according to.
+    @param components Color components.
+  */
+  protected static int getRGB(
+    ColorSpace<?> colorSpace,
+    double[] components
+    )
+  {
+    float[] values = new float[components.length];
+    for(
+      int index = 0;
+      index < values.length;
+      index++
+      )
+    {values[index] = (float)components[index];}
+    return 0xff000000 | colorSpace.getConverter().getRGB(values, 0);
+  }
+  // </protected>
+
+  // <private>
+  private static Shading<?> createShading(
+    PdfDirectObject baseObject
+    )
+  {
+    PdfDataObject dataObject = baseObject.resolve();
+    PdfDictionary dictionary = (dataObject instanceof PdfStream
+      ? ((PdfStream)dataObject).getHeader()
+      : (PdfDictionary)dataObject);
+    int shadingType = ((PdfInteger)dictionary.get(PdfName.ShadingType)).getRawValue();
+    switch(shadingType)
+    {
+      case FunctionBasedShadingType:
+        return new FunctionBasedShading(baseObject);
+      case AxialShadingType:
+        return new AxialShading(baseObject);
+      case RadialShadingType:
+        return new RadialShading(baseObject);
+      case FreeFormMeshShadingType:
+      case LatticeFormMeshShadingType:
+      case CoonsPatchMeshShadingType:
+      case TensorPatchMeshShadingType:
+        return new MeshShading(baseObject);
+      default:
+        throw new UnsupportedOperationException("Shading type " + shadingType + " unknown.");
+    }
+  }
+  // </private>
   // </interface>
   // </static>
 
   // <dynamic>
+  // <fields>
+  private ColorSpace<?> colorSpace;
+  private double[] colorTableLimits;
+  private int[] colorTable;
+  private Function<?>[] functions;
+  // </fields>
+
   // <constructors>
   //TODO:IMPL new element constructor!
 
@@ -73,7 +191,253 @@ public class Shading<TDataObject extends PdfDataObject>
     Document context
     )
   {return (Shading)super.clone(context);}
+
+  /**
+    Gets the color used to paint the areas outside the shading's geometry, when it's part of a
+    {@link ShadingPattern shading pattern}.
+
+    @return <code>null</code> in case of no background.
+  */
+  public Color<?> getBackground(
+    )
+  {
+    PdfArray backgroundObject = (PdfArray)getDictionary().resolve(PdfName.Background);
+    return backgroundObject != null ? getColorSpace().getColor(backgroundObject, null) : null;
+  }
+
+  /**
+    Gets the shading's bounds, expressed in shading space.
+
+    @return <code>null</code> in case of unbounded shading.
+  */
+  public Rectangle2D getBox(
+    )
+  {
+    PdfDirectObject boxObject = getDictionary().get(PdfName.BBox);
+    return boxObject != null ? Rectangle.wrap(boxObject).toRectangle2D() : null;
+  }
+
+  /**
+    Gets the color space in which color values are expressed.
+  */
+  public ColorSpace<?> getColorSpace(
+    )
+  {
+    if(colorSpace == null)
+    {colorSpace = ColorSpace.wrap(getDictionary().get(PdfName.ColorSpace));}
+    return colorSpace;
+  }
+
+  /**
+    Gets the rendering representation of this shading.
+
+    @param transform Transformation from shading space to user space (<code>null</code> in case of
+      identity).
+    @param background Whether the {@link #getBackground() background color} has to be painted.
+  */
+  public abstract Paint getPaint(
+    AffineTransform transform,
+    boolean background
+    );
+
+  /**
+    Gets whether the shading has to be anti-aliased.
+  */
+  public boolean isAntiAliased(
+    )
+  {
+    PdfBoolean antiAliasObject = (PdfBoolean)getDictionary().resolve(PdfName.AntiAlias);
+    return antiAliasObject != null && antiAliasObject.getRawValue();
+  }
   // </public>
+
+  // <protected>
+  /**
+    Gets the RGB value corresponding to the specified {@link #getFunctions() function} inputs.
+
+    @param inputs Function input values.
+  */
+  protected final int getRGB(
+    double[] inputs
+    )
+  {
+    Function<?>[] functions = getFunctions();
+    if(functions.length == 1)
+      return getRGB(getColorSpace(), functions[0].calculate(inputs));
+
+    // NOTE: Each function yields a single color component.
+    double[] components = new double[functions.length];
+    double[] outputs = new double[1];
+    for(
+      int index = 0;
+      index < components.length;
+      index++
+      )
+    {
+      functions[index].calculate(inputs, outputs);
+      components[index] = outputs[0];
+    }
+    return getRGB(getColorSpace(), components);
+  }
+
+  /**
+    Gets the RGB value of the {@link #getBackground() background color}.
+
+    @param background Whether the background color has to be painted.
+    @return <code>0</code> (transparent) in case of no background.
+  */
+  protected final int getBackgroundRGB(
+    boolean background
+    )
+  {
+    if(!background)
+      return 0;
+
+    PdfArray backgroundObject = (PdfArray)getDictionary().resolve(PdfName.Background);
+    if(backgroundObject == null)
+      return 0;
+
+    double[] components = new double[backgroundObject.size()];
+    for(
+      int index = 0;
+      index < components.length;
+      index++
+      )
+    {components[index] = ((PdfNumber<?>)backgroundObject.resolve(index)).getDoubleValue();}
+    return getRGB(getColorSpace(), components);
+  }
+
+  /**
+    Gets the lookup table of the RGB values corresponding to the parametric variable of the
+    1-input {@link #getFunctions() function} evenly sampled between the specified limits.
+    <p>The last computed table is retained for reuse.</p>
+
+    @param low Lower limit.
+    @param high Higher limit.
+    @return {@link #ColorTableSize} RGB values.
+  */
+  protected final synchronized int[] getColorTable(
+    double low,
+    double high
+    )
+  {
+    if(colorTable == null
+      || colorTableLimits[0] != low
+      || colorTableLimits[1] != high)
+    {
+      int[] colorTable = new int[ColorTableSize];
+      double[] inputs = new double[1];
+      for(
+        int index = 0;
+        index < ColorTableSize;
+        index++
+        )
+      {
+        inputs[0] = low + (high - low) * index / (ColorTableSize - 1);
+        colorTable[index] = getRGB(inputs);
+      }
+      this.colorTable = colorTable;
+      colorTableLimits = new double[]{low, high};
+    }
+    return colorTable;
+  }
+
+  /**
+    Gets this shading's dictionary.
+  */
+  protected final PdfDictionary getDictionary(
+    )
+  {
+    PdfDataObject baseDataObject = getBaseDataObject();
+    return (baseDataObject instanceof PdfStream
+      ? ((PdfStream)baseDataObject).getHeader()
+      : (PdfDictionary)baseDataObject);
+  }
+
+  /**
+    Gets the functions mapping parametric variables to color components.
+    <p>It's either a single function returning all the color components or an array of functions
+    returning a color component each.</p>
+
+    @return <code>null</code> in case of no function.
+  */
+  protected final synchronized Function<?>[] getFunctions(
+    )
+  {
+    if(functions == null)
+    {
+      PdfDirectObject functionsObject = getDictionary().get(PdfName.Function);
+      if(functionsObject == null)
+        return null;
+
+      PdfDataObject functionsDataObject = functionsObject.resolve();
+      if(functionsDataObject instanceof PdfArray)
+      {
+        PdfArray functionsArrayObject = (PdfArray)functionsDataObject;
+        functions = new Function<?>[functionsArrayObject.size()];
+        for(
+          int index = 0;
+          index < functions.length;
+          index++
+          )
+        {functions[index] = Function.wrap(functionsArrayObject.get(index));}
+      }
+      else
+      {functions = new Function<?>[]{Function.wrap(functionsObject)};}
+    }
+    return functions;
+  }
+
+  /**
+    Gets the booleans corresponding to the specified key.
+
+    @param key Entry key.
+    @param defaultValue Value to return in case of missing entry.
+  */
+  protected final boolean[] getBooleans(
+    PdfName key,
+    boolean[] defaultValue
+    )
+  {
+    PdfArray booleansObject = (PdfArray)getDictionary().resolve(key);
+    if(booleansObject == null)
+      return defaultValue;
+
+    boolean[] booleans = new boolean[booleansObject.size()];
+    for(
+      int index = 0;
+      index < booleans.length;
+      index++
+      )
+    {booleans[index] = ((PdfBoolean)booleansObject.resolve(index)).getRawValue();}
+    return booleans;
+  }
+
+  /**
+    Gets the numbers corresponding to the specified key.
+
+    @param key Entry key.
+    @param defaultValue Value to return in case of missing entry.
+  */
+  protected final double[] getNumbers(
+    PdfName key,
+    double[] defaultValue
+    )
+  {
+    PdfArray numbersObject = (PdfArray)getDictionary().resolve(key);
+    if(numbersObject == null)
+      return defaultValue;
+
+    double[] numbers = new double[numbersObject.size()];
+    for(
+      int index = 0;
+      index < numbers.length;
+      index++
+      )
+    {numbers[index] = ((PdfNumber<?>)numbersObject.resolve(index)).getDoubleValue();}
+    return numbers;
+  }
+  // </protected>
   // </interface>
   // </dynamic>
   // </class>
@@ -0,0 +1,244 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.colorSpaces;
+
+import java.awt.Paint;
+import java.awt.PaintContext;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+
+/**
+  Rendering representation of a {@link Shading shading}.
+  <p>Its contexts compute device pixels directly from the shading geometry, mapping each pixel
+  center back into shading space.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+abstract class ShadingPaint
+  implements Paint
+{
+  // <class>
+  // <classes>
+  /**
+    Shading paint context.
+  */
+  protected abstract class Context
+    implements PaintContext
+  {
+    // <class>
+    // <dynamic>
+    // <fields>
+    /**
+      Transformation from device space to shading space.
+    */
+    protected final AffineTransform inverseTransform;
+
+    private WritableRaster raster;
+    // </fields>
+
+    // <constructors>
+    /**
+      @param transform Transformation from shading space to device space.
+    */
+    protected Context(
+      AffineTransform transform
+      )
+    {
+      AffineTransform inverseTransform;
+      try
+      {inverseTransform = transform.createInverse();}
+      catch(NoninvertibleTransformException e)
+      {inverseTransform = null;} // NOTE: Degenerate shading space paints nothing.
+      this.inverseTransform = inverseTransform;
+    }
+    // </constructors>
+
+    // <interface>
+    // <public>
+    @Override
+    public void dispose(
+      )
+    {raster = null;}
+
+    @Override
+    public ColorModel getColorModel(
+      )
+    {return opaque ? OpaqueColorModel : TranslucentColorModel;}
+
+    @Override
+    public Raster getRaster(
+      int x,
+      int y,
+      int width,
+      int height
+      )
+    {
+      /*
+        NOTE: The raster is reused across the spans of the same painting (a larger raster is
+        acceptable to the caller).
+      */
+      WritableRaster raster = this.raster;
+      if(raster == null
+        || raster.getWidth() < width
+        || raster.getHeight() < height)
+      {this.raster = raster = getColorModel().createCompatibleWritableRaster(width, height);}
+      int[] pixels = ((DataBufferInt)raster.getDataBuffer()).getData();
+      int scanlineStride = raster.getWidth();
+      if(inverseTransform == null)
+      {
+        for(
+          int row = 0;
+          row < height;
+          row++
+          )
+        {
+          for(
+            int offset = row * scanlineStride,
+              limit = offset + width;
+            offset < limit;
+            offset++
+            )
+          {pixels[offset] = 0;}
+        }
+      }
+      else
+      {paint(pixels, scanlineStride, x, y, width, height);}
+      return raster;
+    }
+    // </public>
+
+    // <protected>
+    /**
+      Paints the specified device area.
+
+      @param pixels Target ARGB pixels.
+      @param scanlineStride Distance between target rows.
+      @param x Horizontal device coordinate of the area.
+      @param y Vertical device coordinate of the area.
+      @param width Area width.
+      @param height Area height.
+    */
+    protected abstract void paint(
+      int[] pixels,
+      int scanlineStride,
+      int x,
+      int y,
+      int width,
+      int height
+      );
+    // </protected>
+    // </interface>
+    // </dynamic>
+    // </class>
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  private static final ColorModel OpaqueColorModel = new DirectColorModel(24, 0xff0000, 0xff00, 0xff);
+  private static final ColorModel TranslucentColorModel = ColorModel.getRGBdefault();
+  // </fields>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  /**
+    Background RGB value (<code>0</code> in case of transparent background).
+  */
+  protected final int background;
+
+  private final boolean opaque;
+  private final AffineTransform transform;
+  // </fields>
+
+  // <constructors>
+  /**
+    @param transform Transformation from shading space to user space (<code>null</code> in case of
+      identity).
+    @param background Background RGB value (<code>0</code> in case of transparent background).
+    @param opaque Whether every pixel is painted (even without background).
+  */
+  protected ShadingPaint(
+    AffineTransform transform,
+    int background,
+    boolean opaque
+    )
+  {
+    this.transform = transform;
+    this.background = background;
+    this.opaque = (opaque || background != 0);
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  @Override
+  public PaintContext createContext(
+    ColorModel colorModel,
+    Rectangle deviceBounds,
+    Rectangle2D userBounds,
+    AffineTransform userTransform,
+    RenderingHints hints
+    )
+  {
+    AffineTransform shadingTransform = new AffineTransform(userTransform);
+    if(transform != null)
+    {shadingTransform.concatenate(transform);}
+    return createContext(shadingTransform, deviceBounds);
+  }
+
+  @Override
+  public int getTransparency(
+    )
+  {return opaque ? Transparency.OPAQUE : Transparency.TRANSLUCENT;}
+  // </public>
+
+  // <protected>
+  /**
+    Creates the context to paint the specified device area.
+
+    @param transform Transformation from shading space to device space.
+    @param deviceBounds Device area to paint.
+  */
+  protected abstract Context createContext(
+    AffineTransform transform,
+    Rectangle deviceBounds
+    );
+  // </protected>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
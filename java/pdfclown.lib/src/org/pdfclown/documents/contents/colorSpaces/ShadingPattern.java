@@ -25,6 +25,9 @@
 
 package org.pdfclown.documents.contents.colorSpaces;
 
+import java.awt.Paint;
+import java.awt.geom.AffineTransform;
+
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
 import org.pdfclown.documents.contents.ExtGState;
@@ -38,7 +41,7 @@ import org.pdfclown.objects.PdfName;
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
   @since 0.1.0
-  @version 0.1.1, 04/10/11
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF13)
 public final class ShadingPattern
@@ -46,6 +49,10 @@ public final class ShadingPattern
 {
   // <class>
   // <dynamic>
+  // <fields>
+  private Shading<?> shading;
+  // </fields>
+
   // <constructors>
   //TODO:IMPL new element constructor!
 
@@ -68,12 +75,37 @@ public final class ShadingPattern
     )
   {return ExtGState.wrap(getBaseDataObject().get(PdfName.ExtGState));}
 
+  /**
+    Gets the rendering representation of this pattern.
+
+    @param transform Transformation from the default coordinate space of the pattern's parent
+      content stream to the user space the paint is applied in.
+    @return <code>null</code>, if the shading is missing.
+    @since 0.1.3
+  */
+  public Paint getPaint(
+    AffineTransform transform
+    )
+  {
+    Shading<?> shading = getShading();
+    if(shading == null)
+      return null;
+
+    AffineTransform patternTransform = new AffineTransform(transform);
+    patternTransform.concatenate(new AffineTransform(getMatrix()));
+    return shading.getPaint(patternTransform, true);
+  }
+
   /**
     Gets a <b>shading object</b> defining the shading pattern's gradient fill.
   */
   public Shading<?> getShading(
     )
-  {return Shading.wrap(getBaseDataObject().get(PdfName.Shading));}
+  {
+    if(shading == null)
+    {shading = Shading.wrap(getBaseDataObject().get(PdfName.Shading));}
+    return shading;
+  }
   // </public>
   // </interface>
   // </dynamic>
@@ -25,7 +25,6 @@
 
 package org.pdfclown.documents.contents.colorSpaces;
 
-import java.awt.Paint;
 import java.util.List;
 
 import org.pdfclown.PDF;
@@ -39,7 +38,7 @@ import org.pdfclown.objects.PdfName;
   Special device color space [PDF:1.6:4.5.5].
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
-  @version 0.1.1, 11/14/11
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF12)
 public abstract class SpecialDeviceColorSpace
@@ -83,26 +82,6 @@ public abstract class SpecialDeviceColorSpace
   public abstract List<String> getComponentNames(
     );
 
-  @Override
-  public Paint getPaint(
-    Color<?> color
-    )
-  {
-    //TODO:enable!!!
-//    List<PdfDirectObject> alternateColorComponents = getTintFunction().calculate(color.getComponents());
-//    ColorSpace<?> alternateSpace = getAlternateSpace();
-//
-//    return alternateSpace.getPaint(
-//      alternateSpace.getColor(
-//        alternateColorComponents,
-//        null
-//        )
-//      );
-
-    //TODO: remove (temporary hack)!
-    return new java.awt.Color(0,0,0);
-  }
-
   /**
     Gets the <i>function to transform a tint value into color component values</i>
     in the {@link #getAlternateSpace() alternate color space}.
@@ -30,9 +30,17 @@ import java.awt.geom.Dimension2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.geom.RectangularShape;
-
+import java.io.IOException;
+import java.util.Stack;
+import java.util.zip.DeflaterOutputStream;
+
+import org.pdfclown.bytes.Buffer;
+import org.pdfclown.bytes.IBuffer;
+import org.pdfclown.bytes.IOutputStream;
+import org.pdfclown.bytes.OutputStream;
 import org.pdfclown.documents.Page;
 import org.pdfclown.documents.contents.ContentScanner;
+import org.pdfclown.documents.contents.Contents;
 import org.pdfclown.documents.contents.ExtGState;
 import org.pdfclown.documents.contents.IContentContext;
 import org.pdfclown.documents.contents.LineCapEnum;
@@ -86,8 +94,11 @@ import org.pdfclown.documents.contents.objects.TranslateTextToNextLine;
 import org.pdfclown.documents.contents.xObjects.XObject;
 import org.pdfclown.documents.interaction.actions.Action;
 import org.pdfclown.documents.interaction.annotations.Link;
+import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfDataObject;
 import org.pdfclown.objects.PdfName;
 import org.pdfclown.objects.PdfObjectWrapper;
+import org.pdfclown.objects.PdfStream;
 import org.pdfclown.util.math.geom.Quad;
 
 /**
@@ -105,23 +116,142 @@ import org.pdfclown.util.math.geom.Quad;
 public final class PrimitiveComposer
 {
   // <class>
+  // <classes>
+  /**
+    Content write mode.
+  */
+  public enum WriteModeEnum
+  {
+    /**
+      Content objects are kept in the {@link Contents content objects collection} until they are
+      serialized by {@link PrimitiveComposer#flush()}.
+    */
+    Buffered,
+    /**
+      Content objects are appended to the content stream as soon as they are complete, without
+      being retained in the content objects collection.
+      <p>This mode is suited to generation workloads: memory footprint is bound to the current
+      nesting of composite objects, whatever the number of operations. Composition always happens
+      at the end of the content stream; as the content objects collection no longer reflects the
+      content stream, it can't be flushed on its own (see {@link Contents#isWriteThrough()}).</p>
+    */
+    WriteThrough,
+    /**
+      Like {@link #WriteThrough}, additionally deflating the content stream incrementally.
+      <p>Deflated contents are accumulated apart and swapped into the content stream by
+      {@link PrimitiveComposer#flush()}, after which no more content can be added: until then, the
+      content stream retains its previous contents.</p>
+    */
+    CompressedWriteThrough
+  }
+
+  /**
+    Content stream buffer adapter.
+  */
+  private static final class BufferStream
+    extends java.io.OutputStream
+  {
+    private final IBuffer buffer;
+
+    BufferStream(
+      IBuffer buffer
+      )
+    {this.buffer = buffer;}
+
+    @Override
+    public void write(
+      byte[] data,
+      int offset,
+      int length
+      )
+    {buffer.append(data, offset, length);}
+
+    @Override
+    public void write(
+      int data
+      )
+    {buffer.append(new byte[]{(byte)data});}
+  }
+
+  /**
+    Placeholder used to split the serialization of composite objects into their opening and
+    closing chunks.
+  */
+  private static final class ChunkMarker
+    extends ContentObject
+  {
+    long position = -1;
+
+    @Override
+    public void writeTo(
+      IOutputStream stream,
+      org.pdfclown.documents.Document context
+      )
+    {position = stream.getLength();}
+  }
+  // </classes>
+
   // <dynamic>
   // <fields>
   private ContentScanner scanner;
+
+  private final WriteModeEnum writeMode;
+  /**
+    Closing chunks of the composite objects open in write-through mode.
+  */
+  private Stack<byte[]> closingChunks;
+  /**
+    Content stream the content objects are written through to.
+  */
+  private DeflaterOutputStream deflaterStream;
+  /**
+    Deflated contents pending to be swapped into the content stream.
+  */
+  private Buffer deflatedBuffer;
+  private IOutputStream writeStream;
+  private PdfStream writeStreamObject;
   // </fields>
 
   // <constructors>
   public PrimitiveComposer(
     ContentScanner scanner
     )
-  {setScanner(scanner);}
+  {this(scanner, WriteModeEnum.Buffered);}
+
+  /**
+    @param scanner Content scanner to compose through.
+    @param writeMode Content write mode.
+    @since 0.1.3
+  */
+  public PrimitiveComposer(
+    ContentScanner scanner,
+    WriteModeEnum writeMode
+    )
+  {
+    setScanner(scanner);
+    this.writeMode = writeMode;
+    if(writeMode != WriteModeEnum.Buffered)
+    {openWriteStream();}
+  }
 
   public PrimitiveComposer(
     IContentContext context
     )
+  {this(context, WriteModeEnum.Buffered);}
+
+  /**
+    @param context Content context to compose.
+    @param writeMode Content write mode.
+    @since 0.1.3
+  */
+  public PrimitiveComposer(
+    IContentContext context,
+    WriteModeEnum writeMode
+    )
   {
     this(
-      new ContentScanner(context.getContents())
+      new ContentScanner(context.getContents()),
+      writeMode
       );
   }
   // </constructors>
@@ -139,6 +269,11 @@ public final class PrimitiveComposer
   {
     scanner.insert(object);
     scanner.moveNext();
+    if(writeMode != WriteModeEnum.Buffered)
+    {
+      object.writeTo(getWriteStream(), scanner.getContents().getDocument());
+      scanner.trim();
+    }
 
     return object;
   }
@@ -207,6 +342,21 @@ public final class PrimitiveComposer
   {
     // Insert the new object at the current level!
     scanner.insert(object);
+    if(writeMode != WriteModeEnum.Buffered)
+    {
+      // Write the opening chunk of the new object, keeping its closing chunk for end()!
+      ChunkMarker marker = new ChunkMarker();
+      object.getObjects().add(marker);
+      Buffer buffer = new Buffer();
+      object.writeTo(buffer, scanner.getContents().getDocument());
+      object.getObjects().remove(marker);
+      byte[] data = buffer.toByteArray();
+      int markerPosition = (int)marker.position;
+      getWriteStream().write(data, 0, markerPosition);
+      byte[] closingChunk = new byte[data.length - markerPosition];
+      System.arraycopy(data, markerPosition, closingChunk, 0, closingChunk.length);
+      closingChunks.push(closingChunk);
+    }
     // The new object's children level is the new current level!
     scanner = scanner.getChildLevel();
 
@@ -622,6 +772,11 @@ public final class PrimitiveComposer
   {
     scanner = scanner.getParentLevel();
     scanner.moveNext();
+    if(writeMode != WriteModeEnum.Buffered)
+    {
+      getWriteStream().write(closingChunks.pop());
+      scanner.trim();
+    }
   }
 
   /**
@@ -645,10 +800,44 @@ public final class PrimitiveComposer
 
   /**
     Serializes the contents into the content stream.
+    <p>In write-through mode, contents are already in the content stream: in case of
+    {@link WriteModeEnum#CompressedWriteThrough compression}, the content stream is finalized.</p>
   */
   public void flush(
     )
-  {scanner.getContents().flush();}
+  {
+    switch(writeMode)
+    {
+      case Buffered:
+        scanner.getContents().flush();
+        break;
+      case WriteThrough:
+        break;
+      case CompressedWriteThrough:
+      {
+        if(deflaterStream == null)
+          break;
+
+        if(!closingChunks.isEmpty())
+          throw new IllegalStateException("Composite objects still open: end() them before flushing.");
+
+        try
+        {deflaterStream.finish();}
+        catch(IOException e)
+        {throw new RuntimeException(e);}
+        // NOTE: Body and filter are replaced together, so that the stream is never left with
+        // deflated data lacking its filter declaration.
+        IBuffer body = writeStreamObject.getBody();
+        body.setLength(0);
+        body.append(deflatedBuffer.toByteArray());
+        writeStreamObject.getHeader().put(PdfName.Filter, PdfName.FlateDecode);
+        deflaterStream = null;
+        deflatedBuffer = null;
+        writeStream = null;
+        break;
+      }
+    }
+  }
 
   /**
     Gets the content stream scanner.
@@ -657,6 +846,15 @@ public final class PrimitiveComposer
     )
   {return scanner;}
 
+  /**
+    Gets the content write mode.
+
+    @since 0.1.3
+  */
+  public WriteModeEnum getWriteMode(
+    )
+  {return writeMode;}
+
   /**
     Gets the current graphics state [PDF:1.6:4.3].
   */
@@ -1615,6 +1813,52 @@ public final class PrimitiveComposer
     }
   }
 
+  private IOutputStream getWriteStream(
+    )
+  {
+    if(writeStream == null)
+      throw new IllegalStateException("Composition already flushed.");
+
+    return writeStream;
+  }
+
+  /**
+    Prepares the content stream for write-through composition.
+  */
+  private void openWriteStream(
+    )
+  {
+    Contents contents = scanner.getContents();
+    // Serialize the existing contents, merging their streams!
+    contents.flush();
+    // Move to the end, retaining the final graphics state of the existing contents!
+    scanner.moveEnd();
+    scanner.trim();
+    contents.setWriteThrough(true);
+
+    PdfDataObject contentsDataObject = contents.getBaseDataObject();
+    if(contentsDataObject instanceof PdfStream)
+    {writeStreamObject = (PdfStream)contentsDataObject;}
+    else
+    {
+      // New contents go after the existing ones, i.e. into the last stream.
+      PdfArray streams = (PdfArray)contentsDataObject;
+      writeStreamObject = (PdfStream)streams.resolve(streams.size() - 1);
+    }
+    IBuffer buffer = writeStreamObject.getBody();
+    if(writeMode == WriteModeEnum.CompressedWriteThrough)
+    {
+      // Deflate the existing contents along with the new ones, leaving the content stream untouched
+      // until flush!
+      deflatedBuffer = new Buffer();
+      writeStream = new OutputStream(deflaterStream = new DeflaterOutputStream(new BufferStream(deflatedBuffer)));
+      writeStream.write(buffer.toByteArray());
+    }
+    else
+    {writeStream = buffer;}
+    closingChunks = new Stack<byte[]>();
+  }
+
   /**
     Applies a rotation to the coordinate system from text space to user space [PDF:1.6:4.2.2].
 
@@ -27,11 +27,11 @@ package org.pdfclown.documents.contents.fonts;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.Hashtable;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.pdfclown.util.IntMap;
+
 /**
   AFM file format parser [AFM:4.1].
 
@@ -75,9 +75,9 @@ final class AfmParser
   // <fields>
   public FontMetrics metrics;
 
-  public Map<Integer,Integer> glyphIndexes;
-  public Map<Integer,Integer> glyphKernings;
-  public Map<Integer,Integer> glyphWidths;
+  public IntMap glyphIndexes;
+  public IntMap glyphKernings;
+  public IntMap glyphWidths;
 
   public BufferedReader fontData;//TODO: convert to IInputStream
   // </fields>
@@ -180,8 +180,8 @@ final class AfmParser
   private void loadCharMetrics(
     ) throws IOException
   {
-    glyphIndexes = new Hashtable<Integer, Integer>();
-    glyphWidths = new Hashtable<Integer,Integer>();
+    glyphIndexes = new IntMap();
+    glyphWidths = new IntMap();
 
     String line;
     Pattern linePattern = Pattern.compile("C (\\S+) ; WX (\\S+) ; N (\\S+)");
@@ -226,7 +226,7 @@ final class AfmParser
   private void loadKerningData(
     ) throws IOException
   {
-    glyphKernings = new Hashtable<Integer,Integer>();
+    glyphKernings = new IntMap();
 
     String line;
     while((line = fontData.readLine()) != null)
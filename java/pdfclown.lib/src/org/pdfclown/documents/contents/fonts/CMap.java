@@ -28,7 +28,10 @@ package org.pdfclown.documents.contents.fonts;
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.lang.ref.SoftReference;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.pdfclown.bytes.Buffer;
 import org.pdfclown.bytes.IInputStream;
@@ -47,6 +50,20 @@ import org.pdfclown.util.ByteArray;
 final class CMap
 {
   // <static>
+  // <fields>
+  /**
+    Placeholder of missing predefined character maps.
+  */
+  private static final Map<ByteArray,Integer> NoCMap = Collections.emptyMap();
+  /**
+    Predefined character maps by name.
+    <p>Predefined character maps are shared process-wide, as they may be huge (CJK character maps
+    count tens of thousands of entries) and are immutable; they are softly referenced, so that they
+    can be reclaimed under memory pressure.</p>
+  */
+  private static final Map<String,SoftReference<Map<ByteArray,Integer>>> PredefinedCMaps = new ConcurrentHashMap<String,SoftReference<Map<ByteArray,Integer>>>();
+  // </fields>
+
   // <interface>
   /**
     Gets the character map extracted from the given data.
@@ -90,7 +107,11 @@ final class CMap
   public static Map<ByteArray,Integer> get(
     PdfStream stream
     )
-  {return get(stream.getBody());}
+  {
+    // NOTE: Streams may be shared across fonts, so their parsing is serialized (see PageProcessor).
+    synchronized(stream)
+    {return get(stream.getBody());}
+  }
 
   /**
     Gets the character map corresponding to the given name.
@@ -107,24 +128,34 @@ final class CMap
     Gets the character map corresponding to the given name.
 
     @param name Predefined character map name.
-    @return <code>null</code>, in case no name matching occurs.
+    @return <code>null</code>, in case no name matching occurs. The returned map is shared, so it
+      cannot be modified.
   */
   public static Map<ByteArray,Integer> get(
     String name
     )
   {
-    Map<ByteArray,Integer> cmap;
+    SoftReference<Map<ByteArray,Integer>> cmapReference = PredefinedCMaps.get(name);
+    Map<ByteArray,Integer> cmap = (cmapReference != null ? cmapReference.get() : null);
+    if(cmap == null)
     {
+      /*
+        NOTE: Concurrent loadings of the same character map are harmless (the last one wins), so no
+        locking is applied.
+      */
       InputStream cmapResourceStream = CMap.class.getResourceAsStream("/fonts/cmap/" + name);
       if(cmapResourceStream == null)
-        return null;
-
-      BufferedReader cmapStream = new BufferedReader(
-        new InputStreamReader(cmapResourceStream)
-        );
-      cmap = get(new Buffer(cmapStream));
+      {cmap = NoCMap;}
+      else
+      {
+        BufferedReader cmapStream = new BufferedReader(
+          new InputStreamReader(cmapResourceStream)
+          );
+        cmap = Collections.unmodifiableMap(get(new Buffer(cmapStream)));
+      }
+      PredefinedCMaps.put(name, new SoftReference<Map<ByteArray,Integer>>(cmap));
     }
-    return cmap;
+    return cmap != NoCMap ? cmap : null;
   }
   // </interface>
   // </static>
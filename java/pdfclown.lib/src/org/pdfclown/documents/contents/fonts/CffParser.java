@@ -58,7 +58,7 @@ final class CffParser
   /**
     Dictionary [CFF:1.0:4].
   */
-  private static final class Dict
+  static final class Dict
     implements Map<Integer,List<Number>>
   {
     public enum OperatorEnum
@@ -66,7 +66,15 @@ final class CffParser
       Charset("charset", 15),
       CharStrings(17),
       CharstringType(6 + OperatorValueEscape),
-      Encoding(16);
+      DefaultWidthX("defaultWidthX", 20),
+      Encoding(16),
+      FDArray(36 + OperatorValueEscape),
+      FDSelect(37 + OperatorValueEscape),
+      FontMatrix(7 + OperatorValueEscape),
+      NominalWidthX("nominalWidthX", 21),
+      Private(18),
+      ROS(30 + OperatorValueEscape),
+      Subrs(19);
 
       private final String name;
       private final int value;
@@ -119,7 +127,7 @@ final class CffParser
         {
           int operator = b0;
           if(b0 == 12) // 2-byte operator.
-          {operator = operator << 8 + stream.readUnsignedByte();}
+          {operator = (operator << 8) + stream.readUnsignedByte();}
 
           /*
             NOTE: In order to resiliently support unknown operators on parsing, parsed operators
@@ -134,9 +142,9 @@ final class CffParser
           {operands = new ArrayList<Number>();}
 
           if(b0 == 28) // 3-byte integer.
-          {operands.add(stream.readUnsignedByte() << 8 + stream.readUnsignedByte());}
+          {operands.add((int)stream.readShort());}
           else if(b0 == 29) // 5-byte integer.
-          {operands.add(stream.readUnsignedByte() << 24 + stream.readUnsignedByte() << 16 + stream.readUnsignedByte() << 8 + stream.readUnsignedByte());}
+          {operands.add(stream.readInt());}
           else if(b0 == 30) // Variable-length real.
           {
             StringBuilder operandBuilder = new StringBuilder();
@@ -186,9 +194,9 @@ final class CffParser
           else if (b0 >= 32 && b0 <= 246) // 1-byte integer.
           {operands.add(b0 - 139);}
           else if (b0 >= 247 && b0 <= 250) // 2-byte positive integer.
-          {operands.add((b0 - 247) << 8 + stream.readUnsignedByte() + 108);}
+          {operands.add(((b0 - 247) << 8) + stream.readUnsignedByte() + 108);}
           else if (b0 >= 251 && b0 <= 254) // 2-byte negative integer.
-          {operands.add(-(b0 - 251) << 8 - stream.readUnsignedByte() - 108);}
+          {operands.add(-((b0 - 251) << 8) - stream.readUnsignedByte() - 108);}
           else // Reserved.
           { /* NOOP */ }
         }
@@ -290,7 +298,7 @@ final class CffParser
   /**
     Array of variable-sized objects [CFF:1.0:5].
   */
-  private static final class Index
+  static final class Index
     implements List<byte[]>
   {
     @SuppressWarnings("unused")
@@ -304,6 +312,7 @@ final class CffParser
       ) throws EOFException
     {
       byte[][] data = new byte[stream.readUnsignedShort()][];
+      if(data.length > 0) // NOTE: Empty INDEX consists of its count only.
       {
         int[] offsets = new int[data.length + 1];
         int offSize = stream.readUnsignedByte();
@@ -574,7 +583,7 @@ final class CffParser
   /**
     Standard Strings [CFF:1.0:10] represent commonly occurring strings allocated to predefined SIDs.
   */
-  private static final List<String> StandardStrings;
+  static final List<String> StandardStrings;
   // </fields>
 
   // <constructors>
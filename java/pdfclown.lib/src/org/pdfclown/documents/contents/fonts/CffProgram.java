@@ -0,0 +1,945 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.fonts;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.io.EOFException;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pdfclown.bytes.IInputStream;
+import org.pdfclown.documents.contents.fonts.CffParser.Dict;
+import org.pdfclown.documents.contents.fonts.CffParser.Index;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.tokens.CharsetName;
+
+/**
+  CFF font program [CFF:1.0], either name-keyed (Type1C) or CID-keyed (CIDFontType0C), whose
+  glyph outlines are described by Type 2 charstrings [CFF:Type2].
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+final class CffProgram
+  extends FontProgram
+{
+  // <class>
+  // <classes>
+  /**
+    Type 2 charstring interpreter [CFF:Type2].
+  */
+  private final class CharStringInterpreter
+  {
+    private static final int MaxNestingDepth = 10;
+
+    private final Path2D path;
+    private final Index localSubrs;
+
+    private final double[] stack = new double[48];
+    private int stackSize;
+    private final double[] transientArray = new double[32];
+
+    private double x;
+    private double y;
+    private boolean open;
+    private boolean ended;
+    private boolean widthParsed;
+    private int hintCount;
+    private int depth;
+
+    CharStringInterpreter(
+      Path2D path,
+      Index localSubrs,
+      double x,
+      double y
+      )
+    {
+      this.path = path;
+      this.localSubrs = localSubrs;
+      this.x = x;
+      this.y = y;
+    }
+
+    void run(
+      byte[] charString
+      )
+    {
+      execute(charString);
+      closePath();
+    }
+
+    private void closePath(
+      )
+    {
+      if(open)
+      {
+        path.closePath();
+        open = false;
+      }
+    }
+
+    private void curveTo(
+      double dxa,
+      double dya,
+      double dxb,
+      double dyb,
+      double dxc,
+      double dyc
+      )
+    {
+      double xa = x + dxa, ya = y + dya;
+      double xb = xa + dxb, yb = ya + dyb;
+      x = xb + dxc; y = yb + dyc;
+      path.curveTo(xa, ya, xb, yb, x, y);
+    }
+
+    private void execute(
+      byte[] charString
+      )
+    {
+      if(++depth > MaxNestingDepth)
+        throw new IllegalStateException("Subroutine nesting too deep.");
+
+      for(int index = 0, length = charString.length; index < length && !ended;)
+      {
+        int b0 = charString[index++] & 0xff;
+        if(b0 >= 32 || b0 == 28) // Operand.
+        {
+          double operand;
+          if(b0 == 28) // 3-byte integer.
+          {
+            operand = (short)(((charString[index] & 0xff) << 8) | (charString[index + 1] & 0xff));
+            index += 2;
+          }
+          else if(b0 <= 246) // 1-byte integer.
+          {operand = b0 - 139;}
+          else if(b0 <= 250) // 2-byte positive integer.
+          {operand = ((b0 - 247) << 8) + (charString[index++] & 0xff) + 108;}
+          else if(b0 <= 254) // 2-byte negative integer.
+          {operand = -((b0 - 251) << 8) - (charString[index++] & 0xff) - 108;}
+          else // 16.16 fixed-point number.
+          {
+            operand = (((charString[index] & 0xff) << 24) | ((charString[index + 1] & 0xff) << 16)
+              | ((charString[index + 2] & 0xff) << 8) | (charString[index + 3] & 0xff)) / 65536d;
+            index += 4;
+          }
+          if(stackSize < stack.length)
+          {stack[stackSize++] = operand;}
+          continue;
+        }
+
+        switch(b0)
+        {
+          case 1: // hstem.
+          case 3: // vstem.
+          case 18: // hstemhm.
+          case 23: // vstemhm.
+            parseWidth(stackSize % 2 != 0);
+            hintCount += stackSize / 2;
+            stackSize = 0;
+            break;
+          case 19: // hintmask.
+          case 20: // cntrmask.
+            // NOTE: Operands preceding a mask operator are implicit vstem hints.
+            parseWidth(stackSize % 2 != 0);
+            hintCount += stackSize / 2;
+            stackSize = 0;
+            index += (hintCount + 7) / 8;
+            break;
+          case 21: // rmoveto.
+            parseWidth(stackSize > 2);
+            moveTo(stack[0], stack[1]);
+            stackSize = 0;
+            break;
+          case 22: // hmoveto.
+            parseWidth(stackSize > 1);
+            moveTo(stack[0], 0);
+            stackSize = 0;
+            break;
+          case 4: // vmoveto.
+            parseWidth(stackSize > 1);
+            moveTo(0, stack[0]);
+            stackSize = 0;
+            break;
+          case 5: // rlineto.
+            for(int stackIndex = 0; stackIndex + 1 < stackSize; stackIndex += 2)
+            {lineTo(stack[stackIndex], stack[stackIndex + 1]);}
+            stackSize = 0;
+            break;
+          case 6: // hlineto.
+          case 7: // vlineto.
+          {
+            boolean horizontal = (b0 == 6);
+            for(int stackIndex = 0; stackIndex < stackSize; stackIndex++, horizontal = !horizontal)
+            {
+              if(horizontal)
+              {lineTo(stack[stackIndex], 0);}
+              else
+              {lineTo(0, stack[stackIndex]);}
+            }
+            stackSize = 0;
+            break;
+          }
+          case 8: // rrcurveto.
+            for(int stackIndex = 0; stackIndex + 5 < stackSize; stackIndex += 6)
+            {curveTo(stack[stackIndex], stack[stackIndex + 1], stack[stackIndex + 2], stack[stackIndex + 3], stack[stackIndex + 4], stack[stackIndex + 5]);}
+            stackSize = 0;
+            break;
+          case 24: // rcurveline.
+          {
+            int stackIndex = 0;
+            for(; stackIndex + 7 < stackSize; stackIndex += 6)
+            {curveTo(stack[stackIndex], stack[stackIndex + 1], stack[stackIndex + 2], stack[stackIndex + 3], stack[stackIndex + 4], stack[stackIndex + 5]);}
+            if(stackIndex + 1 < stackSize)
+            {lineTo(stack[stackIndex], stack[stackIndex + 1]);}
+            stackSize = 0;
+            break;
+          }
+          case 25: // rlinecurve.
+          {
+            int stackIndex = 0;
+            for(; stackIndex + 7 < stackSize; stackIndex += 2)
+            {lineTo(stack[stackIndex], stack[stackIndex + 1]);}
+            if(stackIndex + 5 < stackSize)
+            {curveTo(stack[stackIndex], stack[stackIndex + 1], stack[stackIndex + 2], stack[stackIndex + 3], stack[stackIndex + 4], stack[stackIndex + 5]);}
+            stackSize = 0;
+            break;
+          }
+          case 26: // vvcurveto.
+          {
+            int stackIndex = 0;
+            double dx1 = 0;
+            if(stackSize % 4 != 0)
+            {dx1 = stack[stackIndex++];}
+            for(; stackIndex + 3 < stackSize; stackIndex += 4, dx1 = 0)
+            {curveTo(dx1, stack[stackIndex], stack[stackIndex + 1], stack[stackIndex + 2], 0, stack[stackIndex + 3]);}
+            stackSize = 0;
+            break;
+          }
+          case 27: // hhcurveto.
+          {
+            int stackIndex = 0;
+            double dy1 = 0;
+            if(stackSize % 4 != 0)
+            {dy1 = stack[stackIndex++];}
+            for(; stackIndex + 3 < stackSize; stackIndex += 4, dy1 = 0)
+            {curveTo(stack[stackIndex], dy1, stack[stackIndex + 1], stack[stackIndex + 2], stack[stackIndex + 3], 0);}
+            stackSize = 0;
+            break;
+          }
+          case 30: // vhcurveto.
+          case 31: // hvcurveto.
+          {
+            boolean horizontal = (b0 == 31);
+            for(int stackIndex = 0; stackIndex + 3 < stackSize; stackIndex += 4, horizontal = !horizontal)
+            {
+              // NOTE: The last curve may have an additional final coordinate.
+              double last = (stackSize - stackIndex == 5 ? stack[stackIndex + 4] : 0);
+              if(horizontal)
+              {curveTo(stack[stackIndex], 0, stack[stackIndex + 1], stack[stackIndex + 2], last, stack[stackIndex + 3]);}
+              else
+              {curveTo(0, stack[stackIndex], stack[stackIndex + 1], stack[stackIndex + 2], stack[stackIndex + 3], last);}
+            }
+            stackSize = 0;
+            break;
+          }
+          case 10: // callsubr.
+            if(stackSize > 0 && localSubrs != null)
+            {callSubr(localSubrs, (int)stack[--stackSize]);}
+            break;
+          case 29: // callgsubr.
+            if(stackSize > 0 && globalSubrs != null)
+            {callSubr(globalSubrs, (int)stack[--stackSize]);}
+            break;
+          case 11: // return.
+            depth--;
+            return;
+          case 14: // endchar.
+            parseWidth(stackSize == 1 || stackSize == 5);
+            if(stackSize >= 4) // Accented character (seac-like).
+            {
+              closePath();
+              seac(stack[stackSize - 4], stack[stackSize - 3], (int)stack[stackSize - 2], (int)stack[stackSize - 1]);
+            }
+            stackSize = 0;
+            ended = true;
+            break;
+          case 12: // Escape.
+            index = executeEscape(charString[index] & 0xff, index + 1);
+            break;
+          default: // Unknown or reserved.
+            stackSize = 0;
+            break;
+        }
+      }
+      depth--;
+    }
+
+    private int executeEscape(
+      int b1,
+      int index
+      )
+    {
+      switch(b1)
+      {
+        case 34: // hflex.
+          if(stackSize >= 7)
+          {
+            double startY = y;
+            curveTo(stack[0], 0, stack[1], stack[2], stack[3], 0);
+            curveTo(stack[4], 0, stack[5], startY - y, stack[6], 0);
+          }
+          stackSize = 0;
+          break;
+        case 35: // flex.
+          if(stackSize >= 12)
+          {
+            curveTo(stack[0], stack[1], stack[2], stack[3], stack[4], stack[5]);
+            curveTo(stack[6], stack[7], stack[8], stack[9], stack[10], stack[11]);
+          }
+          stackSize = 0;
+          break;
+        case 36: // hflex1.
+          if(stackSize >= 9)
+          {
+            double startY = y;
+            curveTo(stack[0], stack[1], stack[2], stack[3], stack[4], 0);
+            curveTo(stack[5], 0, stack[6], stack[7], stack[8], startY - y - stack[7]);
+          }
+          stackSize = 0;
+          break;
+        case 37: // flex1.
+          if(stackSize >= 11)
+          {
+            double dx = 0, dy = 0;
+            for(int stackIndex = 0; stackIndex < 10; stackIndex += 2)
+            {
+              dx += stack[stackIndex];
+              dy += stack[stackIndex + 1];
+            }
+            double startX = x, startY = y;
+            curveTo(stack[0], stack[1], stack[2], stack[3], stack[4], stack[5]);
+            double dx6, dy6;
+            if(Math.abs(dx) > Math.abs(dy))
+            {dx6 = stack[10]; dy6 = startY - (y + stack[7] + stack[9]);}
+            else
+            {dx6 = startX - (x + stack[6] + stack[8]); dy6 = stack[10];}
+            curveTo(stack[6], stack[7], stack[8], stack[9], dx6, dy6);
+          }
+          stackSize = 0;
+          break;
+        case 3: // and.
+          if(stackSize >= 2)
+          {stackSize--; stack[stackSize - 1] = (stack[stackSize - 1] != 0 && stack[stackSize] != 0 ? 1 : 0);}
+          break;
+        case 4: // or.
+          if(stackSize >= 2)
+          {stackSize--; stack[stackSize - 1] = (stack[stackSize - 1] != 0 || stack[stackSize] != 0 ? 1 : 0);}
+          break;
+        case 5: // not.
+          if(stackSize >= 1)
+          {stack[stackSize - 1] = (stack[stackSize - 1] == 0 ? 1 : 0);}
+          break;
+        case 9: // abs.
+          if(stackSize >= 1)
+          {stack[stackSize - 1] = Math.abs(stack[stackSize - 1]);}
+          break;
+        case 10: // add.
+          if(stackSize >= 2)
+          {stackSize--; stack[stackSize - 1] += stack[stackSize];}
+          break;
+        case 11: // sub.
+          if(stackSize >= 2)
+          {stackSize--; stack[stackSize - 1] -= stack[stackSize];}
+          break;
+        case 12: // div.
+          if(stackSize >= 2)
+          {stackSize--; stack[stackSize - 1] /= stack[stackSize];}
+          break;
+        case 14: // neg.
+          if(stackSize >= 1)
+          {stack[stackSize - 1] = -stack[stackSize - 1];}
+          break;
+        case 15: // eq.
+          if(stackSize >= 2)
+          {stackSize--; stack[stackSize - 1] = (stack[stackSize - 1] == stack[stackSize] ? 1 : 0);}
+          break;
+        case 18: // drop.
+          if(stackSize >= 1)
+          {stackSize--;}
+          break;
+        case 20: // put.
+          if(stackSize >= 2)
+          {
+            int transientIndex = (int)stack[--stackSize];
+            double value = stack[--stackSize];
+            if(transientIndex >= 0 && transientIndex < transientArray.length)
+            {transientArray[transientIndex] = value;}
+          }
+          break;
+        case 21: // get.
+          if(stackSize >= 1)
+          {
+            int transientIndex = (int)stack[stackSize - 1];
+            stack[stackSize - 1] = (transientIndex >= 0 && transientIndex < transientArray.length ? transientArray[transientIndex] : 0);
+          }
+          break;
+        case 22: // ifelse.
+          if(stackSize >= 4)
+          {
+            stackSize -= 3;
+            if(stack[stackSize + 1] > stack[stackSize + 2])
+            {stack[stackSize - 1] = stack[stackSize];}
+          }
+          break;
+        case 23: // random.
+          if(stackSize < stack.length)
+          {stack[stackSize++] = 1 - Math.random();}
+          break;
+        case 24: // mul.
+          if(stackSize >= 2)
+          {stackSize--; stack[stackSize - 1] *= stack[stackSize];}
+          break;
+        case 26: // sqrt.
+          if(stackSize >= 1)
+          {stack[stackSize - 1] = Math.sqrt(stack[stackSize - 1]);}
+          break;
+        case 27: // dup.
+          if(stackSize >= 1 && stackSize < stack.length)
+          {stack[stackSize] = stack[stackSize - 1]; stackSize++;}
+          break;
+        case 28: // exch.
+          if(stackSize >= 2)
+          {
+            double value = stack[stackSize - 1];
+            stack[stackSize - 1] = stack[stackSize - 2];
+            stack[stackSize - 2] = value;
+          }
+          break;
+        case 29: // index.
+          if(stackSize >= 1)
+          {
+            int stackIndex = (int)stack[stackSize - 1];
+            if(stackIndex < 0)
+            {stackIndex = 0;}
+            stack[stackSize - 1] = (stackIndex < stackSize - 1 ? stack[stackSize - 2 - stackIndex] : 0);
+          }
+          break;
+        case 30: // roll.
+          if(stackSize >= 2)
+          {
+            int shift = (int)stack[--stackSize];
+            int count = (int)stack[--stackSize];
+            if(count > 0 && count <= stackSize)
+            {
+              shift = ((shift % count) + count) % count;
+              double[] values = new double[count];
+              int base = stackSize - count;
+              for(int valueIndex = 0; valueIndex < count; valueIndex++)
+              {values[(valueIndex + shift) % count] = stack[base + valueIndex];}
+              System.arraycopy(values, 0, stack, base, count);
+            }
+          }
+          break;
+        default: // dotsection, unknown or reserved.
+          stackSize = 0;
+          break;
+      }
+      return index;
+    }
+
+    private void callSubr(
+      Index subrs,
+      int subrIndex
+      )
+    {
+      subrIndex += getBias(subrs);
+      if(subrIndex >= 0 && subrIndex < subrs.size())
+      {execute(subrs.get(subrIndex));}
+    }
+
+    private void lineTo(
+      double dx,
+      double dy
+      )
+    {
+      x += dx; y += dy;
+      path.lineTo(x, y);
+    }
+
+    private void moveTo(
+      double dx,
+      double dy
+      )
+    {
+      closePath();
+      x += dx; y += dy;
+      path.moveTo(x, y);
+      open = true;
+    }
+
+    /**
+      Drops the optional advance width preceding the first stack-clearing operator.
+
+      @param present Whether the width operand is present.
+    */
+    private void parseWidth(
+      boolean present
+      )
+    {
+      if(widthParsed)
+        return;
+
+      widthParsed = true;
+      if(present)
+      {System.arraycopy(stack, 1, stack, 0, --stackSize);}
+    }
+
+    private void seac(
+      double adx,
+      double ady,
+      int baseCode,
+      int accentCode
+      )
+    {
+      int baseGlyphIndex = getStandardGlyphIndex(baseCode);
+      int accentGlyphIndex = getStandardGlyphIndex(accentCode);
+      if(baseGlyphIndex < 0 || accentGlyphIndex < 0)
+        return;
+
+      new CharStringInterpreter(path, localSubrs, 0, 0).run(charStrings.get(baseGlyphIndex));
+      new CharStringInterpreter(path, localSubrs, adx, ady).run(charStrings.get(accentGlyphIndex));
+    }
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  private static final AffineTransform DefaultFontMatrix = new AffineTransform(.001, 0, 0, .001, 0, 0);
+  // </fields>
+
+  // <interface>
+  // <private>
+  private static int getBias(
+    Index subrs
+    )
+  {
+    int count = subrs.size();
+    return count < 1240 ? 107 : count < 33900 ? 1131 : 32768;
+  }
+
+  private static AffineTransform getFontMatrix(
+    Dict dict
+    )
+  {
+    List<Number> operands = dict.get(Dict.OperatorEnum.FontMatrix.getValue());
+    if(operands == null || operands.size() < 6)
+      return null;
+
+    return new AffineTransform(
+      operands.get(0).doubleValue(),
+      operands.get(1).doubleValue(),
+      operands.get(2).doubleValue(),
+      operands.get(3).doubleValue(),
+      operands.get(4).doubleValue(),
+      operands.get(5).doubleValue()
+      );
+  }
+
+  /**
+    Parses the local subroutines of the given font dictionary.
+  */
+  private static Index parseLocalSubrs(
+    IInputStream fontData,
+    Dict dict
+    ) throws EOFException
+  {
+    List<Number> privateOperands = dict.get(Dict.OperatorEnum.Private.getValue());
+    if(privateOperands == null || privateOperands.size() < 2)
+      return null;
+
+    int privateSize = privateOperands.get(0).intValue();
+    int privateOffset = privateOperands.get(1).intValue();
+    byte[] privateData = new byte[privateSize];
+    fontData.seek(privateOffset);
+    fontData.read(privateData);
+    Dict privateDict = Dict.parse(privateData);
+    Number subrsOffset = privateDict.get(Dict.OperatorEnum.Subrs, 0);
+    if(subrsOffset == null)
+      return null;
+
+    // NOTE: Local subroutine offset is relative to the beginning of the Private dictionary.
+    return Index.parse(fontData, privateOffset + subrsOffset.intValue());
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  private final Index charStrings;
+  private final Index globalSubrs;
+  /**
+    Local subroutines by font dictionary.
+  */
+  private final Index[] localSubrs;
+  /**
+    Font dictionary indexes by glyph index (CID-keyed fonts).
+  */
+  private final int[] fdSelect;
+  /**
+    Font matrixes (scaled to glyph space units) by font dictionary.
+  */
+  private final AffineTransform[] glyphTransforms;
+
+  /**
+    Glyph indexes by CID (CID-keyed fonts).
+  */
+  private Map<Integer,Integer> cidGlyphIndexes;
+  /**
+    Glyph names by code (name-keyed fonts).
+  */
+  private String[] encoding;
+  /**
+    Glyph indexes by glyph name (name-keyed fonts).
+  */
+  private Map<String,Integer> glyphIndexes;
+  // </fields>
+
+  // <constructors>
+  CffProgram(
+    IInputStream fontData
+    ) throws EOFException, UnsupportedEncodingException
+  {
+    // Header.
+    fontData.seek(2);
+    fontData.seek(fontData.readUnsignedByte());
+
+    Index.parse(fontData); // Name INDEX.
+    Index topDictIndex = Index.parse(fontData);
+    Index stringIndex = Index.parse(fontData);
+    globalSubrs = Index.parse(fontData);
+
+    Dict topDict = Dict.parse(topDictIndex.get(0));
+    charStrings = Index.parse(fontData, topDict.get(Dict.OperatorEnum.CharStrings, 0).intValue());
+
+    AffineTransform fontMatrix = getFontMatrix(topDict);
+    if(fontMatrix == null)
+    {fontMatrix = DefaultFontMatrix;}
+
+    boolean cidKeyed = topDict.containsKey(Dict.OperatorEnum.ROS.getValue());
+    if(cidKeyed)
+    {
+      Index fdArray = Index.parse(fontData, topDict.get(Dict.OperatorEnum.FDArray, 0).intValue());
+      int fdCount = fdArray.size();
+      localSubrs = new Index[fdCount];
+      glyphTransforms = new AffineTransform[fdCount];
+      for(int fdIndex = 0; fdIndex < fdCount; fdIndex++)
+      {
+        Dict fontDict = Dict.parse(fdArray.get(fdIndex));
+        localSubrs[fdIndex] = parseLocalSubrs(fontData, fontDict);
+
+        AffineTransform glyphTransform = AffineTransform.getScaleInstance(1000, 1000);
+        AffineTransform fdFontMatrix = getFontMatrix(fontDict);
+        if(fdFontMatrix != null)
+        {
+          /*
+            NOTE: Font dictionary matrix is concatenated to the top dictionary one, which in such
+            case is usually the identity.
+          */
+          glyphTransform.concatenate(topDict.containsKey(Dict.OperatorEnum.FontMatrix.getValue()) ? fontMatrix : new AffineTransform());
+          glyphTransform.concatenate(fdFontMatrix);
+        }
+        else
+        {glyphTransform.concatenate(fontMatrix);}
+        glyphTransforms[fdIndex] = glyphTransform;
+      }
+      fdSelect = parseFdSelect(fontData, topDict.get(Dict.OperatorEnum.FDSelect, 0).intValue());
+    }
+    else
+    {
+      localSubrs = new Index[]{parseLocalSubrs(fontData, topDict)};
+      AffineTransform glyphTransform = AffineTransform.getScaleInstance(1000, 1000);
+      glyphTransform.concatenate(fontMatrix);
+      glyphTransforms = new AffineTransform[]{glyphTransform};
+      fdSelect = null;
+    }
+
+    int[] charset = parseCharset(fontData, topDict.get(Dict.OperatorEnum.Charset, 0, 0).intValue());
+    if(cidKeyed)
+    {
+      cidGlyphIndexes = new HashMap<Integer,Integer>();
+      for(int glyphIndex = 0; glyphIndex < charset.length; glyphIndex++)
+      {cidGlyphIndexes.put(charset[glyphIndex], glyphIndex);}
+    }
+    else
+    {
+      String[] glyphNames = new String[charset.length];
+      glyphIndexes = new HashMap<String,Integer>();
+      for(int glyphIndex = 0; glyphIndex < charset.length; glyphIndex++)
+      {
+        int sid = charset[glyphIndex];
+        String glyphName = (sid < CffParser.StandardStrings.size()
+          ? CffParser.StandardStrings.get(sid)
+          : sid - CffParser.StandardStrings.size() < stringIndex.size()
+            ? new String(stringIndex.get(sid - CffParser.StandardStrings.size()), CharsetName.ISO88591)
+            : null);
+        if(glyphName != null)
+        {
+          glyphNames[glyphIndex] = glyphName;
+          if(!glyphIndexes.containsKey(glyphName))
+          {glyphIndexes.put(glyphName, glyphIndex);}
+        }
+      }
+      encoding = parseEncoding(fontData, topDict.get(Dict.OperatorEnum.Encoding, 0, 0).intValue(), glyphNames, stringIndex);
+    }
+  }
+  // </constructors>
+
+  // <interface>
+  @Override
+  String[] getEncoding(
+    )
+  {return encoding;}
+
+  @Override
+  int getCidGlyphIndex(
+    int cid
+    )
+  {
+    if(cidGlyphIndexes == null)
+      return cid;
+
+    Integer glyphIndex = cidGlyphIndexes.get(cid);
+    return glyphIndex != null ? glyphIndex : -1;
+  }
+
+  @Override
+  int getGlyphIndex(
+    String name
+    )
+  {
+    if(glyphIndexes == null)
+      return -1;
+
+    Integer glyphIndex = glyphIndexes.get(name);
+    return glyphIndex != null ? glyphIndex : -1;
+  }
+
+  @Override
+  protected Shape loadOutline(
+    int glyphIndex
+    )
+  {
+    if(glyphIndex >= charStrings.size())
+      return null;
+
+    int fdIndex = (fdSelect != null ? (glyphIndex < fdSelect.length ? fdSelect[glyphIndex] : 0) : 0);
+    if(fdIndex >= localSubrs.length)
+    {fdIndex = 0;}
+
+    Path2D.Float outline = new Path2D.Float();
+    new CharStringInterpreter(outline, localSubrs[fdIndex], 0, 0).run(charStrings.get(glyphIndex));
+    outline.transform(glyphTransforms[fdIndex]);
+    return outline;
+  }
+
+  // <private>
+  /**
+    Gets the glyph index corresponding to the given standard encoding code (seac components).
+  */
+  private int getStandardGlyphIndex(
+    int code
+    )
+  {
+    if(code < 0 || code > 255)
+      return -1;
+
+    String glyphName = Encoding.get(PdfName.StandardEncoding).getNames()[code];
+    return glyphName != null ? getGlyphIndex(glyphName) : -1;
+  }
+
+  /**
+    Parses the charset [CFF:1.0:13].
+
+    @return SIDs (name-keyed fonts) or CIDs (CID-keyed fonts) by glyph index.
+  */
+  private int[] parseCharset(
+    IInputStream fontData,
+    int offset
+    ) throws EOFException
+  {
+    int glyphCount = charStrings.size();
+    int[] charset = new int[glyphCount];
+    switch(offset)
+    {
+      case 0: // ISOAdobe.
+        for(int glyphIndex = 0; glyphIndex < glyphCount; glyphIndex++)
+        {charset[glyphIndex] = glyphIndex;}
+        break;
+      case 1: // Expert.
+      case 2: // ExpertSubset.
+        // NOTE: Expert charsets are not supported (glyphs are left unnamed).
+        break;
+      default:
+      {
+        fontData.seek(offset);
+        int format = fontData.readUnsignedByte();
+        for(int glyphIndex = 1; glyphIndex < glyphCount;)
+        {
+          if(format == 0)
+          {charset[glyphIndex++] = fontData.readUnsignedShort();}
+          else
+          {
+            int first = fontData.readUnsignedShort();
+            int leftCount = (format == 1 ? fontData.readUnsignedByte() : fontData.readUnsignedShort());
+            for(int rangeIndex = 0; rangeIndex <= leftCount && glyphIndex < glyphCount; rangeIndex++)
+            {charset[glyphIndex++] = first + rangeIndex;}
+          }
+        }
+        break;
+      }
+    }
+    return charset;
+  }
+
+  /**
+    Parses the encoding [CFF:1.0:12].
+
+    @return Glyph names by code.
+  */
+  private String[] parseEncoding(
+    IInputStream fontData,
+    int offset,
+    String[] glyphNames,
+    Index stringIndex
+    ) throws EOFException, UnsupportedEncodingException
+  {
+    switch(offset)
+    {
+      case 0: // Standard.
+        return Encoding.get(PdfName.StandardEncoding).getNames();
+      case 1: // Expert.
+        return null;
+      default:
+      {
+        String[] encoding = new String[256];
+        fontData.seek(offset);
+        int format = fontData.readUnsignedByte();
+        switch(format & 0x7f)
+        {
+          case 0:
+          {
+            int codeCount = fontData.readUnsignedByte();
+            for(int glyphIndex = 1; glyphIndex <= codeCount; glyphIndex++)
+            {
+              int code = fontData.readUnsignedByte();
+              if(glyphIndex < glyphNames.length)
+              {encoding[code] = glyphNames[glyphIndex];}
+            }
+            break;
+          }
+          case 1:
+          {
+            int rangeCount = fontData.readUnsignedByte();
+            for(int rangeIndex = 0, glyphIndex = 1; rangeIndex < rangeCount; rangeIndex++)
+            {
+              int first = fontData.readUnsignedByte();
+              int leftCount = fontData.readUnsignedByte();
+              for(int code = first; code <= first + leftCount && code < 256; code++, glyphIndex++)
+              {
+                if(glyphIndex < glyphNames.length)
+                {encoding[code] = glyphNames[glyphIndex];}
+              }
+            }
+            break;
+          }
+        }
+        if((format & 0x80) != 0) // Supplements.
+        {
+          int supplementCount = fontData.readUnsignedByte();
+          for(int supplementIndex = 0; supplementIndex < supplementCount; supplementIndex++)
+          {
+            int code = fontData.readUnsignedByte();
+            int sid = fontData.readUnsignedShort();
+            encoding[code] = (sid < CffParser.StandardStrings.size()
+              ? CffParser.StandardStrings.get(sid)
+              : sid - CffParser.StandardStrings.size() < stringIndex.size()
+                ? new String(stringIndex.get(sid - CffParser.StandardStrings.size()), CharsetName.ISO88591)
+                : null);
+          }
+        }
+        return encoding;
+      }
+    }
+  }
+
+  /**
+    Parses the font dictionary selector [CFF:1.0:19].
+
+    @return Font dictionary indexes by glyph index.
+  */
+  private int[] parseFdSelect(
+    IInputStream fontData,
+    int offset
+    ) throws EOFException
+  {
+    int glyphCount = charStrings.size();
+    int[] fdSelect = new int[glyphCount];
+    fontData.seek(offset);
+    int format = fontData.readUnsignedByte();
+    switch(format)
+    {
+      case 0:
+        for(int glyphIndex = 0; glyphIndex < glyphCount; glyphIndex++)
+        {fdSelect[glyphIndex] = fontData.readUnsignedByte();}
+        break;
+      case 3:
+      {
+        int rangeCount = fontData.readUnsignedShort();
+        int first = fontData.readUnsignedShort();
+        for(int rangeIndex = 0; rangeIndex < rangeCount; rangeIndex++)
+        {
+          int fdIndex = fontData.readUnsignedByte();
+          int next = fontData.readUnsignedShort();
+          for(int glyphIndex = first; glyphIndex < next && glyphIndex < glyphCount; glyphIndex++)
+          {fdSelect[glyphIndex] = fdIndex;}
+          first = next;
+        }
+        break;
+      }
+    }
+    return fdSelect;
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
@@ -0,0 +1,185 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.fonts;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.pdfclown.util.ByteArray;
+
+/**
+  Character code decoding table.
+  <p>Character codes are resolved through a byte trie whose nodes are direct-indexed by byte
+  value, so that 1- and 2-byte codespaces are decoded with plain array lookups and no allocation.
+  Each code is mapped to its unicode and unscaled glyph width.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+final class CharCodeTable
+{
+  // <class>
+  // <classes>
+  /**
+    Trie node, covering the codes sharing the same prefix.
+  */
+  private static final class Node
+  {
+    /**
+      Descendant nodes by code byte (<code>null</code> if no longer code shares the prefix).
+    */
+    Node[] children;
+    /**
+      Unicodes by code byte ({@link CharCodeTable#Undefined} if undefined).
+    */
+    final int[] unicodes = new int[256];
+    /**
+      Unscaled glyph widths by code byte.
+    */
+    final int[] widths = new int[256];
+
+    Node(
+      )
+    {Arrays.fill(unicodes, Undefined);}
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  private static final int Undefined = -1;
+  // </fields>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  /**
+    Source mapping (unicodes by character code).
+  */
+  final Map<ByteArray,Integer> codes;
+
+  private final int charCodeMaxLength;
+  private final Node root = new Node();
+  /**
+    Unscaled width of the fallback character (space).
+  */
+  private final int undefinedWidth;
+  // </fields>
+
+  // <constructors>
+  /**
+    @param font Font whose codes have to be mapped.
+    @param codes Unicodes by character code.
+    @param charCodeMaxLength Maximum character code byte size.
+  */
+  CharCodeTable(
+    Font font,
+    Map<ByteArray,Integer> codes,
+    int charCodeMaxLength
+    )
+  {
+    this.codes = codes;
+    this.charCodeMaxLength = Math.max(charCodeMaxLength, 1);
+    this.undefinedWidth = font.getWidth(' ');
+
+    for(Map.Entry<ByteArray,Integer> codeEntry : codes.entrySet())
+    {
+      byte[] code = codeEntry.getKey().data;
+      if(code.length == 0)
+        continue;
+
+      Node node = root;
+      for(int index = 0, lastIndex = code.length - 1; index < lastIndex; index++)
+      {
+        if(node.children == null)
+        {node.children = new Node[256];}
+        int codeByte = code[index] & 0xFF;
+        Node child = node.children[codeByte];
+        if(child == null)
+        {child = node.children[codeByte] = new Node();}
+        node = child;
+      }
+      int codeByte = code[code.length - 1] & 0xFF;
+      int unicode = codeEntry.getValue();
+      node.unicodes[codeByte] = unicode;
+      node.widths[codeByte] = font.getWidth((char)unicode);
+    }
+  }
+  // </constructors>
+
+  // <interface>
+  /**
+    Decodes the given character codes.
+
+    @param code Character codes to decode.
+    @param listener Target of the decoded characters.
+  */
+  void decode(
+    byte[] code,
+    Font.IDecodeListener listener
+    )
+  {
+    int position = 0;
+    int codeLength = code.length;
+    while(position < codeLength)
+    {
+      Node node = root;
+      int codeBufferSize = 1;
+      while(true)
+      {
+        int codeByte = code[position + codeBufferSize - 1] & 0xFF;
+        int unicode = node.unicodes[codeByte];
+        if(unicode != Undefined)
+        {
+          listener.onChar((char)unicode, node.widths[codeByte], codeBufferSize);
+          break;
+        }
+
+        Node child = (node.children != null ? node.children[codeByte] : null);
+        if(child == null
+          || codeBufferSize == charCodeMaxLength
+          || position + codeBufferSize == codeLength)
+        {
+          /*
+            NOTE: In case no valid code entry is found, a default space is resiliantely
+            applied instead of throwing an exception.
+            This is potentially risky as failing to determine the actual code length
+            may result in a "code shifting" which could affect following characters.
+          */
+          codeBufferSize = Math.min(charCodeMaxLength, codeLength - position);
+          listener.onChar(' ', undefinedWidth, codeBufferSize);
+          break;
+        }
+
+        node = child;
+        codeBufferSize++;
+      }
+      position += codeBufferSize;
+    }
+  }
+  // </interface>
+  // </dynamic>
+  // </class>
+}
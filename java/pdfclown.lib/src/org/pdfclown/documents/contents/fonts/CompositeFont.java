@@ -25,16 +25,22 @@
 
 package org.pdfclown.documents.contents.fonts;
 
+import java.awt.Shape;
 import java.awt.geom.Point2D;
-import java.util.Hashtable;
+import java.nio.ByteOrder;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
-import org.pdfclown.bytes.Buffer;
+import org.pdfclown.bytes.IBuffer;
 import org.pdfclown.bytes.IInputStream;
 import org.pdfclown.documents.Document;
+import org.pdfclown.objects.Cloner;
 import org.pdfclown.objects.PdfArray;
 import org.pdfclown.objects.PdfDataObject;
 import org.pdfclown.objects.PdfDictionary;
@@ -49,6 +55,7 @@ import org.pdfclown.objects.Rectangle;
 import org.pdfclown.util.BiMap;
 import org.pdfclown.util.ByteArray;
 import org.pdfclown.util.ConvertUtils;
+import org.pdfclown.util.IntMap;
 import org.pdfclown.util.NotImplementedException;
 
 /**
@@ -67,6 +74,18 @@ public abstract class CompositeFont
   // <class>
   // <static>
   // <fields>
+  /**
+    Maximum number of entries in a CMap block [PDF:1.6:5.9.2].
+  */
+  private static final int CMapBlockMaxSize = 100;
+  /**
+    Codespace ranges of the generated CMaps (single-byte space, double-byte anything else).
+  */
+  private static final String CodeSpaceRanges = "3 begincodespacerange\n"
+    + "<20> <20>\n"
+    + "<0000> <1FFF>\n"
+    + "<2100> <FFFF>\n"
+    + "endcodespacerange\n";
   private static final String HexPadding = "0000";
   // </fields>
 
@@ -76,20 +95,40 @@ public abstract class CompositeFont
     Document context,
     IInputStream fontData
     )
+  {return get(context, OpenFont.get(fontData));}
+
+  /**
+    Creates the representation of the given font program within the specified document.
+
+    @param context Document the font has to be embedded into.
+    @param font Font program (parsed once, it can be embedded into any number of documents).
+    @since 0.1.3
+  */
+  public static CompositeFont get(
+    Document context,
+    OpenFont font
+    )
   {
-    OpenFontParser parser = new OpenFontParser(fontData);
-    switch(parser.outlineFormat)
+    switch(font.parser.outlineFormat)
     {
       case CFF:
-        return new Type0Font(context,parser);
+        return new Type0Font(context,font);
       case TrueType:
-        return new Type2Font(context,parser);
+        return new Type2Font(context,font);
     }
     throw new UnsupportedOperationException("Unknown composite font format.");
   }
   // </public>
 
   // <private>
+  /**
+    Gets the sort key of the given character code.
+  */
+  private static int getCodeKey(
+    ByteArray code
+    )
+  {return (code.data.length << 16) | ConvertUtils.byteArrayToInt(code.data);}
+
   private static String getHex(
     int value
     )
@@ -104,17 +143,30 @@ public abstract class CompositeFont
 
   // <dynamic>
   // <fields>
+  /**
+    Font program the font structures are generated from (<code>null</code> in case of existing
+    font).
+  */
+  private OpenFontParser parser;
+  /**
+    Number of used unicodes at the time of the latest font structures generation.
+  */
+  private int flushedCodeCount = -1;
+  /**
+    CIDs by character code (lazily loaded).
+  */
+  private volatile Map<ByteArray,Integer> cids;
   // </fields>
 
   // <constructors>
   protected CompositeFont(
     Document context,
-    OpenFontParser parser
+    OpenFont font
     )
   {
     super(context);
 
-    load(parser);
+    load(font);
   }
 
   protected CompositeFont(
@@ -125,6 +177,83 @@ public abstract class CompositeFont
 
   // <interface>
   // <public>
+  @Override
+  public Object clone(
+    Cloner cloner
+    )
+  {
+    // Generate the pending font structures before they are copied!
+    flush();
+
+    CompositeFont clone = (CompositeFont)super.clone(cloner);
+    clone.parser = null;
+    return clone;
+  }
+
+  /**
+    {@inheritDoc}
+    <p>The embedded font program is subset to the glyphs of the {@link #encode(String) encoded}
+    characters, and the character code mapping (encoding CMap, ToUnicode CMap and glyph widths) is
+    accordingly restricted.</p>
+  */
+  @Override
+  public void flush(
+    )
+  {
+    if(parser == null
+      || usedCodes.size() == flushedCodeCount)
+      return;
+
+    // Glyph indexes (restricted to the used characters).
+    IntMap usedGlyphIndexes = new IntMap();
+    for(Integer usedCode : usedCodes)
+    {
+      int glyphIndex = glyphIndexes.get(usedCode, -1);
+      if(glyphIndex >= 0)
+      {usedGlyphIndexes.put((int)usedCode, glyphIndex);}
+    }
+    OpenFontSubsetter subsetter = new OpenFontSubsetter(parser, usedGlyphIndexes);
+
+    PdfDictionary baseDataObject = getBaseDataObject();
+    PdfDictionary cidFontDictionary = getCIDFontDictionary();
+    PdfDictionary fontDescriptor = getDescriptor();
+
+    // Subset name [PDF:1.6:5.5.3].
+    PdfName fontName = new PdfName(getSubsetTag(subsetter.glyphIndexes) + "+" + parser.fontName);
+    baseDataObject.put(PdfName.BaseFont, fontName);
+    cidFontDictionary.put(PdfName.BaseFont, fontName);
+    fontDescriptor.put(PdfName.FontName, fontName);
+
+    // Character code mapping.
+    flush_encoding(baseDataObject, cidFontDictionary, usedGlyphIndexes, subsetter.glyphIndexes);
+
+    // Font file.
+    {
+      PdfName fontFileKey;
+      switch(parser.outlineFormat)
+      {
+        case TrueType:
+          fontFileKey = PdfName.FontFile2;
+          // CIDToGIDMap [PDF:1.6:5.6.3].
+          cidFontDictionary.put(PdfName.CIDToGIDMap, PdfName.Identity);
+          break;
+        case CFF:
+          fontFileKey = PdfName.FontFile3;
+          break;
+        default:
+          throw new NotImplementedException();
+      }
+      PdfStream fontFileStream = getStream(fontDescriptor, fontFileKey);
+      fontFileStream.getBody().append(subsetter.fontData);
+      PdfDictionary fontFileHeader = fontFileStream.getHeader();
+      if(fontFileKey.equals(PdfName.FontFile2))
+      {fontFileHeader.put(PdfName.Length1, PdfInteger.get(subsetter.fontData.length));}
+      else
+      {fontFileHeader.put(PdfName.Subtype, PdfName.OpenType);}
+    }
+
+    flushedCodeCount = usedCodes.size();
+  }
   // </public>
 
   // <protected>
@@ -193,7 +322,7 @@ public abstract class CompositeFont
     TODO: gids map for glyph indexes as glyphIndexes is used to map cids!!!
     */
     // Character-code-to-CID mapping [PDF:1.6:5.6.4,5].
-    glyphIndexes = new Hashtable<Integer,Integer>();
+    glyphIndexes = new IntMap();
     for(Map.Entry<ByteArray,Integer> cmapEntry : cmap.entrySet())
     {
       if(!codes.containsKey(cmapEntry.getKey()))
@@ -211,7 +340,7 @@ public abstract class CompositeFont
 
     // Glyph widths.
     {
-      glyphWidths = new Hashtable<Integer,Integer>();
+      glyphWidths = new IntMap();
       PdfArray glyphWidthObjects = (PdfArray)getCIDFontDictionary().resolve(PdfName.W);
       if(glyphWidthObjects != null)
       {
@@ -229,7 +358,7 @@ public abstract class CompositeFont
           {
             int cID = startCID;
             for(PdfDirectObject glyphWidthObject : (PdfArray)glyphWidthObject2)
-            {glyphWidths.put(cID++,((PdfInteger)glyphWidthObject).getRawValue());}
+            {glyphWidths.put(cID++,(int)((PdfInteger)glyphWidthObject).getRawValue());}
           }
           else // Format 2: startCID endCID glyphWidth.
           {
@@ -247,19 +376,313 @@ public abstract class CompositeFont
       defaultGlyphWidth = (defaultGlyphWidthObject == null ? 0 : defaultGlyphWidthObject.getRawValue());
     }
   }
+
+  @Override
+  protected Shape loadOutline(
+    int code,
+    int codeLength
+    )
+  {
+    FontProgram program = getProgram();
+    if(program == null)
+      return null;
+
+    ByteArray charCode = new ByteArray(ConvertUtils.numberToByteArray(code, codeLength, ByteOrder.BIG_ENDIAN));
+    if(program instanceof SystemFontProgram) // Substitute font (glyphs indexed by unicode).
+    {
+      Integer unicode = codes.get(charCode);
+      return unicode != null ? program.getOutline(unicode) : null;
+    }
+
+    Map<ByteArray,Integer> cids = this.cids;
+    if(cids == null)
+    {this.cids = cids = CMap.get(getBaseDataObject().resolve(PdfName.Encoding));}
+    Integer cid = (cids != null ? cids.get(charCode) : null);
+    return cid != null ? program.getOutline(getGlyphIndex(program, cid)) : null;
+  }
   // </protected>
 
+  // <internal>
+  /**
+    Gets the index of the glyph corresponding to the given CID within the given font program.
+  */
+  int getGlyphIndex(
+    FontProgram program,
+    int cid
+    )
+  {return program.getCidGlyphIndex(cid);}
+  // </internal>
+
   // <private>
+  /**
+    Generates the character code mapping (encoding CMap, ToUnicode CMap and glyph widths).
+
+    @param font Font dictionary.
+    @param cidFont CIDFont dictionary.
+    @param usedGlyphIndexes Original glyph indexes by unicode, restricted to the used characters.
+    @param subsetGlyphIndexes Subset glyph indexes by original glyph index.
+  */
+  private void flush_encoding(
+    PdfDictionary font,
+    PdfDictionary cidFont,
+    Map<Integer,Integer> usedGlyphIndexes,
+    Map<Integer,Integer> subsetGlyphIndexes
+    )
+  {
+    // Collect the used character codes, sorted by code!
+    /*
+      NOTE: CIDs correspond to the glyph indexes of the subset font program.
+    */
+    SortedMap<ByteArray,Integer> cids = new TreeMap<ByteArray,Integer>(
+      new Comparator<ByteArray>()
+      {
+        @Override
+        public int compare(
+          ByteArray code1,
+          ByteArray code2
+          )
+        {return getCodeKey(code1) - getCodeKey(code2);}
+      }
+      );
+    SortedMap<Integer,Integer> widths = new TreeMap<Integer,Integer>();
+    for(Map.Entry<Integer,Integer> usedGlyphIndexEntry : usedGlyphIndexes.entrySet())
+    {
+      int glyphIndex = usedGlyphIndexEntry.getValue();
+      int cid = subsetGlyphIndexes.get(glyphIndex);
+      cids.put(codes.getKey(usedGlyphIndexEntry.getKey()), cid);
+
+      Integer width = glyphWidths.get(glyphIndex);
+      if(width == null)
+      {
+        // NOTE: Glyphs beyond the last metrics entry share its advance width [OFF:2009:5.2.4].
+        width = glyphWidths.get(parser.metrics.numberOfHMetrics - 1);
+      }
+      widths.put(cid, width != null ? width : 0);
+    }
+
+    // Encoding [PDF:1.6:5.6.4].
+    {
+      PdfStream cmapStream = getStream(font, PdfName.Encoding);
+      IBuffer cmapBuffer = cmapStream.getBody();
+      cmapBuffer.append(
+        "%!PS-Adobe-3.0 Resource-CMap\n"
+          + "%%DocumentNeededResources: ProcSet (CIDInit)\n"
+          + "%%IncludeResource: ProcSet (CIDInit)\n"
+          + "%%BeginResource: CMap (Adobe-Identity-UCS)\n"
+          + "%%Title: (Adobe-Identity-UCS Adobe Identity 0)\n"
+          + "%%Version: 1\n"
+          + "%%EndComments\n"
+          + "/CIDInit /ProcSet findresource begin\n"
+          + "12 dict begin\n"
+          + "begincmap\n"
+          + "/CIDSystemInfo\n"
+          + "3 dict dup begin\n"
+          + "/Registry (Adobe) def\n"
+          + "/Ordering (Identity) def\n"
+          + "/Supplement 0 def\n"
+          + "end def\n"
+          + "/CMapName /Adobe-Identity-UCS def\n"
+          + "/CMapVersion 1 def\n"
+          + "/CMapType 0 def\n"
+          + "/WMode 0 def\n"
+          + CodeSpaceRanges
+        );
+      flush_encoding_writeMappings(cmapBuffer, cids, "cidchar", false);
+      cmapBuffer.append(
+        "endcmap\n"
+          + "CMapName currentdict /CMap defineresource pop\n"
+          + "end\n"
+          + "end\n"
+          + "%%EndResource\n"
+          + "%%EOF"
+        );
+      PdfDictionary cmapHead = cmapStream.getHeader();
+      cmapHead.put(
+        PdfName.Type,
+        PdfName.CMap
+        );
+      cmapHead.put(
+        PdfName.CMapName,
+        new PdfName("Adobe-Identity-UCS")
+        );
+      cmapHead.put(
+        PdfName.CIDSystemInfo,
+        new PdfDictionary(
+          new PdfName[]
+          {
+            PdfName.Registry,
+            PdfName.Ordering,
+            PdfName.Supplement
+          },
+          new PdfDirectObject[]
+          {
+            PdfTextString.get("Adobe"),
+            PdfTextString.get("Identity"),
+            PdfInteger.get(0)
+          }
+          )
+        ); // Generic predefined CMap (Identity-H/V (Adobe-Identity-0)) [PDF:1.6:5.6.4].
+    }
+
+    // ToUnicode [PDF:1.6:5.9.2].
+    {
+      SortedMap<ByteArray,Integer> unicodes = new TreeMap<ByteArray,Integer>(cids.comparator());
+      for(ByteArray code : cids.keySet())
+      {unicodes.put(code, codes.get(code));}
+
+      IBuffer toUnicodeBuffer = getStream(font, PdfName.ToUnicode).getBody();
+      toUnicodeBuffer.append(
+        "/CIDInit /ProcSet findresource begin\n"
+          + "12 dict begin\n"
+          + "begincmap\n"
+          + "/CIDSystemInfo\n"
+          + "<< /Registry (Adobe)\n"
+          + "/Ordering (UCS)\n"
+          + "/Supplement 0\n"
+          + ">> def\n"
+          + "/CMapName /Adobe-Identity-UCS def\n"
+          + "/CMapVersion 10.001 def\n"
+          + "/CMapType 2 def\n"
+          + CodeSpaceRanges
+        );
+      flush_encoding_writeMappings(toUnicodeBuffer, unicodes, "bfchar", true);
+      toUnicodeBuffer.append(
+        "endcmap\n"
+          + "CMapName currentdict /CMap defineresource pop\n"
+          + "end\n"
+          + "end\n"
+        );
+    }
+
+    // Glyph widths [PDF:1.6:5.6.3].
+    {
+      /*
+        NOTE: Widths are grouped by consecutive CIDs (format 'startCID [glyphWidth1 ...
+        glyphWidthn]').
+      */
+      PdfArray widthsObject = new PdfArray();
+      PdfArray widthRunObject = null;
+      int lastCid = -2;
+      for(Map.Entry<Integer,Integer> widthEntry : widths.entrySet())
+      {
+        int cid = widthEntry.getKey();
+        if(cid != lastCid + 1)
+        {
+          widthsObject.add(PdfInteger.get(cid));
+          widthsObject.add(widthRunObject = new PdfArray());
+        }
+        widthRunObject.add(PdfInteger.get(widthEntry.getValue()));
+        lastCid = cid;
+      }
+      cidFont.put(PdfName.W, widthsObject);
+    }
+  }
+
+  /**
+    Writes the given character code mappings as CMap blocks.
+
+    @param buffer Target buffer.
+    @param mappings Mapped values by character code.
+    @param blockName CMap block name (without 'begin'/'end' prefix).
+    @param hexValues Whether mapped values have to be expressed as hexadecimal strings (otherwise,
+      as integers).
+  */
+  private void flush_encoding_writeMappings(
+    IBuffer buffer,
+    SortedMap<ByteArray,Integer> mappings,
+    String blockName,
+    boolean hexValues
+    )
+  {
+    // NOTE: CMap blocks are limited to 100 entries [PDF:1.6:5.9.2].
+    int blockCount = 0;
+    int remainingCount = mappings.size();
+    for(Map.Entry<ByteArray,Integer> mapping : mappings.entrySet())
+    {
+      if(blockCount == 0)
+      {buffer.append(Math.min(remainingCount, CMapBlockMaxSize) + " begin" + blockName + "\n");}
+
+      StringBuilder mappingBuilder = new StringBuilder("<");
+      for(byte codeByte : mapping.getKey().data)
+      {
+        mappingBuilder.append(Character.forDigit((codeByte >> 4) & 0xF, 16))
+          .append(Character.forDigit(codeByte & 0xF, 16));
+      }
+      mappingBuilder.append("> ");
+      if(hexValues)
+      {mappingBuilder.append("<").append(getHex(mapping.getValue())).append(">");}
+      else
+      {mappingBuilder.append(mapping.getValue());}
+      buffer.append(mappingBuilder.append("\n").toString());
+
+      remainingCount--;
+      if(++blockCount == CMapBlockMaxSize || remainingCount == 0)
+      {
+        buffer.append("end" + blockName + "\n");
+        blockCount = 0;
+      }
+    }
+  }
+
+  /**
+    Gets the stream associated to the specified entry, creating it in case it doesn't exist yet.
+
+    @return Stream with empty body.
+  */
+  private PdfStream getStream(
+    PdfDictionary dictionary,
+    PdfName key
+    )
+  {
+    PdfDataObject streamObject = dictionary.resolve(key);
+    PdfStream stream;
+    if(streamObject instanceof PdfStream)
+    {
+      stream = (PdfStream)streamObject;
+      stream.getBody().setLength(0);
+    }
+    else
+    {dictionary.put(key, getFile().register(stream = new PdfStream()));}
+    return stream;
+  }
+
+  /**
+    Gets the tag identifying the font subset [PDF:1.6:5.5.3].
+
+    @param subsetGlyphIndexes Subset glyph indexes by original glyph index.
+  */
+  private String getSubsetTag(
+    Map<Integer,Integer> subsetGlyphIndexes
+    )
+  {
+    long hash = parser.fontName.hashCode();
+    for(Integer glyphIndex : new TreeSet<Integer>(subsetGlyphIndexes.keySet()))
+    {hash = hash * 31 + glyphIndex;}
+
+    char[] tag = new char[6];
+    hash &= Long.MAX_VALUE;
+    for(int index = 0; index < tag.length; index++)
+    {
+      tag[index] = (char)('A' + hash % 26);
+      hash /= 26;
+    }
+    return new String(tag);
+  }
+
   /**
     Loads the font data.
+    <p>Structures depending on the actual font usage (font program, character code mapping) are
+    deferred to {@link #flush()}.</p>
   */
   private void load(
-    OpenFontParser parser
+    OpenFont font
     )
   {
+    parser = font.parser;
     glyphIndexes = parser.glyphIndexes;
     glyphKernings = parser.glyphKernings;
     glyphWidths = parser.glyphWidths;
+    symbolic = false;
 
     PdfDictionary baseDataObject = getBaseDataObject();
 
@@ -270,7 +693,7 @@ public abstract class CompositeFont
     baseDataObject.put(PdfName.Subtype, PdfName.Type0);
 
     // Encoding.
-    baseDataObject.put(PdfName.Encoding, PdfName.IdentityH); //TODO: this is a simplification (to refine later).
+    baseDataObject.put(PdfName.Encoding, PdfName.IdentityH); // NOTE: Replaced on flush by the actual CMap.
 
     // Descendant font.
     PdfDictionary cidFontDictionary = new PdfDictionary(
@@ -318,193 +741,19 @@ public abstract class CompositeFont
         PdfName.FontDescriptor,
         load_createFontDescriptor(parser)
         );
-
-      // Encoding.
-      load_createEncoding(baseDataObject,cidFontDictionary);
     }
     baseDataObject.put(
       PdfName.DescendantFonts,
       new PdfArray(new PdfDirectObject[]{getFile().register(cidFontDictionary)})
       );
 
-    load();
-  }
-
-  /**
-    Creates the character code mapping for composite fonts.
-  */
-  private void load_createEncoding(
-    PdfDictionary font,
-    PdfDictionary cidFont
-    )
-  {
-    // CMap [PDF:1.6:5.6.4].
-    Buffer cmapBuffer = new Buffer();
-    cmapBuffer.append(
-      "%!PS-Adobe-3.0 Resource-CMap\n"
-        + "%%DocumentNeededResources: ProcSet (CIDInit)\n"
-        + "%%IncludeResource: ProcSet (CIDInit)\n"
-        + "%%BeginResource: CMap (Adobe-Identity-UCS)\n"
-        + "%%Title: (Adobe-Identity-UCS Adobe Identity 0)\n"
-        + "%%Version: 1\n"
-        + "%%EndComments\n"
-        + "/CIDInit /ProcSet findresource begin\n"
-        + "12 dict begin\n"
-        + "begincmap\n"
-        + "/CIDSystemInfo\n"
-        + "3 dict dup begin\n"
-        + "/Registry (Adobe) def\n"
-        + "/Ordering (Identity) def\n"
-        + "/Supplement 0 def\n"
-        + "end def\n"
-        + "/CMapName /Adobe-Identity-UCS def\n"
-        + "/CMapVersion 1 def\n"
-        + "/CMapType 0 def\n"
-        + "/WMode 0 def\n"
-        + "2 begincodespacerange\n"
-        + "<20> <20>\n"
-        + "<0000> <19FF>\n"
-        + "endcodespacerange\n"
-        + glyphIndexes.size() + " begincidchar\n"
-      );
-    // ToUnicode [PDF:1.6:5.9.2].
-    Buffer toUnicodeBuffer = new Buffer();
-    toUnicodeBuffer.append(
-      "/CIDInit /ProcSet findresource begin\n"
-        + "12 dict begin\n"
-        + "begincmap\n"
-        + "/CIDSystemInfo\n"
-        + "<< /Registry (Adobe)\n"
-        + "/Ordering (UCS)\n"
-        + "/Supplement 0\n"
-        + ">> def\n"
-        + "/CMapName /Adobe-Identity-UCS def\n"
-        + "/CMapVersion 10.001 def\n"
-        + "/CMapType 2 def\n"
-        + "2 begincodespacerange\n"
-        + "<20> <20>\n"
-        + "<0000> <19FF>\n"
-        + "endcodespacerange\n"
-        + glyphIndexes.size() + " beginbfchar\n"
-      );
-    // CIDToGIDMap [PDF:1.6:5.6.3].
-    Buffer gIdBuffer = new Buffer();
-    gIdBuffer.append((byte)0);
-    gIdBuffer.append((byte)0);
-    int code = 0;
-    codes = new BiMap<ByteArray,Integer>(glyphIndexes.size());
-    PdfArray widthsObject = new PdfArray(glyphWidths.size());
-    for(Map.Entry<Integer,Integer> glyphIndexEntry : glyphIndexes.entrySet())
-    {
-      // Character code (codepoint to unicode) entry.
-      code++;
-      byte[] charCode = (glyphIndexEntry.getKey() == 32
-        ? new byte[]{32}
-        : new byte[]
-          {
-            (byte)((code >> 8) & 0xFF),
-            (byte)(code & 0xFF)
-          });
-      codes.put(new ByteArray(charCode),glyphIndexEntry.getKey());
-
-      // CMap entry.
-      cmapBuffer.append("<");
-      toUnicodeBuffer.append("<");
-      for(int charCodeBytesIndex = 0,
-          charCodeBytesLength = charCode.length;
-        charCodeBytesIndex < charCodeBytesLength;
-        charCodeBytesIndex++
-        )
-      {
-        String hex = Integer.toHexString(charCode[charCodeBytesIndex]);
-        //TODO:improve hex padding!!!
-        if(hex.length() == 1)
-        {hex = "0" + hex;}
-        else
-        {hex = hex.substring(hex.length()-2,hex.length());}
-        cmapBuffer.append(hex);
-        toUnicodeBuffer.append(hex);
-      }
-      cmapBuffer.append("> " + code + "\n");
-      toUnicodeBuffer.append("> <" + getHex(glyphIndexEntry.getKey()) + ">\n");
-
-      // CID-to-GID entry.
-      int glyphIndex = glyphIndexEntry.getValue();
-      gIdBuffer.append((byte)((glyphIndex >> 8) & 0xFF));
-      gIdBuffer.append((byte)(glyphIndex & 0xFF));
-
-      // Width.
-      Integer width = glyphWidths.get(glyphIndex);
-      if(width == null)
-      {width = 0;}
-      else if(width > 1000)
-      {width=1000;}
-      widthsObject.add(PdfInteger.get(width));
-    }
-    cmapBuffer.append(
-      "endcidchar\n"
-        + "endcmap\n"
-        + "CMapName currentdict /CMap defineresource pop\n"
-        + "end\n"
-        + "end\n"
-        + "%%EndResource\n"
-        + "%%EOF"
-      );
-    PdfStream cmapStream = new PdfStream(cmapBuffer);
-    PdfDictionary cmapHead = cmapStream.getHeader();
-    cmapHead.put(
-      PdfName.Type,
-      PdfName.CMap
-      );
-    cmapHead.put(
-      PdfName.CMapName,
-      new PdfName("Adobe-Identity-UCS")
-      );
-    cmapHead.put(
-      PdfName.CIDSystemInfo,
-      new PdfDictionary(
-        new PdfName[]
-        {
-          PdfName.Registry,
-          PdfName.Ordering,
-          PdfName.Supplement
-        },
-        new PdfDirectObject[]
-        {
-          PdfTextString.get("Adobe"),
-          PdfTextString.get("Identity"),
-          PdfInteger.get(0)
-        }
-        )
-      ); // Generic predefined CMap (Identity-H/V (Adobe-Identity-0)) [PDF:1.6:5.6.4].
-    font.put(
-      PdfName.Encoding,
-      getFile().register(cmapStream)
-      );
-
-    PdfStream gIdStream = new PdfStream(gIdBuffer);
-    cidFont.put(
-      PdfName.CIDToGIDMap,
-      getFile().register(gIdStream)
-      );
-
-    cidFont.put(
-      PdfName.W,
-      new PdfArray(new PdfDirectObject[]{PdfInteger.get(1), widthsObject})
-      );
-
-    toUnicodeBuffer.append(
-      "endbfchar\n"
-        + "endcmap\n"
-        + "CMapName currentdict /CMap defineresource pop\n"
-        + "end\n"
-        + "end\n"
-      );
-    PdfStream toUnicodeStream = new PdfStream(toUnicodeBuffer);
-    font.put(
-      PdfName.ToUnicode,
-      getFile().register(toUnicodeStream)
-      );
+    // Character codes.
+    /*
+      NOTE: Character codes are shared among all the documents the font program is embedded into,
+      as they don't depend on the actual font usage.
+    */
+    codes = font.codes;
+    charCodeMaxLength = 2;
   }
 
   /**
@@ -585,14 +834,6 @@ public abstract class CompositeFont
         TODO:IMPL TrueType and CFF stemv real value to extract!!!
       */
       fontDescriptor.put(PdfName.StemV, PdfInteger.get(100));
-
-      // FontFile.
-      fontDescriptor.put(
-        PdfName.FontFile2,
-        getFile().register(
-          new PdfStream(new Buffer(parser.fontData.toByteArray()))
-          )
-        );
     }
     return getFile().register(fontDescriptor);
   }
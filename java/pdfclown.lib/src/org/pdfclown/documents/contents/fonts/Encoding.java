@@ -68,6 +68,10 @@ class Encoding
   // <dynamic>
   // <fields>
   private final Hashtable<ByteArray,Integer> codes = new Hashtable<ByteArray,Integer>();
+  /**
+    Glyph names by character code.
+  */
+  private final String[] names = new String[256];
   // </fields>
 
   // <interface>
@@ -75,6 +79,13 @@ class Encoding
   public Map<ByteArray,Integer> getCodes(
     )
   {return new Hashtable<ByteArray,Integer>(codes);}
+
+  /**
+    Gets the glyph names by character code.
+  */
+  public String[] getNames(
+    )
+  {return names.clone();}
   // </public>
 
   // <protected>
@@ -82,7 +93,10 @@ class Encoding
     int charCode,
     String charName
     )
-  {codes.put(new ByteArray(new byte[]{(byte)charCode}),GlyphMapping.nameToCode(charName));}
+  {
+    codes.put(new ByteArray(new byte[]{(byte)charCode}),GlyphMapping.nameToCode(charName));
+    names[charCode] = charName;
+  }
   // </protected>
   // </interface>
   // </dynamic>
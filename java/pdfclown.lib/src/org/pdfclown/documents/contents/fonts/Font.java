@@ -25,6 +25,8 @@
 
 package org.pdfclown.documents.contents.fonts;
 
+import java.awt.Shape;
+import java.awt.geom.Path2D;
 import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -33,6 +35,7 @@ import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
@@ -40,6 +43,7 @@ import org.pdfclown.bytes.FileInputStream;
 import org.pdfclown.bytes.IInputStream;
 import org.pdfclown.documents.Document;
 import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfDataObject;
 import org.pdfclown.objects.PdfDictionary;
 import org.pdfclown.objects.PdfDirectObject;
 import org.pdfclown.objects.PdfInteger;
@@ -50,6 +54,7 @@ import org.pdfclown.objects.PdfReference;
 import org.pdfclown.objects.PdfStream;
 import org.pdfclown.util.BiMap;
 import org.pdfclown.util.ByteArray;
+import org.pdfclown.util.IntMap;
 import org.pdfclown.util.NotImplementedException;
 
 /**
@@ -64,6 +69,25 @@ public abstract class Font
 {
   // <class>
   // <classes>
+  /**
+    Decoded character listener.
+  */
+  public interface IDecodeListener
+  {
+    /**
+      Notifies a decoded character.
+
+      @param textChar Decoded character.
+      @param width Unscaled glyph width.
+      @param codeLength Byte size of the character code.
+    */
+    void onChar(
+      char textChar,
+      int width,
+      int codeLength
+      );
+  }
+
   /**
     Font descriptor flags [PDF:1.6:5.7.1].
   */
@@ -151,6 +175,20 @@ public abstract class Font
   // </classes>
 
   // <static>
+  // <fields>
+  /**
+    Glyph index placeholder for unmapped characters.
+    <p>NOTE: It lies outside any valid glyph range, as synthesized glyph indexes may coincide with
+    any byte value.</p>
+  */
+  private static final int UndefinedGlyphIndex = Integer.MIN_VALUE;
+
+  /**
+    Placeholder of missing glyph outlines.
+  */
+  private static final Shape NoOutline = new Path2D.Float();
+  // </fields>
+
   // <interface>
   // <public>
   /**
@@ -219,17 +257,34 @@ public abstract class Font
       return null;
 
     PdfReference reference = (PdfReference)baseObject;
+    // Has the font been already instantiated?
+    /*
+      NOTE: Font structures are reified as complex objects, both IO- and CPU-intensive to load.
+      So, it's convenient to retrieve them from a common cache whenever possible.
+    */
+    Hashtable<PdfReference,Object> cache = reference.getIndirectObject().getFile().getDocument().cache;
+    /*
+      NOTE: As fonts are put into the cache before their loading is complete (see initialize()),
+      wrapping is serialized on the font dictionary to avoid concurrent scans to get partially-loaded
+      fonts; distinct fonts are loaded concurrently.
+    */
+    PdfDataObject fontDictionary = reference.getDataObject();
+    synchronized(fontDictionary)
     {
-      // Has the font been already instantiated?
-      /*
-        NOTE: Font structures are reified as complex objects, both IO- and CPU-intensive to load.
-        So, it's convenient to retrieve them from a common cache whenever possible.
-      */
-      Hashtable<PdfReference,Object> cache = reference.getIndirectObject().getFile().getDocument().cache;
-      if(cache.containsKey(reference))
-        return (Font)cache.get(reference);
+      Font font = (Font)cache.get(reference);
+      if(font != null)
+        return font;
+
+      return createFont(reference);
     }
+  }
+  // </public>
 
+  // <private>
+  private static Font createFont(
+    PdfReference reference
+    )
+  {
     PdfDictionary fontDictionary = (PdfDictionary)reference.getDataObject();
     PdfName fontType = (PdfName)fontDictionary.get(PdfName.Subtype);
     if(fontType == null)
@@ -269,7 +324,7 @@ public abstract class Font
     else // Unknown.
       throw new UnsupportedOperationException("Unknown font type: " + fontType + " (reference: " + reference + ")");
   }
-  // </public>
+  // </private>
   // </interface>
   // </static>
 
@@ -296,15 +351,15 @@ public abstract class Font
   /**
     Glyph indexes by unicode.
   */
-  protected Map<Integer,Integer> glyphIndexes;
+  protected IntMap glyphIndexes;
   /**
     Glyph kernings by (left-right) glyph index pairs.
   */
-  protected Map<Integer,Integer> glyphKernings;
+  protected IntMap glyphKernings;
   /**
     Glyph widths by glyph index.
   */
-  protected Map<Integer,Integer> glyphWidths;
+  protected IntMap glyphWidths;
   /**
     Whether the font encoding is custom (that is non-Unicode).
   */
@@ -317,7 +372,21 @@ public abstract class Font
   /**
     Maximum character code byte size.
   */
-  private int charCodeMaxLength = 0;
+  protected int charCodeMaxLength = 0;
+
+  /**
+    Decoding table (lazily built from {@link #codes}).
+  */
+  private volatile CharCodeTable codeTable;
+  /**
+    Glyph outlines by character code (see {@link #getOutline(int,int)}).
+  */
+  private final Map<Integer,Shape> outlines = new ConcurrentHashMap<Integer,Shape>();
+  /**
+    Font program providing the glyph outlines (lazily loaded).
+  */
+  private volatile FontProgram program;
+  private volatile boolean programLoaded;
   // </fields>
 
   // <constructors>
@@ -348,7 +417,7 @@ public abstract class Font
     super(baseObject);
 
     initialize();
-    load();
+    FontCache.load(this);
   }
   // </constructors>
 
@@ -364,46 +433,39 @@ public abstract class Font
     byte[] code
     )
   {
-    StringBuilder textBuilder = new StringBuilder();
-    {
-      byte[][] codeBuffers = new byte[charCodeMaxLength+1][];
-      for(
-        int codeBufferIndex = 0;
-        codeBufferIndex <= charCodeMaxLength;
-        codeBufferIndex++
-        )
-      {codeBuffers[codeBufferIndex] = new byte[codeBufferIndex];}
-      int position = 0;
-      int codeLength = code.length;
-      int codeBufferSize = 1;
-      while(position < codeLength)
+    final StringBuilder textBuilder = new StringBuilder(code.length);
+    decode(
+      code,
+      new IDecodeListener()
       {
-        byte[] codeBuffer = codeBuffers[codeBufferSize];
-        System.arraycopy(code,position,codeBuffer,0,codeBufferSize);
-        Integer textChar = codes.get(new ByteArray(codeBuffer));
-        if(textChar == null)
-        {
-          if(codeBufferSize < charCodeMaxLength)
-          {
-            codeBufferSize++;
-            continue;
-          }
-          /*
-            NOTE: In case no valid code entry is found, a default space is resiliantely
-            applied instead of throwing an exception.
-            This is potentially risky as failing to determine the actual code length
-            may result in a "code shifting" which could affect following characters.
-           */
-          textChar = (int)' ';
-        }
-        textBuilder.append((char)(int)textChar);
-        position += codeBufferSize;
-        codeBufferSize = 1;
+        @Override
+        public void onChar(
+          char textChar,
+          int width,
+          int codeLength
+          )
+        {textBuilder.append(textChar);}
       }
-    }
+      );
     return textBuilder.toString();
   }
 
+  /**
+    Decodes the given internal representation, notifying each character along with its glyph
+    width.
+    <p>Contrary to {@link #decode(byte[])}, no intermediate text is built, so this is the
+    preferred way to process large amounts of text.</p>
+
+    @param code Internal representation to decode.
+    @param listener Target of the decoded characters.
+    @since 0.1.3
+  */
+  public final void decode(
+    byte[] code,
+    IDecodeListener listener
+    )
+  {getCodeTable().decode(code, listener);}
+
   /**
     Gets the internal representation of the given text.
 
@@ -442,6 +504,20 @@ public abstract class Font
       && ((Font)object).getName().equals(getName());
   }
 
+  /**
+    Serializes the pending font structures.
+    <p>Structures depending on the actual font usage (such as the subset of the embedded font
+    program restricted to the {@link #encode(String) encoded} characters) are generated lazily;
+    this method is automatically invoked on file serialization, so it has to be explicitly called
+    only in case the font structures are accessed before (for example, when cloning the font
+    contents into another document).</p>
+
+    @since 0.1.3
+  */
+  public void flush(
+    )
+  {/* NOOP */}
+
   /**
     Gets the unscaled vertical offset from the baseline to the ascender line (ascent).
     The value is a positive number.
@@ -564,22 +640,19 @@ public abstract class Font
     if(glyphKernings == null)
       return 0;
 
-    Integer textChar1Index = glyphIndexes.get((int)textChar1);
-    if(textChar1Index == null)
+    int textChar1Index = glyphIndexes.get(textChar1, UndefinedGlyphIndex);
+    if(textChar1Index == UndefinedGlyphIndex)
       return 0;
 
-    Integer textChar2Index = glyphIndexes.get((int)textChar2);
-    if(textChar2Index == null)
+    int textChar2Index = glyphIndexes.get(textChar2, UndefinedGlyphIndex);
+    if(textChar2Index == UndefinedGlyphIndex)
       return 0;
 
-    Integer kerning = glyphKernings.get(
+    return glyphKernings.get(
       textChar1Index << 16 // Left-hand glyph index.
-        + textChar2Index // Right-hand glyph index.
+        + textChar2Index, // Right-hand glyph index.
+      0
       );
-    if(kerning == null)
-      return 0;
-
-    return kerning;
   }
 
   /**
@@ -592,7 +665,6 @@ public abstract class Font
     )
   {
     int kerning = 0;
-    char textChars[] = text.toCharArray();
     for(
       int index = 0,
         length = text.length() - 1;
@@ -601,8 +673,8 @@ public abstract class Font
       )
     {
       kerning += getKerning(
-        textChars[index],
-        textChars[index + 1]
+        text.charAt(index),
+        text.charAt(index + 1)
         );
     }
     return kerning;
@@ -644,6 +716,40 @@ public abstract class Font
     )
   {return ((PdfName)getBaseDataObject().get(PdfName.BaseFont)).toString();}
 
+  /**
+    Gets the outline of the glyph corresponding to the given character code.
+    <p>The outline is expressed in glyph space, scaled to a thousandth of text space unit (the same
+    units as {@link #getWidth(char) glyph widths}); as it's shared, it MUST NOT be altered.</p>
+    <p>Glyph outlines are parsed on demand from the embedded font program (non-embedded fonts are
+    substituted by a system font), which is shared process-wide through {@link GlyphCache}.</p>
+
+    @param code Character code.
+    @param codeLength Character code byte size.
+    @return <code>null</code>, if not available (for example, in case of {@link Type3Font Type 3}
+      glyphs, which are described by content streams).
+    @since 0.1.3
+  */
+  public final Shape getOutline(
+    int code,
+    int codeLength
+    )
+  {
+    // NOTE: Outline keys pack the code length along with the code.
+    if(codeLength > 3)
+      return loadOutline(code, codeLength);
+
+    Integer key = (codeLength << 24) | code;
+    Shape outline = outlines.get(key);
+    if(outline == null)
+    {
+      outline = loadOutline(code, codeLength);
+      if(outline == null)
+      {outline = NoOutline;}
+      outlines.put(key, outline);
+    }
+    return outline != NoOutline ? outline : null;
+  }
+
   /**
     Gets the unscaled width of the given character.
 
@@ -653,12 +759,11 @@ public abstract class Font
     char textChar
     )
   {
-    Integer glyphIndex = glyphIndexes.get((int)textChar);
-    if(glyphIndex == null)
+    int glyphIndex = glyphIndexes.get(textChar, UndefinedGlyphIndex);
+    if(glyphIndex == UndefinedGlyphIndex)
       return 0;
 
-    Integer glyphWidth = glyphWidths.get(glyphIndex);
-    return glyphWidth != null ? glyphWidth : defaultGlyphWidth;
+    return glyphWidths.get(glyphIndex, defaultGlyphWidth);
   }
 
   /**
@@ -683,8 +788,8 @@ public abstract class Font
     )
   {
     int width = 0;
-    for(char textChar : text.toCharArray())
-    {width += getWidth(textChar);}
+    for(int index = 0, length = text.length(); index < length; index++)
+    {width += getWidth(text.charAt(index));}
     return width;
   }
 
@@ -729,9 +834,13 @@ public abstract class Font
     if(getBaseDataObject().containsKey(PdfName.ToUnicode)) // To-Unicode explicit mapping.
     {
       PdfStream toUnicodeStream = (PdfStream)getBaseDataObject().resolve(PdfName.ToUnicode);
-      @SuppressWarnings("resource")
-      CMapParser parser = new CMapParser(toUnicodeStream.getBody());
-      codes = new BiMap<ByteArray,Integer>(parser.parse());
+      // NOTE: Streams may be shared across fonts, so their parsing is serialized (see PageProcessor).
+      synchronized(toUnicodeStream)
+      {
+        @SuppressWarnings("resource")
+        CMapParser parser = new CMapParser(toUnicodeStream.getBody());
+        codes = new BiMap<ByteArray,Integer>(parser.parse());
+      }
       symbolic = false;
     }
 
@@ -745,6 +854,19 @@ public abstract class Font
     }
   }
 
+  /**
+    Loads the outline of the glyph corresponding to the given character code.
+
+    @return <code>null</code>, if not available.
+    @see #getOutline(int,int)
+    @since 0.1.3
+  */
+  protected Shape loadOutline(
+    int code,
+    int codeLength
+    )
+  {return null;}
+
   /**
     Notifies the loading of font information from an existing PDF font structure.
    */
@@ -752,7 +874,52 @@ public abstract class Font
     );
   // </protected>
 
+  // <internal>
+  /**
+    Gets the font program providing the glyph outlines.
+
+    @return <code>null</code>, if not available.
+  */
+  FontProgram getProgram(
+    )
+  {
+    if(!programLoaded)
+    {
+      synchronized(this)
+      {
+        if(!programLoaded)
+        {
+          program = loadProgram();
+          programLoaded = true;
+        }
+      }
+    }
+    return program;
+  }
+  // </internal>
+
   // <private>
+  /**
+    Gets the decoding table of the current character codes.
+  */
+  private CharCodeTable getCodeTable(
+    )
+  {
+    CharCodeTable codeTable = this.codeTable;
+    if(codeTable == null
+      || codeTable.codes != codes) // Character codes changed.
+    {
+      synchronized(this)
+      {
+        codeTable = this.codeTable;
+        if(codeTable == null
+          || codeTable.codes != codes)
+        {this.codeTable = codeTable = new CharCodeTable(this, codes, charCodeMaxLength);}
+      }
+    }
+    return codeTable;
+  }
+
   private void initialize(
     )
   {
@@ -765,6 +932,35 @@ public abstract class Font
     */
     getDocument().cache.put((PdfReference)getBaseObject(),this);
   }
+
+  /**
+    Loads the font program, either embedded or substituted by the best matching system font.
+  */
+  private FontProgram loadProgram(
+    )
+  {
+    int flags = 0;
+    PdfDictionary descriptor = getDescriptor();
+    if(descriptor != null)
+    {
+      for(PdfName fontFileKey : new PdfName[]{PdfName.FontFile, PdfName.FontFile2, PdfName.FontFile3})
+      {
+        PdfDataObject fontFileObject = descriptor.resolve(fontFileKey);
+        if(fontFileObject instanceof PdfStream)
+        {
+          FontProgram program = GlyphCache.get(fontFileKey, (PdfStream)fontFileObject);
+          if(program != null)
+            return program;
+        }
+      }
+
+      PdfNumber<?> flagsObject = (PdfNumber<?>)descriptor.resolve(PdfName.Flags);
+      if(flagsObject != null)
+      {flags = flagsObject.getIntValue();}
+    }
+    PdfName fontName = (PdfName)getBaseDataObject().get(PdfName.BaseFont);
+    return GlyphCache.get(fontName != null ? fontName.getValue() : null, flags);
+  }
   // </private>
   // </interface>
   // </dynamic>
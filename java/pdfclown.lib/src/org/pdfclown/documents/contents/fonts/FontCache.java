@@ -0,0 +1,344 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.fonts;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfDataObject;
+import org.pdfclown.objects.PdfDictionary;
+import org.pdfclown.objects.PdfIndirectObject;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfReference;
+import org.pdfclown.objects.PdfSimpleObject;
+import org.pdfclown.objects.PdfStream;
+import org.pdfclown.tokens.CharsetName;
+import org.pdfclown.util.BiMap;
+import org.pdfclown.util.ByteArray;
+import org.pdfclown.util.IntMap;
+
+/**
+  Process-wide cache of loaded font information.
+  <p>Fonts are ordinarily cached per document only (see {@link
+  org.pdfclown.documents.Document#cache}); when this cache is enabled, the information loaded from
+  existing font structures (character code mapping, glyph indexes, widths and kernings) is shared
+  across documents too, so that the same font embedded into many documents is parsed just once.</p>
+  <p>Entries are keyed by a digest of the whole font structure (font dictionary along with the
+  objects it references, such as encodings, font descriptor and font program); the least-recently
+  used entries are evicted as soon as the estimated footprint of the cache exceeds its {@link
+  #getMaxSize() maximum size}.</p>
+  <p>This cache is disabled by default.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+public final class FontCache
+{
+  // <class>
+  // <classes>
+  /**
+    Loaded font information.
+  */
+  private static final class Entry
+  {
+    final int charCodeMaxLength;
+    final BiMap<ByteArray,Integer> codes;
+    final int defaultGlyphWidth;
+    final IntMap glyphIndexes;
+    final IntMap glyphKernings;
+    final IntMap glyphWidths;
+    final AfmParser.FontMetrics metrics;
+    final long size;
+    final boolean symbolic;
+
+    Entry(
+      Font font
+      )
+    {
+      charCodeMaxLength = font.charCodeMaxLength;
+      codes = font.codes;
+      defaultGlyphWidth = font.defaultGlyphWidth;
+      glyphIndexes = font.glyphIndexes;
+      glyphKernings = font.glyphKernings;
+      glyphWidths = font.glyphWidths;
+      metrics = (font instanceof Type1Font ? ((Type1Font)font).metrics : null);
+      symbolic = font.symbolic;
+
+      size = EntrySize
+        + (codes != null ? codes.size() * CodeSize : 0)
+        + (glyphIndexes != null ? glyphIndexes.size() * MetricSize : 0)
+        + (glyphKernings != null ? glyphKernings.size() * MetricSize : 0)
+        + (glyphWidths != null ? glyphWidths.size() * MetricSize : 0);
+    }
+
+    void restore(
+      Font font
+      )
+    {
+      font.charCodeMaxLength = charCodeMaxLength;
+      font.codes = codes;
+      font.defaultGlyphWidth = defaultGlyphWidth;
+      font.glyphIndexes = glyphIndexes;
+      font.glyphKernings = glyphKernings;
+      font.glyphWidths = glyphWidths;
+      if(font instanceof Type1Font)
+      {((Type1Font)font).metrics = metrics;}
+      font.symbolic = symbolic;
+    }
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  /*
+    NOTE: Entry footprints are rough estimates (in bytes) of the heap occupied by their maps.
+  */
+  private static final int CodeSize = 96; // Bidirectional map entry (both directions, boxed).
+  private static final int EntrySize = 256;
+  private static final int MetricSize = 16; // Primitive map entry (including spare room).
+
+  private static final String DigestAlgorithm = "SHA-1";
+
+  private static final Map<ByteArray,Entry> Entries = new LinkedHashMap<ByteArray,Entry>(16, .75f, true);
+  private static long maxSize = 0;
+  private static long size = 0;
+  // </fields>
+
+  // <interface>
+  // <public>
+  /**
+    Removes all the entries.
+  */
+  public static synchronized void clear(
+    )
+  {
+    Entries.clear();
+    size = 0;
+  }
+
+  /**
+    Gets the maximum estimated footprint (in bytes) of the cache.
+
+    @return <code>0</code> if the cache is disabled.
+  */
+  public static synchronized long getMaxSize(
+    )
+  {return maxSize;}
+
+  /**
+    Gets the current estimated footprint (in bytes) of the cache.
+  */
+  public static synchronized long getSize(
+    )
+  {return size;}
+
+  /**
+    @see #getMaxSize()
+  */
+  public static synchronized void setMaxSize(
+    long value
+    )
+  {
+    if(value < 0)
+      throw new IllegalArgumentException("Maximum size MUST be non-negative.");
+
+    maxSize = value;
+    evict();
+  }
+  // </public>
+
+  // <internal>
+  /**
+    Loads the font information, reusing it from the cache whenever possible.
+
+    @param font Font to load.
+  */
+  static void load(
+    Font font
+    )
+  {
+    if(getMaxSize() == 0
+      || font instanceof Type3Font) // NOTE: Type 3 fonts are lightweight and document-specific.
+    {
+      font.load();
+      return;
+    }
+
+    ByteArray key = getKey(font.getBaseObject());
+    Entry entry;
+    synchronized(FontCache.class)
+    {entry = Entries.get(key);}
+    if(entry != null)
+    {
+      entry.restore(font);
+      return;
+    }
+
+    font.load();
+
+    entry = new Entry(font);
+    synchronized(FontCache.class)
+    {
+      Entry oldEntry = Entries.put(key, entry);
+      size += entry.size - (oldEntry != null ? oldEntry.size : 0);
+      evict();
+    }
+  }
+  // </internal>
+
+  // <private>
+  /**
+    Removes the least-recently used entries exceeding the maximum size.
+  */
+  private static void evict(
+    )
+  {
+    for(Iterator<Entry> iterator = Entries.values().iterator(); size > maxSize && iterator.hasNext();)
+    {
+      size -= iterator.next().size;
+      iterator.remove();
+    }
+  }
+
+  /**
+    Gets the digest of the given font structure.
+  */
+  private static ByteArray getKey(
+    PdfDataObject fontObject
+    )
+  {
+    MessageDigest digest;
+    try
+    {digest = MessageDigest.getInstance(DigestAlgorithm);}
+    catch(NoSuchAlgorithmException e)
+    {throw new RuntimeException(e);}
+
+    update(digest, fontObject, new IdentityHashMap<PdfIndirectObject,Integer>());
+    return new ByteArray(digest.digest());
+  }
+
+  /**
+    Feeds the digest with the given object, along with the objects it references.
+
+    @param visitedObjects Indirect objects already fed (by feeding order), to represent cyclic
+      and shared references.
+  */
+  private static void update(
+    MessageDigest digest,
+    PdfDataObject object,
+    Map<PdfIndirectObject,Integer> visitedObjects
+    )
+  {
+    if(object == null)
+    {digest.update((byte)'n');}
+    else if(object instanceof PdfReference)
+    {
+      PdfIndirectObject indirectObject = ((PdfReference)object).getIndirectObject();
+      Integer index = visitedObjects.get(indirectObject);
+      if(index != null)
+      {
+        digest.update((byte)'r');
+        update(digest, index.toString());
+      }
+      else
+      {
+        visitedObjects.put(indirectObject, visitedObjects.size());
+        update(digest, indirectObject.getDataObject(), visitedObjects);
+      }
+    }
+    else if(object instanceof PdfDictionary)
+    {
+      PdfDictionary dictionary = (PdfDictionary)object;
+      // NOTE: Keys are sorted to make the digest independent from their serialization order.
+      List<PdfName> keys = new ArrayList<PdfName>(dictionary.keySet());
+      Collections.sort(keys);
+      digest.update((byte)'d');
+      for(PdfName key : keys)
+      {
+        update(digest, key.getValue());
+        update(digest, dictionary.get(key), visitedObjects);
+      }
+      digest.update((byte)'e');
+    }
+    else if(object instanceof PdfArray)
+    {
+      digest.update((byte)'a');
+      for(PdfDataObject item : (PdfArray)object)
+      {update(digest, item, visitedObjects);}
+      digest.update((byte)'e');
+    }
+    else if(object instanceof PdfStream)
+    {
+      PdfStream stream = (PdfStream)object;
+      digest.update((byte)'s');
+      update(digest, stream.getHeader(), visitedObjects);
+      // NOTE: Raw body is digested, to avoid decoding it just for identification purposes.
+      digest.update(stream.getBody(false).toByteArray());
+    }
+    else if(object instanceof PdfSimpleObject<?>)
+    {
+      Object value = ((PdfSimpleObject<?>)object).getRawValue();
+      update(digest, object.getClass().getSimpleName());
+      if(value instanceof byte[])
+      {digest.update((byte[])value);}
+      else
+      {update(digest, String.valueOf(value));}
+    }
+    else
+    {update(digest, object.toString());}
+  }
+
+  private static void update(
+    MessageDigest digest,
+    String value
+    )
+  {
+    try
+    {digest.update(value.getBytes(CharsetName.UTF16BE));}
+    catch(UnsupportedEncodingException e)
+    {throw new RuntimeException(e);}
+    digest.update((byte)0);
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <constructors>
+  private FontCache(
+    )
+  {}
+  // </constructors>
+  // </class>
+}
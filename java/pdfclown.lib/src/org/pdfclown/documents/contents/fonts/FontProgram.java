@@ -0,0 +1,228 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.fonts;
+
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.pdfclown.bytes.Buffer;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfStream;
+
+/**
+  Font program, that is the source of the glyph outlines of a font.
+  <p>Glyph outlines are parsed on demand and kept for reuse; as font programs are shared
+  process-wide through {@link GlyphCache}, instances are thread-safe.</p>
+  <p>Outlines are expressed in glyph space normalized to a thousandth of text space unit (the same
+  units as glyph widths), and MUST NOT be altered.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+abstract class FontProgram
+{
+  // <class>
+  // <static>
+  // <fields>
+  /*
+    NOTE: Footprints are rough estimates (in bytes) of the heap occupied by outlines.
+  */
+  private static final int OutlineSize = 64; // Path object along with its cache entry.
+  private static final int SegmentSize = 20; // Path segment (type and coordinates, single precision).
+  static final int ProgramSize = 1024;
+
+  /**
+    Placeholder of missing outlines.
+  */
+  private static final Shape NoOutline = new Path2D.Float();
+  // </fields>
+
+  // <interface>
+  // <internal>
+  /**
+    Parses the specified font file.
+
+    @param fontFileKey Font file entry in the font descriptor ({@link PdfName#FontFile},
+      {@link PdfName#FontFile2} or {@link PdfName#FontFile3}).
+    @param fontFile Font file.
+    @return <code>null</code>, if the font file format is unsupported.
+    @throws IOException If the font file is damaged.
+  */
+  static FontProgram parse(
+    PdfName fontFileKey,
+    PdfStream fontFile
+    ) throws IOException
+  {
+    byte[] fontData = fontFile.getBody().toByteArray();
+    if(fontFileKey.equals(PdfName.FontFile)) // Type 1.
+      return new Type1Program(fontData, fontFile.getHeader());
+    else if(fontFileKey.equals(PdfName.FontFile2)) // TrueType.
+      return new OpenFontProgram(new Buffer(fontData));
+    else if(fontFileKey.equals(PdfName.FontFile3))
+    {
+      PdfName fontFileSubtype = (PdfName)fontFile.getHeader().get(PdfName.Subtype);
+      if(PdfName.OpenType.equals(fontFileSubtype)) // OpenType (either TrueType or CFF outlines).
+        return new OpenFontProgram(new Buffer(fontData));
+      else // CFF (either Type1C or CIDFontType0C).
+        return new CffProgram(new Buffer(fontData));
+    }
+    return null;
+  }
+  // </internal>
+
+  // <private>
+  /**
+    Gets the estimated footprint of the given outline.
+  */
+  private static int getSize(
+    Shape outline
+    )
+  {
+    int size = OutlineSize;
+    for(PathIterator iterator = outline.getPathIterator(null); !iterator.isDone(); iterator.next())
+    {size += SegmentSize;}
+    return size;
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  /**
+    Whether this program is held by the glyph cache (guarded by {@link GlyphCache}).
+  */
+  boolean cached;
+  /**
+    Glyph outlines by glyph index.
+  */
+  private final Map<Integer,Shape> outlines = new ConcurrentHashMap<Integer,Shape>();
+  /**
+    Estimated footprint.
+  */
+  private volatile long size = ProgramSize;
+  // </fields>
+
+  // <interface>
+  /**
+    Gets the built-in encoding of this font program.
+
+    @return Glyph names by character code; <code>null</code>, if not available.
+  */
+  String[] getEncoding(
+    )
+  {return null;}
+
+  /**
+    Gets the glyph index corresponding to the given CID (CID-keyed font programs).
+  */
+  int getCidGlyphIndex(
+    int cid
+    )
+  {return cid;}
+
+  /**
+    Gets the glyph index corresponding to the given character code, according to the built-in
+    character mapping of this font program.
+
+    @return <code>-1</code>, if not available.
+  */
+  int getCodeGlyphIndex(
+    int code
+    )
+  {return -1;}
+
+  /**
+    Gets the glyph index corresponding to the given glyph name.
+
+    @return <code>-1</code>, if not available.
+  */
+  int getGlyphIndex(
+    String name
+    )
+  {return -1;}
+
+  /**
+    Gets the outline of the specified glyph.
+
+    @return <code>null</code>, if not available.
+  */
+  final Shape getOutline(
+    int glyphIndex
+    )
+  {
+    if(glyphIndex < 0)
+      return null;
+
+    Shape outline = outlines.get(glyphIndex);
+    if(outline == null)
+    {
+      // NOTE: Font data are shared, so parsing is serialized.
+      synchronized(this)
+      {
+        outline = outlines.get(glyphIndex);
+        if(outline == null)
+        {
+          try
+          {outline = loadOutline(glyphIndex);}
+          catch(Exception e)
+          {outline = null;} // NOTE: Damaged glyphs are resiliently skipped.
+          if(outline == null)
+          {outline = NoOutline;}
+          outlines.put(glyphIndex, outline);
+
+          int outlineSize = getSize(outline);
+          size += outlineSize;
+          GlyphCache.onResize(this, outlineSize);
+        }
+      }
+    }
+    return outline != NoOutline ? outline : null;
+  }
+
+  /**
+    Gets the estimated footprint of this font program.
+  */
+  long getSize(
+    )
+  {return size;}
+
+  /**
+    Parses the outline of the specified glyph.
+
+    @return <code>null</code>, if not available.
+  */
+  protected abstract Shape loadOutline(
+    int glyphIndex
+    ) throws Exception;
+  // </interface>
+  // </dynamic>
+  // </class>
+}
@@ -0,0 +1,259 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.fonts;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfStream;
+import org.pdfclown.tokens.CharsetName;
+import org.pdfclown.util.ByteArray;
+
+/**
+  Process-wide cache of glyph outlines.
+  <p>Glyph outlines are parsed from font programs on demand (see {@link
+  Font#getOutline(int,int)}); as the same font program is commonly embedded into many documents
+  (and many times into the same document, for each subset font structure), parsed font programs
+  are shared through this cache, keyed by a digest of their data, so that each glyph outline is
+  parsed just once across documents.</p>
+  <p>The least-recently used font programs (along with their glyph outlines) are evicted as soon as
+  the estimated footprint of the cache exceeds its {@link #getMaxSize() maximum size}; evicted
+  font programs keep on serving the fonts already using them.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+public final class GlyphCache
+{
+  // <class>
+  // <static>
+  // <fields>
+  private static final String DigestAlgorithm = "SHA-1";
+
+  private static final Map<ByteArray,FontProgram> Programs = new LinkedHashMap<ByteArray,FontProgram>(16, .75f, true);
+  private static long maxSize = 32 << 20;
+  private static long size = 0;
+  // </fields>
+
+  // <interface>
+  // <public>
+  /**
+    Removes all the entries.
+  */
+  public static synchronized void clear(
+    )
+  {
+    for(FontProgram program : Programs.values())
+    {program.cached = false;}
+    Programs.clear();
+    size = 0;
+  }
+
+  /**
+    Gets the maximum estimated footprint (in bytes) of the cache.
+
+    @return <code>0</code> if the cache is disabled (font programs are parsed for each font
+      structure).
+  */
+  public static synchronized long getMaxSize(
+    )
+  {return maxSize;}
+
+  /**
+    Gets the current estimated footprint (in bytes) of the cache.
+  */
+  public static synchronized long getSize(
+    )
+  {return size;}
+
+  /**
+    @see #getMaxSize()
+  */
+  public static synchronized void setMaxSize(
+    long value
+    )
+  {
+    if(value < 0)
+      throw new IllegalArgumentException("Maximum size MUST be non-negative.");
+
+    maxSize = value;
+    evict();
+  }
+  // </public>
+
+  // <internal>
+  /**
+    Gets the font program corresponding to the specified font file.
+
+    @param fontFileKey Font file entry in the font descriptor.
+    @param fontFile Font file.
+    @return <code>null</code>, if the font file is unsupported or damaged.
+  */
+  static FontProgram get(
+    PdfName fontFileKey,
+    PdfStream fontFile
+    )
+  {
+    ByteArray key = null;
+    if(getMaxSize() > 0)
+    {
+      MessageDigest digest = getDigest();
+      update(digest, fontFileKey.getRawValue());
+      /*
+        NOTE: Decoded body is digested, as stream decoding happens in place (the same font program
+        may be encoded differently across documents).
+      */
+      digest.update(fontFile.getBody().toByteArray());
+      key = new ByteArray(digest.digest());
+
+      FontProgram program = get(key);
+      if(program != null)
+        return program;
+    }
+
+    FontProgram program;
+    try
+    {program = FontProgram.parse(fontFileKey, fontFile);}
+    catch(Exception e)
+    {program = null;} // NOTE: Damaged font programs are resiliently ignored.
+    if(program != null && key != null)
+    {put(key, program);}
+    return program;
+  }
+
+  /**
+    Gets the system font program best matching the specified font.
+
+    @param fontName Font name.
+    @param flags Font descriptor flags.
+  */
+  static FontProgram get(
+    String fontName,
+    int flags
+    )
+  {
+    SystemFontProgram program = new SystemFontProgram(fontName, flags);
+    if(getMaxSize() == 0)
+      return program;
+
+    MessageDigest digest = getDigest();
+    update(digest, program.getName());
+    ByteArray key = new ByteArray(digest.digest());
+
+    FontProgram cachedProgram = get(key);
+    if(cachedProgram != null)
+      return cachedProgram;
+
+    put(key, program);
+    return program;
+  }
+
+  /**
+    Notifies the footprint change of the given font program.
+  */
+  static synchronized void onResize(
+    FontProgram program,
+    long delta
+    )
+  {
+    if(!program.cached)
+      return;
+
+    size += delta;
+    evict();
+  }
+  // </internal>
+
+  // <private>
+  /**
+    Removes the least-recently used entries exceeding the maximum size.
+  */
+  private static void evict(
+    )
+  {
+    for(Iterator<FontProgram> iterator = Programs.values().iterator(); size > maxSize && iterator.hasNext();)
+    {
+      FontProgram program = iterator.next();
+      size -= program.getSize();
+      program.cached = false;
+      iterator.remove();
+    }
+  }
+
+  private static synchronized FontProgram get(
+    ByteArray key
+    )
+  {return Programs.get(key);}
+
+  private static MessageDigest getDigest(
+    )
+  {
+    try
+    {return MessageDigest.getInstance(DigestAlgorithm);}
+    catch(NoSuchAlgorithmException e)
+    {throw new RuntimeException(e);}
+  }
+
+  private static synchronized void put(
+    ByteArray key,
+    FontProgram program
+    )
+  {
+    FontProgram oldProgram = Programs.put(key, program);
+    if(oldProgram != null)
+    {oldProgram.cached = false;}
+    program.cached = true;
+    size += program.getSize() - (oldProgram != null ? oldProgram.getSize() : 0);
+    evict();
+  }
+
+  private static void update(
+    MessageDigest digest,
+    String value
+    )
+  {
+    try
+    {digest.update(value.getBytes(CharsetName.UTF16BE));}
+    catch(UnsupportedEncodingException e)
+    {throw new RuntimeException(e);}
+    digest.update((byte)0);
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <constructors>
+  private GlyphCache(
+    )
+  {}
+  // </constructors>
+  // </class>
+}
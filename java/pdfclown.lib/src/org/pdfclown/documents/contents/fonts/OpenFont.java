@@ -0,0 +1,179 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.fonts;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.TreeSet;
+
+import org.pdfclown.bytes.Buffer;
+import org.pdfclown.bytes.IInputStream;
+import org.pdfclown.documents.Document;
+import org.pdfclown.util.BiMap;
+import org.pdfclown.util.ByteArray;
+import org.pdfclown.util.NotImplementedException;
+
+/**
+  OpenType font program, parsed independently from any document.
+  <p>Parsing a font file is expensive: when the same font has to be embedded into many documents,
+  it's convenient to parse it once through this class and then {@link #embed(Document) embed} it
+  into each target document; every embedded font is subset on its own, according to the
+  characters actually used in its document.</p>
+  <p>Instances are immutable and thread-safe, so they can be shared across concurrent document
+  generations.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+public final class OpenFont
+{
+  // <class>
+  // <static>
+  // <interface>
+  // <public>
+  /**
+    Parses the specified font file.
+
+    @param path Font file path.
+  */
+  public static OpenFont get(
+    String path
+    )
+  {
+    /*
+      NOTE: Font data are loaded into memory, as the font program outlives the file access (it's
+      read again on each document subsetting).
+    */
+    java.io.FileInputStream fileStream;
+    try
+    {fileStream = new java.io.FileInputStream(path);}
+    catch(FileNotFoundException e)
+    {throw new RuntimeException(e);}
+    try
+    {return get(new Buffer(fileStream));}
+    finally
+    {
+      try
+      {fileStream.close();}
+      catch(IOException e)
+      {/* NOOP */}
+    }
+  }
+
+  /**
+    Parses the specified font file.
+
+    @param file Font file.
+  */
+  public static OpenFont get(
+    java.io.File file
+    )
+  {return get(file.getPath());}
+
+  /**
+    Parses the specified font program.
+
+    @param fontData Font program (it MUST NOT be altered as long as this font is in use).
+  */
+  public static OpenFont get(
+    IInputStream fontData
+    )
+  {
+    if(!OpenFontParser.isOpenFont(fontData))
+      throw new NotImplementedException();
+
+    return new OpenFont(new OpenFontParser(fontData));
+  }
+  // </public>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  /**
+    Unicodes by character code.
+  */
+  final BiMap<ByteArray,Integer> codes;
+  final OpenFontParser parser;
+  // </fields>
+
+  // <constructors>
+  private OpenFont(
+    OpenFontParser parser
+    )
+  {
+    this.parser = parser;
+
+    // Character codes.
+    /*
+      NOTE: Space is mapped to its single-byte code (so that word spacing applies to it
+      [PDF:1.6:5.2.2]), whereas any other character is mapped to a sequential double-byte code
+      outside the single-byte codespace range.
+    */
+    codes = new BiMap<ByteArray,Integer>(parser.glyphIndexes.size());
+    int code = 0;
+    for(Integer unicode : new TreeSet<Integer>(parser.glyphIndexes.keySet()))
+    {
+      byte[] charCode;
+      if(unicode == 32)
+      {charCode = new byte[]{32};}
+      else
+      {
+        if(++code >> 8 == 0x20)
+        {code = 0x2100;}
+        if(code > 0xFFFF)
+          break;
+
+        charCode = new byte[]{(byte)(code >> 8), (byte)code};
+      }
+      codes.put(new ByteArray(charCode),unicode);
+    }
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Creates the representation of this font within the specified document.
+
+    @param context Document the font has to be embedded into.
+  */
+  public CompositeFont embed(
+    Document context
+    )
+  {return CompositeFont.get(context, this);}
+
+  /**
+    Gets the PostScript name of this font.
+  */
+  public String getName(
+    )
+  {return parser.fontName;}
+  // </public>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
@@ -32,6 +32,7 @@ import java.util.Map;
 
 import org.pdfclown.bytes.IInputStream;
 import org.pdfclown.tokens.CharsetName;
+import org.pdfclown.util.IntMap;
 import org.pdfclown.util.parsers.ParseException;
 
 /**
@@ -121,7 +122,7 @@ final class OpenFontParser
 
   private static final int PlatformID_Unicode = 0;
   private static final int PlatformID_Macintosh = 1;
-  private static final int PlatformID_Microsoft = 3;
+  static final int PlatformID_Microsoft = 3;
   // </fields>
 
   // <interface>
@@ -186,13 +187,20 @@ final class OpenFontParser
   */
   public boolean symbolic;
 
-  public Map<Integer,Integer> glyphIndexes;
-  public Map<Integer,Integer> glyphKernings;
-  public Map<Integer,Integer> glyphWidths;
+  public IntMap glyphIndexes;
+  public IntMap glyphKernings;
+  public IntMap glyphWidths;
 
   public IInputStream fontData;
 
-  private Map<String,Integer> tableOffsets;
+  /**
+    Table lengths by table tag.
+  */
+  Map<String,Integer> tableLengths;
+  /**
+    Table offsets by table tag.
+  */
+  Map<String,Integer> tableOffsets;
   // </fields>
 
   // <constructors>
@@ -348,7 +356,7 @@ final class OpenFontParser
       The glyph collection is limited to 256 entries.
     */
     symbolic = true;
-    glyphIndexes = new Hashtable<Integer,Integer>(256);
+    glyphIndexes = new IntMap();
 
     // Skip to the mapping array!
     fontData.skip(4);
@@ -455,7 +463,7 @@ final class OpenFontParser
       )
     {glyphIds[index] = fontData.readUnsignedShort();}
 
-    glyphIndexes = new Hashtable<Integer,Integer>(glyphIndexCount);
+    glyphIndexes = new IntMap();
     // Iterating through the segments...
     for(
       int segmentIndex = 0;
@@ -538,7 +546,7 @@ final class OpenFontParser
     fontData.skip(4);
     int firstCode = fontData.readUnsignedShort();
     int codeCount = fontData.readUnsignedShort();
-    glyphIndexes = new Hashtable<Integer,Integer>(codeCount);
+    glyphIndexes = new IntMap();
     for(
       int code = firstCode,
         lastCode = firstCode + codeCount;
@@ -632,7 +640,7 @@ final class OpenFontParser
     fontData.seek(tableOffset + 2);
     int subtableCount = fontData.readUnsignedShort(); // USHORT.
 
-    glyphKernings = new Hashtable<Integer,Integer>();
+    glyphKernings = new IntMap();
     int subtableOffset = (int)fontData.getPosition();
     // Iterating through the subtables...
     for(
@@ -695,7 +703,7 @@ final class OpenFontParser
 
     // Go to the glyph horizontal-metrics entries!
     fontData.seek(tableOffset);
-    glyphWidths = new Hashtable<Integer,Integer>(metrics.numberOfHMetrics);
+    glyphWidths = new IntMap();
     for(
       int index = 0;
       index < metrics.numberOfHMetrics;
@@ -730,6 +738,7 @@ final class OpenFontParser
     fontData.skip(6);
     // Collecting the table offsets...
     this.tableOffsets = new Hashtable<String,Integer>(tableCount);
+    this.tableLengths = new Hashtable<String,Integer>(tableCount);
     for(
       int index = 0;
       index < tableCount;
@@ -744,9 +753,8 @@ final class OpenFontParser
       int offset = fontData.readInt();
       // Collect the table offset!
       tableOffsets.put(tag,offset);
-
-      // Skip to the next entry!
-      fontData.skip(4);
+      // Collect the table length!
+      tableLengths.put(tag,fontData.readInt());
     }
   }
 
@@ -0,0 +1,609 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.fonts;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.io.EOFException;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.pdfclown.bytes.Buffer;
+import org.pdfclown.bytes.IInputStream;
+
+/**
+  OpenType font program [OFF:2009], either with TrueType ('glyf' table) or CFF ('CFF ' table)
+  outlines.
+  <p>Unlike {@link OpenFontParser}, only the tables needed for glyph rendering are required, so
+  that subset font programs (which commonly lack naming and metrics tables) are supported.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+final class OpenFontProgram
+  extends FontProgram
+{
+  // <class>
+  // <static>
+  // <fields>
+  private static final int MaxCompositeDepth = 8;
+
+  private static final int PlatformID_Unicode = 0;
+  private static final int PlatformID_Macintosh = 1;
+  private static final int PlatformID_Microsoft = 3;
+
+  /*
+    NOTE: Simple glyph flags [OFF:2009:5.3.3].
+  */
+  private static final int SimpleFlag_OnCurve = 0x01;
+  private static final int SimpleFlag_XShort = 0x02;
+  private static final int SimpleFlag_YShort = 0x04;
+  private static final int SimpleFlag_Repeat = 0x08;
+  private static final int SimpleFlag_XSame = 0x10;
+  private static final int SimpleFlag_YSame = 0x20;
+
+  /*
+    NOTE: Composite glyph flags [OFF:2009:5.3.3].
+  */
+  private static final int CompositeFlag_ArgsAreWords = 0x0001;
+  private static final int CompositeFlag_ArgsAreXYValues = 0x0002;
+  private static final int CompositeFlag_Scale = 0x0008;
+  private static final int CompositeFlag_MoreComponents = 0x0020;
+  private static final int CompositeFlag_XYScale = 0x0040;
+  private static final int CompositeFlag_TwoByTwo = 0x0080;
+  // </fields>
+
+  // <interface>
+  // <private>
+  private static double readF2Dot14(
+    IInputStream fontData
+    ) throws EOFException
+  {return fontData.readShort() / 16384d;}
+
+  private static String readTag(
+    IInputStream fontData
+    ) throws EOFException
+  {
+    char[] tag = new char[4];
+    for(int index = 0; index < tag.length; index++)
+    {tag[index] = (char)fontData.readUnsignedByte();}
+    return new String(tag);
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  private final IInputStream fontData;
+
+  /**
+    CFF outlines.
+  */
+  private CffProgram cffProgram;
+
+  private int glyfOffset;
+  private int glyphCount;
+  private boolean longLocaFormat;
+  private int locaOffset;
+  private double unitsPerEm = 1000;
+
+  /**
+    Glyph indexes by character code ((1,0) 'cmap' subtable).
+  */
+  private Map<Integer,Integer> macintoshGlyphIndexes;
+  /**
+    Glyph indexes by character code ((3,0) 'cmap' subtable).
+  */
+  private Map<Integer,Integer> symbolGlyphIndexes;
+  /**
+    Glyph indexes by Unicode code point.
+  */
+  private Map<Integer,Integer> unicodeGlyphIndexes;
+  // </fields>
+
+  // <constructors>
+  OpenFontProgram(
+    IInputStream fontData
+    ) throws EOFException, UnsupportedEncodingException
+  {
+    this.fontData = fontData;
+
+    Map<String,int[]> tables = new HashMap<String,int[]>();
+    fontData.seek(4);
+    int tableCount = fontData.readUnsignedShort();
+    fontData.seek(12);
+    for(int index = 0; index < tableCount; index++)
+    {
+      String tag = readTag(fontData);
+      fontData.skip(4); // Checksum.
+      tables.put(tag, new int[]{fontData.readInt(), fontData.readInt()});
+    }
+
+    int[] cffTable = tables.get("CFF ");
+    if(cffTable != null)
+    {
+      byte[] cffData = new byte[cffTable[1]];
+      fontData.seek(cffTable[0]);
+      fontData.read(cffData);
+      cffProgram = new CffProgram(new Buffer(cffData));
+    }
+    else
+    {
+      int[] headTable = tables.get("head");
+      fontData.seek(headTable[0] + 18);
+      unitsPerEm = fontData.readUnsignedShort();
+      fontData.seek(headTable[0] + 50);
+      longLocaFormat = (fontData.readShort() != 0);
+
+      int[] maxpTable = tables.get("maxp");
+      fontData.seek(maxpTable[0] + 4);
+      glyphCount = fontData.readUnsignedShort();
+
+      locaOffset = tables.get("loca")[0];
+      glyfOffset = tables.get("glyf")[0];
+    }
+
+    int[] cmapTable = tables.get("cmap");
+    if(cmapTable != null)
+    {loadCMap(cmapTable[0]);}
+  }
+  // </constructors>
+
+  // <interface>
+  @Override
+  String[] getEncoding(
+    )
+  {return cffProgram != null ? cffProgram.getEncoding() : null;}
+
+  @Override
+  int getCidGlyphIndex(
+    int cid
+    )
+  {return cffProgram != null ? cffProgram.getCidGlyphIndex(cid) : cid;}
+
+  /**
+    {@inheritDoc}
+    <p>Symbolic 'cmap' subtables are looked up as per [PDF:1.7:5.5.5].</p>
+  */
+  @Override
+  int getCodeGlyphIndex(
+    int code
+    )
+  {
+    Integer glyphIndex = null;
+    if(symbolGlyphIndexes != null)
+    {
+      /*
+        NOTE: Symbolic character codes are commonly mapped to either the 0xF000, 0xF100 or 0xF200
+        ranges.
+      */
+      glyphIndex = symbolGlyphIndexes.get(code);
+      for(int base = 0xF000; glyphIndex == null && base <= 0xF200; base += 0x100)
+      {glyphIndex = symbolGlyphIndexes.get(base + code);}
+    }
+    if(glyphIndex == null && macintoshGlyphIndexes != null)
+    {glyphIndex = macintoshGlyphIndexes.get(code);}
+    return glyphIndex != null ? glyphIndex : -1;
+  }
+
+  @Override
+  int getGlyphIndex(
+    String name
+    )
+  {
+    if(cffProgram != null)
+    {
+      int glyphIndex = cffProgram.getGlyphIndex(name);
+      if(glyphIndex >= 0)
+        return glyphIndex;
+    }
+
+    Integer unicode = GlyphMapping.nameToCode(name);
+    return unicode != null ? getUnicodeGlyphIndex(unicode) : -1;
+  }
+
+  /**
+    Gets the glyph index corresponding to the given Unicode code point.
+
+    @return <code>-1</code>, if not available.
+  */
+  int getUnicodeGlyphIndex(
+    int unicode
+    )
+  {
+    if(unicodeGlyphIndexes == null)
+      return -1;
+
+    Integer glyphIndex = unicodeGlyphIndexes.get(unicode);
+    return glyphIndex != null ? glyphIndex : -1;
+  }
+
+  @Override
+  protected Shape loadOutline(
+    int glyphIndex
+    ) throws Exception
+  {
+    if(cffProgram != null)
+      return cffProgram.loadOutline(glyphIndex);
+    else if(glyphIndex >= glyphCount)
+      return null;
+
+    Path2D.Float outline = new Path2D.Float();
+    appendGlyph(outline, glyphIndex, new AffineTransform(), 0);
+    outline.transform(AffineTransform.getScaleInstance(1000 / unitsPerEm, 1000 / unitsPerEm));
+    return outline;
+  }
+
+  // <private>
+  /**
+    Appends the outline of the specified glyph [OFF:2009:5.3.3].
+  */
+  private void appendGlyph(
+    Path2D outline,
+    int glyphIndex,
+    AffineTransform transform,
+    int depth
+    ) throws EOFException
+  {
+    if(depth > MaxCompositeDepth || glyphIndex >= glyphCount)
+      return;
+
+    long glyphOffset, nextGlyphOffset;
+    if(longLocaFormat)
+    {
+      fontData.seek(locaOffset + glyphIndex * 4);
+      glyphOffset = fontData.readInt() & 0xFFFFFFFFL;
+      nextGlyphOffset = fontData.readInt() & 0xFFFFFFFFL;
+    }
+    else
+    {
+      fontData.seek(locaOffset + glyphIndex * 2);
+      glyphOffset = fontData.readUnsignedShort() * 2L;
+      nextGlyphOffset = fontData.readUnsignedShort() * 2L;
+    }
+    if(nextGlyphOffset <= glyphOffset) // Empty glyph (e.g. space).
+      return;
+
+    fontData.seek(glyfOffset + glyphOffset);
+    int contourCount = fontData.readShort();
+    fontData.skip(8); // Bounding box.
+    if(contourCount >= 0) // Simple glyph.
+    {
+      Path2D.Float glyphOutline = new Path2D.Float();
+      appendSimpleGlyph(glyphOutline, contourCount);
+      glyphOutline.transform(transform);
+      outline.append(glyphOutline, false);
+    }
+    else // Composite glyph.
+    {
+      int flags;
+      do
+      {
+        flags = fontData.readUnsignedShort();
+        int componentGlyphIndex = fontData.readUnsignedShort();
+        double arg1, arg2;
+        if((flags & CompositeFlag_ArgsAreWords) != 0)
+        {
+          arg1 = fontData.readShort();
+          arg2 = fontData.readShort();
+        }
+        else
+        {
+          arg1 = fontData.readByte();
+          arg2 = fontData.readByte();
+        }
+        double xScale = 1, scale01 = 0, scale10 = 0, yScale = 1;
+        if((flags & CompositeFlag_Scale) != 0)
+        {xScale = yScale = readF2Dot14(fontData);}
+        else if((flags & CompositeFlag_XYScale) != 0)
+        {
+          xScale = readF2Dot14(fontData);
+          yScale = readF2Dot14(fontData);
+        }
+        else if((flags & CompositeFlag_TwoByTwo) != 0)
+        {
+          xScale = readF2Dot14(fontData);
+          scale01 = readF2Dot14(fontData);
+          scale10 = readF2Dot14(fontData);
+          yScale = readF2Dot14(fontData);
+        }
+        // NOTE: Point-matching component placement is not supported (components are left in place).
+        if((flags & CompositeFlag_ArgsAreXYValues) == 0)
+        {arg1 = arg2 = 0;}
+
+        AffineTransform componentTransform = new AffineTransform(transform);
+        componentTransform.concatenate(new AffineTransform(xScale, scale01, scale10, yScale, arg1, arg2));
+        long position = fontData.getPosition();
+        appendGlyph(outline, componentGlyphIndex, componentTransform, depth + 1);
+        fontData.seek(position);
+      } while((flags & CompositeFlag_MoreComponents) != 0);
+    }
+  }
+
+  /**
+    Appends the quadratic contours of the current simple glyph.
+  */
+  private void appendSimpleGlyph(
+    Path2D outline,
+    int contourCount
+    ) throws EOFException
+  {
+    if(contourCount == 0)
+      return;
+
+    int[] contourEnds = new int[contourCount];
+    for(int index = 0; index < contourCount; index++)
+    {contourEnds[index] = fontData.readUnsignedShort();}
+    fontData.skip(fontData.readUnsignedShort()); // Instructions.
+
+    int pointCount = contourEnds[contourCount - 1] + 1;
+    int[] flags = new int[pointCount];
+    for(int index = 0; index < pointCount;)
+    {
+      int flag = fontData.readUnsignedByte();
+      flags[index++] = flag;
+      if((flag & SimpleFlag_Repeat) != 0)
+      {
+        for(int repeatCount = fontData.readUnsignedByte(); repeatCount > 0 && index < pointCount; repeatCount--)
+        {flags[index++] = flag;}
+      }
+    }
+    double[] xs = new double[pointCount];
+    for(int index = 0, x = 0; index < pointCount; index++)
+    {
+      int flag = flags[index];
+      if((flag & SimpleFlag_XShort) != 0)
+      {
+        int dx = fontData.readUnsignedByte();
+        x += ((flag & SimpleFlag_XSame) != 0 ? dx : -dx);
+      }
+      else if((flag & SimpleFlag_XSame) == 0)
+      {x += fontData.readShort();}
+      xs[index] = x;
+    }
+    double[] ys = new double[pointCount];
+    for(int index = 0, y = 0; index < pointCount; index++)
+    {
+      int flag = flags[index];
+      if((flag & SimpleFlag_YShort) != 0)
+      {
+        int dy = fontData.readUnsignedByte();
+        y += ((flag & SimpleFlag_YSame) != 0 ? dy : -dy);
+      }
+      else if((flag & SimpleFlag_YSame) == 0)
+      {y += fontData.readShort();}
+      ys[index] = y;
+    }
+
+    for(int contourIndex = 0, start = 0; contourIndex < contourCount; start = contourEnds[contourIndex++] + 1)
+    {
+      int end = contourEnds[contourIndex];
+      if(end < start)
+        continue;
+
+      /*
+        NOTE: The contour starts from an on-curve point: if both the first and the last points are
+        off-curve, the implied on-curve point between them is used.
+      */
+      double startX, startY;
+      int first, last;
+      if((flags[start] & SimpleFlag_OnCurve) != 0)
+      {
+        startX = xs[start]; startY = ys[start];
+        first = start + 1; last = end;
+      }
+      else if((flags[end] & SimpleFlag_OnCurve) != 0)
+      {
+        startX = xs[end]; startY = ys[end];
+        first = start; last = end - 1;
+      }
+      else
+      {
+        startX = (xs[start] + xs[end]) / 2; startY = (ys[start] + ys[end]) / 2;
+        first = start; last = end;
+      }
+      outline.moveTo(startX, startY);
+      boolean controlPending = false;
+      double controlX = 0, controlY = 0;
+      for(int index = first; index <= last; index++)
+      {
+        double x = xs[index], y = ys[index];
+        if((flags[index] & SimpleFlag_OnCurve) != 0)
+        {
+          if(controlPending)
+          {outline.quadTo(controlX, controlY, x, y);}
+          else
+          {outline.lineTo(x, y);}
+          controlPending = false;
+        }
+        else
+        {
+          if(controlPending) // Implied on-curve point.
+          {outline.quadTo(controlX, controlY, (controlX + x) / 2, (controlY + y) / 2);}
+          controlX = x; controlY = y;
+          controlPending = true;
+        }
+      }
+      if(controlPending)
+      {outline.quadTo(controlX, controlY, startX, startY);}
+      outline.closePath();
+    }
+  }
+
+  /**
+    Loads the character to glyph index mapping subtables [OFF:2009:5.2.1].
+  */
+  private void loadCMap(
+    int tableOffset
+    ) throws EOFException
+  {
+    fontData.seek(tableOffset + 2);
+    int subtableCount = fontData.readUnsignedShort();
+    int unicodeOffset = 0, unicodePriority = 0, symbolOffset = 0, macintoshOffset = 0;
+    for(int index = 0; index < subtableCount; index++)
+    {
+      int platformID = fontData.readUnsignedShort();
+      int encodingID = fontData.readUnsignedShort();
+      int offset = fontData.readInt();
+      switch(platformID)
+      {
+        case PlatformID_Unicode:
+          if(unicodePriority < 1)
+          {unicodeOffset = offset; unicodePriority = 1;}
+          break;
+        case PlatformID_Macintosh:
+          if(encodingID == 0)
+          {macintoshOffset = offset;}
+          break;
+        case PlatformID_Microsoft:
+          switch(encodingID)
+          {
+            case 0: // Symbol.
+              symbolOffset = offset;
+              break;
+            case 1: // Unicode BMP.
+              if(unicodePriority < 2)
+              {unicodeOffset = offset; unicodePriority = 2;}
+              break;
+            case 10: // Unicode full repertoire.
+              unicodeOffset = offset; unicodePriority = 3;
+              break;
+          }
+          break;
+      }
+    }
+    if(unicodeOffset > 0)
+    {unicodeGlyphIndexes = loadCMapSubtable(tableOffset + unicodeOffset);}
+    if(symbolOffset > 0)
+    {symbolGlyphIndexes = loadCMapSubtable(tableOffset + symbolOffset);}
+    if(macintoshOffset > 0)
+    {macintoshGlyphIndexes = loadCMapSubtable(tableOffset + macintoshOffset);}
+  }
+
+  /**
+    Loads the character to glyph index mapping subtable at the given position.
+
+    @return <code>null</code>, if the subtable format is unsupported.
+  */
+  private Map<Integer,Integer> loadCMapSubtable(
+    int offset
+    ) throws EOFException
+  {
+    Map<Integer,Integer> glyphIndexes = new HashMap<Integer,Integer>();
+    fontData.seek(offset);
+    int format = fontData.readUnsignedShort();
+    switch(format)
+    {
+      case 0: // Byte encoding table.
+      {
+        fontData.skip(4); // Length, language.
+        for(int code = 0; code < 256; code++)
+        {
+          int glyphIndex = fontData.readUnsignedByte();
+          if(glyphIndex != 0)
+          {glyphIndexes.put(code, glyphIndex);}
+        }
+        break;
+      }
+      case 4: // Segment mapping to delta values.
+      {
+        fontData.skip(4); // Length, language.
+        int segmentCount = fontData.readUnsignedShort() / 2;
+        fontData.skip(6); // Search parameters.
+        int[] endCodes = new int[segmentCount];
+        for(int index = 0; index < segmentCount; index++)
+        {endCodes[index] = fontData.readUnsignedShort();}
+        fontData.skip(2); // Reserved padding.
+        int[] startCodes = new int[segmentCount];
+        for(int index = 0; index < segmentCount; index++)
+        {startCodes[index] = fontData.readUnsignedShort();}
+        int[] idDeltas = new int[segmentCount];
+        for(int index = 0; index < segmentCount; index++)
+        {idDeltas[index] = fontData.readShort();}
+        long idRangeOffsetsPosition = fontData.getPosition();
+        int[] idRangeOffsets = new int[segmentCount];
+        for(int index = 0; index < segmentCount; index++)
+        {idRangeOffsets[index] = fontData.readUnsignedShort();}
+        for(int index = 0; index < segmentCount; index++)
+        {
+          for(int code = startCodes[index], endCode = endCodes[index]; code <= endCode && code != 0xFFFF; code++)
+          {
+            int glyphIndex;
+            if(idRangeOffsets[index] == 0)
+            {glyphIndex = (code + idDeltas[index]) & 0xFFFF;}
+            else
+            {
+              fontData.seek(idRangeOffsetsPosition + index * 2 + idRangeOffsets[index] + (code - startCodes[index]) * 2);
+              glyphIndex = fontData.readUnsignedShort();
+              if(glyphIndex != 0)
+              {glyphIndex = (glyphIndex + idDeltas[index]) & 0xFFFF;}
+            }
+            if(glyphIndex != 0)
+            {glyphIndexes.put(code, glyphIndex);}
+          }
+        }
+        break;
+      }
+      case 6: // Trimmed table mapping.
+      {
+        fontData.skip(4); // Length, language.
+        int firstCode = fontData.readUnsignedShort();
+        int entryCount = fontData.readUnsignedShort();
+        for(int index = 0; index < entryCount; index++)
+        {
+          int glyphIndex = fontData.readUnsignedShort();
+          if(glyphIndex != 0)
+          {glyphIndexes.put(firstCode + index, glyphIndex);}
+        }
+        break;
+      }
+      case 12: // Segmented coverage.
+      {
+        fontData.skip(10); // Reserved, length, language.
+        int groupCount = fontData.readInt();
+        for(int index = 0; index < groupCount; index++)
+        {
+          int startCode = fontData.readInt();
+          int endCode = fontData.readInt();
+          int startGlyphIndex = fontData.readInt();
+          for(int code = startCode; code <= endCode && code - startCode < 0x10000; code++)
+          {glyphIndexes.put(code, startGlyphIndex + (code - startCode));}
+        }
+        break;
+      }
+      default:
+        return null;
+    }
+    return glyphIndexes;
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
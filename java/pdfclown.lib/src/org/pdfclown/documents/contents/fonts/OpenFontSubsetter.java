@@ -0,0 +1,663 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.fonts;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.pdfclown.bytes.Buffer;
+import org.pdfclown.util.IntMap;
+import org.pdfclown.util.parsers.ParseException;
+
+/**
+  Open Font Format subsetter [OFF:2009].
+  <p>It generates a font program restricted to the glyphs actually used:</p>
+  <ul>
+    <li>TrueType outlines: glyphs (along with their composite components) are renumbered
+    contiguously, rebuilding 'glyf', 'loca', 'hmtx' and 'cmap' tables;</li>
+    <li>CFF outlines: glyph indexes are preserved, as CFF structures are addressed by absolute
+    offsets; unused charstrings are replaced in place by empty ones and the freed space is
+    zeroed, so that it's virtually wiped out by stream compression.</li>
+  </ul>
+  <p>Tables which are irrelevant to PDF embedding (layout features, kerning, device metrics and
+  so on) are dropped.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+final class OpenFontSubsetter
+{
+  // <class>
+  // <static>
+  // <fields>
+  /**
+    Empty Type 2 charstring ('endchar' operator) [CFF:1.0].
+  */
+  private static final byte CffEmptyCharstring = 14;
+
+  /*
+    Composite glyph flags [OFF:2009:5.3.3].
+  */
+  private static final int ComponentFlag_Arg1And2AreWords = 0x0001;
+  private static final int ComponentFlag_WeHaveAScale = 0x0008;
+  private static final int ComponentFlag_MoreComponents = 0x0020;
+  private static final int ComponentFlag_WeHaveAnXAndYScale = 0x0040;
+  private static final int ComponentFlag_WeHaveATwoByTwo = 0x0080;
+
+  /**
+    Tables retained (as-is or rebuilt) in case of CFF outlines.
+  */
+  private static final String[] CffTableTags = new String[]{"CFF ", "OS/2", "cmap", "head", "hhea", "hmtx", "maxp", "name", "post"};
+  /**
+    Tables retained (as-is or rebuilt) in case of TrueType outlines.
+  */
+  private static final String[] TrueTypeTableTags = new String[]{"OS/2", "cmap", "cvt ", "fpgm", "glyf", "head", "hhea", "hmtx", "loca", "maxp", "name", "post", "prep"};
+  // </fields>
+
+  // <interface>
+  // <private>
+  private static int getShort(
+    byte[] data,
+    int offset
+    )
+  {return (short)(((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF));}
+
+  private static int getUnsignedShort(
+    byte[] data,
+    int offset
+    )
+  {return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);}
+
+  private static int getInt(
+    byte[] data,
+    int offset
+    )
+  {return (getUnsignedShort(data, offset) << 16) | getUnsignedShort(data, offset + 2);}
+
+  /**
+    Gets the checksum of the given table data [OFF:2009:4.4].
+  */
+  private static int getChecksum(
+    byte[] data
+    )
+  {
+    int checksum = 0;
+    for(int offset = 0, length = data.length; offset < length; offset += 4)
+    {
+      int word = 0;
+      for(int index = 0; index < 4; index++)
+      {word = (word << 8) | (offset + index < length ? data[offset + index] & 0xFF : 0);}
+      checksum += word;
+    }
+    return checksum;
+  }
+
+  private static void putInt(
+    byte[] data,
+    int offset,
+    int value
+    )
+  {
+    putShort(data, offset, value >> 16);
+    putShort(data, offset + 2, value);
+  }
+
+  private static void putShort(
+    byte[] data,
+    int offset,
+    int value
+    )
+  {
+    data[offset] = (byte)(value >> 8);
+    data[offset + 1] = (byte)value;
+  }
+
+  private static void writeInt(
+    ByteArrayOutputStream stream,
+    int value
+    )
+  {
+    writeShort(stream, value >> 16);
+    writeShort(stream, value);
+  }
+
+  private static void writeShort(
+    ByteArrayOutputStream stream,
+    int value
+    )
+  {
+    stream.write(value >> 8);
+    stream.write(value);
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  /**
+    Subset font program.
+  */
+  public byte[] fontData;
+  /**
+    Subset glyph indexes by original glyph index.
+  */
+  public IntMap glyphIndexes;
+
+  private final OpenFontParser parser;
+  /**
+    Tables by tag.
+  */
+  private final SortedMap<String,byte[]> tables = new TreeMap<String,byte[]>();
+  // </fields>
+
+  // <constructors>
+  /**
+    @param parser Font program to subset.
+    @param usedGlyphIndexes Glyph indexes by unicode, restricted to the characters to retain.
+  */
+  OpenFontSubsetter(
+    OpenFontParser parser,
+    Map<Integer,Integer> usedGlyphIndexes
+    )
+  {
+    this.parser = parser;
+
+    try
+    {subset(usedGlyphIndexes);}
+    catch(EOFException e)
+    {throw new ParseException(e);}
+  }
+  // </constructors>
+
+  // <interface>
+  // <private>
+  /**
+    Builds the character to glyph index mapping table ('cmap' table), consisting of a single
+    format-4 subtable.
+
+    @param glyphIndexes Subset glyph indexes by unicode.
+  */
+  private byte[] buildCMap(
+    Map<Integer,Integer> glyphIndexes
+    )
+  {
+    // Collect the segments!
+    /*
+      NOTE: Each segment groups consecutive codes mapped to consecutive glyph indexes, so that its
+      delta is constant.
+    */
+    List<int[]> segments = new ArrayList<int[]>(); // {startCode, endCode, delta}.
+    {
+      int[] segment = null;
+      for(Map.Entry<Integer,Integer> entry : new TreeMap<Integer,Integer>(glyphIndexes).entrySet())
+      {
+        int code = entry.getKey();
+        if(code >= 0xFFFF)
+          break;
+
+        int delta = (entry.getValue() - code) & 0xFFFF;
+        if(segment != null
+          && segment[1] == code - 1
+          && segment[2] == delta)
+        {segment[1] = code;}
+        else
+        {segments.add(segment = new int[]{code, code, delta});}
+      }
+      segments.add(new int[]{0xFFFF, 0xFFFF, 1}); // Final segment (mandatory).
+    }
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    int segmentCount = segments.size();
+    // 1. Header.
+    writeShort(stream, 0); // Version.
+    writeShort(stream, 1); // Number of encoding tables.
+    writeShort(stream, OpenFontParser.PlatformID_Microsoft); // Platform ID.
+    writeShort(stream, parser.metrics.isCustomEncoding ? 0 : 1); // Encoding ID.
+    writeInt(stream, 12); // Subtable offset.
+    // 2. Format-4 subtable.
+    writeShort(stream, 4); // Format.
+    writeShort(stream, 16 + segmentCount * 8); // Length.
+    writeShort(stream, 0); // Language.
+    writeShort(stream, segmentCount * 2); // Segment count x 2.
+    {
+      int entrySelector = 31 - Integer.numberOfLeadingZeros(segmentCount);
+      int searchRange = 2 << entrySelector;
+      writeShort(stream, searchRange);
+      writeShort(stream, entrySelector);
+      writeShort(stream, segmentCount * 2 - searchRange);
+    }
+    for(int[] segment : segments)
+    {writeShort(stream, segment[1]);} // End codes.
+    writeShort(stream, 0); // Reserved pad.
+    for(int[] segment : segments)
+    {writeShort(stream, segment[0]);} // Start codes.
+    for(int[] segment : segments)
+    {writeShort(stream, segment[2]);} // Deltas.
+    for(int index = 0; index < segmentCount; index++)
+    {writeShort(stream, 0);} // Range offsets.
+    return stream.toByteArray();
+  }
+
+  /**
+    Gets the data of the specified table.
+
+    @return <code>null</code> if the table doesn't exist.
+  */
+  private byte[] getTable(
+    String tag
+    ) throws EOFException
+  {
+    Integer offset = parser.tableOffsets.get(tag);
+    if(offset == null)
+      return null;
+
+    byte[] data = new byte[parser.tableLengths.get(tag)];
+    // NOTE: Font data may be shared by concurrent subsettings (see OpenFont).
+    synchronized(parser.fontData)
+    {
+      parser.fontData.seek(offset);
+      parser.fontData.read(data);
+    }
+    return data;
+  }
+
+  /**
+    Generates the subset font program.
+  */
+  private void subset(
+    Map<Integer,Integer> usedGlyphIndexes
+    ) throws EOFException
+  {
+    String[] tableTags;
+    switch(parser.outlineFormat)
+    {
+      case TrueType:
+        tableTags = TrueTypeTableTags;
+        subsetTrueType(usedGlyphIndexes);
+        break;
+      case CFF:
+        tableTags = CffTableTags;
+        subsetCff(usedGlyphIndexes);
+        break;
+      default:
+        throw new UnsupportedOperationException();
+    }
+
+    // Retained tables.
+    for(String tableTag : tableTags)
+    {
+      if(!tables.containsKey(tableTag))
+      {
+        byte[] table = getTable(tableTag);
+        if(table != null)
+        {tables.put(tableTag, table);}
+      }
+    }
+    // Character mapping.
+    {
+      IntMap cmap = new IntMap();
+      for(Map.Entry<Integer,Integer> entry : usedGlyphIndexes.entrySet())
+      {cmap.put((int)entry.getKey(), glyphIndexes.get(entry.getValue(), 0));}
+      tables.put("cmap", buildCMap(cmap));
+    }
+    // PostScript table (glyph names discarded).
+    {
+      byte[] post = tables.get("post");
+      if(post != null && post.length >= 32)
+      {
+        byte[] newPost = new byte[32];
+        System.arraycopy(post, 0, newPost, 0, 32);
+        putInt(newPost, 0, 0x00030000); // Version 3.0.
+        tables.put("post", newPost);
+      }
+    }
+
+    write();
+  }
+
+  /**
+    Subsets CFF outlines (original glyph indexes are preserved).
+  */
+  private void subsetCff(
+    Map<Integer,Integer> usedGlyphIndexes
+    ) throws EOFException
+  {
+    glyphIndexes = new IntMap();
+    glyphIndexes.put(0, 0); // Missing glyph.
+    for(int glyphIndex : usedGlyphIndexes.values())
+    {glyphIndexes.put(glyphIndex, glyphIndex);}
+
+    byte[] cff = getTable("CFF ");
+    if(cff == null)
+      throw new ParseException("'CFF ' table does NOT exist.");
+
+    // Locate the charstrings!
+    int charStringsOffset;
+    {
+      Buffer stream = new Buffer(cff);
+      stream.seek(cff[2] & 0xFF); // Header size.
+      // Skip the name index!
+      skipCffIndex(stream);
+      // Top DICT index.
+      int topDictCount = stream.readUnsignedShort();
+      int offSize = stream.readUnsignedByte();
+      int topDictStart = stream.readInt(offSize);
+      int topDictEnd = stream.readInt(offSize);
+      stream.skip((topDictCount - 1) * offSize);
+      int dataOffset = (int)stream.getPosition() - 1;
+      charStringsOffset = -1;
+      {
+        stream.seek(dataOffset + topDictStart);
+        List<Integer> operands = new ArrayList<Integer>();
+        while(stream.getPosition() < dataOffset + topDictEnd)
+        {
+          int b0 = stream.readUnsignedByte();
+          if(b0 <= 21) // Operator.
+          {
+            int operator = (b0 == 12 ? (12 << 8) + stream.readUnsignedByte() : b0);
+            if(operator == 17) // CharStrings.
+            {charStringsOffset = operands.get(0); break;}
+            operands.clear();
+          }
+          else if(b0 == 28)
+          {operands.add((int)stream.readShort());}
+          else if(b0 == 29)
+          {operands.add(stream.readInt());}
+          else if(b0 == 30) // Real.
+          {
+            while(true)
+            {
+              int b = stream.readUnsignedByte();
+              if((b & 0x0F) == 0x0F || (b & 0xF0) == 0xF0)
+                break;
+            }
+            operands.add(0);
+          }
+          else if(b0 >= 32 && b0 <= 246)
+          {operands.add(b0 - 139);}
+          else if(b0 >= 247 && b0 <= 250)
+          {operands.add((b0 - 247) * 256 + stream.readUnsignedByte() + 108);}
+          else if(b0 >= 251 && b0 <= 254)
+          {operands.add(-(b0 - 251) * 256 - stream.readUnsignedByte() - 108);}
+        }
+      }
+      if(charStringsOffset < 0)
+        throw new ParseException("CFF charstrings NOT found.");
+    }
+
+    // Rewrite the charstrings in place!
+    {
+      int count = getUnsignedShort(cff, charStringsOffset);
+      int offSize = cff[charStringsOffset + 2] & 0xFF;
+      int offsetsStart = charStringsOffset + 3;
+      int dataStart = offsetsStart + (count + 1) * offSize - 1; // NOTE: Offsets are 1-based.
+      int[] offsets = new int[count + 1];
+      for(int index = 0; index <= count; index++)
+      {
+        int offset = 0;
+        for(int byteIndex = 0; byteIndex < offSize; byteIndex++)
+        {offset = (offset << 8) | (cff[offsetsStart + index * offSize + byteIndex] & 0xFF);}
+        offsets[index] = offset;
+      }
+
+      byte[] data = new byte[offsets[count] - 1];
+      int position = 0;
+      for(int index = 0; index < count; index++)
+      {
+        if(glyphIndexes.containsKey(index))
+        {
+          int length = offsets[index + 1] - offsets[index];
+          System.arraycopy(cff, dataStart + offsets[index], data, position, length);
+          position += length;
+        }
+        else
+        {data[position++] = CffEmptyCharstring;}
+
+        // Update the offset!
+        int offset = position + 1;
+        for(int byteIndex = offSize - 1; byteIndex >= 0; byteIndex--)
+        {
+          cff[offsetsStart + (index + 1) * offSize + byteIndex] = (byte)offset;
+          offset >>= 8;
+        }
+      }
+      // NOTE: Freed space is zeroed (offsets to the following structures are preserved).
+      System.arraycopy(data, 0, cff, dataStart + 1, data.length);
+    }
+    tables.put("CFF ", cff);
+  }
+
+  /**
+    Subsets TrueType outlines (glyph indexes are renumbered).
+  */
+  private void subsetTrueType(
+    Map<Integer,Integer> usedGlyphIndexes
+    ) throws EOFException
+  {
+    byte[] head = getTable("head");
+    byte[] maxp = getTable("maxp");
+    byte[] hhea = getTable("hhea");
+    byte[] hmtx = getTable("hmtx");
+    byte[] loca = getTable("loca");
+    byte[] glyf = getTable("glyf");
+    if(loca == null || glyf == null)
+      throw new ParseException("'loca'/'glyf' tables do NOT exist.");
+
+    int glyphCount = getUnsignedShort(maxp, 4);
+    boolean longLoca = (getShort(head, 50) != 0);
+    int[] glyphOffsets = new int[glyphCount + 1];
+    for(int index = 0; index <= glyphCount; index++)
+    {glyphOffsets[index] = (longLoca ? getInt(loca, index * 4) : getUnsignedShort(loca, index * 2) * 2);}
+
+    // 1. Glyph closure (composite glyphs' components).
+    TreeSet<Integer> oldGlyphIndexes = new TreeSet<Integer>();
+    {
+      oldGlyphIndexes.add(0); // Missing glyph.
+      List<Integer> pendingGlyphIndexes = new ArrayList<Integer>(usedGlyphIndexes.values());
+      while(!pendingGlyphIndexes.isEmpty())
+      {
+        int glyphIndex = pendingGlyphIndexes.remove(pendingGlyphIndexes.size() - 1);
+        if(glyphIndex >= glyphCount
+          || !oldGlyphIndexes.add(glyphIndex))
+          continue;
+
+        int offset = glyphOffsets[glyphIndex];
+        if(glyphOffsets[glyphIndex + 1] > offset
+          && getShort(glyf, offset) < 0) // Composite glyph.
+        {
+          int componentOffset = offset + 10;
+          while(true)
+          {
+            int flags = getUnsignedShort(glyf, componentOffset);
+            pendingGlyphIndexes.add(getUnsignedShort(glyf, componentOffset + 2));
+            if((flags & ComponentFlag_MoreComponents) == 0)
+              break;
+
+            componentOffset += getComponentLength(flags);
+          }
+        }
+      }
+    }
+    glyphIndexes = new IntMap();
+    {
+      int newGlyphIndex = 0;
+      for(Integer oldGlyphIndex : oldGlyphIndexes)
+      {glyphIndexes.put((int)oldGlyphIndex, newGlyphIndex++);}
+    }
+    int newGlyphCount = oldGlyphIndexes.size();
+
+    // 2. Glyph data.
+    ByteArrayOutputStream newGlyf = new ByteArrayOutputStream();
+    byte[] newLoca = new byte[(newGlyphCount + 1) * 4];
+    byte[] newHmtx = new byte[newGlyphCount * 4];
+    {
+      int hMetricCount = getUnsignedShort(hhea, 34);
+      int newGlyphIndex = 0;
+      for(Integer oldGlyphIndex : oldGlyphIndexes)
+      {
+        putInt(newLoca, newGlyphIndex * 4, newGlyf.size());
+        int offset = glyphOffsets[oldGlyphIndex];
+        int length = glyphOffsets[oldGlyphIndex + 1] - offset;
+        if(length > 0)
+        {
+          byte[] glyph = new byte[length];
+          System.arraycopy(glyf, offset, glyph, 0, length);
+          if(getShort(glyph, 0) < 0) // Composite glyph.
+          {
+            // Renumber the components!
+            int componentOffset = 10;
+            while(true)
+            {
+              int flags = getUnsignedShort(glyph, componentOffset);
+              putShort(glyph, componentOffset + 2, glyphIndexes.get(getUnsignedShort(glyph, componentOffset + 2), 0));
+              if((flags & ComponentFlag_MoreComponents) == 0)
+                break;
+
+              componentOffset += getComponentLength(flags);
+            }
+          }
+          newGlyf.write(glyph, 0, length);
+          while(newGlyf.size() % 4 != 0)
+          {newGlyf.write(0);}
+        }
+
+        // Horizontal metrics.
+        int advanceWidth = getUnsignedShort(hmtx, Math.min(oldGlyphIndex, hMetricCount - 1) * 4);
+        int leftSideBearing = (oldGlyphIndex < hMetricCount
+          ? getShort(hmtx, oldGlyphIndex * 4 + 2)
+          : getShort(hmtx, hMetricCount * 4 + (oldGlyphIndex - hMetricCount) * 2));
+        putShort(newHmtx, newGlyphIndex * 4, advanceWidth);
+        putShort(newHmtx, newGlyphIndex * 4 + 2, leftSideBearing);
+
+        newGlyphIndex++;
+      }
+      putInt(newLoca, newGlyphCount * 4, newGlyf.size());
+    }
+
+    putShort(head, 50, 1); // Long loca format.
+    putShort(maxp, 4, newGlyphCount);
+    putShort(hhea, 34, newGlyphCount);
+    tables.put("head", head);
+    tables.put("maxp", maxp);
+    tables.put("hhea", hhea);
+    tables.put("hmtx", newHmtx);
+    tables.put("loca", newLoca);
+    tables.put("glyf", newGlyf.toByteArray());
+  }
+
+  /**
+    Gets the length of a composite glyph component description.
+
+    @param flags Component flags.
+  */
+  private int getComponentLength(
+    int flags
+    )
+  {
+    int length = 4 // Flags and glyph index.
+      + ((flags & ComponentFlag_Arg1And2AreWords) != 0 ? 4 : 2); // Arguments.
+    if((flags & ComponentFlag_WeHaveAScale) != 0)
+    {length += 2;}
+    else if((flags & ComponentFlag_WeHaveAnXAndYScale) != 0)
+    {length += 4;}
+    else if((flags & ComponentFlag_WeHaveATwoByTwo) != 0)
+    {length += 8;}
+    return length;
+  }
+
+  /**
+    Skips a CFF index [CFF:1.0:5].
+  */
+  private void skipCffIndex(
+    Buffer stream
+    ) throws EOFException
+  {
+    int count = stream.readUnsignedShort();
+    if(count == 0)
+      return;
+
+    int offSize = stream.readUnsignedByte();
+    stream.skip(count * offSize);
+    int dataLength = stream.readInt(offSize) - 1;
+    stream.skip(dataLength);
+  }
+
+  /**
+    Serializes the tables into the subset font program [OFF:2009:4.5].
+  */
+  private void write(
+    )
+  {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    int tableCount = tables.size();
+    // 1. Offset table.
+    writeInt(stream, parser.outlineFormat == OpenFontParser.OutlineFormatEnum.CFF ? 0x4F54544F : 0x00010000);
+    writeShort(stream, tableCount);
+    {
+      int entrySelector = 31 - Integer.numberOfLeadingZeros(tableCount);
+      int searchRange = (1 << entrySelector) * 16;
+      writeShort(stream, searchRange);
+      writeShort(stream, entrySelector);
+      writeShort(stream, tableCount * 16 - searchRange);
+    }
+    // 2. Table directory.
+    byte[] head = tables.get("head");
+    putInt(head, 8, 0); // Checksum adjustment (reset).
+    int offset = 12 + tableCount * 16;
+    for(Map.Entry<String,byte[]> entry : tables.entrySet())
+    {
+      byte[] tag = entry.getKey().getBytes();
+      stream.write(tag, 0, 4);
+      writeInt(stream, getChecksum(entry.getValue()));
+      writeInt(stream, offset);
+      writeInt(stream, entry.getValue().length);
+      offset += (entry.getValue().length + 3) & ~3;
+    }
+    // 3. Tables.
+    for(byte[] table : tables.values())
+    {
+      stream.write(table, 0, table.length);
+      for(int padding = ((table.length + 3) & ~3) - table.length; padding > 0; padding--)
+      {stream.write(0);}
+    }
+    fontData = stream.toByteArray();
+
+    // Font checksum adjustment.
+    int headOffset = getInt(fontData, 12 + tables.headMap("head").size() * 16 + 8);
+    putInt(fontData, headOffset + 8, 0xB1B0AFBA - getChecksum(fontData));
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
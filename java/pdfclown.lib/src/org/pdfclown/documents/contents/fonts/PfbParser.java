@@ -32,6 +32,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.pdfclown.bytes.IInputStream;
+import org.pdfclown.objects.PdfName;
 import org.pdfclown.util.ByteArray;
 import org.pdfclown.util.parsers.ParseException;
 
@@ -58,6 +59,30 @@ final class PfbParser
     )
   {
     Hashtable<ByteArray,Integer> codes = new Hashtable<ByteArray,Integer>();
+    String[] names = parseEncoding();
+    for(int code = 0; code < names.length; code++)
+    {
+      String name = names[code];
+      if(name == null)
+        continue;
+
+      Integer unicode = GlyphMapping.nameToCode(name);
+      if(unicode != null)
+      {codes.put(new ByteArray(new byte[]{(byte)code}), unicode);}
+    }
+    return codes;
+  }
+
+  /**
+    Parses the built-in encoding.
+
+    @return Glyph names by character code.
+    @since 0.1.3
+  */
+  public String[] parseEncoding(
+    )
+  {
+    String[] names = new String[256];
 
     String line;
     Pattern linePattern = Pattern.compile("(\\S+)\\s+(.+)");
@@ -75,6 +100,12 @@ final class PfbParser
       String key = lineMatcher.group(1);
       if(key.equals("/Encoding"))
       {
+        if(lineMatcher.group(2).startsWith("StandardEncoding"))
+        {
+          names = Encoding.get(PdfName.StandardEncoding).getNames();
+          break;
+        }
+
         // Skip to the encoding array entries!
         try
         {stream.readLine();}
@@ -94,13 +125,13 @@ final class PfbParser
           if(!encodingLineMatcher.find())
             break;
 
-          byte[] inputCode = new byte[]{(byte)Integer.parseInt(encodingLineMatcher.group(1))};
-          String name = encodingLineMatcher.group(2).substring(1);
-          codes.put(new ByteArray(inputCode),GlyphMapping.nameToCode(name));
+          int code = Integer.parseInt(encodingLineMatcher.group(1));
+          if(code >= 0 && code < names.length)
+          {names[code] = encodingLineMatcher.group(2).substring(1);}
         }
         break;
       }
     }
-    return codes;
+    return names;
   }
 }
\ No newline at end of file
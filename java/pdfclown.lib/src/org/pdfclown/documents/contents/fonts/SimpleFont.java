@@ -25,19 +25,21 @@
 
 package org.pdfclown.documents.contents.fonts;
 
-import java.util.Hashtable;
+import java.awt.Shape;
 import java.util.Map;
 
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
 import org.pdfclown.documents.Document;
 import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfDataObject;
 import org.pdfclown.objects.PdfDictionary;
 import org.pdfclown.objects.PdfDirectObject;
 import org.pdfclown.objects.PdfInteger;
 import org.pdfclown.objects.PdfName;
 import org.pdfclown.objects.PdfNumber;
 import org.pdfclown.util.ByteArray;
+import org.pdfclown.util.IntMap;
 
 /**
   Simple font [PDF:1.6:5.5].
@@ -50,6 +52,13 @@ import org.pdfclown.util.ByteArray;
 public abstract class SimpleFont
   extends Font
 {
+  // <fields>
+  /**
+    Glyph names by character code (lazily loaded).
+  */
+  private volatile String[] glyphNames;
+  // </fields>
+
   // <constructors>
   protected SimpleFont(
     Document context
@@ -69,6 +78,19 @@ public abstract class SimpleFont
 
   protected abstract void loadEncoding();
 
+  @Override
+  protected Shape loadOutline(
+    int code,
+    int codeLength
+    )
+  {
+    FontProgram program = getProgram();
+    if(program == null || codeLength != 1)
+      return null;
+
+    return program.getOutline(getGlyphIndex(program, code));
+  }
+
   /**
     Loads the encoding differences into the given collection.
 
@@ -120,7 +142,7 @@ public abstract class SimpleFont
     // Glyph widths.
     if(glyphWidths == null)
     {
-      glyphWidths = new Hashtable<Integer,Integer>();
+      glyphWidths = new IntMap();
       PdfArray glyphWidthObjects = (PdfArray)getBaseDataObject().resolve(PdfName.Widths);
       if(glyphWidthObjects != null)
       {
@@ -137,7 +159,7 @@ public abstract class SimpleFont
             if(code != null)
             {
               glyphWidths.put(
-                glyphIndexes.get(code),
+                (int)glyphIndexes.get(code),
                 glyphWidth
                 );
             }
@@ -156,4 +178,95 @@ public abstract class SimpleFont
       }
     }
   }
+
+  /**
+    Gets the index of the glyph corresponding to the given character code within the given font
+    program.
+
+    @return <code>-1</code>, if not available.
+  */
+  int getGlyphIndex(
+    FontProgram program,
+    int code
+    )
+  {
+    if(program instanceof SystemFontProgram) // Substitute font (glyphs indexed by unicode).
+    {
+      Integer unicode = codes.get(new ByteArray(new byte[]{(byte)code}));
+      return unicode != null ? unicode : -1;
+    }
+
+    String glyphName = getGlyphName(code);
+    return glyphName != null ? program.getGlyphIndex(glyphName) : -1;
+  }
+
+  /**
+    Gets the name of the glyph corresponding to the given character code [PDF:1.6:5.5.5].
+
+    @return <code>null</code>, if undefined.
+  */
+  String getGlyphName(
+    int code
+    )
+  {
+    String[] glyphNames = this.glyphNames;
+    if(glyphNames == null)
+    {this.glyphNames = glyphNames = loadGlyphNames();}
+
+    return code >= 0 && code < glyphNames.length ? glyphNames[code] : null;
+  }
+
+  /**
+    Loads the glyph names by character code, applying the encoding differences to the base
+    encoding (either predefined or built into the font program).
+  */
+  private String[] loadGlyphNames(
+    )
+  {
+    String[] glyphNames = null;
+    PdfDataObject encodingObject = getBaseDataObject().resolve(PdfName.Encoding);
+
+    // 1. Base encoding.
+    PdfName baseEncodingName = null;
+    if(encodingObject instanceof PdfName)
+    {baseEncodingName = (PdfName)encodingObject;}
+    else if(encodingObject instanceof PdfDictionary)
+    {baseEncodingName = (PdfName)((PdfDictionary)encodingObject).get(PdfName.BaseEncoding);}
+    if(baseEncodingName != null)
+    {
+      Encoding baseEncoding = Encoding.get(baseEncodingName);
+      if(baseEncoding != null)
+      {glyphNames = baseEncoding.getNames();}
+    }
+    if(glyphNames == null) // Built-in encoding.
+    {
+      FontProgram program = getProgram();
+      String[] builtinGlyphNames = (program != null ? program.getEncoding() : null);
+      glyphNames = (builtinGlyphNames != null
+        ? builtinGlyphNames.clone()
+        : Encoding.get(PdfName.StandardEncoding).getNames());
+    }
+
+    // 2. Differences.
+    if(encodingObject instanceof PdfDictionary)
+    {
+      PdfArray differenceObjects = (PdfArray)((PdfDictionary)encodingObject).resolve(PdfName.Differences);
+      if(differenceObjects != null)
+      {
+        int code = 0;
+        for(PdfDirectObject differenceObject : differenceObjects)
+        {
+          if(differenceObject instanceof PdfInteger)
+          {code = ((PdfInteger)differenceObject).getIntValue();}
+          else // NOTE: MUST be PdfName.
+          {
+            if(code >= 0 && code < glyphNames.length)
+            {glyphNames[code] = ((PdfName)differenceObject).getValue();}
+            code++;
+          }
+        }
+      }
+    }
+    return glyphNames;
+  }
 }
\ No newline at end of file
@@ -30,6 +30,7 @@ import java.io.InputStreamReader;
 import java.util.EnumSet;
 import java.util.Hashtable;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
@@ -75,6 +76,59 @@ public final class StandardType1Font
   };
   // </classes>
 
+  // <static>
+  // <fields>
+  /**
+    Font metrics by font name.
+    <p>Standard font metrics are shared process-wide (they are read-only after loading).</p>
+  */
+  private static final Map<String,AfmParser> Metrics = new ConcurrentHashMap<String,AfmParser>();
+  // </fields>
+
+  // <interface>
+  // <private>
+  /**
+    Gets the metrics of the specified standard font.
+  */
+  private static AfmParser getMetrics(
+    String fontName
+    )
+  {
+    AfmParser parser = Metrics.get(fontName);
+    if(parser == null)
+    {
+      BufferedReader fontMetricsStream = null;
+      try
+      {
+        fontMetricsStream = new BufferedReader(
+          new InputStreamReader(
+            StandardType1Font.class.getResourceAsStream("/fonts/afm/" + fontName + ".afm")
+            )
+          );
+
+        parser = new AfmParser(fontMetricsStream);
+      }
+      catch(Exception e)
+      {throw new RuntimeException("Failed to load '" + fontName + "'.",e);}
+      finally
+      {
+        try
+        {
+          if(fontMetricsStream != null)
+          {fontMetricsStream.close();}
+        }
+        catch(Exception e)
+        {/* NOOP */}
+      }
+      parser.fontData = null;
+      Metrics.put(fontName, parser);
+    }
+    return parser;
+  }
+  // </private>
+  // </interface>
+  // </static>
+
   // <dynamic>
   // <constructors>
   public StandardType1Font(
@@ -230,34 +284,12 @@ public final class StandardType1Font
     String fontName
     )
   {
-    BufferedReader fontMetricsStream = null;
-    try
-    {
-      fontMetricsStream = new BufferedReader(
-        new InputStreamReader(
-          getClass().getResourceAsStream("/fonts/afm/" + fontName + ".afm")
-          )
-        );
-
-      AfmParser parser = new AfmParser(fontMetricsStream);
-      metrics = parser.metrics;
-      symbolic = metrics.isCustomEncoding;
-      glyphIndexes = parser.glyphIndexes;
-      glyphKernings = parser.glyphKernings;
-      glyphWidths = parser.glyphWidths;
-    }
-    catch(Exception e)
-    {throw new RuntimeException("Failed to load '" + fontName + "'.",e);}
-    finally
-    {
-      try
-      {
-        if(fontMetricsStream != null)
-        {fontMetricsStream.close();}
-      }
-      catch(Exception e)
-      {/* NOOP */}
-    }
+    AfmParser parser = getMetrics(fontName);
+    metrics = parser.metrics;
+    symbolic = metrics.isCustomEncoding;
+    glyphIndexes = parser.glyphIndexes;
+    glyphKernings = parser.glyphKernings;
+    glyphWidths = parser.glyphWidths;
   }
   // </private>
   // </interface>
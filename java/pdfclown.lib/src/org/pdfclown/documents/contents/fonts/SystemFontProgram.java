@@ -0,0 +1,129 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.fonts;
+
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+
+/**
+  Font program substituting a non-embedded font with the best matching system (AWT logical) font.
+  <p>Glyph indexes correspond to Unicode code points.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+final class SystemFontProgram
+  extends FontProgram
+{
+  // <class>
+  // <static>
+  // <fields>
+  /*
+    NOTE: Font descriptor flags [PDF:1.7:5.7.1].
+  */
+  private static final int Flag_FixedPitch = 1;
+  private static final int Flag_Serif = 1 << 1;
+  private static final int Flag_Italic = 1 << 6;
+  private static final int Flag_ForceBold = 1 << 18;
+
+  private static final FontRenderContext RenderContext = new FontRenderContext(null, true, true);
+  private static final int Size = 1000;
+  // </fields>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  private final java.awt.Font font;
+  // </fields>
+
+  // <constructors>
+  /**
+    @param fontName Font name (PostScript name, possibly with style suffixes).
+    @param flags Font descriptor flags.
+  */
+  SystemFontProgram(
+    String fontName,
+    int flags
+    )
+  {
+    String normalizedFontName = (fontName != null ? fontName.toLowerCase() : "");
+    String family;
+    if((flags & Flag_FixedPitch) != 0
+      || normalizedFontName.contains("courier")
+      || normalizedFontName.contains("mono"))
+    {family = java.awt.Font.MONOSPACED;}
+    else if(normalizedFontName.contains("times")
+      || normalizedFontName.contains("serif") && !normalizedFontName.contains("sans")
+      || normalizedFontName.contains("roman")
+      || (flags & Flag_Serif) != 0 && !normalizedFontName.contains("arial") && !normalizedFontName.contains("helvetica"))
+    {family = java.awt.Font.SERIF;}
+    else
+    {family = java.awt.Font.SANS_SERIF;}
+
+    int style = java.awt.Font.PLAIN;
+    if((flags & Flag_ForceBold) != 0
+      || normalizedFontName.contains("bold")
+      || normalizedFontName.contains("black")
+      || normalizedFontName.contains("heavy"))
+    {style |= java.awt.Font.BOLD;}
+    if((flags & Flag_Italic) != 0
+      || normalizedFontName.contains("italic")
+      || normalizedFontName.contains("oblique"))
+    {style |= java.awt.Font.ITALIC;}
+
+    font = new java.awt.Font(family, style, Size);
+  }
+  // </constructors>
+
+  // <interface>
+  /**
+    Gets the name identifying the substitute font.
+  */
+  String getName(
+    )
+  {return font.getName() + "-" + font.getStyle();}
+
+  @Override
+  protected Shape loadOutline(
+    int glyphIndex
+    )
+  {
+    if(glyphIndex <= ' ' || !font.canDisplay(glyphIndex))
+      return null;
+
+    Path2D.Float outline = new Path2D.Float(
+      font.createGlyphVector(RenderContext, new String(Character.toChars(glyphIndex))).getOutline()
+      );
+    // NOTE: AWT glyph space is y-down.
+    outline.transform(AffineTransform.getScaleInstance(1, -1));
+    return outline;
+  }
+  // </interface>
+  // </dynamic>
+  // </class>
+}
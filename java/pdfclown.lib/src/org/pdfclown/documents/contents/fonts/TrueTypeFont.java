@@ -27,7 +27,6 @@ package org.pdfclown.documents.contents.fonts;
 
 import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.Hashtable;
 import java.util.Map;
 
 import org.pdfclown.PDF;
@@ -43,6 +42,7 @@ import org.pdfclown.objects.PdfNumber;
 import org.pdfclown.objects.PdfStream;
 import org.pdfclown.util.BiMap;
 import org.pdfclown.util.ByteArray;
+import org.pdfclown.util.IntMap;
 
 /**
   TrueType font [PDF:1.6:5;OFF:2009].
@@ -89,14 +89,18 @@ public final class TrueTypeFont
       if(descriptor.containsKey(PdfName.FontFile2)) // Embedded TrueType font file (without 'glyf' table).
       {
         PdfStream fontFileStream = (PdfStream)descriptor.resolve(PdfName.FontFile2);
-        parser = new OpenFontParser(fontFileStream.getBody());
+        synchronized(fontFileStream)
+        {parser = new OpenFontParser(fontFileStream.getBody());}
       }
       else if(descriptor.containsKey(PdfName.FontFile3))
       {
         PdfStream fontFileStream = (PdfStream)descriptor.resolve(PdfName.FontFile3);
         PdfName fontFileSubtype = (PdfName)fontFileStream.getHeader().get(PdfName.Subtype);
         if(fontFileSubtype.equals(PdfName.OpenType)) // Embedded OpenFont/TrueType font file (with 'glyf' table).
-        {parser = new OpenFontParser(fontFileStream.getBody());}
+        {
+          synchronized(fontFileStream)
+          {parser = new OpenFontParser(fontFileStream.getBody());}
+        }
         else // Unknown.
           throw new UnsupportedOperationException("Unknown embedded font file format: " + fontFileSubtype);
       }
@@ -116,7 +120,7 @@ public final class TrueTypeFont
           so they must be remapped to Unicode whenever possible
           (i.e. when ToUnicode stream is available).
         */
-        Map<Integer,Integer> unicodeGlyphIndexes = new Hashtable<Integer,Integer>();
+        IntMap unicodeGlyphIndexes = new IntMap();
         for(Map.Entry<Integer,Integer> glyphIndexEntry : glyphIndexes.entrySet())
         {
           Integer code = codes.get(new ByteArray(new byte[]{(byte)(int)glyphIndexEntry.getKey()}));
@@ -142,7 +146,7 @@ public final class TrueTypeFont
           NOTE: In case no font file is available, we have to synthesize its metrics
           from existing entries.
         */
-        glyphIndexes = new Hashtable<Integer,Integer>();
+        glyphIndexes = new IntMap();
         PdfArray glyphWidthObjects = (PdfArray)getBaseDataObject().resolve(PdfName.Widths);
         if(glyphWidthObjects != null)
         {
@@ -206,7 +210,7 @@ public final class TrueTypeFont
           NOTE: In case no font file is available, we have to synthesize its metrics
           from existing entries.
         */
-        glyphIndexes = new Hashtable<Integer,Integer>();
+        glyphIndexes = new IntMap();
         PdfArray glyphWidthObjects = (PdfArray)getBaseDataObject().resolve(PdfName.Widths);
         if(glyphWidthObjects != null)
         {
@@ -220,7 +224,7 @@ public final class TrueTypeFont
             {
               Integer code = codes.get(charCode);
               if(code != null)
-              {glyphIndexes.put(code,(int)charCode.data[0]);}
+              {glyphIndexes.put((int)code,charCode.data[0] & 0xff);}
             }
             charCode.data[0]++;
           }
@@ -229,6 +233,36 @@ public final class TrueTypeFont
     }
   }
   // </protected>
+
+  // <internal>
+  /**
+    {@inheritDoc}
+    <p>Glyphs are looked up as per [PDF:1.7:5.5.5]: nonsymbolic fonts map glyph names to the
+    Unicode 'cmap' subtable, whilst symbolic fonts map character codes to either the (3,0) or the
+    (1,0) 'cmap' subtable; as a last resort, character codes are taken as glyph indexes.</p>
+  */
+  @Override
+  int getGlyphIndex(
+    FontProgram program,
+    int code
+    )
+  {
+    if(!(program instanceof OpenFontProgram))
+      return super.getGlyphIndex(program, code);
+
+    OpenFontProgram openFontProgram = (OpenFontProgram)program;
+    int glyphIndex = -1;
+    if(!isSymbolic())
+    {
+      String glyphName = getGlyphName(code);
+      if(glyphName != null)
+      {glyphIndex = openFontProgram.getGlyphIndex(glyphName);}
+    }
+    if(glyphIndex < 0)
+    {glyphIndex = openFontProgram.getCodeGlyphIndex(code);}
+    return glyphIndex >= 0 ? glyphIndex : code;
+  }
+  // </internal>
   // </interface>
   // </dynamic>
   // </class>
@@ -52,9 +52,9 @@ public final class Type0Font
   // <constructors>
   Type0Font(
     Document context,
-    OpenFontParser parser
+    OpenFont font
     )
-  {super(context,parser);}
+  {super(context,font);}
 
   Type0Font(
     PdfDirectObject baseObject
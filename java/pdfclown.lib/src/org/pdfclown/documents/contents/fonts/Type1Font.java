@@ -39,6 +39,7 @@ import org.pdfclown.objects.PdfStream;
 import org.pdfclown.util.BiMap;
 import org.pdfclown.util.ByteArray;
 import org.pdfclown.util.ConvertUtils;
+import org.pdfclown.util.IntMap;
 import org.pdfclown.util.NotImplementedException;
 
 /**
@@ -92,8 +93,11 @@ public class Type1Font
     if(descriptor.containsKey(PdfName.FontFile)) // Embedded noncompact Type 1 font.
     {
       PdfStream fontFileStream = (PdfStream)descriptor.resolve(PdfName.FontFile);
-      PfbParser parser = new PfbParser(fontFileStream.getBody());
-      return parser.parse();
+      synchronized(fontFileStream)
+      {
+        PfbParser parser = new PfbParser(fontFileStream.getBody());
+        return parser.parse();
+      }
     }
     else if(descriptor.containsKey(PdfName.FontFile3)) // Embedded compact Type 1 font.
     {
@@ -101,7 +105,9 @@ public class Type1Font
       PdfName fontFileSubtype = (PdfName)fontFileStream.getHeader().get(PdfName.Subtype);
       if(fontFileSubtype.equals(PdfName.Type1C)) // CFF.
       {
-        CffParser parser = new CffParser(fontFileStream.getBody());
+        CffParser parser;
+        synchronized(fontFileStream)
+        {parser = new CffParser(fontFileStream.getBody());}
         Map<ByteArray,Integer> codes = new Hashtable<ByteArray,Integer>();
         for(Map.Entry<Integer,Integer> glyphIndexEntry : parser.glyphIndexes.entrySet())
         {
@@ -161,9 +167,9 @@ public class Type1Font
     // Glyph indexes.
     if(glyphIndexes == null)
     {
-      glyphIndexes = new Hashtable<Integer,Integer>();
+      glyphIndexes = new IntMap();
       for(Map.Entry<ByteArray,Integer> codeEntry : codes.entrySet())
-      {glyphIndexes.put(codeEntry.getValue(),ConvertUtils.byteArrayToInt(codeEntry.getKey().data));}
+      {glyphIndexes.put((int)codeEntry.getValue(),ConvertUtils.byteArrayToInt(codeEntry.getKey().data));}
     }
   }
   // </protected>
@@ -0,0 +1,780 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.fonts;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.pdfclown.bytes.Buffer;
+import org.pdfclown.objects.PdfDictionary;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfNumber;
+import org.pdfclown.tokens.CharsetName;
+
+/**
+  Type 1 font program [T1:1.1], whose glyph outlines are described by Type 1 charstrings.
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+final class Type1Program
+  extends FontProgram
+{
+  // <class>
+  // <classes>
+  /**
+    Type 1 charstring interpreter [T1:1.1:6].
+  */
+  private final class CharStringInterpreter
+  {
+    private static final int MaxNestingDepth = 10;
+
+    private final Path2D path;
+    private final double originX;
+    private final double originY;
+
+    private final double[] stack = new double[24];
+    private int stackSize;
+    /**
+      PostScript interpreter stack (values passed back by OtherSubrs).
+    */
+    private final LinkedList<Double> otherSubrResults = new LinkedList<Double>();
+
+    private double x;
+    private double y;
+    private boolean open;
+    private boolean ended;
+    private int depth;
+    /**
+      Flex reference and control points (null unless flexing).
+    */
+    private List<double[]> flexPoints;
+
+    CharStringInterpreter(
+      Path2D path,
+      double originX,
+      double originY
+      )
+    {
+      this.path = path;
+      this.originX = x = originX;
+      this.originY = y = originY;
+    }
+
+    void run(
+      byte[] charString
+      )
+    {
+      execute(decrypt(charString, CharStringKey, lenIV));
+      closePath();
+    }
+
+    private void callOtherSubr(
+      int otherSubrIndex,
+      double[] args
+      )
+    {
+      otherSubrResults.clear();
+      switch(otherSubrIndex)
+      {
+        case 0: // Flex end.
+          if(flexPoints != null && flexPoints.size() >= 7)
+          {
+            // NOTE: The first point is the flex reference point.
+            for(int pointIndex = 1; pointIndex + 2 < 7; pointIndex += 3)
+            {
+              double[] point1 = flexPoints.get(pointIndex), point2 = flexPoints.get(pointIndex + 1), point3 = flexPoints.get(pointIndex + 2);
+              path.curveTo(point1[0], point1[1], point2[0], point2[1], point3[0], point3[1]);
+            }
+          }
+          flexPoints = null;
+          otherSubrResults.add(x);
+          otherSubrResults.add(y);
+          break;
+        case 1: // Flex start.
+          flexPoints = new ArrayList<double[]>();
+          break;
+        case 2: // Flex point (already collected by rmoveto).
+          break;
+        default: // Hint replacement and unknown OtherSubrs (arguments passed back).
+          for(double arg : args)
+          {otherSubrResults.add(arg);}
+          break;
+      }
+    }
+
+    private void closePath(
+      )
+    {
+      if(open)
+      {
+        path.closePath();
+        open = false;
+      }
+    }
+
+    private void curveTo(
+      double dx1,
+      double dy1,
+      double dx2,
+      double dy2,
+      double dx3,
+      double dy3
+      )
+    {
+      double x1 = x + dx1, y1 = y + dy1;
+      double x2 = x1 + dx2, y2 = y1 + dy2;
+      x = x2 + dx3; y = y2 + dy3;
+      path.curveTo(x1, y1, x2, y2, x, y);
+    }
+
+    private void execute(
+      byte[] charString
+      )
+    {
+      if(++depth > MaxNestingDepth)
+        throw new IllegalStateException("Subroutine nesting too deep.");
+
+      for(int index = 0, length = charString.length; index < length && !ended;)
+      {
+        int v = charString[index++] & 0xff;
+        if(v >= 32) // Operand.
+        {
+          double operand;
+          if(v <= 246)
+          {operand = v - 139;}
+          else if(v <= 250)
+          {operand = ((v - 247) << 8) + (charString[index++] & 0xff) + 108;}
+          else if(v <= 254)
+          {operand = -((v - 251) << 8) - (charString[index++] & 0xff) - 108;}
+          else // 4-byte signed integer.
+          {
+            operand = ((charString[index] & 0xff) << 24) | ((charString[index + 1] & 0xff) << 16)
+              | ((charString[index + 2] & 0xff) << 8) | (charString[index + 3] & 0xff);
+            index += 4;
+          }
+          if(stackSize < stack.length)
+          {stack[stackSize++] = operand;}
+          continue;
+        }
+
+        switch(v)
+        {
+          case 13: // hsbw.
+            if(stackSize >= 2)
+            {
+              x = originX + stack[0];
+              y = originY;
+            }
+            stackSize = 0;
+            break;
+          case 21: // rmoveto.
+            if(stackSize >= 2)
+            {moveTo(stack[0], stack[1]);}
+            stackSize = 0;
+            break;
+          case 22: // hmoveto.
+            if(stackSize >= 1)
+            {moveTo(stack[0], 0);}
+            stackSize = 0;
+            break;
+          case 4: // vmoveto.
+            if(stackSize >= 1)
+            {moveTo(0, stack[0]);}
+            stackSize = 0;
+            break;
+          case 5: // rlineto.
+            if(stackSize >= 2)
+            {lineTo(stack[0], stack[1]);}
+            stackSize = 0;
+            break;
+          case 6: // hlineto.
+            if(stackSize >= 1)
+            {lineTo(stack[0], 0);}
+            stackSize = 0;
+            break;
+          case 7: // vlineto.
+            if(stackSize >= 1)
+            {lineTo(0, stack[0]);}
+            stackSize = 0;
+            break;
+          case 8: // rrcurveto.
+            if(stackSize >= 6)
+            {curveTo(stack[0], stack[1], stack[2], stack[3], stack[4], stack[5]);}
+            stackSize = 0;
+            break;
+          case 30: // vhcurveto.
+            if(stackSize >= 4)
+            {curveTo(0, stack[0], stack[1], stack[2], stack[3], 0);}
+            stackSize = 0;
+            break;
+          case 31: // hvcurveto.
+            if(stackSize >= 4)
+            {curveTo(stack[0], 0, stack[1], stack[2], 0, stack[3]);}
+            stackSize = 0;
+            break;
+          case 9: // closepath.
+            closePath();
+            stackSize = 0;
+            break;
+          case 10: // callsubr.
+            if(stackSize >= 1)
+            {
+              int subrIndex = (int)stack[--stackSize];
+              if(subrIndex >= 0 && subrIndex < subrs.size() && subrs.get(subrIndex) != null)
+              {execute(decrypt(subrs.get(subrIndex), CharStringKey, lenIV));}
+            }
+            break;
+          case 11: // return.
+            depth--;
+            return;
+          case 14: // endchar.
+            closePath();
+            stackSize = 0;
+            ended = true;
+            break;
+          case 12: // Escape.
+            executeEscape(charString[index++] & 0xff);
+            break;
+          default: // Hints (hstem, vstem) and unknown or reserved.
+            stackSize = 0;
+            break;
+        }
+      }
+      depth--;
+    }
+
+    private void executeEscape(
+      int v
+      )
+    {
+      switch(v)
+      {
+        case 6: // seac.
+          if(stackSize >= 5)
+          {
+            closePath();
+            seac(stack[0], stack[1], stack[2], (int)stack[3], (int)stack[4]);
+          }
+          stackSize = 0;
+          ended = true;
+          break;
+        case 7: // sbw.
+          if(stackSize >= 4)
+          {
+            x = originX + stack[0];
+            y = originY + stack[1];
+          }
+          stackSize = 0;
+          break;
+        case 12: // div.
+          if(stackSize >= 2)
+          {stackSize--; stack[stackSize - 1] /= stack[stackSize];}
+          break;
+        case 16: // callothersubr.
+          if(stackSize >= 2)
+          {
+            int otherSubrIndex = (int)stack[--stackSize];
+            int argCount = Math.max(0, Math.min((int)stack[--stackSize], stackSize));
+            double[] args = new double[argCount];
+            // NOTE: Arguments are pushed in reverse order.
+            for(int argIndex = 0; argIndex < argCount; argIndex++)
+            {args[argIndex] = stack[--stackSize];}
+            callOtherSubr(otherSubrIndex, args);
+          }
+          break;
+        case 17: // pop.
+          if(stackSize < stack.length)
+          {stack[stackSize++] = (otherSubrResults.isEmpty() ? 0 : otherSubrResults.removeFirst());}
+          break;
+        case 33: // setcurrentpoint.
+          /*
+            NOTE: This operator is meant to follow flex sequences only, whose end point is already
+            current.
+          */
+          stackSize = 0;
+          break;
+        default: // Hints (dotsection, vstem3, hstem3) and unknown or reserved.
+          stackSize = 0;
+          break;
+      }
+    }
+
+    private void lineTo(
+      double dx,
+      double dy
+      )
+    {
+      x += dx; y += dy;
+      path.lineTo(x, y);
+    }
+
+    private void moveTo(
+      double dx,
+      double dy
+      )
+    {
+      x += dx; y += dy;
+      if(flexPoints != null)
+      {flexPoints.add(new double[]{x, y});}
+      else
+      {
+        closePath();
+        path.moveTo(x, y);
+        open = true;
+      }
+    }
+
+    private void seac(
+      double asb,
+      double adx,
+      double ady,
+      int baseCode,
+      int accentCode
+      )
+    {
+      int baseGlyphIndex = getStandardGlyphIndex(baseCode);
+      int accentGlyphIndex = getStandardGlyphIndex(accentCode);
+      if(baseGlyphIndex < 0 || accentGlyphIndex < 0)
+        return;
+
+      new CharStringInterpreter(path, originX, originY).run(charStrings.get(baseGlyphIndex));
+      // NOTE: Accent left sidebearing point is placed at the given offset from the base origin.
+      new CharStringInterpreter(path, originX + adx - asb, originY + ady).run(charStrings.get(accentGlyphIndex));
+    }
+  }
+
+  /**
+    Private dictionary tokenizer.
+  */
+  private static final class Tokenizer
+  {
+    private final byte[] data;
+    private int position;
+
+    Tokenizer(
+      byte[] data
+      )
+    {this.data = data;}
+
+    int getPosition(
+      )
+    {return position;}
+
+    /**
+      Reads the binary data following a read-binary token (RD or -|).
+    */
+    byte[] readBinary(
+      int length
+      )
+    {
+      position++; // Single space separator.
+      if(length < 0 || position + length > data.length)
+        return null;
+
+      byte[] binary = new byte[length];
+      System.arraycopy(data, position, binary, 0, length);
+      position += length;
+      return binary;
+    }
+
+    /**
+      @return <code>null</code>, if the end of data was reached.
+    */
+    String readToken(
+      )
+    {
+      while(position < data.length && isWhitespace(data[position]))
+      {position++;}
+      if(position >= data.length)
+        return null;
+
+      int start = position;
+      if(isDelimiter(data[position]))
+      {
+        if(data[position++] != '/')
+          return String.valueOf((char)data[start]);
+      }
+      while(position < data.length && !isWhitespace(data[position]) && !isDelimiter(data[position]))
+      {position++;}
+      try
+      {return new String(data, start, position - start, CharsetName.ISO88591);}
+      catch(UnsupportedEncodingException e)
+      {throw new RuntimeException(e);}
+    }
+
+    Integer readInteger(
+      )
+    {
+      String token = readToken();
+      try
+      {return token != null ? Integer.valueOf(token) : null;}
+      catch(NumberFormatException e)
+      {return null;}
+    }
+
+    void setPosition(
+      int value
+      )
+    {position = value;}
+
+    private static boolean isDelimiter(
+      byte value
+      )
+    {
+      switch(value)
+      {
+        case '/': case '[': case ']': case '{': case '}': case '(': case ')': case '<': case '>':
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    private static boolean isWhitespace(
+      byte value
+      )
+    {return value == ' ' || value == '\n' || value == '\r' || value == '\t' || value == '\f' || value == 0;}
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  private static final int CharStringKey = 4330;
+  private static final int EexecKey = 55665;
+
+  private static final Pattern FontMatrixPattern = Pattern.compile("/FontMatrix\\s*[\\[{]([^\\]}]*)[\\]}]");
+  // </fields>
+
+  // <interface>
+  // <private>
+  /**
+    Decrypts the given data [T1:1.1:7].
+
+    @param skipCount Number of leading random bytes to skip (negative for unencrypted data).
+  */
+  private static byte[] decrypt(
+    byte[] data,
+    int key,
+    int skipCount
+    )
+  {
+    if(skipCount < 0)
+      return data;
+
+    byte[] plainData = new byte[Math.max(0, data.length - skipCount)];
+    int r = key;
+    for(int index = 0; index < data.length; index++)
+    {
+      int cipher = data[index] & 0xff;
+      if(index >= skipCount)
+      {plainData[index - skipCount] = (byte)(cipher ^ (r >> 8));}
+      r = ((cipher + r) * 52845 + 22719) & 0xffff;
+    }
+    return plainData;
+  }
+
+  private static int indexOf(
+    byte[] data,
+    String token,
+    int fromIndex
+    )
+  {
+    byte[] tokenData = token.getBytes();
+    for(int index = fromIndex, limit = data.length - tokenData.length; index <= limit; index++)
+    {
+      int tokenIndex = 0;
+      while(tokenIndex < tokenData.length && data[index + tokenIndex] == tokenData[tokenIndex])
+      {tokenIndex++;}
+      if(tokenIndex == tokenData.length)
+        return index;
+    }
+    return -1;
+  }
+
+  private static boolean isHexDigit(
+    int value
+    )
+  {return (value >= '0' && value <= '9') || (value >= 'A' && value <= 'F') || (value >= 'a' && value <= 'f');}
+
+  /**
+    Strips the segment headers of the given PFB data.
+  */
+  private static byte[] stripSegmentHeaders(
+    byte[] data
+    )
+  {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length);
+    for(int index = 0; index + 6 <= data.length && (data[index] & 0xff) == 0x80;)
+    {
+      int segmentType = data[index + 1];
+      if(segmentType == 3) // EOF.
+        break;
+
+      int segmentLength = (data[index + 2] & 0xff) | ((data[index + 3] & 0xff) << 8)
+        | ((data[index + 4] & 0xff) << 16) | ((data[index + 5] & 0xff) << 24);
+      index += 6;
+      segmentLength = Math.min(segmentLength, data.length - index);
+      buffer.write(data, index, segmentLength);
+      index += segmentLength;
+    }
+    return buffer.toByteArray();
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  /**
+    Charstrings by glyph index.
+  */
+  private final List<byte[]> charStrings = new ArrayList<byte[]>();
+  private String[] encoding;
+  private final AffineTransform glyphTransform = AffineTransform.getScaleInstance(1000, 1000);
+  /**
+    Glyph indexes by glyph name.
+  */
+  private final Map<String,Integer> glyphIndexes = new HashMap<String,Integer>();
+  private int lenIV = 4;
+  private final List<byte[]> subrs = new ArrayList<byte[]>();
+  // </fields>
+
+  // <constructors>
+  Type1Program(
+    byte[] fontData,
+    PdfDictionary fontFileHeader
+    ) throws UnsupportedEncodingException
+  {
+    if(fontData.length > 0 && (fontData[0] & 0xff) == 0x80) // PFB format.
+    {fontData = stripSegmentHeaders(fontData);}
+
+    // 1. Cleartext portion.
+    int cleartextLength = -1;
+    {
+      PdfNumber<?> length1Object = (PdfNumber<?>)fontFileHeader.resolve(PdfName.Length1);
+      if(length1Object != null)
+      {
+        cleartextLength = length1Object.getIntValue();
+        // NOTE: Length1 is commonly unreliable, so it's verified against the eexec operator.
+        if(cleartextLength <= 0 || cleartextLength > fontData.length
+          || indexOf(fontData, "eexec", Math.max(0, cleartextLength - 32)) < 0)
+        {cleartextLength = -1;}
+      }
+      if(cleartextLength < 0)
+      {
+        int eexecIndex = indexOf(fontData, "eexec", 0);
+        if(eexecIndex < 0)
+          throw new IllegalArgumentException("eexec section not found.");
+
+        cleartextLength = eexecIndex + 5;
+        while(cleartextLength < fontData.length && Tokenizer.isWhitespace(fontData[cleartextLength]))
+        {cleartextLength++;}
+      }
+    }
+    byte[] cleartext = new byte[cleartextLength];
+    System.arraycopy(fontData, 0, cleartext, 0, cleartextLength);
+    try
+    {encoding = new PfbParser(new Buffer(cleartext)).parseEncoding();}
+    catch(Exception e)
+    {encoding = null;} // NOTE: Missing built-in encoding falls back to the standard one.
+    {
+      Matcher fontMatrixMatcher = FontMatrixPattern.matcher(new String(cleartext, CharsetName.ISO88591));
+      AffineTransform fontMatrix = null;
+      if(fontMatrixMatcher.find())
+      {
+        String[] values = fontMatrixMatcher.group(1).trim().split("\\s+");
+        if(values.length == 6)
+        {
+          try
+          {
+            fontMatrix = new AffineTransform(
+              Double.parseDouble(values[0]),
+              Double.parseDouble(values[1]),
+              Double.parseDouble(values[2]),
+              Double.parseDouble(values[3]),
+              Double.parseDouble(values[4]),
+              Double.parseDouble(values[5])
+              );
+          }
+          catch(NumberFormatException e)
+          {/* NOOP */}
+        }
+      }
+      glyphTransform.concatenate(fontMatrix != null ? fontMatrix : new AffineTransform(.001, 0, 0, .001, 0, 0));
+    }
+
+    // 2. Encrypted portion.
+    byte[] encryptedData = new byte[fontData.length - cleartextLength];
+    System.arraycopy(fontData, cleartextLength, encryptedData, 0, encryptedData.length);
+    if(encryptedData.length >= 4
+      && isHexDigit(encryptedData[0]) && isHexDigit(encryptedData[1])
+      && isHexDigit(encryptedData[2]) && isHexDigit(encryptedData[3])) // Hexadecimal format.
+    {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream(encryptedData.length / 2);
+      int high = -1;
+      for(byte value : encryptedData)
+      {
+        if(!isHexDigit(value))
+          continue;
+
+        int digit = Character.digit(value, 16);
+        if(high < 0)
+        {high = digit;}
+        else
+        {
+          buffer.write((high << 4) | digit);
+          high = -1;
+        }
+      }
+      encryptedData = buffer.toByteArray();
+    }
+    parsePrivate(decrypt(encryptedData, EexecKey, 4));
+  }
+  // </constructors>
+
+  // <interface>
+  @Override
+  String[] getEncoding(
+    )
+  {return encoding;}
+
+  @Override
+  int getGlyphIndex(
+    String name
+    )
+  {
+    Integer glyphIndex = glyphIndexes.get(name);
+    return glyphIndex != null ? glyphIndex : -1;
+  }
+
+  @Override
+  protected Shape loadOutline(
+    int glyphIndex
+    )
+  {
+    if(glyphIndex >= charStrings.size())
+      return null;
+
+    Path2D.Float outline = new Path2D.Float();
+    new CharStringInterpreter(outline, 0, 0).run(charStrings.get(glyphIndex));
+    outline.transform(glyphTransform);
+    return outline;
+  }
+
+  // <private>
+  /**
+    Gets the glyph index corresponding to the given standard encoding code (seac components).
+  */
+  private int getStandardGlyphIndex(
+    int code
+    )
+  {
+    if(code < 0 || code > 255)
+      return -1;
+
+    String glyphName = Encoding.get(PdfName.StandardEncoding).getNames()[code];
+    return glyphName != null ? getGlyphIndex(glyphName) : -1;
+  }
+
+  /**
+    Parses the private dictionary, collecting subroutines and charstrings [T1:1.1:5].
+  */
+  private void parsePrivate(
+    byte[] data
+    )
+  {
+    Tokenizer tokenizer = new Tokenizer(data);
+    boolean subrsParsing = false, charStringsParsing = false;
+    for(String token; (token = tokenizer.readToken()) != null;)
+    {
+      if(token.equals("/lenIV"))
+      {
+        Integer value = tokenizer.readInteger();
+        if(value != null)
+        {lenIV = value;}
+      }
+      else if(token.equals("/Subrs"))
+      {
+        subrsParsing = true;
+        charStringsParsing = false;
+      }
+      else if(token.equals("/CharStrings"))
+      {
+        subrsParsing = false;
+        charStringsParsing = true;
+      }
+      else if(subrsParsing && token.equals("dup")) // Subroutine (dup index length RD binary NP).
+      {
+        int position = tokenizer.getPosition();
+        Integer subrIndex = tokenizer.readInteger();
+        Integer length = tokenizer.readInteger();
+        if(subrIndex == null || length == null || subrIndex < 0 || tokenizer.readToken() == null)
+        {tokenizer.setPosition(position); continue;}
+
+        byte[] subr = tokenizer.readBinary(length);
+        if(subr == null)
+          break;
+
+        while(subrs.size() <= subrIndex)
+        {subrs.add(null);}
+        subrs.set(subrIndex, subr);
+      }
+      else if(charStringsParsing && token.length() > 1 && token.charAt(0) == '/') // Charstring (name length RD binary ND).
+      {
+        int position = tokenizer.getPosition();
+        Integer length = tokenizer.readInteger();
+        if(length == null || tokenizer.readToken() == null)
+        {tokenizer.setPosition(position); continue;}
+
+        byte[] charString = tokenizer.readBinary(length);
+        if(charString == null)
+          break;
+
+        String glyphName = token.substring(1);
+        if(!glyphIndexes.containsKey(glyphName))
+        {
+          glyphIndexes.put(glyphName, charStrings.size());
+          charStrings.add(charString);
+        }
+      }
+    }
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
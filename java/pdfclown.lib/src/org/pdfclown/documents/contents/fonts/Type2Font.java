@@ -28,7 +28,10 @@ package org.pdfclown.documents.contents.fonts;
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
 import org.pdfclown.documents.Document;
+import org.pdfclown.objects.PdfDataObject;
 import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfStream;
 
 /**
   Composite font associated to a Type 2 CIDFont, containing glyph descriptions based on the TrueType
@@ -43,13 +46,29 @@ public final class Type2Font
   extends CompositeFont
 {
   // <class>
+  // <static>
+  // <fields>
+  /**
+    Placeholder of the identity CID-to-glyph-index mapping.
+  */
+  private static final byte[] IdentityGlyphIndexes = new byte[0];
+  // </fields>
+  // </static>
+
   // <dynamic>
+  // <fields>
+  /**
+    Glyph indexes by CID (CIDToGIDMap stream data; lazily loaded).
+  */
+  private volatile byte[] glyphIndexesByCid;
+  // </fields>
+
   // <constructors>
   Type2Font(
     Document context,
-    OpenFontParser parser
+    OpenFont font
     )
-  {super(context,parser);}
+  {super(context,font);}
 
   Type2Font(
     PdfDirectObject baseObject
@@ -65,6 +84,35 @@ public final class Type2Font
     )
   {return (Type2Font)super.clone(context);}
   // </public>
+
+  // <internal>
+  /**
+    {@inheritDoc}
+    <p>CIDs are mapped to glyph indexes through the CIDToGIDMap entry [PDF:1.6:5.6.3].</p>
+  */
+  @Override
+  int getGlyphIndex(
+    FontProgram program,
+    int cid
+    )
+  {
+    byte[] glyphIndexesByCid = this.glyphIndexesByCid;
+    if(glyphIndexesByCid == null)
+    {
+      PdfDataObject cidToGidMapObject = getCIDFontDictionary().resolve(PdfName.CIDToGIDMap);
+      this.glyphIndexesByCid = glyphIndexesByCid = (cidToGidMapObject instanceof PdfStream
+        ? ((PdfStream)cidToGidMapObject).getBody().toByteArray()
+        : IdentityGlyphIndexes);
+    }
+    if(glyphIndexesByCid == IdentityGlyphIndexes)
+      return cid;
+
+    int offset = cid * 2;
+    return offset + 1 < glyphIndexesByCid.length
+      ? ((glyphIndexesByCid[offset] & 0xff) << 8) | (glyphIndexesByCid[offset + 1] & 0xff)
+      : 0;
+  }
+  // </internal>
   // </interface>
   // </dynamic>
   // </class>
@@ -25,19 +25,34 @@
 
 package org.pdfclown.documents.contents.fonts;
 
-import java.util.Hashtable;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Dimension2D;
+import java.awt.geom.Rectangle2D;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
 import org.pdfclown.documents.Document;
+import org.pdfclown.documents.contents.Contents;
+import org.pdfclown.documents.contents.IContentContext;
+import org.pdfclown.documents.contents.Resources;
+import org.pdfclown.documents.contents.RotationEnum;
+import org.pdfclown.documents.contents.composition.PrimitiveComposer;
+import org.pdfclown.documents.contents.objects.ContentObject;
+import org.pdfclown.documents.contents.xObjects.XObject;
+import org.pdfclown.objects.PdfArray;
 import org.pdfclown.objects.PdfDataObject;
 import org.pdfclown.objects.PdfDictionary;
 import org.pdfclown.objects.PdfDirectObject;
 import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfNumber;
 import org.pdfclown.util.BiMap;
 import org.pdfclown.util.ByteArray;
 import org.pdfclown.util.ConvertUtils;
+import org.pdfclown.util.IntMap;
+import org.pdfclown.util.NotImplementedException;
 
 /**
   Type 3 font [PDF:1.6:5.5.4].
@@ -51,7 +66,76 @@ public final class Type3Font
   extends SimpleFont
 {
   // <class>
+  // <classes>
+  /**
+    Content context of glyph descriptions.
+    <p>Glyph descriptions use the font resources, or (if missing) the resources of the content
+    context the glyphs are shown in [PDF:1.6:5.5.4].</p>
+  */
+  private static final class GlyphContext
+    implements IContentContext
+  {
+    private final IContentContext parentContext;
+    private final Resources resources;
+
+    GlyphContext(
+      IContentContext parentContext,
+      Resources resources
+      )
+    {
+      this.parentContext = parentContext;
+      this.resources = resources;
+    }
+
+    @Override
+    public Rectangle2D getBox(
+      )
+    {return parentContext.getBox();}
+
+    @Override
+    public Contents getContents(
+      )
+    {throw new UnsupportedOperationException();}
+
+    @Override
+    public Resources getResources(
+      )
+    {return resources != null ? resources : parentContext.getResources();}
+
+    @Override
+    public RotationEnum getRotation(
+      )
+    {return parentContext.getRotation();}
+
+    @Override
+    public void render(
+      Graphics2D context,
+      Dimension2D size
+      )
+    {throw new NotImplementedException();}
+
+    @Override
+    public ContentObject toInlineObject(
+      PrimitiveComposer composer
+      )
+    {throw new NotImplementedException();}
+
+    @Override
+    public XObject toXObject(
+      Document context
+      )
+    {throw new NotImplementedException();}
+  }
+  // </classes>
+
   // <dynamic>
+  // <fields>
+  /**
+    Glyph descriptions by character code (cached only in case of self-contained font resources).
+  */
+  private final Map<Integer,Contents> glyphContents = new ConcurrentHashMap<Integer,Contents>();
+  // </fields>
+
   // <constructors>
   Type3Font(
     Document context
@@ -81,6 +165,61 @@ public final class Type3Font
   public double getDescent(
     )
   {return 0;}
+
+  /**
+    Gets the description of the glyph corresponding to the given character code.
+
+    @param code Character code.
+    @param contentContext Content context the glyph is shown in.
+    @return <code>null</code>, if undefined.
+    @since 0.1.3
+  */
+  public Contents getGlyphContents(
+    int code,
+    IContentContext contentContext
+    )
+  {
+    Contents contents = glyphContents.get(code);
+    if(contents != null)
+      return contents;
+
+    String glyphName = getGlyphName(code);
+    PdfDictionary charProcs = (PdfDictionary)getBaseDataObject().resolve(PdfName.CharProcs);
+    if(glyphName == null || charProcs == null)
+      return null;
+
+    PdfDirectObject charProcObject = charProcs.get(new PdfName(glyphName));
+    if(charProcObject == null)
+      return null;
+
+    Resources resources = Resources.wrap(getBaseDataObject().get(PdfName.Resources));
+    contents = Contents.wrap(charProcObject, new GlyphContext(contentContext, resources));
+    if(resources != null) // Self-contained glyph description.
+    {glyphContents.put(code, contents);}
+    return contents;
+  }
+
+  /**
+    Gets the transformation from glyph space to text space [PDF:1.6:5.5.4].
+
+    @since 0.1.3
+  */
+  public AffineTransform getMatrix(
+    )
+  {
+    PdfArray matrixObject = (PdfArray)getBaseDataObject().resolve(PdfName.FontMatrix);
+    if(matrixObject == null || matrixObject.size() < 6)
+      return new AffineTransform(.001, 0, 0, .001, 0, 0);
+
+    return new AffineTransform(
+      ((PdfNumber<?>)matrixObject.resolve(0)).getDoubleValue(),
+      ((PdfNumber<?>)matrixObject.resolve(1)).getDoubleValue(),
+      ((PdfNumber<?>)matrixObject.resolve(2)).getDoubleValue(),
+      ((PdfNumber<?>)matrixObject.resolve(3)).getDoubleValue(),
+      ((PdfNumber<?>)matrixObject.resolve(4)).getDoubleValue(),
+      ((PdfNumber<?>)matrixObject.resolve(5)).getDoubleValue()
+      );
+  }
   // </public>
 
   // <protected>
@@ -118,13 +257,25 @@ public final class Type3Font
     // Glyph indexes.
     if(glyphIndexes == null)
     {
-      glyphIndexes = new Hashtable<Integer,Integer>();
+      glyphIndexes = new IntMap();
       for(Map.Entry<ByteArray,Integer> codeEntry : codes.entrySet())
-      {glyphIndexes.put(codeEntry.getValue(),ConvertUtils.byteArrayToInt(codeEntry.getKey().data));}
+      {glyphIndexes.put((int)codeEntry.getValue(),ConvertUtils.byteArrayToInt(codeEntry.getKey().data));}
     }
   }
   // </protected>
 
+  // <internal>
+  /**
+    {@inheritDoc}
+    <p>Type 3 glyphs are described by content streams (see {@link #getGlyphContents(int,
+    IContentContext)}), so no font program is available.</p>
+  */
+  @Override
+  FontProgram getProgram(
+    )
+  {return null;}
+  // </internal>
+
   // <private>
   private Map<ByteArray,Integer> getNativeEncoding(
     )
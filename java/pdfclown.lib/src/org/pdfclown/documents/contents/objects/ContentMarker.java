@@ -91,7 +91,7 @@ public abstract class ContentMarker
   public Object getProperties(
     )
   {
-    PdfDirectObject propertiesObject = operands.get(1);
+    PdfDirectObject propertiesObject = (operands.size() > 1 ? operands.get(1) : null);
     if(propertiesObject == null)
       return null;
     else if(propertiesObject instanceof PdfName)
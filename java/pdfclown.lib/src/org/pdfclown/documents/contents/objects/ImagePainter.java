@@ -0,0 +1,202 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.objects;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Dimension2D;
+import java.awt.image.BufferedImage;
+
+import org.pdfclown.documents.contents.ContentScanner.GraphicsState;
+import org.pdfclown.documents.contents.DisplayList;
+import org.pdfclown.documents.contents.IContentContext;
+import org.pdfclown.documents.contents.RenderingHintKey;
+import org.pdfclown.documents.contents.xObjects.ImageCache;
+import org.pdfclown.documents.contents.xObjects.ImageXObject;
+
+/**
+  Image painter [PDF:1.6:4.8.3].
+  <p>Images are mapped from the unit square of the current user space; their raster is resolved
+  at the device resolution they are painted at (see {@link DisplayList#paintImage(Graphics2D,
+  DisplayList.IImagePainter)}).</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+abstract class ImagePainter
+  implements DisplayList.IImagePainter
+{
+  // <class>
+  // <static>
+  // <interface>
+  /**
+    Paints the specified image XObject.
+
+    @param state Graphics state.
+    @param imageXObject Image to paint.
+  */
+  static void paint(
+    GraphicsState state,
+    final ImageXObject imageXObject
+    )
+  {
+    paint(
+      state,
+      new ImagePainter(imageXObject.isMask(), state)
+      {
+        @Override
+        protected BufferedImage getImage(
+          Dimension2D size,
+          boolean draft
+          )
+        {return ImageCache.get(imageXObject, size, draft);}
+      }
+      );
+  }
+
+  /**
+    Paints the specified inline image.
+
+    @param state Graphics state.
+    @param inlineImage Image to paint.
+  */
+  static void paint(
+    GraphicsState state,
+    final InlineImage inlineImage
+    )
+  {
+    final IContentContext contentContext = state.getScanner().getContentContext();
+    paint(
+      state,
+      new ImagePainter(inlineImage.isMask(), state)
+      {
+        @Override
+        protected BufferedImage getImage(
+          Dimension2D size,
+          boolean draft
+          )
+        {return ImageCache.get(inlineImage, contentContext, size, draft);}
+      }
+      );
+  }
+
+  private static void paint(
+    GraphicsState state,
+    ImagePainter painter
+    )
+  {DisplayList.paintImage(state.getScanner().getRenderContext(), painter);}
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  /**
+    Color the image is tinted with (stencil masks only).
+  */
+  private final Color tint;
+  // </fields>
+
+  // <constructors>
+  /**
+    @param mask Whether the image is a stencil mask to paint with the current fill color.
+    @param state Graphics state.
+  */
+  private ImagePainter(
+    boolean mask,
+    GraphicsState state
+    )
+  {
+    Color tint = null;
+    if(mask)
+    {
+      Paint paint = state.getFillPaint();
+      if(paint instanceof Color && (((Color)paint).getRGB() & 0xffffff) != 0)
+      {tint = (Color)paint;}
+    }
+    this.tint = tint;
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  @Override
+  public void paint(
+    Graphics2D context,
+    Dimension2D size
+    )
+  {
+    boolean draft = RenderingHintKey.DraftImages.getBooleanValue(context);
+    BufferedImage image = getImage(size, draft);
+    if(image == null)
+      return;
+
+    if(tint != null)
+    {image = ImageCache.getTinted(image, tint);}
+
+    RenderingHints hints = context.getRenderingHints();
+    if(size.getWidth() > image.getWidth() || size.getHeight() > image.getHeight())
+    {
+      /*
+        NOTE: Magnified samples are painted as sharp-edged squares, as interpolation is optional
+        [PDF:1.6:4.8.4].
+      */
+      context.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+    }
+    else if(draft)
+    {context.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);}
+    /*
+      NOTE: Image space is y-down, mapped to the unit square of the user space [PDF:1.6:4.8.3].
+    */
+    context.drawImage(
+      image,
+      new AffineTransform(1d / image.getWidth(), 0, 0, -1d / image.getHeight(), 0, 1),
+      null
+      );
+    // NOTE: Restoring the whole set of hints reverts also the interpolation hint which was unset.
+    context.setRenderingHints(hints);
+  }
+  // </public>
+
+  // <protected>
+  /**
+    Gets the image raster suitable for the specified device-space size.
+
+    @param draft Whether a reduced-quality raster is acceptable (see {@link
+      RenderingHintKey#DraftImages}).
+    @return <code>null</code>, if the image is unsupported.
+  */
+  protected abstract BufferedImage getImage(
+    Dimension2D size,
+    boolean draft
+    );
+  // </protected>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
@@ -32,6 +32,9 @@ import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
 import org.pdfclown.bytes.IOutputStream;
 import org.pdfclown.documents.Document;
+import org.pdfclown.documents.contents.ContentScanner;
+import org.pdfclown.documents.contents.ContentScanner.GraphicsState;
+import org.pdfclown.objects.PdfBoolean;
 import org.pdfclown.objects.PdfName;
 import org.pdfclown.objects.PdfNumber;
 
@@ -95,6 +98,20 @@ public final class InlineImage
       );
   }
 
+  /**
+    Gets whether this image is a stencil mask, that is its samples specify the areas to paint with
+    the current fill color [PDF:1.6:4.8.5].
+
+    @since 0.1.3
+  */
+  public boolean isMask(
+    )
+  {
+    InlineImageHeader header = getHeader();
+    Object imageMaskObject = header.get(header.containsKey(PdfName.IM) ? PdfName.IM : PdfName.ImageMask);
+    return imageMaskObject instanceof PdfBoolean && ((PdfBoolean)imageMaskObject).getValue();
+  }
+
   @Override
   public void writeTo(
     IOutputStream stream,
@@ -108,6 +125,21 @@ public final class InlineImage
     stream.write(EndOperator);
   }
   // </public>
+
+  // <protected>
+  @Override
+  protected boolean render(
+    GraphicsState state
+    )
+  {
+    ContentScanner scanner = state.getScanner();
+    if(scanner.getRenderContext() == null)
+      return false;
+
+    ImagePainter.paint(state, this);
+    return true;
+  }
+  // </protected>
   // </interface>
   // </dynamic>
   // </class>
@@ -91,8 +91,8 @@ public final class LocalGraphicsState
       render(state);
 
       // Restore outer graphics state!
-      context.setClip(clip);
       context.setTransform(state.getCtm());
+      context.setClip(clip);
     }
   }
 
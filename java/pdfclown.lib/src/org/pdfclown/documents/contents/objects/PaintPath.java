@@ -25,24 +25,24 @@
 
 package org.pdfclown.documents.contents.objects;
 
-import java.awt.BasicStroke;
 import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
 
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
 import org.pdfclown.documents.contents.ContentScanner;
 import org.pdfclown.documents.contents.ContentScanner.GraphicsState;
-import org.pdfclown.documents.contents.LineDash;
+import org.pdfclown.documents.contents.RenderingHintKey;
 import org.pdfclown.documents.contents.WindModeEnum;
-import org.pdfclown.util.ConvertUtils;
 
 /**
   Path-painting operation [PDF:1.6:4.4.2].
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
   @since 0.0.7
-  @version 0.1.1, 11/01/11
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF10)
 public final class PaintPath
@@ -103,26 +103,6 @@ public final class PaintPath
   public static final PaintPath Stroke = new PaintPath(StrokeOperator, false, true, false, null);
   // </fields>
 
-  // <interface>
-  // <private>
-  private static java.awt.Stroke getStroke(
-    GraphicsState state
-    )
-  {
-    LineDash lineDash = state.getLineDash();
-    double[] dashArray = lineDash.getDashArray();
-
-    return new BasicStroke(
-      (float)state.getLineWidth(),
-      state.getLineCap().toAwt(),
-      state.getLineJoin().toAwt(),
-      (float)state.getMiterLimit(),
-      dashArray != null && dashArray.length > 0 ? ConvertUtils.toFloatArray(dashArray) : null,
-      (float)lineDash.getDashPhase()
-      );
-  }
-  // </private>
-  // </interface>
   // </static>
 
   // <dynamic>
@@ -196,24 +176,51 @@ public final class PaintPath
       {
         pathObject.closePath();
       }
+      if((filled || stroked) && isNegligible(pathObject, state, context))
+        return;
+
       if(filled)
       {
-        context.setPaint(
-          state.getFillColorSpace().getPaint(state.getFillColor())
-          );
+        context.setPaint(state.getFillPaint());
         pathObject.setWindingRule(fillMode.toAwt());
         context.fill(pathObject);
       }
       if(stroked)
       {
-        context.setPaint(
-          state.getStrokeColorSpace().getPaint(state.getStrokeColor())
-          );
-        context.fill(new Path2D.Double(getStroke(state).createStrokedShape(pathObject)));
+        /*
+          NOTE: Line width is expressed in user space units, so the path is stroked directly by the
+          device context (whose transformation matches the CTM).
+        */
+        context.setPaint(state.getStrokePaint());
+        context.setStroke(state.getStroke());
+        context.draw(pathObject);
       }
     }
   }
   // </public>
+
+  // <private>
+  /**
+    Gets whether the specified path is too small to be painted, according to the {@link
+    RenderingHintKey#MinPathSize minimum path size} of the rendering context.
+  */
+  private boolean isNegligible(
+    Path2D pathObject,
+    GraphicsState state,
+    Graphics2D context
+    )
+  {
+    double minSize = RenderingHintKey.MinPathSize.getDoubleValue(context);
+    if(minSize <= 0)
+      return false;
+
+    AffineTransform transform = context.getTransform();
+    Rectangle2D bounds = transform.createTransformedShape(pathObject.getBounds2D()).getBounds2D();
+    double lineSize = (stroked ? state.getLineWidth() * Math.sqrt(Math.abs(transform.getDeterminant())) : 0);
+    return bounds.getWidth() + lineSize < minSize
+      && bounds.getHeight() + lineSize < minSize;
+  }
+  // </private>
   // </interface>
   // </dynamic>
   // </class>
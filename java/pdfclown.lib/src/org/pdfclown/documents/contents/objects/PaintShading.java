@@ -25,10 +25,18 @@
 
 package org.pdfclown.documents.contents.objects;
 
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.Area;
+import java.awt.geom.Dimension2D;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
 import java.util.List;
 
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
+import org.pdfclown.documents.contents.ContentScanner;
+import org.pdfclown.documents.contents.ContentScanner.GraphicsState;
 import org.pdfclown.documents.contents.IContentContext;
 import org.pdfclown.documents.contents.colorSpaces.Shading;
 import org.pdfclown.objects.PdfDirectObject;
@@ -39,7 +47,7 @@ import org.pdfclown.objects.PdfName;
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
   @since 0.0.4
-  @version 0.1.1, 11/01/11
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF13)
 public final class PaintShading
@@ -78,6 +86,48 @@ public final class PaintShading
     )
   {return getResource(context);}
 
+  @Override
+  public void scan(
+    GraphicsState state
+    )
+  {
+    ContentScanner scanner = state.getScanner();
+    Graphics2D context = scanner.getRenderContext();
+    if(context == null || scanner.getContentContext().getResources() == null)
+      return;
+
+    Shading<?> shading = getShading(scanner.getContentContext());
+    if(shading == null)
+      return;
+
+    /*
+      NOTE: The shading is painted over the current clipping area, expressed in user space (which
+      corresponds to the shading space) [PDF:1.6:4.6.3].
+    */
+    Shape area = context.getClip();
+    if(area == null)
+    {
+      Dimension2D canvasSize = scanner.getCanvasSize();
+      try
+      {
+        area = context.getTransform().createInverse().createTransformedShape(
+          new Rectangle2D.Double(0, 0, canvasSize.getWidth(), canvasSize.getHeight())
+          );
+      }
+      catch(NoninvertibleTransformException e)
+      {return;}
+    }
+    Rectangle2D box = shading.getBox();
+    if(box != null)
+    {
+      Area boundedArea = new Area(area);
+      boundedArea.intersect(new Area(box));
+      area = boundedArea;
+    }
+    context.setPaint(shading.getPaint(null, false));
+    context.fill(area);
+  }
+
   // <IResourceReference>
   @Override
   public PdfName getName(
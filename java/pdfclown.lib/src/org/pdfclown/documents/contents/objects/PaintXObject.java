@@ -25,13 +25,17 @@
 
 package org.pdfclown.documents.contents.objects;
 
+import java.awt.Graphics2D;
+import java.awt.Shape;
 import java.util.List;
 
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
 import org.pdfclown.documents.contents.ContentScanner;
+import org.pdfclown.documents.contents.ContentScanner.GraphicsState;
 import org.pdfclown.documents.contents.IContentContext;
 import org.pdfclown.documents.contents.xObjects.FormXObject;
+import org.pdfclown.documents.contents.xObjects.ImageXObject;
 import org.pdfclown.documents.contents.xObjects.XObject;
 import org.pdfclown.objects.PdfDirectObject;
 import org.pdfclown.objects.PdfName;
@@ -95,6 +99,32 @@ public final class PaintXObject
     )
   {return getResource(context);}
 
+  @Override
+  public void scan(
+    GraphicsState state
+    )
+  {
+    ContentScanner scanner = state.getScanner();
+    Graphics2D context = scanner.getRenderContext();
+    if(context == null || scanner.getContentContext().getResources() == null)
+      return;
+
+    XObject xObject = getXObject(scanner.getContentContext());
+    if(xObject instanceof ImageXObject)
+    {ImagePainter.paint(state, (ImageXObject)xObject);}
+    else if(xObject instanceof FormXObject)
+    {
+      // Save outer graphics state!
+      Shape clip = context.getClip();
+
+      getScanner(scanner).render(context, scanner.getCanvasSize(), null);
+
+      // Restore outer graphics state!
+      context.setTransform(state.getCtm());
+      context.setClip(clip);
+    }
+  }
+
   // <IResourceReference>
   @Override
   public PdfName getName(
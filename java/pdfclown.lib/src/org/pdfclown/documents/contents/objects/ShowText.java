@@ -25,7 +25,14 @@
 
 package org.pdfclown.documents.contents.objects;
 
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Shape;
+import java.awt.Stroke;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
 import java.util.Arrays;
 import java.util.List;
@@ -34,8 +41,13 @@ import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
 import org.pdfclown.documents.contents.ContentScanner;
 import org.pdfclown.documents.contents.ContentScanner.GraphicsState;
+import org.pdfclown.documents.contents.Contents;
+import org.pdfclown.documents.contents.DisplayList;
 import org.pdfclown.documents.contents.IContentContext;
+import org.pdfclown.documents.contents.RenderingHintKey;
+import org.pdfclown.documents.contents.TextRenderModeEnum;
 import org.pdfclown.documents.contents.fonts.Font;
+import org.pdfclown.documents.contents.fonts.Type3Font;
 import org.pdfclown.objects.PdfDirectObject;
 
 /**
@@ -43,7 +55,7 @@ import org.pdfclown.objects.PdfDirectObject;
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
   @since 0.0.8
-  @version 0.1.1, 11/01/11
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF10)
 public abstract class ShowText
@@ -66,6 +78,199 @@ public abstract class ShowText
   }
   // </interfaces>
 
+  // <classes>
+  /**
+    Painter of the glyphs shown by a text-showing operation.
+  */
+  private static final class GlyphPainter
+  {
+    /**
+      Composite of greeked text (see {@link #paintGreeked(AffineTransform, AffineTransform, double,
+      double)}).
+      <p>Its translucency approximates the ink coverage of a text line.</p>
+    */
+    private static final Composite GreekingComposite = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, .4f);
+
+    /**
+      Gets the painter corresponding to the given graphics state.
+
+      @return <code>null</code>, if glyphs are not painted.
+    */
+    static GlyphPainter get(
+      GraphicsState state,
+      Graphics2D context,
+      AffineTransform ctm
+      )
+    {
+      /*
+        NOTE: Clipping render modes are painted without adding glyphs to the clipping path.
+      */
+      boolean filled, stroked;
+      TextRenderModeEnum renderMode = state.getRenderMode();
+      switch(renderMode)
+      {
+        case Fill:
+        case FillClip:
+          filled = true; stroked = false;
+          break;
+        case Stroke:
+        case StrokeClip:
+          filled = false; stroked = true;
+          break;
+        case FillStroke:
+        case FillStrokeClip:
+          filled = stroked = true;
+          break;
+        default: // Invisible.
+          return null;
+      }
+      return new GlyphPainter(state, context, ctm, filled, stroked);
+    }
+
+    private final GraphicsState state;
+    private final Graphics2D context;
+    private final AffineTransform ctm;
+
+    private final Paint fillPaint;
+    private final Paint strokePaint;
+    private final Stroke stroke;
+
+    private GlyphPainter(
+      GraphicsState state,
+      Graphics2D context,
+      AffineTransform ctm,
+      boolean filled,
+      boolean stroked
+      )
+    {
+      this.state = state;
+      this.context = context;
+      this.ctm = ctm;
+
+      fillPaint = (filled ? state.getFillPaint() : null);
+      if(stroked)
+      {
+        strokePaint = state.getStrokePaint();
+        stroke = state.getStroke();
+      }
+      else
+      {
+        strokePaint = null;
+        stroke = null;
+      }
+    }
+
+    /**
+      Paints the glyph corresponding to the given character code.
+
+      @param glyphTransform Transformation from glyph space (scaled to text space units) to user
+        space.
+    */
+    void paint(
+      Font font,
+      int code,
+      int codeLength,
+      AffineTransform glyphTransform
+      )
+    {
+      if(font instanceof Type3Font)
+      {
+        paintType3((Type3Font)font, code, glyphTransform);
+        return;
+      }
+
+      Shape outline = font.getOutline(code, codeLength);
+      if(outline == null)
+        return;
+
+      // NOTE: Glyph outlines are expressed in thousandths of text space unit.
+      glyphTransform.scale(.001, .001);
+      if(fillPaint != null)
+      {
+        context.setPaint(fillPaint);
+        context.transform(glyphTransform);
+        DisplayList.fillImmutable(context, outline);
+        context.setTransform(ctm);
+      }
+      if(strokePaint != null)
+      {
+        // NOTE: Line width is expressed in user space units.
+        context.setPaint(strokePaint);
+        context.setStroke(stroke);
+        context.draw(glyphTransform.createTransformedShape(outline));
+      }
+    }
+
+    /**
+      Paints the placeholder of the glyphs shown between the given text positions (greeking), that
+      is a translucent bar as long as the text run and half as high as its font size.
+
+      @param startTm Text matrix at the start of the run.
+      @param endTm Text matrix at the end of the run.
+      @param rise Text rise.
+      @param fontSize Font size.
+    */
+    void paintGreeked(
+      AffineTransform startTm,
+      AffineTransform endTm,
+      double rise,
+      double fontSize
+      )
+    {
+      double[] points = new double[]{0, rise, 0, rise + fontSize * .5};
+      double[] startPoints = new double[4], endPoints = new double[4];
+      startTm.transform(points, 0, startPoints, 0, 2);
+      endTm.transform(points, 0, endPoints, 0, 2);
+      Path2D bar = new Path2D.Double();
+      bar.moveTo(startPoints[0], startPoints[1]);
+      bar.lineTo(endPoints[0], endPoints[1]);
+      bar.lineTo(endPoints[2], endPoints[3]);
+      bar.lineTo(startPoints[2], startPoints[3]);
+      bar.closePath();
+
+      Composite composite = context.getComposite();
+      context.setComposite(GreekingComposite);
+      context.setPaint(fillPaint != null ? fillPaint : strokePaint);
+      context.fill(bar);
+      context.setComposite(composite);
+    }
+
+    /**
+      Paints the given Type 3 glyph, scanning its description [PDF:1.6:5.5.4].
+    */
+    private void paintType3(
+      Type3Font font,
+      int code,
+      AffineTransform glyphTransform
+      )
+    {
+      ContentScanner scanner = state.getScanner();
+      Contents glyphContents = font.getGlyphContents(code, scanner.getContentContext());
+      if(glyphContents == null)
+        return;
+
+      glyphTransform.concatenate(font.getMatrix());
+      AffineTransform glyphCtm = (AffineTransform)ctm.clone();
+      glyphCtm.concatenate(glyphTransform);
+
+      AffineTransform outerCtm = state.getCtm();
+      Shape outerClip = context.getClip();
+      try
+      {
+        state.setCtm(glyphCtm);
+        context.setTransform(glyphCtm);
+        new ContentScanner(glyphContents, scanner).render(context, scanner.getCanvasSize(), null);
+      }
+      finally
+      {
+        state.setCtm(outerCtm);
+        context.setTransform(ctm);
+        context.setClip(outerClip);
+      }
+    }
+  }
+  // </classes>
+
   // <dynamic>
   // <constructors>
   protected ShowText(
@@ -127,7 +332,7 @@ public abstract class ShowText
   */
   public void scan(
     ContentScanner.GraphicsState state,
-    IScanner textScanner
+    final IScanner textScanner
     )
   {
     /*
@@ -139,15 +344,15 @@ public abstract class ShowText
     */
 
     IContentContext context = state.getScanner().getContentContext();
-    double contextHeight = context.getBox().getHeight();
-    Font font = state.getFont();
-    double fontSize = state.getFontSize();
-    double scale = state.getScale() / 100;
-    double scaledFactor = Font.getScalingFactor(fontSize) * scale;
-    double wordSpace = state.getWordSpace() * scale;
-    double charSpace = state.getCharSpace() * scale;
-    AffineTransform ctm = (AffineTransform)state.getCtm().clone();
-    AffineTransform tm;
+    final double contextHeight = context.getBox().getHeight();
+    final Font font = state.getFont();
+    final double fontSize = state.getFontSize();
+    final double scale = state.getScale() / 100;
+    final double scaledFactor = Font.getScalingFactor(fontSize) * scale;
+    final double wordSpace;
+    final double charSpace;
+    final AffineTransform ctm = (AffineTransform)state.getCtm().clone();
+    final AffineTransform tm;
     if(this instanceof ShowTextToNextLine)
     {
       ShowTextToNextLine showTextToNextLine = (ShowTextToNextLine)this;
@@ -158,6 +363,8 @@ public abstract class ShowText
         {state.setWordSpace(newWordSpace);}
         wordSpace = newWordSpace * scale;
       }
+      else
+      {wordSpace = state.getWordSpace() * scale;}
       Double newCharSpace = showTextToNextLine.getCharSpace();
       if(newCharSpace != null)
       {
@@ -165,56 +372,120 @@ public abstract class ShowText
         {state.setCharSpace(newCharSpace);}
         charSpace = newCharSpace * scale;
       }
-      tm = (AffineTransform)state.getTlm().clone();
-      tm.translate(0, state.getLead());
+      else
+      {charSpace = state.getCharSpace() * scale;}
+      // Move to the start of the next line (as T* does).
+      if(textScanner == null)
+      {
+        TranslateTextToNextLine.Value.scan(state);
+        tm = (AffineTransform)state.getTm().clone();
+      }
+      else
+      {
+        tm = (AffineTransform)state.getTlm().clone();
+        tm.translate(0, -state.getLead());
+      }
     }
     else
-    {tm = (AffineTransform)state.getTm().clone();}
+    {
+      wordSpace = state.getWordSpace() * scale;
+      charSpace = state.getCharSpace() * scale;
+      tm = (AffineTransform)state.getTm().clone();
+    }
 
-    for(Object textElement : getValue())
+    // Glyph rendering.
+    final Graphics2D renderContext = (textScanner == null ? state.getScanner().getRenderContext() : null);
+    final GlyphPainter painter = (renderContext != null ? GlyphPainter.get(state, renderContext, ctm) : null);
+    final double rise = state.getRise();
+    AffineTransform greekingTm = null;
+    if(painter != null)
     {
-      if(textElement instanceof byte[]) // Text string.
+      double minTextSize = RenderingHintKey.MinTextSize.getDoubleValue(renderContext);
+      if(minTextSize > 0)
       {
-        String textString = font.decode((byte[])textElement);
-        for(char textChar : textString.toCharArray())
+        // Device-space font size.
+        AffineTransform trm = (AffineTransform)ctm.clone(); trm.concatenate(tm);
+        if(fontSize * Math.hypot(trm.getShearX(), trm.getScaleY()) < minTextSize)
+        {greekingTm = (AffineTransform)tm.clone();}
+      }
+    }
+    final GlyphPainter glyphPainter = (greekingTm == null ? painter : null);
+
+    class CharListener
+      implements Font.IDecodeListener
+    {
+      /**
+        Current text string.
+      */
+      byte[] code;
+      /**
+        Position of the current character code within the current text string.
+      */
+      int codeIndex;
+
+      @Override
+      public void onChar(
+        char textChar,
+        int width,
+        int codeLength
+        )
+      {
+        double charWidth = width * scaledFactor;
+
+        if(glyphPainter != null)
         {
-          double charWidth = font.getWidth(textChar) * scaledFactor;
-
-          if(textScanner != null)
-          {
-            /*
-              NOTE: The text rendering matrix is recomputed before each glyph is painted
-              during a text-showing operation.
-            */
-            AffineTransform trm = (AffineTransform)ctm.clone(); trm.concatenate(tm);
-            double charHeight = font.getHeight(textChar,fontSize);
-            Rectangle2D charBox = new Rectangle2D.Double(
-              trm.getTranslateX(),
-              contextHeight - trm.getTranslateY() - font.getAscent(fontSize) * trm.getScaleY(),
-              charWidth * trm.getScaleX(),
-              charHeight * trm.getScaleY()
-              );
-            textScanner.scanChar(textChar,charBox);
-          }
+          int charCode = 0;
+          for(int index = codeIndex, limit = Math.min(codeIndex + codeLength, code.length); index < limit; index++)
+          {charCode = (charCode << 8) | (code[index] & 0xff);}
 
+          AffineTransform glyphTransform = (AffineTransform)tm.clone();
+          glyphTransform.translate(0, rise);
+          glyphTransform.scale(fontSize * scale, fontSize);
+          glyphPainter.paint(font, charCode, codeLength, glyphTransform);
+        }
+        codeIndex += codeLength;
+
+        if(textScanner != null)
+        {
           /*
-            NOTE: After the glyph is painted, the text matrix is updated
-            according to the glyph displacement and any applicable spacing parameter.
+            NOTE: The text rendering matrix is recomputed before each glyph is painted
+            during a text-showing operation.
           */
-          tm.translate(charWidth + charSpace + (textChar == ' ' ? wordSpace : 0), 0);
+          AffineTransform trm = (AffineTransform)ctm.clone(); trm.concatenate(tm);
+          double charHeight = font.getHeight(textChar,fontSize);
+          Rectangle2D charBox = new Rectangle2D.Double(
+            trm.getTranslateX(),
+            contextHeight - trm.getTranslateY() - font.getAscent(fontSize) * trm.getScaleY(),
+            charWidth * trm.getScaleX(),
+            charHeight * trm.getScaleY()
+            );
+          textScanner.scanChar(textChar,charBox);
         }
+
+        /*
+          NOTE: After the glyph is painted, the text matrix is updated
+          according to the glyph displacement and any applicable spacing parameter.
+        */
+        tm.translate(charWidth + charSpace + (textChar == ' ' ? wordSpace : 0), 0);
+      }
+    }
+    CharListener charListener = new CharListener();
+    for(Object textElement : getValue())
+    {
+      if(textElement instanceof byte[]) // Text string.
+      {
+        charListener.code = (byte[])textElement;
+        charListener.codeIndex = 0;
+        font.decode(charListener.code, charListener);
       }
       else // Text position adjustment.
       {tm.translate(-((Number)textElement).doubleValue() * scaledFactor, 0);}
     }
+    if(greekingTm != null)
+    {painter.paintGreeked(greekingTm, tm, rise, fontSize);}
 
     if(textScanner == null)
-    {
-      state.setTm(tm);
-
-      if(this instanceof ShowTextToNextLine)
-      {state.setTlm((AffineTransform)tm.clone());}
-    }
+    {state.setTm(tm);}
   }
 
   /**
@@ -114,7 +114,7 @@ public final class TranslateTextRelative
     state.getTlm().translate(getOffsetX(),getOffsetY());
     state.setTm((AffineTransform)state.getTlm().clone());
     if(isLeadSet())
-    {state.setLead(getOffsetY());}
+    {state.setLead(-getOffsetY());}
   }
 
   /**
@@ -210,18 +210,30 @@ public final class ContentParser
     InlineImageBody body;
     {
       IInputStream stream = getStream();
-      moveNext();
       Buffer data = new Buffer();
       try
       {
-        byte prevByte = 0;
+        stream.readByte(); // NOTE: A single white-space character separates the ID operator from the image data [PDF:1.6:4.8.6].
+        /*
+          NOTE: As image data may contain EI byte sequences, the end of the image data is detected
+          as an EI operator preceded by a white-space character.
+        */
+        int prevPrevByte = -1, prevByte = -1;
         while(true)
         {
-          byte curByte = stream.readByte();
-          if(prevByte == 'E' && curByte == 'I')
+          int curByte = stream.readUnsignedByte();
+          if(curByte == 'I'
+            && prevByte == 'E'
+            && isWhitespace(prevPrevByte)
+            && isOperatorEnd(stream))
+          {
+            data.setLength((int)data.getLength() - 2); // Removes the EI operator prefix.
             break;
+          }
 
-          data.append(prevByte = curByte);
+          data.append((byte)curByte);
+          prevPrevByte = prevByte;
+          prevByte = curByte;
         }
       }
       catch(EOFException e)
@@ -232,6 +244,21 @@ public final class ContentParser
     return new InlineImage(header, body);
   }
 
+  /**
+    Gets whether the stream pointer is at the end of an operator.
+  */
+  private boolean isOperatorEnd(
+    IInputStream stream
+    ) throws EOFException
+  {
+    if(stream.getPosition() >= stream.getLength())
+      return true;
+
+    int c = stream.readUnsignedByte();
+    stream.skip(-1);
+    return isWhitespace(c) || isDelimiter(c);
+  }
+
   private Path parsePath(
     Operation beginOperation
     )
@@ -0,0 +1,615 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.xObjects;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Dimension2D;
+import java.awt.image.BufferedImage;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.pdfclown.documents.contents.ColorSpaceResources;
+import org.pdfclown.documents.contents.IContentContext;
+import org.pdfclown.documents.contents.Resources;
+import org.pdfclown.documents.contents.colorSpaces.ColorSpace;
+import org.pdfclown.documents.contents.objects.InlineImage;
+import org.pdfclown.documents.contents.objects.InlineImageHeader;
+import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfDataObject;
+import org.pdfclown.objects.PdfDictionary;
+import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfNumber;
+import org.pdfclown.objects.PdfObject;
+import org.pdfclown.objects.PdfStream;
+
+/**
+  Process-wide cache of decoded image rasters.
+  <p>Decoding is the most expensive part of image rendering (scanned documents, in particular,
+  consist of large images only), so decoded rasters are kept for reuse across rendering passes.
+  As rasters are usually painted much smaller than their full resolution, they are cached at the
+  coarsest halving of their full resolution still adequate to the requested device size, so that
+  the same entry serves a range of zoom levels and its footprint is proportional to the device
+  area it covers.</p>
+  <p>The least-recently used rasters are evicted as soon as the footprint of the cache exceeds
+  its {@link #getMaxSize() maximum size}; cache entries don't prevent their images from being
+  garbage-collected.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+public final class ImageCache
+{
+  // <class>
+  // <classes>
+  /**
+    Image decoding deferred to cache misses.
+  */
+  private interface IDecoder
+  {
+    /**
+      @param subsampling Sampling period along both axes (see {@link ImageDecoder#decode(
+        PdfDictionary, PdfDataObject, PdfDataObject, byte[], int)}).
+    */
+    BufferedImage decode(
+      int subsampling
+      ) throws Exception;
+  }
+
+  /**
+    Cache entry key.
+    <p>Images are identified by their data object; each entry corresponds to a resolution level
+    (<code>0</code> for full resolution, <code>n</code> for the n-th halving), either at full
+    fidelity or in draft quality (see {@link ImageCache#get(ImageXObject, Dimension2D, boolean)}).
+    Tinted stencil masks are identified by their mask raster and color (see {@link
+    ImageCache#getTinted(BufferedImage, Color)}).</p>
+  */
+  private static final class Key
+  {
+    private final boolean draft;
+    private final int hashCode;
+    private final int level;
+    private final WeakReference<Object> sourceReference;
+    /**
+      Tint RGB value (<code>-1</code> if untinted).
+    */
+    private final int tint;
+
+    Key(
+      Object source,
+      int level
+      )
+    {this(source, level, false);}
+
+    Key(
+      Object source,
+      int level,
+      boolean draft
+      )
+    {this(source, level, draft, -1);}
+
+    Key(
+      Object source,
+      int level,
+      boolean draft,
+      int tint
+      )
+    {
+      this.sourceReference = new WeakReference<Object>(source);
+      this.level = level;
+      this.draft = draft;
+      this.tint = tint;
+      this.hashCode = ((System.identityHashCode(source) * 31 + level) * 2 + (draft ? 1 : 0)) * 31 + tint;
+    }
+
+    @Override
+    public boolean equals(
+      Object object
+      )
+    {
+      if(!(object instanceof Key))
+        return false;
+
+      Key key = (Key)object;
+      Object source = sourceReference.get();
+      return source != null
+        && source == key.sourceReference.get()
+        && level == key.level
+        && draft == key.draft
+        && tint == key.tint;
+    }
+
+    @Override
+    public int hashCode(
+      )
+    {return hashCode;}
+
+    boolean isCleared(
+      )
+    {return sourceReference.get() == null;}
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  /**
+    Inline image entry abbreviations [PDF:1.6:4.8.6].
+  */
+  private static final Map<PdfName,PdfName> InlineKeys = new LinkedHashMap<PdfName,PdfName>();
+  /**
+    Inline image color space abbreviations [PDF:1.6:4.8.6].
+  */
+  private static final Map<PdfName,PdfName> InlineColorSpaces = new LinkedHashMap<PdfName,PdfName>();
+  /**
+    Placeholder of the images which cannot be decoded.
+  */
+  private static final BufferedImage UnsupportedImage = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
+  private static final Map<Key,BufferedImage> Images = new LinkedHashMap<Key,BufferedImage>(16, .75f, true);
+  private static long maxSize = 64 << 20;
+  private static long size = 0;
+  // </fields>
+
+  // <constructors>
+  static
+  {
+    InlineKeys.put(PdfName.BPC, PdfName.BitsPerComponent);
+    InlineKeys.put(PdfName.CS, PdfName.ColorSpace);
+    InlineKeys.put(PdfName.D, PdfName.Decode);
+    InlineKeys.put(PdfName.DP, PdfName.DecodeParms);
+    InlineKeys.put(PdfName.F, PdfName.Filter);
+    InlineKeys.put(PdfName.H, PdfName.Height);
+    InlineKeys.put(PdfName.IM, PdfName.ImageMask);
+    InlineKeys.put(PdfName.W, PdfName.Width);
+
+    InlineColorSpaces.put(PdfName.CMYK, PdfName.DeviceCMYK);
+    InlineColorSpaces.put(PdfName.G, PdfName.DeviceGray);
+    InlineColorSpaces.put(PdfName.I, PdfName.Indexed);
+    InlineColorSpaces.put(PdfName.RGB, PdfName.DeviceRGB);
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Removes all the entries.
+  */
+  public static synchronized void clear(
+    )
+  {
+    Images.clear();
+    size = 0;
+  }
+
+  /**
+    Gets the decoded raster of the specified image.
+
+    @param image Image to decode.
+    @param size Device-space size the image is going to be painted at; <code>null</code> for full
+      resolution.
+    @return Raster whose resolution is no less than <code>size</code> (if possible);
+      <code>null</code>, if the image is unsupported or damaged.
+  */
+  public static BufferedImage get(
+    ImageXObject image,
+    Dimension2D size
+    )
+  {return get(image, size, false);}
+
+  /**
+    Gets the decoded raster of the specified image.
+
+    @param image Image to decode.
+    @param size Device-space size the image is going to be painted at; <code>null</code> for full
+      resolution.
+    @param draft Whether to trade quality for speed: the raster may be as coarse as half
+      <code>size</code> and, in case of decoding, JPEG data are subsampled directly to the coarsest
+      adequate resolution (draft rasters are cached apart from full-fidelity ones).
+    @return Raster whose resolution is no less than <code>size</code> (halved, in case of draft)
+      if possible; <code>null</code>, if the image is unsupported or damaged.
+    @since 0.1.3
+  */
+  public static BufferedImage get(
+    ImageXObject image,
+    Dimension2D size,
+    boolean draft
+    )
+  {
+    final PdfStream stream = image.getBaseDataObject();
+    final PdfDictionary header = stream.getHeader();
+    return get(
+      stream,
+      header,
+      size,
+      draft,
+      new IDecoder()
+      {
+        @Override
+        public BufferedImage decode(
+          int subsampling
+          ) throws Exception
+        {
+          return ImageDecoder.decode(
+            header,
+            stream.getFilter(),
+            stream.getParameters(),
+            stream.getBody(false).toByteArray(),
+            subsampling
+            );
+        }
+      }
+      );
+  }
+
+  /**
+    Gets the decoded raster of the specified inline image.
+
+    @param image Image to decode.
+    @param context Content context of the image.
+    @param size Device-space size the image is going to be painted at; <code>null</code> for full
+      resolution.
+    @return Raster whose resolution is no less than <code>size</code> (if possible);
+      <code>null</code>, if the image is unsupported or damaged.
+  */
+  public static BufferedImage get(
+    InlineImage image,
+    IContentContext context,
+    Dimension2D size
+    )
+  {return get(image, context, size, false);}
+
+  /**
+    Gets the decoded raster of the specified inline image.
+
+    @param image Image to decode.
+    @param context Content context of the image.
+    @param size Device-space size the image is going to be painted at; <code>null</code> for full
+      resolution.
+    @param draft Whether to trade quality for speed (see {@link #get(ImageXObject, Dimension2D,
+      boolean)}).
+    @return Raster whose resolution is no less than <code>size</code> (halved, in case of draft)
+      if possible; <code>null</code>, if the image is unsupported or damaged.
+    @since 0.1.3
+  */
+  public static BufferedImage get(
+    final InlineImage image,
+    final IContentContext context,
+    Dimension2D size,
+    boolean draft
+    )
+  {
+    final PdfDictionary header = toImageHeader(image.getHeader(), context);
+    return get(
+      image,
+      header,
+      size,
+      draft,
+      new IDecoder()
+      {
+        @Override
+        public BufferedImage decode(
+          int subsampling
+          ) throws Exception
+        {
+          return ImageDecoder.decode(
+            header,
+            header.get(PdfName.Filter),
+            header.get(PdfName.DecodeParms),
+            image.getBody().getValue().toByteArray(),
+            subsampling
+            );
+        }
+      }
+      );
+  }
+
+  /**
+    Gets the specified stencil mask raster painted with the given color.
+    <p>Tinted rasters are cached as long as their mask raster is alive.</p>
+
+    @param mask Stencil mask raster (see {@link #get(ImageXObject, Dimension2D, boolean)}).
+    @param color Color to paint the mask with.
+  */
+  public static BufferedImage getTinted(
+    BufferedImage mask,
+    Color color
+    )
+  {
+    int rgb = color.getRGB() & 0xffffff;
+    Key key = new Key(mask, 0, false, rgb);
+    BufferedImage tintedImage;
+    synchronized(ImageCache.class)
+    {tintedImage = Images.get(key);}
+    if(tintedImage == null)
+    {
+      int width = mask.getWidth(), height = mask.getHeight();
+      tintedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+      int[] pixels = mask.getRGB(0, 0, width, height, null, 0, width);
+      for(int index = 0; index < pixels.length; index++)
+      {pixels[index] = (pixels[index] & 0xff000000) | rgb;}
+      tintedImage.setRGB(0, 0, width, height, pixels, 0, width);
+      put(key, tintedImage);
+    }
+    return tintedImage;
+  }
+
+  /**
+    Gets the maximum footprint (in bytes) of the cache.
+
+    @return <code>0</code> if the cache is disabled (images are decoded on each request).
+  */
+  public static synchronized long getMaxSize(
+    )
+  {return maxSize;}
+
+  /**
+    Gets the current footprint (in bytes) of the cache.
+  */
+  public static synchronized long getSize(
+    )
+  {return size;}
+
+  /**
+    @see #getMaxSize()
+  */
+  public static synchronized void setMaxSize(
+    long value
+    )
+  {
+    if(value < 0)
+      throw new IllegalArgumentException("Maximum size MUST be non-negative.");
+
+    maxSize = value;
+    evict();
+  }
+  // </public>
+
+  // <private>
+  /**
+    Removes the least-recently used entries exceeding the maximum size, along with the entries
+    whose images have been garbage-collected.
+  */
+  private static void evict(
+    )
+  {
+    for(Iterator<Map.Entry<Key,BufferedImage>> iterator = Images.entrySet().iterator(); iterator.hasNext();)
+    {
+      Map.Entry<Key,BufferedImage> entry = iterator.next();
+      if(size > maxSize || entry.getKey().isCleared())
+      {
+        size -= getFootprint(entry.getValue());
+        iterator.remove();
+      }
+    }
+  }
+
+  private static BufferedImage get(
+    Object source,
+    PdfDictionary header,
+    Dimension2D size,
+    boolean draft,
+    IDecoder decoder
+    )
+  {
+    // Resolution level.
+    int level = 0;
+    int width = 0;
+    if(size != null)
+    {
+      PdfDataObject widthObject = header.resolve(PdfName.Width), heightObject = header.resolve(PdfName.Height);
+      if(widthObject instanceof PdfNumber<?> && heightObject instanceof PdfNumber<?>)
+      {
+        width = ((PdfNumber<?>)widthObject).getIntValue();
+        int height = ((PdfNumber<?>)heightObject).getIntValue();
+        double sizeFactor = (draft ? .5 : 1);
+        double requiredWidth = Math.max(size.getWidth() * sizeFactor, 1), requiredHeight = Math.max(size.getHeight() * sizeFactor, 1);
+        while((width >> (level + 1)) >= requiredWidth
+          && (height >> (level + 1)) >= requiredHeight)
+        {level++;}
+      }
+    }
+
+    // Cached raster?
+    BufferedImage image = null;
+    int imageLevel = level;
+    boolean subsampled = (draft && level > 0);
+    if(getMaxSize() > 0)
+    {
+      synchronized(ImageCache.class)
+      {
+        for(; imageLevel >= 0; imageLevel--)
+        {
+          image = Images.get(new Key(source, imageLevel));
+          if(image != null)
+            break;
+        }
+        if(draft && (image == null || imageLevel < level))
+        {
+          BufferedImage draftImage = Images.get(new Key(source, level, true));
+          if(draftImage == UnsupportedImage)
+          {subsampled = false;} // Falls back to full-quality decoding.
+          else if(draftImage != null)
+            return draftImage;
+        }
+      }
+      if(image == UnsupportedImage)
+        return null;
+      else if(image != null && imageLevel == level)
+        return image;
+    }
+
+    // Decoding.
+    if(image == null)
+    {
+      try
+      {image = decoder.decode(subsampled ? 1 << level : 1);}
+      catch(Exception e)
+      {image = null;} // NOTE: Damaged or unsupported images are resiliently ignored.
+      imageLevel = 0;
+      if(image == null || image.getWidth() == 0 || image.getHeight() == 0)
+      {
+        /*
+          NOTE: Only the failed decoding mode is marked as unsupported, so that a failed subsampled
+          decoding doesn't prevent full-quality rendering.
+        */
+        put(subsampled ? new Key(source, level, true) : new Key(source, 0), UnsupportedImage);
+        return null;
+      }
+      else if(image.getWidth() < width) // Subsampled decoding.
+      {
+        // NOTE: Subsampled rasters are cached apart, as their quality is lower than halvings'.
+        put(new Key(source, level, true), image);
+        return image;
+      }
+    }
+
+    // Downscaling.
+    image = scale(image, level - imageLevel);
+    put(new Key(source, level), image);
+    return image;
+  }
+
+  private static long getFootprint(
+    BufferedImage image
+    )
+  {return image == UnsupportedImage ? 0 : (long)image.getWidth() * image.getHeight() * 4;}
+
+  private static synchronized void put(
+    Key key,
+    BufferedImage image
+    )
+  {
+    if(maxSize == 0)
+      return;
+
+    BufferedImage oldImage = Images.put(key, image);
+    size += getFootprint(image) - (oldImage != null ? getFootprint(oldImage) : 0);
+    evict();
+  }
+
+  /**
+    Halves the resolution of the specified raster the given number of times.
+  */
+  private static BufferedImage scale(
+    BufferedImage image,
+    int halvingCount
+    )
+  {
+    /*
+      NOTE: Successive bilinear halvings approximate area averaging much better than a single
+      bilinear downscaling.
+    */
+    for(int index = 0; index < halvingCount; index++)
+    {
+      int width = Math.max(image.getWidth() >> 1, 1), height = Math.max(image.getHeight() >> 1, 1);
+      BufferedImage scaledImage = new BufferedImage(width, height, image.getType());
+      Graphics2D context = scaledImage.createGraphics();
+      try
+      {
+        context.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        context.drawImage(image, 0, 0, width, height, null);
+      }
+      finally
+      {context.dispose();}
+      image = scaledImage;
+    }
+    return image;
+  }
+
+  /**
+    Converts the specified inline image header into an equivalent image dictionary.
+    <p>Abbreviations are expanded and color space resource names are resolved.</p>
+  */
+  private static PdfDictionary toImageHeader(
+    InlineImageHeader inlineHeader,
+    IContentContext context
+    )
+  {
+    PdfDictionary header = new PdfDictionary();
+    for(PdfName inlineKey : inlineHeader.keySet())
+    {
+      PdfName key = InlineKeys.get(inlineKey);
+      header.put(key != null ? key : inlineKey, inlineHeader.get(inlineKey));
+    }
+
+    PdfDirectObject colorSpaceObject = header.get(PdfName.ColorSpace);
+    if(colorSpaceObject != null)
+    {header.put(PdfName.ColorSpace, toColorSpace(colorSpaceObject, context));}
+    return header;
+  }
+
+  private static PdfDirectObject toColorSpace(
+    PdfDirectObject colorSpaceObject,
+    IContentContext context
+    )
+  {
+    if(colorSpaceObject instanceof PdfName)
+    {
+      PdfName colorSpaceName = InlineColorSpaces.get(colorSpaceObject);
+      if(colorSpaceName != null)
+        return colorSpaceName;
+
+      Resources resources = context.getResources();
+      ColorSpaceResources colorSpaces = (resources != null ? resources.getColorSpaces() : null);
+      if(colorSpaces != null)
+      {
+        ColorSpace<?> colorSpace = colorSpaces.get(colorSpaceObject);
+        if(colorSpace != null)
+          return colorSpace.getBaseObject();
+      }
+    }
+    else if(colorSpaceObject instanceof PdfArray) // Indexed color space.
+    {
+      PdfArray colorSpaceArray = (PdfArray)colorSpaceObject;
+      PdfArray expandedColorSpaceArray = new PdfArray();
+      for(int index = 0, length = colorSpaceArray.size(); index < length; index++)
+      {
+        PdfDirectObject item = colorSpaceArray.get(index);
+        expandedColorSpaceArray.add(
+          index < 2 && PdfObject.resolve(item) instanceof PdfName
+            ? toColorSpace(item, context)
+            : item
+          );
+      }
+      return expandedColorSpaceArray;
+    }
+    return colorSpaceObject;
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <constructors>
+  private ImageCache(
+    )
+  {}
+  // </constructors>
+  // </class>
+}
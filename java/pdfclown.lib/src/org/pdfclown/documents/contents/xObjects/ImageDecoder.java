@@ -0,0 +1,661 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.documents.contents.xObjects;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.pdfclown.bytes.filters.Filter;
+import org.pdfclown.documents.contents.colorSpaces.ColorConverter;
+import org.pdfclown.documents.contents.colorSpaces.ColorSpace;
+import org.pdfclown.documents.contents.colorSpaces.DeviceCMYKColorSpace;
+import org.pdfclown.documents.contents.colorSpaces.DeviceGrayColorSpace;
+import org.pdfclown.documents.contents.colorSpaces.DeviceRGBColorSpace;
+import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfBoolean;
+import org.pdfclown.objects.PdfDataObject;
+import org.pdfclown.objects.PdfDictionary;
+import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfName;
+import org.pdfclown.objects.PdfNumber;
+import org.pdfclown.objects.PdfObject;
+import org.pdfclown.objects.PdfStream;
+import org.pdfclown.util.NotImplementedException;
+
+/**
+  Image sample decoder [PDF:1.6:4.8].
+  <p>Image samples are decoded into an sRGB raster applying, in sequence, the stream filters, the
+  decode array, the color space conversion and the masking (stencil, color key and soft masks).</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+final class ImageDecoder
+{
+  // <class>
+  // <classes>
+  /**
+    Decoded image samples.
+  */
+  private static final class Samples
+  {
+    final int bitsPerComponent;
+    final int componentCount;
+    final byte[] data;
+    final int height;
+    final int width;
+
+    Samples(
+      byte[] data,
+      int width,
+      int height,
+      int componentCount,
+      int bitsPerComponent
+      )
+    {
+      this.data = data;
+      this.width = width;
+      this.height = height;
+      this.componentCount = componentCount;
+      this.bitsPerComponent = bitsPerComponent;
+    }
+
+    /**
+      Gets the sample value at the specified position.
+      <p>16-bit samples are reduced to their most significant byte.</p>
+
+      @param rowOffset Byte offset of the row.
+      @param index Sample index within the row.
+    */
+    int get(
+      int rowOffset,
+      int index
+      )
+    {
+      switch(bitsPerComponent)
+      {
+        case 8:
+        {
+          int offset = rowOffset + index;
+          return offset < data.length ? data[offset] & 0xff : 0;
+        }
+        case 16:
+        {
+          int offset = rowOffset + index * 2;
+          return offset < data.length ? data[offset] & 0xff : 0;
+        }
+        default:
+        {
+          int bitOffset = index * bitsPerComponent;
+          int offset = rowOffset + (bitOffset >> 3);
+          return offset < data.length
+            ? (data[offset] >> (8 - bitsPerComponent - (bitOffset & 7))) & ((1 << bitsPerComponent) - 1)
+            : 0;
+        }
+      }
+    }
+
+    /**
+      Gets the size of the sample values returned by {@link #get(int, int)}.
+    */
+    int getBitsPerValue(
+      )
+    {return bitsPerComponent > 8 ? 8 : bitsPerComponent;}
+
+    /**
+      Gets the byte length of a row.
+    */
+    int getRowLength(
+      )
+    {return (width * componentCount * bitsPerComponent + 7) / 8;}
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  private static final int Opaque = 0xff000000;
+  // </fields>
+
+  // <interface>
+  // <internal>
+  /**
+    Decodes the specified image into an sRGB raster.
+
+    @param header Image dictionary; its color space MUST be resolved (no resource names).
+    @param filter Stream filters.
+    @param parameters Stream filter parameters.
+    @param data Encoded image data.
+    @param subsampling Sampling period along both axes, for the encodings supporting reduced
+      decoding (JPEG); <code>1</code> for full resolution.
+    @return Raster whose type is either {@link BufferedImage#TYPE_INT_RGB} or, in case of masking,
+      {@link BufferedImage#TYPE_INT_ARGB}; its size is reduced in case of subsampling.
+    @throws IOException If the image data is damaged.
+    @throws NotImplementedException If the image encoding is unsupported.
+    @throws UnsupportedOperationException If the image color space is unsupported.
+  */
+  static BufferedImage decode(
+    PdfDictionary header,
+    PdfDataObject filter,
+    PdfDataObject parameters,
+    byte[] data,
+    int subsampling
+    ) throws IOException
+  {
+    if(isImageMask(header))
+    {
+      int[] alpha = decodeMask(header, filter, parameters, data, false);
+      int width = getInt(header, PdfName.Width, 0), height = getInt(header, PdfName.Height, 0);
+      BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+      int[] pixels = getPixels(image);
+      for(int index = 0; index < pixels.length; index++)
+      {pixels[index] = alpha[index] << 24;}
+      return image;
+    }
+
+    ColorConverter converter = null;
+    PdfDirectObject colorSpaceObject = header.get(PdfName.ColorSpace);
+    if(colorSpaceObject != null)
+    {converter = ColorSpace.wrap(colorSpaceObject).getConverter();}
+    Samples samples = decodeSamples(
+      header,
+      filter,
+      parameters,
+      data,
+      converter != null ? converter.getComponentCount() : 0,
+      subsampling
+      );
+    if(converter == null) // NOTE: Color space is optional for JPEG2000 images only.
+    {
+      switch(samples.componentCount)
+      {
+        case 1: converter = DeviceGrayColorSpace.Default.getConverter(); break;
+        case 3: converter = DeviceRGBColorSpace.Default.getConverter(); break;
+        case 4: converter = DeviceCMYKColorSpace.Default.getConverter(); break;
+        default: throw new UnsupportedOperationException("Unknown image color space.");
+      }
+    }
+
+    PdfDataObject maskObject = header.resolve(PdfName.Mask);
+    PdfStream softMaskObject = (PdfStream)header.resolve(PdfName.SMask);
+    boolean masked = (maskObject != null || softMaskObject != null);
+    int width = samples.width, height = samples.height;
+    BufferedImage image = new BufferedImage(
+      width,
+      height,
+      masked ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB
+      );
+    int[] pixels = getPixels(image);
+    convert(samples, converter, getDecode(header, converter, samples), pixels);
+
+    // Masking.
+    if(maskObject instanceof PdfArray) // Color key mask [PDF:1.6:4.8.5].
+    {applyColorKeyMask(samples, toIntArray((PdfArray)maskObject, samples.bitsPerComponent), pixels);}
+    else if(maskObject instanceof PdfStream) // Stencil mask [PDF:1.6:4.8.5].
+    {
+      PdfStream maskStream = (PdfStream)maskObject;
+      PdfDictionary maskHeader = maskStream.getHeader();
+      applyAlpha(
+        pixels,
+        width,
+        height,
+        decodeMask(maskHeader, maskStream.getFilter(), maskStream.getParameters(), maskStream.getBody(false).toByteArray(), false),
+        getInt(maskHeader, PdfName.Width, 0),
+        getInt(maskHeader, PdfName.Height, 0)
+        );
+    }
+    if(softMaskObject != null) // Soft mask [PDF:1.6:7.5.4].
+    {
+      PdfDictionary softMaskHeader = softMaskObject.getHeader();
+      applyAlpha(
+        pixels,
+        width,
+        height,
+        decodeMask(softMaskHeader, softMaskObject.getFilter(), softMaskObject.getParameters(), softMaskObject.getBody(false).toByteArray(), true),
+        getInt(softMaskHeader, PdfName.Width, 0),
+        getInt(softMaskHeader, PdfName.Height, 0)
+        );
+    }
+    return image;
+  }
+
+  /**
+    Gets whether the specified image is a stencil mask.
+  */
+  static boolean isImageMask(
+    PdfDictionary header
+    )
+  {
+    PdfDataObject imageMaskObject = header.resolve(PdfName.ImageMask);
+    return imageMaskObject instanceof PdfBoolean && ((PdfBoolean)imageMaskObject).getValue();
+  }
+  // </internal>
+
+  // <private>
+  /**
+    Applies the specified alpha channel, resampling it to the image size.
+  */
+  private static void applyAlpha(
+    int[] pixels,
+    int width,
+    int height,
+    int[] alpha,
+    int alphaWidth,
+    int alphaHeight
+    )
+  {
+    for(int y = 0; y < height; y++)
+    {
+      int alphaRowOffset = (int)((long)y * alphaHeight / height) * alphaWidth;
+      for(int x = 0, offset = y * width; x < width; x++, offset++)
+      {
+        pixels[offset] = (pixels[offset] & 0xffffff)
+          | (alpha[alphaRowOffset + (int)((long)x * alphaWidth / width)] << 24);
+      }
+    }
+  }
+
+  /**
+    Makes transparent the pixels whose samples fall within the specified color key ranges, opaque
+    the others.
+  */
+  private static void applyColorKeyMask(
+    Samples samples,
+    int[] ranges,
+    int[] pixels
+    )
+  {
+    int componentCount = samples.componentCount;
+    int rowLength = samples.getRowLength();
+    for(int y = 0, offset = 0; y < samples.height; y++)
+    {
+      int rowOffset = y * rowLength;
+      for(int x = 0; x < samples.width; x++, offset++)
+      {
+        boolean masked = true;
+        for(int componentIndex = 0; componentIndex < componentCount && masked; componentIndex++)
+        {
+          int value = samples.get(rowOffset, x * componentCount + componentIndex);
+          masked = (value >= ranges[componentIndex * 2] && value <= ranges[componentIndex * 2 + 1]);
+        }
+        pixels[offset] = (masked ? 0 : pixels[offset] | Opaque);
+      }
+    }
+  }
+
+  /**
+    Decodes the specified JPEG data.
+  */
+  private static Samples decodeJpeg(
+    byte[] data,
+    PdfDictionary parameters,
+    int subsampling
+    ) throws IOException
+  {
+    Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("jpeg");
+    if(!readers.hasNext())
+      throw new NotImplementedException("DCTDecode");
+
+    Raster raster;
+    ImageReader reader = readers.next();
+    ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data));
+    try
+    {
+      reader.setInput(input);
+      /*
+        NOTE: Raster reading skips the color conversion of the JPEG reader, which is unreliable for
+        Adobe (CMYK, YCCK) encodings.
+      */
+      ImageReadParam readParam = null;
+      if(subsampling > 1)
+      {
+        readParam = reader.getDefaultReadParam();
+        readParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+      }
+      raster = reader.readRaster(0, readParam);
+    }
+    finally
+    {
+      reader.dispose();
+      input.close();
+    }
+
+    int width = raster.getWidth(), height = raster.getHeight();
+    int componentCount = raster.getNumBands();
+    int colorTransform = getJpegColorTransform(data);
+    if(colorTransform < 0)
+    {
+      colorTransform = (parameters != null
+        ? getInt(parameters, PdfName.ColorTransform, componentCount == 3 ? 1 : 0)
+        : componentCount == 3 ? 1 : 0);
+    }
+    boolean converted = (colorTransform != 0 && componentCount >= 3);
+
+    byte[] samples = new byte[width * height * componentCount];
+    int[] rowBuffer = new int[width * componentCount];
+    for(int y = 0, offset = 0; y < height; y++)
+    {
+      raster.getPixels(0, y, width, 1, rowBuffer);
+      for(int index = 0; index < rowBuffer.length; index += componentCount)
+      {
+        if(converted) // YCbCr(K) to RGB(K).
+        {
+          int luma = rowBuffer[index];
+          int blueChroma = rowBuffer[index + 1] - 128;
+          int redChroma = rowBuffer[index + 2] - 128;
+          int red = clamp(luma + 1.402 * redChroma);
+          int green = clamp(luma - .344136 * blueChroma - .714136 * redChroma);
+          int blue = clamp(luma + 1.772 * blueChroma);
+          if(componentCount == 4) // YCCK to CMYK.
+          {
+            red = 255 - red;
+            green = 255 - green;
+            blue = 255 - blue;
+          }
+          samples[offset++] = (byte)red;
+          samples[offset++] = (byte)green;
+          samples[offset++] = (byte)blue;
+          for(int componentIndex = 3; componentIndex < componentCount; componentIndex++)
+          {samples[offset++] = (byte)rowBuffer[index + componentIndex];}
+        }
+        else
+        {
+          for(int componentIndex = 0; componentIndex < componentCount; componentIndex++)
+          {samples[offset++] = (byte)rowBuffer[index + componentIndex];}
+        }
+      }
+    }
+    return new Samples(samples, width, height, componentCount, 8);
+  }
+
+  /**
+    Decodes the specified mask image into an alpha channel.
+
+    @param soft Whether the mask is a soft mask (grayscale) rather than a stencil mask (1-bit).
+  */
+  private static int[] decodeMask(
+    PdfDictionary header,
+    PdfDataObject filter,
+    PdfDataObject parameters,
+    byte[] data,
+    boolean soft
+    ) throws IOException
+  {
+    Samples samples = decodeSamples(header, filter, parameters, data, 1, 1);
+    int width = samples.width, height = samples.height;
+    int rowLength = samples.getRowLength();
+    int maxValue = (1 << samples.getBitsPerValue()) - 1;
+
+    // Sample-to-alpha lookup table.
+    int[] alphaTable = new int[maxValue + 1];
+    {
+      PdfArray decodeObject = (PdfArray)header.resolve(PdfName.Decode);
+      float[] decode = (decodeObject != null ? toFloatArray(decodeObject) : new float[]{0, 1});
+      for(int value = 0; value <= maxValue; value++)
+      {
+        float level = decode[0] + value * (decode[1] - decode[0]) / maxValue;
+        alphaTable[value] = (soft
+          ? clamp(level * 255)
+          : (level < .5f ? 255 : 0)); // NOTE: Stencil masks paint where samples are 0 [PDF:1.6:4.8.5].
+      }
+    }
+
+    int[] alpha = new int[width * height];
+    for(int y = 0, offset = 0; y < height; y++)
+    {
+      int rowOffset = y * rowLength;
+      for(int x = 0; x < width; x++)
+      {alpha[offset++] = alphaTable[samples.get(rowOffset, x)];}
+    }
+    return alpha;
+  }
+
+  /**
+    Decodes the image samples applying the stream filters.
+
+    @param componentCount Number of color components of the image color space
+      (<code>0</code> if unknown).
+    @param subsampling Sampling period along both axes (honored by JPEG decoding only).
+  */
+  private static Samples decodeSamples(
+    PdfDictionary header,
+    PdfDataObject filter,
+    PdfDataObject parameters,
+    byte[] data,
+    int componentCount,
+    int subsampling
+    ) throws IOException
+  {
+    List<PdfName> filterNames = new ArrayList<PdfName>();
+    List<PdfDictionary> filterParameters = new ArrayList<PdfDictionary>();
+    {
+      filter = PdfObject.resolve((PdfObject)filter);
+      parameters = PdfObject.resolve((PdfObject)parameters);
+      if(filter instanceof PdfName)
+      {
+        filterNames.add((PdfName)filter);
+        filterParameters.add((PdfDictionary)parameters);
+      }
+      else if(filter instanceof PdfArray)
+      {
+        PdfArray filterArray = (PdfArray)filter;
+        for(int index = 0, length = filterArray.size(); index < length; index++)
+        {
+          filterNames.add((PdfName)filterArray.resolve(index));
+          filterParameters.add(
+            parameters instanceof PdfArray
+              ? (PdfDictionary)PdfObject.resolve(((PdfArray)parameters).resolve(index))
+              : null
+            );
+        }
+      }
+    }
+
+    for(int index = 0, length = filterNames.size(); index < length; index++)
+    {
+      PdfName filterName = filterNames.get(index);
+      if(filterName.equals(PdfName.DCTDecode) || filterName.equals(PdfName.DCT))
+        return decodeJpeg(data, filterParameters.get(index), subsampling);
+
+      Filter filterObject = Filter.get(filterName);
+      if(filterObject == null)
+        throw new NotImplementedException(filterName.getRawValue());
+
+      data = filterObject.decode(data, 0, data.length, filterParameters.get(index));
+    }
+
+    return new Samples(
+      data,
+      getInt(header, PdfName.Width, 0),
+      getInt(header, PdfName.Height, 0),
+      componentCount > 0 ? componentCount : 1,
+      getInt(header, PdfName.BitsPerComponent, 1)
+      );
+  }
+
+  private static int clamp(
+    double value
+    )
+  {return value <= 0 ? 0 : value >= 255 ? 255 : (int)(value + .5);}
+
+  /**
+    Gets the decode array of the specified image.
+  */
+  private static float[] getDecode(
+    PdfDictionary header,
+    ColorConverter converter,
+    Samples samples
+    )
+  {
+    PdfArray decodeObject = (PdfArray)header.resolve(PdfName.Decode);
+    float[] decode = converter.getDefaultDecode(samples.bitsPerComponent);
+    if(decodeObject != null)
+    {
+      for(int index = 0, length = Math.min(decode.length, decodeObject.size()); index < length; index++)
+      {decode[index] = ((PdfNumber<?>)decodeObject.resolve(index)).getFloatValue();}
+    }
+    return decode;
+  }
+
+  private static int getInt(
+    PdfDictionary dictionary,
+    PdfName key,
+    int defaultValue
+    )
+  {
+    PdfDataObject valueObject = dictionary.resolve(key);
+    return valueObject instanceof PdfNumber<?> ? ((PdfNumber<?>)valueObject).getIntValue() : defaultValue;
+  }
+
+  /**
+    Gets the APP14 (Adobe) color transform code of the specified JPEG data.
+
+    @return <code>-1</code>, if undefined.
+  */
+  private static int getJpegColorTransform(
+    byte[] data
+    )
+  {
+    int offset = 2; // Skips SOI marker.
+    while(offset + 4 <= data.length && (data[offset] & 0xff) == 0xff)
+    {
+      int marker = data[offset + 1] & 0xff;
+      if(marker == 0xda) // SOS marker (image data start).
+        break;
+
+      int segmentLength = ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+      if(marker == 0xee // APP14 marker.
+        && segmentLength >= 14
+        && offset + 4 + 12 <= data.length
+        && data[offset + 4] == 'A' && data[offset + 5] == 'd' && data[offset + 6] == 'o'
+        && data[offset + 7] == 'b' && data[offset + 8] == 'e')
+        return data[offset + 4 + 11] & 0xff;
+
+      offset += 2 + segmentLength;
+    }
+    return -1;
+  }
+
+  private static int[] getPixels(
+    BufferedImage image
+    )
+  {return ((DataBufferInt)image.getRaster().getDataBuffer()).getData();}
+
+  private static float[] toFloatArray(
+    PdfArray array
+    )
+  {
+    float[] values = new float[array.size()];
+    for(int index = 0; index < values.length; index++)
+    {values[index] = ((PdfNumber<?>)array.resolve(index)).getFloatValue();}
+    return values;
+  }
+
+  private static int[] toIntArray(
+    PdfArray array,
+    int bitsPerComponent
+    )
+  {
+    int shift = (bitsPerComponent > 8 ? bitsPerComponent - 8 : 0); // NOTE: See Samples.get(int,int).
+    int[] values = new int[array.size()];
+    for(int index = 0; index < values.length; index++)
+    {values[index] = ((PdfNumber<?>)array.resolve(index)).getIntValue() >> shift;}
+    return values;
+  }
+
+  /**
+    Converts the image samples into sRGB pixels.
+  */
+  private static void convert(
+    Samples samples,
+    ColorConverter converter,
+    float[] decode,
+    int[] pixels
+    )
+  {
+    int componentCount = converter.getComponentCount();
+    int rowLength = samples.getRowLength();
+    int maxValue = (1 << samples.getBitsPerValue()) - 1;
+
+    // Sample-to-component lookup tables.
+    float[][] componentTables = new float[componentCount][maxValue + 1];
+    for(int componentIndex = 0; componentIndex < componentCount; componentIndex++)
+    {
+      float min = decode[componentIndex * 2];
+      float delta = (decode[componentIndex * 2 + 1] - min) / maxValue;
+      float[] componentTable = componentTables[componentIndex];
+      for(int value = 0; value <= maxValue; value++)
+      {componentTable[value] = min + value * delta;}
+    }
+
+    if(componentCount == 1) // Single-component samples: direct sample-to-pixel lookup.
+    {
+      int[] pixelTable = new int[maxValue + 1];
+      converter.getRGB(componentTables[0], pixelTable, 0, pixelTable.length);
+      for(int y = 0, offset = 0; y < samples.height; y++)
+      {
+        int rowOffset = y * rowLength;
+        for(int x = 0; x < samples.width; x++)
+        {pixels[offset++] = pixelTable[samples.get(rowOffset, x)];}
+      }
+    }
+    else // Multiple-component samples: row conversion.
+    {
+      float[] rowComponents = new float[samples.width * componentCount];
+      for(int y = 0; y < samples.height; y++)
+      {
+        int rowOffset = y * rowLength;
+        for(int index = 0; index < rowComponents.length;)
+        {
+          for(int componentIndex = 0; componentIndex < componentCount; componentIndex++, index++)
+          {rowComponents[index] = componentTables[componentIndex][samples.get(rowOffset, index)];}
+        }
+        converter.getRGB(rowComponents, pixels, y * samples.width, samples.width);
+      }
+    }
+  }
+
+  // </private>
+  // </interface>
+  // </static>
+
+  // <constructors>
+  private ImageDecoder(
+    )
+  {}
+  // </constructors>
+  // </class>
+}
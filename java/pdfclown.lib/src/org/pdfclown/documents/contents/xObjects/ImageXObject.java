@@ -144,6 +144,16 @@ public final class ImageXObject
       );
   }
 
+  /**
+    Gets whether this image is a stencil mask, that is its samples specify the areas to paint with
+    the current fill color [PDF:1.6:4.8.5].
+
+    @since 0.1.3
+  */
+  public boolean isMask(
+    )
+  {return ImageDecoder.isImageMask(getBaseDataObject().getHeader());}
+
   @Override
   public void setMatrix(
     AffineTransform value
@@ -26,6 +26,7 @@
 package org.pdfclown.documents.functions;
 
 import java.util.ArrayList;
+import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 
@@ -41,15 +42,21 @@ import org.pdfclown.objects.PdfName;
 import org.pdfclown.objects.PdfNumber;
 import org.pdfclown.objects.PdfObjectWrapper;
 import org.pdfclown.objects.PdfReal;
+import org.pdfclown.objects.PdfReference;
 import org.pdfclown.objects.PdfStream;
 import org.pdfclown.util.math.Interval;
 
 /**
   Function [PDF:1.6:3.9].
 
+  <p>Functions are evaluated through a representation prepared once on first use (see
+  {@link #calculate(double[], double[])}): as this makes them considerably more expensive to
+  instantiate than to evaluate, indirect functions are {@link #wrap(PdfDirectObject) shared}
+  across their users.</p>
+
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
   @since 0.1.0
-  @version 0.1.2, 12/28/12
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF12)
 public abstract class Function<TDataObject extends PdfDataObject>
@@ -62,6 +69,115 @@ public abstract class Function<TDataObject extends PdfDataObject>
   */
   protected interface IDefaultIntervalsCallback<T extends Comparable<T>>
   {List<Interval<T>> invoke(List<Interval<T>> intervals);}
+
+  /**
+    Lookup table approximating a 1-input function.
+    <p>It replaces the evaluation of expensive functions (such as calculators and stitchings) with
+    a linear interpolation between samples evenly spaced across the function's domain; it's meant
+    for the massive evaluations needed by shadings and tint transformations.</p>
+  */
+  public static final class LookupTable
+  {
+    // <class>
+    // <dynamic>
+    // <fields>
+    private final double low;
+    private final int outputCount;
+    private final double scale;
+    private final int size;
+    private final double[] values;
+    // </fields>
+
+    // <constructors>
+    private LookupTable(
+      Function<?> function,
+      int size
+      )
+    {
+      if(function.getInputCount() != 1)
+        throw new IllegalArgumentException("function MUST be 1-input.");
+      if(size < 2)
+        throw new IllegalArgumentException("size MUST be at least 2.");
+
+      function.ensurePrepared();
+
+      this.size = size;
+      outputCount = function.outputCount;
+      values = new double[size * outputCount];
+
+      low = function.domainLimits[0];
+      double length = function.domainLimits[1] - low;
+      scale = (length > 0 ? (size - 1) / length : 0);
+
+      double[] inputs = new double[1];
+      double[] outputs = new double[outputCount];
+      for(
+        int index = 0;
+        index < size;
+        index++
+        )
+      {
+        inputs[0] = low + length * index / (size - 1);
+        function.calculate(inputs, outputs);
+        System.arraycopy(outputs, 0, values, index * outputCount, outputCount);
+      }
+    }
+    // </constructors>
+
+    // <interface>
+    // <public>
+    /**
+      Gets the approximate result of the function applied to the specified input value.
+
+      @param input Input value.
+      @param outputs Output values (MUST hold at least {@link #getOutputCount()} items).
+    */
+    public void calculate(
+      double input,
+      double[] outputs
+      )
+    {
+      double position = (input - low) * scale;
+      if(!(position > 0)) // NOTE: NaN falls back to the lower bound.
+      {System.arraycopy(values, 0, outputs, 0, outputCount);}
+      else if(position >= size - 1)
+      {System.arraycopy(values, (size - 1) * outputCount, outputs, 0, outputCount);}
+      else
+      {
+        int index = (int)position;
+        double fraction = position - index;
+        for(
+          int outputIndex = 0,
+            lowIndex = index * outputCount;
+          outputIndex < outputCount;
+          outputIndex++,
+            lowIndex++
+          )
+        {
+          double lowValue = values[lowIndex];
+          outputs[outputIndex] = lowValue + (values[lowIndex + outputCount] - lowValue) * fraction;
+        }
+      }
+    }
+
+    /**
+      Gets the number of output values.
+    */
+    public int getOutputCount(
+      )
+    {return outputCount;}
+
+    /**
+      Gets the number of samples.
+    */
+    public int getSize(
+      )
+    {return size;}
+    // </public>
+    // </interface>
+    // </dynamic>
+    // </class>
+  }
   // </classes>
 
   // <static>
@@ -76,6 +192,8 @@ public abstract class Function<TDataObject extends PdfDataObject>
   // <public>
   /**
     Wraps a function base object into a function object.
+    <p>Indirect functions are retrieved from the document's common cache, so that their prepared
+    representation is shared.</p>
 
     @param baseObject Function base object.
     @return Function object associated to the base object.
@@ -87,6 +205,28 @@ public abstract class Function<TDataObject extends PdfDataObject>
     if(baseObject == null)
       return null;
 
+    if(baseObject instanceof PdfReference)
+    {
+      PdfReference reference = (PdfReference)baseObject;
+      // Has the function been already instantiated?
+      Hashtable<PdfReference,Object> cache = reference.getIndirectObject().getFile().getDocument().cache;
+      synchronized(cache)
+      {
+        Function<?> function = (Function<?>)cache.get(reference);
+        if(function == null)
+        {cache.put(reference, function = createFunction(reference));}
+        return function;
+      }
+    }
+    return createFunction(baseObject);
+  }
+  // </public>
+
+  // <private>
+  private static Function<?> createFunction(
+    PdfDirectObject baseObject
+    )
+  {
     PdfDataObject dataObject = baseObject.resolve();
     PdfDictionary dictionary = getDictionary(dataObject);
     int functionType = ((PdfInteger)dictionary.get(PdfName.FunctionType)).getRawValue();
@@ -104,9 +244,7 @@ public abstract class Function<TDataObject extends PdfDataObject>
         throw new UnsupportedOperationException("Function type " + functionType + " unknown.");
     }
   }
-  // </public>
 
-  // <private>
   /**
     Gets a function's dictionary.
 
@@ -126,6 +264,25 @@ public abstract class Function<TDataObject extends PdfDataObject>
   // </static>
 
   // <dynamic>
+  // <fields>
+  /**
+    Per-thread buffer of clipped input values.
+  */
+  private final ThreadLocal<double[]> clippedInputs = new ThreadLocal<double[]>()
+    {
+      @Override
+      protected double[] initialValue(
+        )
+      {return new double[inputCount];}
+    };
+  private double[] domainLimits;
+  private int inputCount;
+  private LookupTable lookupTable;
+  private int outputCount;
+  private volatile boolean prepared;
+  private double[] rangeLimits;
+  // </fields>
+
   // <constructors>
   protected Function(
     Document context,
@@ -147,9 +304,61 @@ public abstract class Function<TDataObject extends PdfDataObject>
 
     @param inputs Input values.
    */
-  public abstract double[] calculate(
+  public final double[] calculate(
     double[] inputs
-    );
+    )
+  {
+    ensurePrepared();
+
+    double[] outputs = new double[outputCount];
+    calculate(inputs, outputs);
+    return outputs;
+  }
+
+  /**
+    Applies the calculation of this function to the specified input values.
+    <p>This is the allocation-free variant of {@link #calculate(double[])}, meant for massive
+    evaluations: working buffers are kept per thread.</p>
+
+    @param inputs Input values (they are left untouched).
+    @param outputs Output values (MUST hold at least {@link #getOutputCount()} items).
+   */
+  public final void calculate(
+    double[] inputs,
+    double[] outputs
+    )
+  {
+    ensurePrepared();
+
+    // Input clipping.
+    double[] domainLimits = this.domainLimits;
+    for(
+      int index = 0;
+      index < inputCount;
+      index++
+      )
+    {
+      double input = inputs[index];
+      if(input < domainLimits[index * 2] || input > domainLimits[index * 2 + 1])
+      {
+        /*
+          NOTE: Input values are copied only when clipping is actually needed, in order to leave
+          the caller's ones untouched.
+        */
+        double[] clippedInputs = this.clippedInputs.get();
+        System.arraycopy(inputs, 0, clippedInputs, 0, inputCount);
+        inputs = clippedInputs;
+        clip(inputs, domainLimits, inputCount);
+        break;
+      }
+    }
+
+    evaluate(inputs, outputs);
+
+    // Output clipping.
+    if(rangeLimits != null)
+    {clip(outputs, rangeLimits, outputCount);}
+  }
 
   /**
     Gets the result of the calculation applied by this function
@@ -208,6 +417,24 @@ public abstract class Function<TDataObject extends PdfDataObject>
     return rangesObject == null ? 1 : rangesObject.size() / 2;
   }
 
+  /**
+    Gets a lookup table approximating this function.
+    <p>The last retrieved table is retained for reuse.</p>
+
+    @param size Number of samples (the more, the more accurate the approximation).
+    @throws IllegalArgumentException In case this isn't a 1-input function.
+  */
+  public LookupTable getLookupTable(
+    int size
+    )
+  {
+    LookupTable lookupTable = this.lookupTable;
+    if(lookupTable == null
+      || lookupTable.getSize() != size)
+    {this.lookupTable = lookupTable = new LookupTable(this, size);}
+    return lookupTable;
+  }
+
   /**
     Gets the (inclusive) ranges of the output values.
     <p>Output values outside the declared ranges are clipped to the nearest boundary value;
@@ -221,6 +448,17 @@ public abstract class Function<TDataObject extends PdfDataObject>
   // </public>
 
   // <protected>
+  /**
+    Applies the calculation of this function to the specified input values.
+
+    @param inputs Input values (already clipped to the domains).
+    @param outputs Output values (they are clipped to the ranges afterwards).
+  */
+  protected abstract void evaluate(
+    double[] inputs,
+    double[] outputs
+    );
+
   /**
     Gets this function's dictionary.
   */
@@ -263,7 +501,83 @@ public abstract class Function<TDataObject extends PdfDataObject>
     }
     return intervals;
   }
+
+  /**
+    Gets the numbers corresponding to the specified key.
+
+    @return <code>null</code> in case of missing entry.
+  */
+  protected final double[] getNumbers(
+    PdfName key
+    )
+  {
+    PdfArray numbersObject = (PdfArray)getDictionary().resolve(key);
+    if(numbersObject == null)
+      return null;
+
+    double[] numbers = new double[numbersObject.size()];
+    for(
+      int index = 0;
+      index < numbers.length;
+      index++
+      )
+    {numbers[index] = ((PdfNumber<?>)numbersObject.resolve(index)).getDoubleValue();}
+    return numbers;
+  }
+
+  /**
+    Prepares this function for evaluation.
+    <p>It's called once, before the first evaluation, to precompute everything {@link
+    #evaluate(double[], double[])} needs.</p>
+  */
+  protected abstract void prepare(
+    );
   // </protected>
+
+  // <private>
+  private static void clip(
+    double[] values,
+    double[] limits,
+    int count
+    )
+  {
+    for(
+      int index = 0;
+      index < count;
+      index++
+      )
+    {
+      double value = values[index];
+      if(value < limits[index * 2])
+      {values[index] = limits[index * 2];}
+      else if(value > limits[index * 2 + 1])
+      {values[index] = limits[index * 2 + 1];}
+    }
+  }
+
+  private void ensurePrepared(
+    )
+  {
+    if(prepared)
+      return;
+
+    synchronized(this)
+    {
+      if(prepared)
+        return;
+
+      domainLimits = getNumbers(PdfName.Domain);
+      inputCount = domainLimits.length / 2;
+      rangeLimits = getNumbers(PdfName.Range);
+      outputCount = getOutputCount();
+      prepare();
+      /*
+        NOTE: This volatile write publishes the prepared state to concurrent evaluations.
+      */
+      prepared = true;
+    }
+  }
+  // </private>
   // </interface>
   // </dynamic>
   // </class>
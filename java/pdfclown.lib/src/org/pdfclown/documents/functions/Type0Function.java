@@ -44,10 +44,13 @@ import org.pdfclown.util.math.Interval;
   Sampled function using a sequence of sample values to provide an approximation for functions whose
   domains and ranges are bounded [PDF:1.6:3.9.1].
   <p>The samples are organized as an m-dimensional table in which each entry has n components.</p>
+  <p>On preparation, the sample table is unpacked and decoded once into the output ranges, so that
+  each evaluation is reduced to a multilinear interpolation between the table entries surrounding
+  the (encoded) input point.</p>
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
   @since 0.1.0
-  @version 0.1.2, 12/21/12
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF12)
 public final class Type0Function
@@ -92,6 +95,39 @@ public final class Type0Function
   // </classes>
 
   // <dynamic>
+  // <fields>
+  /**
+    Input encoding coefficients (scale and offset for each input dimension).
+  */
+  private double[] encodes;
+  /**
+    Per-thread buffers of the interpolated dimensions (entry offsets and fractions).
+  */
+  private final ThreadLocal<int[]> interpolationStrides = new ThreadLocal<int[]>()
+    {
+      @Override
+      protected int[] initialValue(
+        )
+      {return new int[sampleCounts.length];}
+    };
+  private final ThreadLocal<double[]> interpolationFractions = new ThreadLocal<double[]>()
+    {
+      @Override
+      protected double[] initialValue(
+        )
+      {return new double[sampleCounts.length];}
+    };
+  private int[] sampleCounts;
+  /**
+    Table entry offsets for each input dimension.
+  */
+  private int[] sampleStrides;
+  /**
+    Decoded sample table.
+  */
+  private float[] samples;
+  // </fields>
+
   // <constructors>
   //TODO:implement function creation and sample table management!
 
@@ -103,15 +139,6 @@ public final class Type0Function
 
   // <interface>
   // <public>
-  @Override
-  public double[] calculate(
-    double[] inputs
-    )
-  {
-    // FIXME: Auto-generated method stub
-    return null;
-  }
-
   @Override
   public Type0Function clone(
     Document context
@@ -182,6 +209,191 @@ public final class Type0Function
     return sampleCounts;
   }
   // </public>
+
+  // <protected>
+  /**
+    {@inheritDoc}
+    <p>NOTE: Cubic spline interpolation is approximated by the linear one.</p>
+  */
+  @Override
+  protected void evaluate(
+    double[] inputs,
+    double[] outputs
+    )
+  {
+    int inputCount = sampleCounts.length;
+    int outputCount = sampleStrides[0];
+
+    /*
+      NOTE: Each input value is encoded into the sample table domain, locating the lower entry
+      along its dimension and the fraction toward the higher one; dimensions without fraction don't
+      need interpolation, so they are excluded from the surrounding entries.
+    */
+    int baseOffset = 0;
+    int[] interpolationStrides = this.interpolationStrides.get();
+    double[] interpolationFractions = this.interpolationFractions.get();
+    int interpolationCount = 0;
+    for(
+      int index = 0;
+      index < inputCount;
+      index++
+      )
+    {
+      double position = inputs[index] * encodes[index * 2] + encodes[index * 2 + 1];
+      int lastSampleIndex = sampleCounts[index] - 1;
+      if(!(position > 0))
+      {position = 0;}
+      else if(position > lastSampleIndex)
+      {position = lastSampleIndex;}
+
+      int sampleIndex = (int)position;
+      double fraction = position - sampleIndex;
+      if(sampleIndex == lastSampleIndex) // NOTE: The highest entry has no higher neighbor.
+      {fraction = 0;}
+      baseOffset += sampleIndex * sampleStrides[index + 1];
+      if(fraction > 0)
+      {
+        interpolationStrides[interpolationCount] = sampleStrides[index + 1];
+        interpolationFractions[interpolationCount++] = fraction;
+      }
+    }
+
+    // Multilinear interpolation.
+    for(
+      int outputIndex = 0;
+      outputIndex < outputCount;
+      outputIndex++
+      )
+    {outputs[outputIndex] = 0;}
+    for(
+      int corner = 0,
+        cornerCount = 1 << interpolationCount;
+      corner < cornerCount;
+      corner++
+      )
+    {
+      double weight = 1;
+      int offset = baseOffset;
+      for(
+        int index = 0;
+        index < interpolationCount;
+        index++
+        )
+      {
+        if((corner & (1 << index)) != 0)
+        {
+          weight *= interpolationFractions[index];
+          offset += interpolationStrides[index];
+        }
+        else
+        {weight *= 1 - interpolationFractions[index];}
+      }
+      for(
+        int outputIndex = 0;
+        outputIndex < outputCount;
+        outputIndex++
+        )
+      {outputs[outputIndex] += weight * samples[offset + outputIndex];}
+    }
+  }
+
+  @Override
+  protected void prepare(
+    )
+  {
+    List<Integer> sampleCounts = getSampleCounts();
+    int inputCount = sampleCounts.size();
+    this.sampleCounts = new int[inputCount];
+    double[] ranges = getNumbers(PdfName.Range);
+    int outputCount = ranges.length / 2;
+
+    /*
+      NOTE: Strides are laid out from the outermost dimension (the whole table) to the innermost
+      one (a single entry), the first input varying fastest [PDF:1.6:3.9.1]. sampleStrides[0]
+      holds the entry size, sampleStrides[i + 1] the offset between adjacent entries along the i-th
+      dimension.
+    */
+    sampleStrides = new int[inputCount + 1];
+    sampleStrides[0] = outputCount;
+    int sampleCount = outputCount;
+    for(
+      int index = 0;
+      index < inputCount;
+      index++
+      )
+    {
+      this.sampleCounts[index] = sampleCounts.get(index);
+      sampleStrides[index + 1] = sampleCount;
+      sampleCount *= this.sampleCounts[index];
+    }
+
+    // Input encoding [PDF:1.6:3.9.1].
+    double[] domains = getNumbers(PdfName.Domain);
+    double[] domainEncodes = getNumbers(PdfName.Encode);
+    encodes = new double[inputCount * 2];
+    for(
+      int index = 0;
+      index < inputCount;
+      index++
+      )
+    {
+      double domainLow = domains[index * 2], domainHigh = domains[index * 2 + 1];
+      double encodeLow, encodeHigh;
+      if(domainEncodes == null)
+      {
+        encodeLow = 0;
+        encodeHigh = this.sampleCounts[index] - 1;
+      }
+      else
+      {
+        encodeLow = domainEncodes[index * 2];
+        encodeHigh = domainEncodes[index * 2 + 1];
+      }
+      double scale = (domainHigh > domainLow ? (encodeHigh - encodeLow) / (domainHigh - domainLow) : 0);
+      encodes[index * 2] = scale;
+      encodes[index * 2 + 1] = encodeLow - domainLow * scale;
+    }
+    double[] decodes = getNumbers(PdfName.Decode);
+    if(decodes == null)
+    {decodes = ranges;}
+
+    // Sample table decoding.
+    /*
+      NOTE: Samples are packed as a continuous bit stream, most significant bit first, with no
+      padding between rows.
+    */
+    int bitsPerSample = getSampleBitsCount();
+    double sampleMax = Math.pow(2, bitsPerSample) - 1;
+    byte[] data = getBaseDataObject().getBody().toByteArray();
+    samples = new float[sampleCount];
+    long bitOffset = 0;
+    for(
+      int index = 0;
+      index < sampleCount;
+      index++
+      )
+    {
+      long value = 0;
+      for(
+        int bitCount = bitsPerSample;
+        bitCount > 0;
+        )
+      {
+        int byteIndex = (int)(bitOffset >> 3);
+        int byteValue = (byteIndex < data.length ? data[byteIndex] & 0xff : 0);
+        int bitIndex = (int)(bitOffset & 7);
+        int chunkLength = Math.min(8 - bitIndex, bitCount);
+        value = (value << chunkLength)
+          | ((byteValue >> (8 - bitIndex - chunkLength)) & ((1 << chunkLength) - 1));
+        bitOffset += chunkLength;
+        bitCount -= chunkLength;
+      }
+      int outputIndex = index % outputCount;
+      double decodeLow = decodes[outputIndex * 2], decodeHigh = decodes[outputIndex * 2 + 1];
+      samples[index] = (float)(decodeLow + value * (decodeHigh - decodeLow) / sampleMax);
+    }
+  }
+  // </protected>
   // </interface>
   // </dynamic>
   // </class>
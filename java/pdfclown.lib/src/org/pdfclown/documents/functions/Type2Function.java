@@ -48,7 +48,7 @@ import org.pdfclown.objects.PdfNumber;
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
   @since 0.1.0
-  @version 0.1.2, 12/21/12
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF13)
 public final class Type2Function
@@ -56,6 +56,12 @@ public final class Type2Function
 {
   // <class>
   // <dynamic>
+  // <fields>
+  private double exponent;
+  private double[] highOutputDeltas;
+  private double[] lowOutputs;
+  // </fields>
+
   // <constructors>
   //TODO:implement function creation!
 
@@ -67,15 +73,6 @@ public final class Type2Function
 
   // <interface>
   // <public>
-  @Override
-  public double[] calculate(
-    double[] inputs
-    )
-  {
-    // FIXME: Auto-generated method stub
-    return null;
-  }
-
   @Override
   public Type2Function clone(
     Document context
@@ -122,7 +119,58 @@ public final class Type2Function
   public double getExponent(
     )
   {return ((PdfNumber<?>)getDictionary().get(PdfName.N)).getDoubleValue();}
+
+  @Override
+  public int getOutputCount(
+    )
+  {
+    /*
+      NOTE: Range is optional for exponential functions, so their output dimensionality is defined
+      by their bound output values.
+    */
+    PdfArray lowOutputBoundsObject = (PdfArray)getDictionary().get(PdfName.C0);
+    return lowOutputBoundsObject == null ? 1 : lowOutputBoundsObject.size();
+  }
   // </public>
+
+  // <protected>
+  @Override
+  protected void evaluate(
+    double[] inputs,
+    double[] outputs
+    )
+  {
+    double input = inputs[0];
+    double factor = (exponent == 1 ? input : Math.pow(input, exponent));
+    for(
+      int index = 0,
+        length = lowOutputs.length;
+      index < length;
+      index++
+      )
+    {outputs[index] = lowOutputs[index] + factor * highOutputDeltas[index];}
+  }
+
+  @Override
+  protected void prepare(
+    )
+  {
+    exponent = getExponent();
+    lowOutputs = getNumbers(PdfName.C0);
+    double[] highOutputs = getNumbers(PdfName.C1);
+    if(lowOutputs == null)
+    {lowOutputs = new double[]{0};}
+    if(highOutputs == null)
+    {highOutputs = new double[]{1};}
+    highOutputDeltas = new double[lowOutputs.length];
+    for(
+      int index = 0;
+      index < highOutputDeltas.length;
+      index++
+      )
+    {highOutputDeltas[index] = highOutputs[index] - lowOutputs[index];}
+  }
+  // </protected>
   // </interface>
   // </dynamic>
   // </class>
@@ -44,7 +44,7 @@ import org.pdfclown.util.math.Interval;
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
   @since 0.1.0
-  @version 0.1.2, 12/21/12
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF13)
 public final class Type3Function
@@ -52,6 +52,25 @@ public final class Type3Function
 {
   // <class>
   // <dynamic>
+  // <fields>
+  /**
+    Subdomain limits (domain low, inner bounds, domain high).
+  */
+  private double[] domainLimits;
+  private double[] encodes;
+  /**
+    Per-thread buffer of subdomain function inputs.
+  */
+  private final ThreadLocal<double[]> functionInputs = new ThreadLocal<double[]>()
+    {
+      @Override
+      protected double[] initialValue(
+        )
+      {return new double[1];}
+    };
+  private Function<?>[] functions;
+  // </fields>
+
   // <constructors>
   //TODO:implement function creation!
 
@@ -63,15 +82,6 @@ public final class Type3Function
 
   // <interface>
   // <public>
-  @Override
-  public double[] calculate(
-    double[] inputs
-    )
-  {
-    // FIXME: Auto-generated method stub
-    return null;
-  }
-
   @Override
   public Type3Function clone(
     Document context
@@ -109,7 +119,79 @@ public final class Type3Function
   public Functions getFunctions(
     )
   {return new Functions(getDictionary().get(PdfName.Functions), this);}
+
+  @Override
+  public int getOutputCount(
+    )
+  {
+    PdfArray rangesObject = (PdfArray)getDictionary().get(PdfName.Range);
+    return rangesObject == null ? getFunctions().get(0).getOutputCount() : rangesObject.size() / 2;
+  }
   // </public>
+
+  // <protected>
+  @Override
+  protected void evaluate(
+    double[] inputs,
+    double[] outputs
+    )
+  {
+    double input = inputs[0];
+
+    // Subdomain lookup.
+    /*
+      NOTE: Each subdomain is half-open on its high bound, except the last one, which is closed;
+      when the first bound coincides with the domain's low bound, the first subdomain is closed too
+      [PDF:1.6:3.9.3].
+    */
+    int index = 0;
+    for(
+      int lastIndex = functions.length - 1;
+      index < lastIndex;
+      index++
+      )
+    {
+      if(input < domainLimits[index + 1]
+        || (index == 0 && input == domainLimits[0] && input == domainLimits[1]))
+        break;
+    }
+
+    // Subdomain encoding.
+    double low = domainLimits[index], high = domainLimits[index + 1];
+    double encodeLow = encodes[index * 2], encodeHigh = encodes[index * 2 + 1];
+    double[] functionInputs = this.functionInputs.get();
+    functionInputs[0] = (high > low
+      ? encodeLow + (input - low) * (encodeHigh - encodeLow) / (high - low)
+      : encodeLow);
+    functions[index].calculate(functionInputs, outputs);
+  }
+
+  @Override
+  protected void prepare(
+    )
+  {
+    double[] domains = getNumbers(PdfName.Domain);
+    double[] domainBounds = getNumbers(PdfName.Bounds);
+    domainLimits = new double[domainBounds.length + 2];
+    domainLimits[0] = domains[0];
+    System.arraycopy(domainBounds, 0, domainLimits, 1, domainBounds.length);
+    domainLimits[domainLimits.length - 1] = domains[1];
+
+    encodes = getNumbers(PdfName.Encode);
+
+    /*
+      NOTE: Subfunctions are wrapped once, so that their own prepared state is retained.
+    */
+    Functions functions = getFunctions();
+    this.functions = new Function<?>[functions.size()];
+    for(
+      int index = 0;
+      index < this.functions.length;
+      index++
+      )
+    {this.functions[index] = functions.get(index);}
+  }
+  // </protected>
   // </interface>
   // </dynamic>
   // </class>
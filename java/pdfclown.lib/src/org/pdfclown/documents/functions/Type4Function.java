@@ -25,26 +25,232 @@
 
 package org.pdfclown.documents.functions;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.pdfclown.PDF;
 import org.pdfclown.VersionEnum;
 import org.pdfclown.documents.Document;
 import org.pdfclown.objects.PdfDirectObject;
 import org.pdfclown.objects.PdfStream;
+import org.pdfclown.util.parsers.ParseException;
+import org.pdfclown.util.parsers.PostScriptParser;
 
 /**
   PostScript calculator function represented as a stream containing code written in a small subset
   of the PostScript language [PDF:1.6:3.9.4].
+  <p>On preparation, the calculator code is compiled once into a compact instruction sequence
+  (conditional procedures are flattened into jumps), which is then executed on a primitive operand
+  stack for each evaluation.</p>
 
   @author Stefano Chizzolini (http://www.stefanochizzolini.it)
   @since 0.1.0
-  @version 0.1.2, 12/21/12
+  @version 0.1.3
 */
 @PDF(VersionEnum.PDF13)
 public final class Type4Function
   extends Function<PdfStream>
 {
   // <class>
+  // <static>
+  // <fields>
+  /*
+    NOTE: Instruction codes. Pushes and jumps are followed by their operand (respectively, constant
+    index and relative jump offset).
+  */
+  private static final int Abs = 0;
+  private static final int Add = 1;
+  private static final int And = 2;
+  private static final int Atan = 3;
+  private static final int Bitshift = 4;
+  private static final int Ceiling = 5;
+  private static final int Copy = 6;
+  private static final int Cos = 7;
+  private static final int Cvi = 8;
+  private static final int Cvr = 9;
+  private static final int Div = 10;
+  private static final int Dup = 11;
+  private static final int Eq = 12;
+  private static final int Exch = 13;
+  private static final int Exp = 14;
+  private static final int False = 15;
+  private static final int Floor = 16;
+  private static final int Ge = 17;
+  private static final int Gt = 18;
+  private static final int Idiv = 19;
+  private static final int Index = 20;
+  private static final int Le = 21;
+  private static final int Ln = 22;
+  private static final int Log = 23;
+  private static final int Lt = 24;
+  private static final int Mod = 25;
+  private static final int Mul = 26;
+  private static final int Ne = 27;
+  private static final int Neg = 28;
+  private static final int Not = 29;
+  private static final int Or = 30;
+  private static final int Pop = 31;
+  private static final int Roll = 32;
+  private static final int Round = 33;
+  private static final int Sin = 34;
+  private static final int Sqrt = 35;
+  private static final int Sub = 36;
+  private static final int True = 37;
+  private static final int Truncate = 38;
+  private static final int Xor = 39;
+  private static final int Push = 40;
+  private static final int Jump = 41;
+  private static final int JumpUnless = 42;
+
+  private static final String IfOperator = "if";
+  private static final String IfElseOperator = "ifelse";
+
+  private static final Map<String,Integer> Operators;
+
+  /**
+    Operand stack capacity [PDF:1.6:H.2].
+  */
+  private static final int StackCapacity = 100;
+
+  /**
+    Per-thread operand stacks (values and their boolean flags).
+  */
+  private static final ThreadLocal<double[]> Stacks = new ThreadLocal<double[]>()
+    {
+      @Override
+      protected double[] initialValue(
+        )
+      {return new double[StackCapacity];}
+    };
+  private static final ThreadLocal<boolean[]> BooleanStacks = new ThreadLocal<boolean[]>()
+    {
+      @Override
+      protected boolean[] initialValue(
+        )
+      {return new boolean[StackCapacity];}
+    };
+  // </fields>
+
+  // <constructors>
+  static
+  {
+    Operators = new HashMap<String,Integer>();
+    String[] operatorNames = new String[]
+      {
+        "abs", "add", "and", "atan", "bitshift", "ceiling", "copy", "cos", "cvi", "cvr", "div",
+        "dup", "eq", "exch", "exp", "false", "floor", "ge", "gt", "idiv", "index", "le", "ln", "log",
+        "lt", "mod", "mul", "ne", "neg", "not", "or", "pop", "roll", "round", "sin", "sqrt", "sub",
+        "true", "truncate", "xor"
+      };
+    for(
+      int index = 0;
+      index < operatorNames.length;
+      index++
+      )
+    {Operators.put(operatorNames[index], index);}
+  }
+  // </constructors>
+
+  // <interface>
+  // <private>
+  /**
+    Compiles the procedure the parser is positioned into.
+
+    @param parser Calculator code parser.
+    @param constants Constant pool.
+    @return Procedure instructions.
+  */
+  private static List<Integer> compile(
+    PostScriptParser parser,
+    List<Double> constants
+    )
+  {
+    List<Integer> code = new ArrayList<Integer>();
+    List<List<Integer>> procedures = new ArrayList<List<Integer>>();
+    while(parser.moveNext())
+    {
+      switch(parser.getTokenType())
+      {
+        case ProcedureBegin:
+          procedures.add(compile(parser, constants));
+          break;
+        case ProcedureEnd:
+          return code;
+        case Integer:
+        case Real:
+          code.add(Push);
+          code.add(constants.size());
+          constants.add(((Number)parser.getToken()).doubleValue());
+          break;
+        case Boolean:
+          code.add((Boolean)parser.getToken() ? True : False);
+          break;
+        case Keyword:
+        {
+          String operator = (String)parser.getToken();
+          if(operator.equals(IfOperator))
+          {
+            List<Integer> thenProcedure = procedures.remove(procedures.size() - 1);
+            code.add(JumpUnless); code.add(thenProcedure.size());
+            code.addAll(thenProcedure);
+          }
+          else if(operator.equals(IfElseOperator))
+          {
+            List<Integer> elseProcedure = procedures.remove(procedures.size() - 1);
+            List<Integer> thenProcedure = procedures.remove(procedures.size() - 1);
+            code.add(JumpUnless); code.add(thenProcedure.size() + 2);
+            code.addAll(thenProcedure);
+            code.add(Jump); code.add(elseProcedure.size());
+            code.addAll(elseProcedure);
+          }
+          else
+          {
+            Integer operatorCode = Operators.get(operator);
+            if(operatorCode == null)
+              throw new ParseException("Unknown calculator operator: " + operator, parser.getPosition());
+
+            code.add(operatorCode);
+          }
+        } break;
+        case Comment:
+          break;
+        default:
+          throw new ParseException("Unexpected calculator token: " + parser.getToken(), parser.getPosition());
+      }
+    }
+    throw new ParseException("Unexpected EOF (unterminated calculator procedure).", parser.getPosition());
+  }
+
+  /**
+    Reverses the specified stack segment.
+  */
+  private static void reverse(
+    double[] stack,
+    boolean[] booleans,
+    int begin,
+    int end
+    )
+  {
+    for(end--; begin < end; begin++, end--)
+    {
+      double value = stack[begin]; stack[begin] = stack[end]; stack[end] = value;
+      boolean isBoolean = booleans[begin]; booleans[begin] = booleans[end]; booleans[end] = isBoolean;
+    }
+  }
+  // </private>
+  // </interface>
+  // </static>
+
   // <dynamic>
+  // <fields>
+  private int[] code;
+  private double[] constants;
+  private int outputCount;
+  // </fields>
+
   // <constructors>
   //TODO:implement function creation!
 
@@ -57,20 +263,278 @@ public final class Type4Function
   // <interface>
   // <public>
   @Override
-  public double[] calculate(
-    double[] inputs
+  public Type4Function clone(
+    Document context
+    )
+  {return (Type4Function)super.clone(context);}
+  // </public>
+
+  // <protected>
+  @Override
+  protected void evaluate(
+    double[] inputs,
+    double[] outputs
     )
   {
-    // FIXME: Auto-generated method stub
-    return null;
+    /*
+      NOTE: Booleans are tracked beside the operand values, as some operators (and, not, or, xor)
+      behave differently on them than on integers.
+    */
+    double[] stack = Stacks.get();
+    boolean[] booleans = BooleanStacks.get();
+    int size = inputs.length;
+    System.arraycopy(inputs, 0, stack, 0, size);
+    Arrays.fill(booleans, 0, size, false);
+
+    int[] code = this.code;
+    try
+    {
+      for(
+        int index = 0,
+          length = code.length;
+        index < length;
+        )
+      {
+        switch(code[index++])
+        {
+          case Push:
+            booleans[size] = false;
+            stack[size++] = constants[code[index++]];
+            break;
+          case Jump:
+            index += code[index] + 1;
+            break;
+          case JumpUnless:
+            if(stack[--size] != 0)
+            {index++;}
+            else
+            {index += code[index] + 1;}
+            break;
+          case True:
+          case False:
+            booleans[size] = true;
+            stack[size++] = (code[index - 1] == True ? 1 : 0);
+            break;
+          // Arithmetic operators.
+          case Abs:
+            stack[size - 1] = Math.abs(stack[size - 1]);
+            break;
+          case Add:
+            size--; stack[size - 1] += stack[size];
+            break;
+          case Atan:
+          {
+            size--;
+            double angle = Math.toDegrees(Math.atan2(stack[size - 1], stack[size]));
+            stack[size - 1] = (angle < 0 ? angle + 360 : angle);
+          } break;
+          case Ceiling:
+            stack[size - 1] = Math.ceil(stack[size - 1]);
+            break;
+          case Cos:
+            stack[size - 1] = Math.cos(Math.toRadians(stack[size - 1]));
+            break;
+          case Cvi:
+          case Truncate:
+            stack[size - 1] = (long)stack[size - 1];
+            break;
+          case Cvr:
+            break;
+          case Div:
+            size--; stack[size - 1] /= stack[size];
+            break;
+          case Exp:
+            size--; stack[size - 1] = Math.pow(stack[size - 1], stack[size]);
+            break;
+          case Floor:
+            stack[size - 1] = Math.floor(stack[size - 1]);
+            break;
+          case Idiv:
+            size--; stack[size - 1] = (long)stack[size - 1] / (long)stack[size];
+            break;
+          case Ln:
+            stack[size - 1] = Math.log(stack[size - 1]);
+            break;
+          case Log:
+            stack[size - 1] = Math.log10(stack[size - 1]);
+            break;
+          case Mod:
+            size--; stack[size - 1] = (long)stack[size - 1] % (long)stack[size];
+            break;
+          case Mul:
+            size--; stack[size - 1] *= stack[size];
+            break;
+          case Neg:
+            stack[size - 1] = -stack[size - 1];
+            break;
+          case Round:
+            stack[size - 1] = Math.floor(stack[size - 1] + .5);
+            break;
+          case Sin:
+            stack[size - 1] = Math.sin(Math.toRadians(stack[size - 1]));
+            break;
+          case Sqrt:
+            stack[size - 1] = Math.sqrt(stack[size - 1]);
+            break;
+          case Sub:
+            size--; stack[size - 1] -= stack[size];
+            break;
+          // Relational, boolean and bitwise operators.
+          case And:
+            size--;
+            if(booleans[size])
+            {stack[size - 1] = (stack[size - 1] != 0 && stack[size] != 0 ? 1 : 0);}
+            else
+            {stack[size - 1] = (int)stack[size - 1] & (int)stack[size];}
+            break;
+          case Bitshift:
+          {
+            size--;
+            int shift = (int)stack[size];
+            stack[size - 1] = (shift >= 0 ? (int)stack[size - 1] << shift : (int)stack[size - 1] >>> -shift);
+          } break;
+          case Eq:
+            size--; stack[size - 1] = (stack[size - 1] == stack[size] ? 1 : 0);
+            booleans[size - 1] = true;
+            break;
+          case Ge:
+            size--; stack[size - 1] = (stack[size - 1] >= stack[size] ? 1 : 0);
+            booleans[size - 1] = true;
+            break;
+          case Gt:
+            size--; stack[size - 1] = (stack[size - 1] > stack[size] ? 1 : 0);
+            booleans[size - 1] = true;
+            break;
+          case Le:
+            size--; stack[size - 1] = (stack[size - 1] <= stack[size] ? 1 : 0);
+            booleans[size - 1] = true;
+            break;
+          case Lt:
+            size--; stack[size - 1] = (stack[size - 1] < stack[size] ? 1 : 0);
+            booleans[size - 1] = true;
+            break;
+          case Ne:
+            size--; stack[size - 1] = (stack[size - 1] != stack[size] ? 1 : 0);
+            booleans[size - 1] = true;
+            break;
+          case Not:
+            if(booleans[size - 1])
+            {stack[size - 1] = (stack[size - 1] != 0 ? 0 : 1);}
+            else
+            {stack[size - 1] = ~(int)stack[size - 1];}
+            break;
+          case Or:
+            size--;
+            if(booleans[size])
+            {stack[size - 1] = (stack[size - 1] != 0 || stack[size] != 0 ? 1 : 0);}
+            else
+            {stack[size - 1] = (int)stack[size - 1] | (int)stack[size];}
+            break;
+          case Xor:
+            size--;
+            if(booleans[size])
+            {stack[size - 1] = ((stack[size - 1] != 0) != (stack[size] != 0) ? 1 : 0);}
+            else
+            {stack[size - 1] = (int)stack[size - 1] ^ (int)stack[size];}
+            break;
+          // Stack operators.
+          case Copy:
+          {
+            int count = (int)stack[--size];
+            System.arraycopy(stack, size - count, stack, size, count);
+            System.arraycopy(booleans, size - count, booleans, size, count);
+            size += count;
+          } break;
+          case Dup:
+            booleans[size] = booleans[size - 1];
+            stack[size] = stack[size - 1];
+            size++;
+            break;
+          case Exch:
+          {
+            double value = stack[size - 1]; stack[size - 1] = stack[size - 2]; stack[size - 2] = value;
+            boolean isBoolean = booleans[size - 1]; booleans[size - 1] = booleans[size - 2]; booleans[size - 2] = isBoolean;
+          } break;
+          case Index:
+          {
+            int offset = (int)stack[size - 1];
+            booleans[size - 1] = booleans[size - 2 - offset];
+            stack[size - 1] = stack[size - 2 - offset];
+          } break;
+          case Pop:
+            size--;
+            break;
+          case Roll:
+          {
+            int shift = (int)stack[--size];
+            int count = (int)stack[--size];
+            if(count > 0)
+            {
+              shift %= count;
+              if(shift < 0)
+              {shift += count;}
+              if(shift > 0)
+              {
+                /*
+                  NOTE: Rolling upward by shift positions is a rotation of the topmost count
+                  operands, obtained through three reversals.
+                */
+                int begin = size - count;
+                reverse(stack, booleans, begin, size);
+                reverse(stack, booleans, begin, begin + shift);
+                reverse(stack, booleans, begin + shift, size);
+              }
+            }
+          } break;
+        }
+      }
+    }
+    catch(ArrayIndexOutOfBoundsException e)
+    {throw new RuntimeException("Calculator operand stack overflow or underflow.", e);}
+
+    // Results (the first one is the deepest in the stack).
+    if(size < outputCount)
+      throw new RuntimeException("Calculator results missing (expected: " + outputCount + "; actual: " + size + ").");
+
+    System.arraycopy(stack, size - outputCount, outputs, 0, outputCount);
   }
 
   @Override
-  public Type4Function clone(
-    Document context
+  protected void prepare(
     )
-  {return (Type4Function)super.clone(context);}
-  // </public>
+  {
+    outputCount = getOutputCount();
+
+    PostScriptParser parser = new PostScriptParser(getBaseDataObject().getBody().toByteArray());
+    List<Double> constants = new ArrayList<Double>();
+    List<Integer> code = null;
+    while(parser.moveNext())
+    {
+      if(parser.getTokenType() == PostScriptParser.TokenTypeEnum.ProcedureBegin)
+      {
+        code = compile(parser, constants);
+        break;
+      }
+    }
+    if(code == null)
+      throw new ParseException("Calculator procedure missing.");
+
+    this.code = new int[code.size()];
+    for(
+      int index = 0;
+      index < this.code.length;
+      index++
+      )
+    {this.code[index] = code.get(index);}
+    this.constants = new double[constants.size()];
+    for(
+      int index = 0;
+      index < this.constants.length;
+      index++
+      )
+    {this.constants[index] = constants.get(index);}
+  }
+  // </protected>
   // </interface>
   // </dynamic>
   // </class>
@@ -40,6 +40,7 @@ import org.pdfclown.bytes.IOutputStream;
 import org.pdfclown.bytes.OutputStream;
 import org.pdfclown.documents.Document;
 import org.pdfclown.documents.Document.Configuration.XRefModeEnum;
+import org.pdfclown.documents.contents.fonts.Font;
 import org.pdfclown.objects.Cloner;
 import org.pdfclown.objects.PdfDataObject;
 import org.pdfclown.objects.PdfDictionary;
@@ -398,6 +399,13 @@ public final class File
       {/* NOOP */}
     }
 
+    // Pending font structures (e.g. embedded font subsets).
+    for(Object cacheObject : getDocument().cache.values().toArray())
+    {
+      if(cacheObject instanceof Font)
+      {((Font)cacheObject).flush();}
+    }
+
     Writer writer = Writer.get(this, stream);
     writer.write(mode);
   }
@@ -252,7 +252,7 @@ public final class IndirectObjects
   {throw new UnsupportedOperationException();}
 
   @Override
-  public PdfIndirectObject get(
+  public synchronized PdfIndirectObject get(
     int index
     )
   {
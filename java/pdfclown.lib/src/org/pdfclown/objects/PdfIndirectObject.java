@@ -55,7 +55,7 @@ public class PdfIndirectObject
 
   // <dynamic>
   // <fields>
-  private PdfDataObject dataObject;
+  private volatile PdfDataObject dataObject;
   private File file;
   private boolean original;
   private final PdfReference reference;
@@ -278,26 +278,37 @@ public class PdfIndirectObject
   {
     if(dataObject == null)
     {
-      switch (xrefEntry.getUsage())
+      /*
+        NOTE: Late-bound data objects are parsed through the file parser, which is shared across the
+        whole file: its access MUST be serialized in order to allow concurrent reads (see
+        PageProcessor).
+      */
+      synchronized(file)
       {
-        case Free: // Free entry (no data object at all).
-          break;
-        case InUse: // In-use entry (late-bound data object).
-        {
-          FileParser parser = file.getReader().getParser();
-          // Retrieve the associated data object among the original objects!
-          parser.seek(xrefEntry.getOffset());
-          // Get the indirect data object!
-          dataObject = include(parser.parsePdfObject(4)); // NOTE: Skips the indirect-object header.
-          break;
-        }
-        case InUseCompressed:
+        if(dataObject == null)
         {
-          // Get the object stream where its data object is stored!
-          ObjectStream objectStream = (ObjectStream)file.getIndirectObjects().get(xrefEntry.getStreamNumber()).getDataObject();
-          // Get the indirect data object!
-          dataObject = include(objectStream.get(xrefEntry.getNumber()));
-          break;
+          switch (xrefEntry.getUsage())
+          {
+            case Free: // Free entry (no data object at all).
+              break;
+            case InUse: // In-use entry (late-bound data object).
+            {
+              FileParser parser = file.getReader().getParser();
+              // Retrieve the associated data object among the original objects!
+              parser.seek(xrefEntry.getOffset());
+              // Get the indirect data object!
+              dataObject = include(parser.parsePdfObject(4)); // NOTE: Skips the indirect-object header.
+              break;
+            }
+            case InUseCompressed:
+            {
+              // Get the object stream where its data object is stored!
+              ObjectStream objectStream = (ObjectStream)file.getIndirectObjects().get(xrefEntry.getStreamNumber()).getDataObject();
+              // Get the indirect data object!
+              dataObject = include(objectStream.get(xrefEntry.getNumber()));
+              break;
+            }
+          }
         }
       }
     }
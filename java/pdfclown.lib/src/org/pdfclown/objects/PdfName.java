@@ -71,10 +71,12 @@ public final class PdfName
   public static final PdfName AllOff = new PdfName("AllOff");
   public static final PdfName AllOn = new PdfName("AllOn");
   public static final PdfName AllPages = new PdfName("AllPages");
+  public static final PdfName Alternate = new PdfName("Alternate");
   public static final PdfName AN = new PdfName("AN");
   public static final PdfName Annot = new PdfName("Annot");
   public static final PdfName Annotation = new PdfName("Annotation");
   public static final PdfName Annots = new PdfName("Annots");
+  public static final PdfName AntiAlias = new PdfName("AntiAlias");
   public static final PdfName AnyOff = new PdfName("AnyOff");
   public static final PdfName AnyOn = new PdfName("AnyOn");
   public static final PdfName AP = new PdfName("AP");
@@ -87,6 +89,7 @@ public final class PdfName
   public static final PdfName AsIs = new PdfName("AsIs");
   public static final PdfName Author = new PdfName("Author");
   public static final PdfName B = new PdfName("B");
+  public static final PdfName Background = new PdfName("Background");
   public static final PdfName BaseEncoding = new PdfName("BaseEncoding");
   public static final PdfName BaseFont = new PdfName("BaseFont");
   public static final PdfName BaseState = new PdfName("BaseState");
@@ -96,6 +99,8 @@ public final class PdfName
   public static final PdfName Bead = new PdfName("Bead");
   public static final PdfName BG = new PdfName("BG");
   public static final PdfName BitsPerComponent = new PdfName("BitsPerComponent");
+  public static final PdfName BitsPerCoordinate = new PdfName("BitsPerCoordinate");
+  public static final PdfName BitsPerFlag = new PdfName("BitsPerFlag");
   public static final PdfName BitsPerSample = new PdfName("BitsPerSample");
   public static final PdfName Bl = new PdfName("Bl");
   public static final PdfName BlackPoint = new PdfName("BlackPoint");
@@ -126,6 +131,7 @@ public final class PdfName
   public static final PdfName CCITTFaxDecode = new PdfName("CCITTFaxDecode");
   public static final PdfName CenterWindow = new PdfName("CenterWindow");
   public static final PdfName Ch = new PdfName("Ch");
+  public static final PdfName CharProcs = new PdfName("CharProcs");
   public static final PdfName CIDFontType0 = new PdfName("CIDFontType0");
   public static final PdfName CIDFontType2 = new PdfName("CIDFontType2");
   public static final PdfName CIDSystemInfo = new PdfName("CIDSystemInfo");
@@ -135,16 +141,19 @@ public final class PdfName
   public static final PdfName ClosedArrow = new PdfName("ClosedArrow");
   public static final PdfName CMap = new PdfName("CMap");
   public static final PdfName CMapName = new PdfName("CMapName");
+  public static final PdfName CMYK = new PdfName("CMYK");
   public static final PdfName Color = new PdfName("Color");
   public static final PdfName ColorBurn = new PdfName("ColorBurn");
   public static final PdfName ColorDodge = new PdfName("ColorDodge");
   public static final PdfName Colors = new PdfName("Colors");
+  public static final PdfName ColorTransform = new PdfName("ColorTransform");
   public static final PdfName ColorSpace = new PdfName("ColorSpace");
   public static final PdfName Columns = new PdfName("Columns");
   public static final PdfName Comment = new PdfName("Comment");
   public static final PdfName Confidential = new PdfName("Confidential");
   public static final PdfName Configs = new PdfName("Configs");
   public static final PdfName Contents = new PdfName("Contents");
+  public static final PdfName Coords = new PdfName("Coords");
   public static final PdfName Count = new PdfName("Count");
   public static final PdfName Cover = new PdfName("Cover");
   public static final PdfName CreationDate = new PdfName("CreationDate");
@@ -201,6 +210,7 @@ public final class PdfName
   public static final PdfName Expired = new PdfName("Expired");
   public static final PdfName Export = new PdfName("Export");
   public static final PdfName ExportState = new PdfName("ExportState");
+  public static final PdfName Extend = new PdfName("Extend");
   public static final PdfName Extends = new PdfName("Extends");
   public static final PdfName ExtGState = new PdfName("ExtGState");
   public static final PdfName F = new PdfName("F");
@@ -236,6 +246,7 @@ public final class PdfName
   public static final PdfName FontFile = new PdfName("FontFile");
   public static final PdfName FontFile2 = new PdfName("FontFile2");
   public static final PdfName FontFile3 = new PdfName("FontFile3");
+  public static final PdfName FontMatrix = new PdfName("FontMatrix");
   public static final PdfName FontName = new PdfName("FontName");
   public static final PdfName ForComment = new PdfName("ForComment");
   public static final PdfName Form = new PdfName("Form");
@@ -244,9 +255,11 @@ public final class PdfName
   public static final PdfName FS = new PdfName("FS");
   public static final PdfName FT = new PdfName("FT");
   public static final PdfName FullScreen = new PdfName("FullScreen");
+  public static final PdfName Function = new PdfName("Function");
   public static final PdfName Functions = new PdfName("Functions");
   public static final PdfName FunctionType = new PdfName("FunctionType");
   public static final PdfName FWParams = new PdfName("FWParams");
+  public static final PdfName G = new PdfName("G");
   public static final PdfName Gamma = new PdfName("Gamma");
   public static final PdfName Glitter = new PdfName("Glitter");
   public static final PdfName GoTo = new PdfName("GoTo");
@@ -275,7 +288,9 @@ public final class PdfName
   public static final PdfName IdentityH = new PdfName("Identity-H");
   public static final PdfName IdentityV = new PdfName("Identity-V");
   public static final PdfName IF = new PdfName("IF");
+  public static final PdfName IM = new PdfName("IM");
   public static final PdfName Image = new PdfName("Image");
+  public static final PdfName ImageMask = new PdfName("ImageMask");
   public static final PdfName ImportData = new PdfName("ImportData");
   public static final PdfName Index = new PdfName("Index");
   public static final PdfName Indexed = new PdfName("Indexed");
@@ -307,6 +322,7 @@ public final class PdfName
   public static final PdfName LE = new PdfName("LE");
   public static final PdfName Leading = new PdfName("Leading");
   public static final PdfName Length = new PdfName("Length");
+  public static final PdfName Length1 = new PdfName("Length1");
   public static final PdfName LI = new PdfName("LI");
   public static final PdfName Lighten = new PdfName("Lighten");
   public static final PdfName Limits = new PdfName("Limits");
@@ -324,10 +340,12 @@ public final class PdfName
   public static final PdfName M = new PdfName("M");
   public static final PdfName Mac = new PdfName("Mac");
   public static final PdfName MacRomanEncoding = new PdfName("MacRomanEncoding");
+  public static final PdfName Mask = new PdfName("Mask");
   public static final PdfName Matrix = new PdfName("Matrix");
   public static final PdfName max = new PdfName("max");
   public static final PdfName MaxLen = new PdfName("MaxLen");
   public static final PdfName MCD = new PdfName("MCD");
+  public static final PdfName MCID = new PdfName("MCID");
   public static final PdfName MCS = new PdfName("MCS");
   public static final PdfName MediaBox = new PdfName("MediaBox");
   public static final PdfName MediaClip = new PdfName("MediaClip");
@@ -450,10 +468,12 @@ public final class PdfName
   public static final PdfName Separation = new PdfName("Separation");
   public static final PdfName SetOCGState = new PdfName("SetOCGState");
   public static final PdfName Shading = new PdfName("Shading");
+  public static final PdfName ShadingType = new PdfName("ShadingType");
   public static final PdfName Sig = new PdfName("Sig");
   public static final PdfName SinglePage = new PdfName("SinglePage");
   public static final PdfName Size = new PdfName("Size");
   public static final PdfName Slash = new PdfName("Slash");
+  public static final PdfName SMask = new PdfName("SMask");
   public static final PdfName SoftLight = new PdfName("SoftLight");
   public static final PdfName Sold = new PdfName("Sold");
   public static final PdfName Sound = new PdfName("Sound");
@@ -485,6 +505,7 @@ public final class PdfName
   public static final PdfName TF = new PdfName("TF");
   public static final PdfName Thread = new PdfName("Thread");
   public static final PdfName Threads = new PdfName("Threads");
+  public static final PdfName Thumb = new PdfName("Thumb");
   public static final PdfName TilingType = new PdfName("TilingType");
   public static final PdfName Timespan = new PdfName("Timespan");
   public static final PdfName Title = new PdfName("Title");
@@ -522,6 +543,7 @@ public final class PdfName
   public static final PdfName V = new PdfName("V");
   public static final PdfName Version = new PdfName("Version");
   public static final PdfName Vertices = new PdfName("Vertices");
+  public static final PdfName VerticesPerRow = new PdfName("VerticesPerRow");
   public static final PdfName View = new PdfName("View");
   public static final PdfName ViewerPreferences = new PdfName("ViewerPreferences");
   public static final PdfName ViewState = new PdfName("ViewState");
@@ -160,10 +160,14 @@ public class PdfStream
 
     @param decode Defines whether the body has to be decoded.
   */
-  public IBuffer getBody(
+  public synchronized IBuffer getBody(
     boolean decode
     )
   {
+    /*
+      NOTE: Body resolution and decoding alter the stream state, so they are serialized to keep
+      concurrent reads consistent.
+    */
     if(!bodyResolved)
     {
       /*
@@ -146,7 +146,10 @@ public class Visitor
     PdfStream object,
     Object data
     )
-  {return object;}
+  {
+    object.getHeader().accept(this, data);
+    return object;
+  }
 
   @Override
   public PdfObject visit(
@@ -25,15 +25,81 @@
 
 package org.pdfclown.tools;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.pdfclown.bytes.IBuffer;
+import org.pdfclown.bytes.IOutputStream;
+import org.pdfclown.documents.Document;
+import org.pdfclown.documents.Page;
+import org.pdfclown.documents.contents.Contents;
+import org.pdfclown.documents.contents.IContentContext;
+import org.pdfclown.documents.contents.Resources;
+import org.pdfclown.documents.contents.objects.ApplyExtGState;
+import org.pdfclown.documents.contents.objects.CompositeObject;
+import org.pdfclown.documents.contents.objects.ContentMarker;
+import org.pdfclown.documents.contents.objects.ContentObject;
+import org.pdfclown.documents.contents.objects.GenericOperation;
+import org.pdfclown.documents.contents.objects.IResourceReference;
+import org.pdfclown.documents.contents.objects.InlineImage;
+import org.pdfclown.documents.contents.objects.InlineImageHeader;
+import org.pdfclown.documents.contents.objects.LocalGraphicsState;
+import org.pdfclown.documents.contents.objects.MarkedContent;
+import org.pdfclown.documents.contents.objects.ModifyCTM;
+import org.pdfclown.documents.contents.objects.ModifyClipPath;
+import org.pdfclown.documents.contents.objects.Operation;
+import org.pdfclown.documents.contents.objects.PaintShading;
+import org.pdfclown.documents.contents.objects.PaintXObject;
+import org.pdfclown.documents.contents.objects.Path;
+import org.pdfclown.documents.contents.objects.SetCharSpace;
+import org.pdfclown.documents.contents.objects.SetDeviceCMYKFillColor;
+import org.pdfclown.documents.contents.objects.SetDeviceCMYKStrokeColor;
+import org.pdfclown.documents.contents.objects.SetDeviceGrayFillColor;
+import org.pdfclown.documents.contents.objects.SetDeviceGrayStrokeColor;
+import org.pdfclown.documents.contents.objects.SetDeviceRGBFillColor;
+import org.pdfclown.documents.contents.objects.SetDeviceRGBStrokeColor;
+import org.pdfclown.documents.contents.objects.SetFillColor;
+import org.pdfclown.documents.contents.objects.SetFillColorSpace;
+import org.pdfclown.documents.contents.objects.SetFont;
+import org.pdfclown.documents.contents.objects.SetLineCap;
+import org.pdfclown.documents.contents.objects.SetLineDash;
+import org.pdfclown.documents.contents.objects.SetLineJoin;
+import org.pdfclown.documents.contents.objects.SetLineWidth;
+import org.pdfclown.documents.contents.objects.SetMiterLimit;
+import org.pdfclown.documents.contents.objects.SetStrokeColor;
+import org.pdfclown.documents.contents.objects.SetStrokeColorSpace;
+import org.pdfclown.documents.contents.objects.SetTextLead;
+import org.pdfclown.documents.contents.objects.SetTextMatrix;
+import org.pdfclown.documents.contents.objects.SetTextRenderMode;
+import org.pdfclown.documents.contents.objects.SetTextRise;
+import org.pdfclown.documents.contents.objects.SetTextScale;
+import org.pdfclown.documents.contents.objects.SetWordSpace;
+import org.pdfclown.documents.contents.objects.ShowTextToNextLine;
+import org.pdfclown.documents.contents.objects.Text;
+import org.pdfclown.documents.contents.objects.TranslateTextRelative;
+import org.pdfclown.documents.contents.objects.TranslateTextToNextLine;
+import org.pdfclown.documents.contents.xObjects.FormXObject;
+import org.pdfclown.documents.contents.xObjects.XObject;
 import org.pdfclown.files.File;
 import org.pdfclown.files.IndirectObjects;
 import org.pdfclown.objects.IVisitor;
+import org.pdfclown.objects.PdfArray;
+import org.pdfclown.objects.PdfDataObject;
+import org.pdfclown.objects.PdfDictionary;
+import org.pdfclown.objects.PdfDirectObject;
+import org.pdfclown.objects.PdfInteger;
+import org.pdfclown.objects.PdfName;
 import org.pdfclown.objects.PdfObject;
+import org.pdfclown.objects.PdfReal;
 import org.pdfclown.objects.PdfReference;
+import org.pdfclown.objects.PdfStream;
+import org.pdfclown.objects.PdfString;
 import org.pdfclown.objects.Visitor;
+import org.pdfclown.tokens.Chunk;
+import org.pdfclown.tokens.Keyword;
 
 /**
   Tool to enhance PDF files.
@@ -44,6 +110,71 @@ import org.pdfclown.objects.Visitor;
 */
 public final class Optimizer
 {
+  private static final PdfName[] ResourceTypes = new PdfName[]
+    {
+      PdfName.ColorSpace,
+      PdfName.ExtGState,
+      PdfName.Font,
+      PdfName.Pattern,
+      PdfName.Properties,
+      PdfName.Shading,
+      PdfName.XObject
+    };
+
+  /**
+    Minifies the content streams of the document pages, along with the form XObjects they use.
+
+    @param document Document to optimize.
+    @since 0.1.3
+    @see #minifyContents(IContentContext)
+  */
+  public static void minifyContents(
+    Document document
+    )
+  {
+    Set<PdfReference> formReferences = new HashSet<PdfReference>();
+    for(Page page : document.getPages())
+    {minifyContents(page, formReferences);}
+  }
+
+  /**
+    Minifies the content stream of the specified content context.
+    <p>Minification preserves the rendered appearance, except for the rounding of real numbers
+    (that is, it's visually lossless at the configured real precision):</p>
+    <ul>
+      <li>redundant state changes (line, text and color parameters already in effect, identity
+      transformations, parameters overridden before being used) are removed;</li>
+      <li>empty groups (graphics states, text objects, marked contents without identifier) and
+      text objects which don't show anything are removed;</li>
+      <li>nested graphics states wrapping a single graphics state, or wrapping objects which don't
+      alter the graphics state, are flattened;</li>
+      <li>real numbers are rounded to the {@link File.Configuration#getRealPrecision() configured
+      precision}, integral values being rewritten as integers;</li>
+      <li>multiple content streams are merged into a single one, serialized omitting the separators
+      next to delimiters (for example, <code>[(A)-120(B)]TJ</code>).</li>
+    </ul>
+    <p>Form XObjects used by the content context aren't affected.</p>
+
+    @param contentContext Content context to optimize.
+    @since 0.1.3
+  */
+  public static void minifyContents(
+    IContentContext contentContext
+    )
+  {
+    Contents contents = contentContext.getContents();
+    double scale = Math.pow(10, contents.getFile().getConfiguration().getRealPrecision());
+    minify(contents, new HashMap<String,Operation>(), scale, false);
+    // Merge the content streams, then serialize the contents compactly!
+    contents.flush();
+    PdfDataObject contentsDataObject = contents.getBaseDataObject();
+    IBuffer body = (contentsDataObject instanceof PdfStream
+      ? (PdfStream)contentsDataObject
+      : (PdfStream)((PdfArray)contentsDataObject).resolve(0)).getBody();
+    body.setLength(0);
+    writeCompact(contents, body, contents.getFile());
+  }
+
   /**
     Removes indirect objects which have no reference in the document structure.
 
@@ -85,4 +216,709 @@ public final class Optimizer
       {indirectObjects.remove(objectNumber);}
     }
   }
+
+  /**
+    Removes the resources which aren't used by the document pages, along with the indirect
+    objects which are freed that way.
+    <p>Pages (and the form XObjects they use) are given their own copy of the resource dictionary,
+    restricted to the entries referenced by their contents (form XObjects inheriting their page's
+    resources, and glyph procedures of Type 3 fonts without their own resources, count as part of
+    the page contents); original resource dictionaries are left
+    untouched, as they may be shared with other content contexts. This is typically useful after
+    {@link PageManager#split() splitting} or {@link PageManager#extract(int, int) extracting}
+    pages, whose shared resource dictionaries may carry along fonts and images belonging to the
+    other pages.</p>
+
+    @param document Document to optimize.
+    @since 0.1.3
+  */
+  public static void removeUnusedResources(
+    Document document
+    )
+  {
+    Set<PdfReference> formReferences = new HashSet<PdfReference>();
+    for(Page page : document.getPages())
+    {removeUnusedResources(page, formReferences);}
+
+    removeOrphanedObjects(document.getFile());
+  }
+
+  /**
+    Collects the names of the resources referenced by the specified content objects.
+
+    @param objects Content objects to scan.
+    @param resourcesObject Resources the content objects refer to.
+    @param resourceNames Collected resource names (by resource type).
+    @param scannedFormReferences Form XObjects (and Type 3 fonts) already scanned along with the
+      content objects.
+    @param formReferences Form XObjects whose resources have already been pruned.
+  */
+  private static void collectResourceNames(
+    List<ContentObject> objects,
+    PdfDictionary resourcesObject,
+    Map<PdfName,Set<PdfName>> resourceNames,
+    Set<PdfReference> scannedFormReferences,
+    Set<PdfReference> formReferences
+    )
+  {
+    for(ContentObject object : objects)
+    {
+      if(object instanceof CompositeObject)
+      {
+        CompositeObject compositeObject = (CompositeObject)object;
+        Operation header = compositeObject.getHeader();
+        if(header != null)
+        {collectResourceNames(header, resourcesObject, resourceNames, scannedFormReferences, formReferences);}
+        collectResourceNames(compositeObject.getObjects(), resourcesObject, resourceNames, scannedFormReferences, formReferences);
+      }
+      else if(object instanceof Operation)
+      {collectResourceNames((Operation)object, resourcesObject, resourceNames, scannedFormReferences, formReferences);}
+    }
+  }
+
+  private static void collectResourceNames(
+    Operation operation,
+    PdfDictionary resourcesObject,
+    Map<PdfName,Set<PdfName>> resourceNames,
+    Set<PdfReference> scannedFormReferences,
+    Set<PdfReference> formReferences
+    )
+  {
+    if(operation instanceof IResourceReference<?>)
+    {
+      PdfName name = ((IResourceReference<?>)operation).getName();
+      if(name == null)
+        return;
+
+      PdfName resourceType = getResourceType(operation);
+      resourceNames.get(resourceType).add(name);
+
+      if(resourceType.equals(PdfName.XObject))
+      {
+        PdfDictionary xObjectsObject = (PdfDictionary)resourcesObject.resolve(PdfName.XObject);
+        if(xObjectsObject == null)
+          return;
+
+        XObject xObject = XObject.wrap(xObjectsObject.get(name));
+        if(!(xObject instanceof FormXObject))
+          return;
+
+        FormXObject form = (FormXObject)xObject;
+        PdfDirectObject formBaseObject = form.getBaseObject();
+        if(form.getBaseDataObject().getHeader().containsKey(PdfName.Resources)) // Own resources.
+        {
+          if(!(formBaseObject instanceof PdfReference)
+            || formReferences.add((PdfReference)formBaseObject))
+          {removeUnusedResources(form, formReferences);}
+        }
+        else // Inherited resources (the form contents are part of the current content context).
+        {
+          if(!(formBaseObject instanceof PdfReference)
+            || scannedFormReferences.add((PdfReference)formBaseObject))
+          {collectResourceNames(form.getContents(), resourcesObject, resourceNames, scannedFormReferences, formReferences);}
+        }
+      }
+      else if(resourceType.equals(PdfName.Font))
+      {
+        PdfDictionary fontsObject = (PdfDictionary)resourcesObject.resolve(PdfName.Font);
+        if(fontsObject == null)
+          return;
+
+        PdfDirectObject fontObject = fontsObject.get(name);
+        PdfDataObject fontDataObject = PdfObject.resolve(fontObject);
+        if(!(fontDataObject instanceof PdfDictionary))
+          return;
+
+        PdfDictionary fontDictionary = (PdfDictionary)fontDataObject;
+        if(!PdfName.Type3.equals(fontDictionary.get(PdfName.Subtype))
+          || fontDictionary.containsKey(PdfName.Resources))
+          return;
+
+        /*
+          NOTE: Type 3 fonts without their own resources describe their glyphs through the resources
+          of the content context they are shown in [PDF:1.6:5.5.4], so their glyph procedures are
+          part of the current content context.
+        */
+        if(fontObject instanceof PdfReference
+          && !scannedFormReferences.add((PdfReference)fontObject))
+          return;
+
+        PdfDictionary charProcsObject = (PdfDictionary)fontDictionary.resolve(PdfName.CharProcs);
+        if(charProcsObject == null)
+          return;
+
+        for(PdfDirectObject charProcObject : charProcsObject.values())
+        {
+          // NOTE: Glyph procedures are just scanned, so they need no content context.
+          Contents charProcContents = Contents.wrap(charProcObject, null);
+          if(charProcContents != null)
+          {collectResourceNames(charProcContents, resourcesObject, resourceNames, scannedFormReferences, formReferences);}
+        }
+      }
+    }
+    else if(operation instanceof SetFillColor
+      || operation instanceof SetStrokeColor)
+    {
+      // Pattern color?
+      List<PdfDirectObject> operands = operation.getOperands();
+      if(!operands.isEmpty()
+        && operands.get(operands.size() - 1) instanceof PdfName)
+      {resourceNames.get(PdfName.Pattern).add((PdfName)operands.get(operands.size() - 1));}
+    }
+    else if(operation instanceof InlineImageHeader
+      || operation instanceof GenericOperation)
+    {
+      /*
+        NOTE: Names used by inline images (color spaces) and unknown operations can't be reliably
+        attributed to a resource type, so they are conservatively retained for any type.
+      */
+      List<PdfDirectObject> operands = operation.getOperands();
+      if(operands == null)
+        return;
+
+      for(PdfDirectObject operand : operands)
+      {
+        if(operand instanceof PdfName)
+        {
+          for(Set<PdfName> names : resourceNames.values())
+          {names.add((PdfName)operand);}
+        }
+      }
+    }
+  }
+
+  /**
+    Gets the type of the resource referenced by the specified operation.
+  */
+  private static PdfName getResourceType(
+    Operation operation
+    )
+  {
+    if(operation instanceof SetFont)
+      return PdfName.Font;
+    else if(operation instanceof PaintXObject)
+      return PdfName.XObject;
+    else if(operation instanceof ApplyExtGState)
+      return PdfName.ExtGState;
+    else if(operation instanceof PaintShading)
+      return PdfName.Shading;
+    else if(operation instanceof SetFillColorSpace
+      || operation instanceof SetStrokeColorSpace)
+      return PdfName.ColorSpace;
+    else if(operation instanceof ContentMarker)
+      return PdfName.Properties;
+    else
+      throw new IllegalArgumentException("Unknown resource reference: " + operation.getClass().getName());
+  }
+
+  /**
+    Gets the key of the graphics state parameter set by the specified operation.
+
+    @return <code>null</code>, if the operation doesn't set a single graphics state parameter.
+  */
+  private static String getStateKey(
+    Operation operation
+    )
+  {
+    if(operation instanceof SetFillColor)
+      return SetFillColor.Operator;
+    else if(operation instanceof SetStrokeColor)
+      return SetStrokeColor.Operator;
+    else if(operation instanceof SetFillColorSpace)
+      return SetFillColorSpace.Operator;
+    else if(operation instanceof SetStrokeColorSpace)
+      return SetStrokeColorSpace.Operator;
+    else if(operation instanceof SetFont)
+      return SetFont.Operator;
+    else if(operation instanceof SetLineWidth)
+      return SetLineWidth.Operator;
+    else if(operation instanceof SetLineCap)
+      return SetLineCap.Operator;
+    else if(operation instanceof SetLineJoin)
+      return SetLineJoin.Operator;
+    else if(operation instanceof SetMiterLimit)
+      return SetMiterLimit.Operator;
+    else if(operation instanceof SetLineDash)
+      return SetLineDash.Operator;
+    else if(operation instanceof SetCharSpace)
+      return SetCharSpace.Operator;
+    else if(operation instanceof SetWordSpace)
+      return SetWordSpace.Operator;
+    else if(operation instanceof SetTextScale)
+      return SetTextScale.Operator;
+    else if(operation instanceof SetTextLead)
+      return SetTextLead.Operator;
+    else if(operation instanceof SetTextRise)
+      return SetTextRise.Operator;
+    else if(operation instanceof SetTextRenderMode)
+      return SetTextRenderMode.Operator;
+    else
+      return null;
+  }
+
+  /**
+    Gets whether the specified operation is a device color operation (which implicitly sets the
+    corresponding color space too).
+  */
+  private static boolean isDeviceColor(
+    Operation operation
+    )
+  {
+    return operation instanceof SetDeviceGrayFillColor
+      || operation instanceof SetDeviceRGBFillColor
+      || operation instanceof SetDeviceCMYKFillColor
+      || operation instanceof SetDeviceGrayStrokeColor
+      || operation instanceof SetDeviceRGBStrokeColor
+      || operation instanceof SetDeviceCMYKStrokeColor;
+  }
+
+  /**
+    Gets whether the specified object leaves the graphics state unaltered.
+  */
+  private static boolean isNeutral(
+    ContentObject object
+    )
+  {
+    if(object instanceof Operation)
+      return !isStateOperation((Operation)object)
+        && !(object instanceof GenericOperation)
+        && !(object instanceof ModifyClipPath);
+    else if(object instanceof LocalGraphicsState
+      || object instanceof InlineImage)
+      return true;
+    else if(object instanceof CompositeObject) // Paths, text objects, marked contents and so on.
+    {
+      for(ContentObject child : ((CompositeObject)object).getObjects())
+      {
+        if(!isNeutral(child))
+          return false;
+      }
+      return true;
+    }
+    else
+      return false;
+  }
+
+  /**
+    Gets whether the specified operation just alters the graphics state.
+  */
+  private static boolean isStateOperation(
+    Operation operation
+    )
+  {
+    return getStateKey(operation) != null
+      || operation instanceof ModifyCTM
+      || operation instanceof ApplyExtGState
+      || (operation instanceof TranslateTextRelative
+        && operation.getOperator().equals(TranslateTextRelative.LeadOperator))
+      || (operation instanceof ShowTextToNextLine
+        && operation.getOperands().size() > 1);
+  }
+
+  private static boolean equals(
+    Operation operation1,
+    Operation operation2
+    )
+  {
+    return operation1 != null
+      && operation2 != null
+      && operation1.getOperator().equals(operation2.getOperator())
+      && (operation1.getOperands() == null
+        ? operation2.getOperands() == null || operation2.getOperands().isEmpty()
+        : operation1.getOperands().equals(operation2.getOperands()));
+  }
+
+  /**
+    Minifies the content objects of the specified level.
+
+    @param objects Content objects to minify.
+    @param state Known graphics state parameters (by key), as in effect at the level start.
+    @param scale Real number rounding scale.
+    @param local Whether the objects belong to a local graphics state (so that their final state
+      changes have no effect).
+  */
+  private static void minify(
+    List<ContentObject> objects,
+    Map<String,Operation> state,
+    double scale,
+    boolean local
+    )
+  {
+    for(int index = 0; index < objects.size();)
+    {
+      ContentObject object = objects.get(index);
+      if(object instanceof Operation)
+      {
+        Operation operation = (Operation)object;
+        if(operation.getOperands() != null)
+        {normalize(operation.getOperands(), scale);}
+
+        if(operation instanceof ModifyCTM)
+        {
+          if(((ModifyCTM)operation).getValue().isIdentity())
+          {objects.remove(index); continue;}
+        }
+        else if(operation instanceof ApplyExtGState
+          || operation instanceof GenericOperation)
+        {state.clear();} // NOTE: Its effects on the graphics state are unknown.
+        else if(operation instanceof TranslateTextRelative)
+        {
+          if(operation.getOperator().equals(TranslateTextRelative.LeadOperator))
+          {state.remove(SetTextLead.Operator);}
+        }
+        else if(operation instanceof ShowTextToNextLine)
+        {
+          if(operation.getOperands().size() > 1)
+          {
+            state.remove(SetWordSpace.Operator);
+            state.remove(SetCharSpace.Operator);
+          }
+        }
+        else
+        {
+          String key = getStateKey(operation);
+          if(key != null)
+          {
+            Operation currentOperation = state.get(key);
+            boolean colorSpace = (operation instanceof SetFillColorSpace
+              || operation instanceof SetStrokeColorSpace);
+            String colorKey = (operation instanceof SetFillColorSpace ? SetFillColor.Operator : SetStrokeColor.Operator);
+            /*
+              NOTE: Color space operations reset the current color to its initial value, so they
+              are redundant only in case no color has been set meanwhile (the color space
+              operation itself marks the initial color).
+            */
+            if(equals(currentOperation, operation)
+              && (!colorSpace || state.get(colorKey) == currentOperation))
+            {objects.remove(index); continue;}
+
+            // Overridden parameter?
+            if(index > 0)
+            {
+              ContentObject previousObject = objects.get(index - 1);
+              if(previousObject instanceof Operation
+                && key.equals(getStateKey((Operation)previousObject))
+                && (!isDeviceColor((Operation)previousObject) || isDeviceColor(operation))) // NOTE: Device colors set their color space too.
+              {objects.remove(--index);}
+            }
+
+            state.put(key, operation);
+            if(colorSpace)
+            {state.put(colorKey, operation);}
+            else if(isDeviceColor(operation))
+            {state.remove(operation instanceof SetFillColor ? SetFillColorSpace.Operator : SetStrokeColorSpace.Operator);}
+          }
+        }
+      }
+      else if(object instanceof LocalGraphicsState)
+      {
+        List<ContentObject> children = ((LocalGraphicsState)object).getObjects();
+        minify(children, new HashMap<String,Operation>(state), scale, true);
+        if(children.isEmpty())
+        {objects.remove(index); continue;}
+        else if(children.size() == 1
+          && children.get(0) instanceof LocalGraphicsState)
+        {objects.set(index, children.get(0));}
+        else
+        {
+          boolean neutral = true;
+          for(ContentObject child : children)
+          {
+            if(!isNeutral(child))
+            {neutral = false; break;}
+          }
+          if(neutral)
+          {
+            objects.remove(index);
+            objects.addAll(index, children);
+            index += children.size();
+            continue;
+          }
+        }
+      }
+      else if(object instanceof Text)
+      {
+        List<ContentObject> children = ((Text)object).getObjects();
+        minify(children, state, scale, false);
+        boolean empty = true;
+        for(ContentObject child : children)
+        {
+          if(!(child instanceof SetTextMatrix
+            || child instanceof TranslateTextToNextLine
+            || (child instanceof TranslateTextRelative
+              && ((Operation)child).getOperator().equals(TranslateTextRelative.SimpleOperator))))
+          {empty = false; break;}
+        }
+        if(empty) // Text object without visible effects.
+        {objects.remove(index); continue;}
+      }
+      else if(object instanceof MarkedContent)
+      {
+        MarkedContent markedContent = (MarkedContent)object;
+        List<ContentObject> children = markedContent.getObjects();
+        minify(children, state, scale, false);
+        if(children.isEmpty())
+        {
+          // NOTE: Marked contents referenced by the structure tree (MCID) MUST be preserved.
+          List<PdfDirectObject> headerOperands = markedContent.getHeader().getOperands();
+          if(headerOperands.size() < 2
+            || !(headerOperands.get(1) instanceof PdfDictionary)
+            || !((PdfDictionary)headerOperands.get(1)).containsKey(PdfName.MCID))
+          {objects.remove(index); continue;}
+        }
+      }
+      else if(object instanceof Path)
+      {
+        for(ContentObject child : ((Path)object).getObjects())
+        {
+          if(child instanceof Operation
+            && ((Operation)child).getOperands() != null)
+          {normalize(((Operation)child).getOperands(), scale);}
+        }
+      }
+      index++;
+    }
+
+    if(local)
+    {
+      // Remove final state changes (they are discarded on graphics state restoration)!
+      for(int index = objects.size() - 1; index >= 0; index--)
+      {
+        ContentObject object = objects.get(index);
+        if(!(object instanceof Operation
+          && isStateOperation((Operation)object)))
+          break;
+
+        objects.remove(index);
+      }
+    }
+  }
+
+  private static void minifyContents(
+    IContentContext contentContext,
+    Set<PdfReference> formReferences
+    )
+  {
+    minifyContents(contentContext);
+
+    // Minify the form XObjects used by the content context!
+    Resources resources = contentContext.getResources();
+    if(resources == null
+      || !resources.getBaseDataObject().containsKey(PdfName.XObject))
+      return;
+
+    for(XObject xObject : resources.getXObjects().values())
+    {
+      if(!(xObject instanceof FormXObject))
+        continue;
+
+      PdfDirectObject baseObject = xObject.getBaseObject();
+      if(baseObject instanceof PdfReference
+        && !formReferences.add((PdfReference)baseObject))
+        continue; // Already minified.
+
+      minifyContents((FormXObject)xObject, formReferences);
+    }
+  }
+
+  /**
+    Restricts the resources of the specified content context to the entries referenced by its
+    contents.
+
+    @param contentContext Content context to optimize.
+    @param formReferences Form XObjects whose resources have already been pruned.
+  */
+  private static void removeUnusedResources(
+    IContentContext contentContext,
+    Set<PdfReference> formReferences
+    )
+  {
+    Resources resources = contentContext.getResources();
+    if(resources == null)
+      return;
+
+    PdfDictionary resourcesObject = resources.getBaseDataObject();
+    Map<PdfName,Set<PdfName>> resourceNames = new HashMap<PdfName,Set<PdfName>>();
+    for(PdfName resourceType : ResourceTypes)
+    {resourceNames.put(resourceType, new HashSet<PdfName>());}
+    collectResourceNames(contentContext.getContents(), resourcesObject, resourceNames, new HashSet<PdfReference>(), formReferences);
+
+    // Copy the used resources!
+    /*
+      NOTE: Resource dictionaries are commonly shared among pages, so they are copied rather than
+      altered.
+    */
+    boolean pruned = false;
+    PdfDictionary newResourcesObject = new PdfDictionary();
+    for(Map.Entry<PdfName,PdfDirectObject> entry : resourcesObject.entrySet())
+    {
+      Set<PdfName> names = resourceNames.get(entry.getKey());
+      if(names == null) // Not a named resource type (e.g. ProcSet).
+      {newResourcesObject.put(entry.getKey(), entry.getValue());}
+      else
+      {
+        PdfDataObject itemsObject = PdfObject.resolve(entry.getValue());
+        if(!(itemsObject instanceof PdfDictionary))
+        {pruned = true; continue;}
+
+        PdfDictionary newItemsObject = new PdfDictionary();
+        for(PdfName name : names)
+        {
+          PdfDirectObject itemObject = ((PdfDictionary)itemsObject).get(name);
+          if(itemObject != null)
+          {newItemsObject.put(name, itemObject);}
+        }
+        if(newItemsObject.size() < ((PdfDictionary)itemsObject).size())
+        {pruned = true;}
+        if(!newItemsObject.isEmpty())
+        {newResourcesObject.put(entry.getKey(), newItemsObject);}
+      }
+    }
+    if(!pruned)
+      return;
+
+    Resources newResources = Resources.wrap(newResourcesObject);
+    if(contentContext instanceof Page)
+    {((Page)contentContext).setResources(newResources);}
+    else if(contentContext instanceof FormXObject)
+    {((FormXObject)contentContext).setResources(newResources);}
+  }
+
+  /**
+    Rounds the real numbers among the specified operands.
+  */
+  private static void normalize(
+    List<PdfDirectObject> operands,
+    double scale
+    )
+  {
+    for(int index = 0, length = operands.size(); index < length; index++)
+    {
+      PdfDirectObject operand = operands.get(index);
+      if(operand instanceof PdfReal)
+      {
+        double value = ((PdfReal)operand).getDoubleValue();
+        double roundedValue = Math.round(value * scale) / scale;
+        if(roundedValue == Math.rint(roundedValue)
+          && Math.abs(roundedValue) <= Integer.MAX_VALUE)
+        {operands.set(index, PdfInteger.get((int)roundedValue));}
+        else if(roundedValue != value)
+        {operands.set(index, PdfReal.get(roundedValue));}
+      }
+      else if(operand instanceof PdfArray)
+      {normalize((PdfArray)operand, scale);}
+    }
+  }
+
+  /**
+    Gets whether a separator is required between the serializations of the given direct objects.
+    <p>Separators can be omitted whenever one of the adjacent sides is a delimiter.</p>
+
+    @param leftObject Object preceding the separator.
+    @param rightObject Object following the separator (<code>null</code> for an operator).
+  */
+  private static boolean isSeparatorRequired(
+    PdfDirectObject leftObject,
+    PdfDirectObject rightObject
+    )
+  {
+    return !(leftObject instanceof PdfString
+        || leftObject instanceof PdfArray
+        || leftObject instanceof PdfDictionary)
+      && !(rightObject instanceof PdfString
+        || rightObject instanceof PdfArray
+        || rightObject instanceof PdfDictionary
+        || rightObject instanceof PdfName);
+  }
+
+  /**
+    Serializes the specified content objects omitting the separators next to delimiters.
+  */
+  private static void writeCompact(
+    List<ContentObject> objects,
+    IOutputStream stream,
+    File context
+    )
+  {
+    for(ContentObject object : objects)
+    {
+      if(object instanceof Operation)
+      {writeCompact((Operation)object, stream, context);}
+      else if(object instanceof LocalGraphicsState)
+      {
+        stream.write(LocalGraphicsState.BeginOperator); stream.write(Chunk.LineFeed);
+        writeCompact(((LocalGraphicsState)object).getObjects(), stream, context);
+        stream.write(LocalGraphicsState.EndOperator); stream.write(Chunk.LineFeed);
+      }
+      else if(object instanceof Text)
+      {
+        stream.write(Text.BeginOperator); stream.write(Chunk.LineFeed);
+        writeCompact(((Text)object).getObjects(), stream, context);
+        stream.write(Text.EndOperator); stream.write(Chunk.LineFeed);
+      }
+      else if(object instanceof MarkedContent)
+      {
+        MarkedContent markedContent = (MarkedContent)object;
+        writeCompact(markedContent.getHeader(), stream, context);
+        writeCompact(markedContent.getObjects(), stream, context);
+        stream.write(MarkedContent.EndOperator); stream.write(Chunk.LineFeed);
+      }
+      else if(object instanceof CompositeObject
+        && !(object instanceof InlineImage))
+      {writeCompact(((CompositeObject)object).getObjects(), stream, context);}
+      else
+      {object.writeTo(stream, context.getDocument());}
+    }
+  }
+
+  private static void writeCompact(
+    Operation operation,
+    IOutputStream stream,
+    File context
+    )
+  {
+    PdfDirectObject previousOperand = null;
+    List<PdfDirectObject> operands = operation.getOperands();
+    if(operands != null)
+    {
+      for(PdfDirectObject operand : operands)
+      {
+        if(previousOperand != null
+          && isSeparatorRequired(previousOperand, operand))
+        {stream.write(Chunk.Space);}
+        writeCompact(operand, stream, context);
+        previousOperand = operand;
+      }
+    }
+    if(previousOperand != null
+      && isSeparatorRequired(previousOperand, null))
+    {stream.write(Chunk.Space);}
+    stream.write(operation.getOperator()); stream.write(Chunk.LineFeed);
+  }
+
+  private static void writeCompact(
+    PdfDirectObject object,
+    IOutputStream stream,
+    File context
+    )
+  {
+    if(object instanceof PdfArray)
+    {
+      stream.write(Keyword.BeginArray);
+      PdfDirectObject previousItem = null;
+      for(PdfDirectObject item : (PdfArray)object)
+      {
+        if(previousItem != null
+          && isSeparatorRequired(previousItem, item))
+        {stream.write(Chunk.Space);}
+        writeCompact(item, stream, context);
+        previousItem = item;
+      }
+      stream.write(Keyword.EndArray);
+    }
+    else if(object == null)
+    {stream.write(Keyword.Null);}
+    else
+    {object.writeTo(stream, context);}
+  }
 }
@@ -0,0 +1,436 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.tools;
+
+import java.awt.geom.Dimension2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.pdfclown.documents.Document;
+import org.pdfclown.documents.Page;
+import org.pdfclown.documents.contents.ContentScanner;
+import org.pdfclown.documents.contents.ITextString;
+import org.pdfclown.util.math.geom.Dimension;
+
+/**
+  Tool for processing the pages of a document in parallel.
+  <p>Each page is processed by a single worker thread, which owns all the per-page state (content
+  objects, {@link ContentScanner scanners}, extracted text and so on). Shared document structures
+  are lazily loaded under synchronization: indirect objects are parsed under the file lock, stream
+  bodies are decoded and parsed (content streams, font files, character maps) under the lock of
+  their own stream, and fonts are loaded under the lock of their own dictionary. Pages can
+  therefore be safely processed at the same time, as long as the document isn't modified meanwhile
+  and custom tasks read shared stream bodies either copying them (see {@link
+  org.pdfclown.bytes.IBuffer#toByteArray()}) or holding the lock of their stream.</p>
+  <p>Failures are isolated per page: an exception thrown while processing a page is reported in its
+  {@link Result result} without affecting the others.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+public final class PageProcessor
+{
+  // <class>
+  // <classes>
+  /**
+    Page processing listener.
+  */
+  public interface IListener<T>
+  {
+    /**
+      Notifies the completion of a page.
+      <p>Notifications are delivered on the thread which started the processing, in completion
+      order.</p>
+
+      @param result Page processing result.
+    */
+    void onResult(
+      Result<T> result
+      );
+  }
+
+  /**
+    Page processing task.
+    <p>Implementations MUST NOT share mutable state across pages, as the same task is invoked
+    concurrently on distinct pages.</p>
+  */
+  public interface ITask<T>
+  {
+    /**
+      Processes the specified page.
+
+      @param page Page to process.
+      @return Processing outcome.
+    */
+    T process(
+      Page page
+      ) throws Exception;
+  }
+
+  /**
+    Page processing result.
+  */
+  public static final class Result<T>
+  {
+    private final Throwable error;
+    private final Page page;
+    private final int pageIndex;
+    private final T value;
+
+    private Result(
+      Page page,
+      int pageIndex,
+      T value,
+      Throwable error
+      )
+    {
+      this.page = page;
+      this.pageIndex = pageIndex;
+      this.value = value;
+      this.error = error;
+    }
+
+    /**
+      Gets the error which made the page processing fail.
+
+      @return <code>null</code> in case of success.
+    */
+    public Throwable getError(
+      )
+    {return error;}
+
+    /**
+      Gets the processed page.
+    */
+    public Page getPage(
+      )
+    {return page;}
+
+    /**
+      Gets the index of the processed page.
+    */
+    public int getPageIndex(
+      )
+    {return pageIndex;}
+
+    /**
+      Gets the processing outcome.
+
+      @return <code>null</code> in case of failure.
+    */
+    public T getValue(
+      )
+    {return value;}
+
+    /**
+      Gets whether the page was successfully processed.
+    */
+    public boolean isSucceeded(
+      )
+    {return error == null;}
+  }
+  // </classes>
+
+  // <dynamic>
+  // <fields>
+  private Document document;
+  private ExecutorService executor;
+  // </fields>
+
+  // <constructors>
+  public PageProcessor(
+    Document document
+    )
+  {this(document, null);}
+
+  /**
+    @param document Document whose pages have to be processed.
+    @param executor Executor to run page tasks on; <code>null</code> to use a transient thread pool
+      sized after the available processors.
+  */
+  public PageProcessor(
+    Document document,
+    ExecutorService executor
+    )
+  {
+    setDocument(document);
+    setExecutor(executor);
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Extracts the text of each page in the document.
+
+    @param extractor Text extractor to apply (its configuration MUST NOT be altered during the
+      processing).
+    @return Page results, in page order.
+  */
+  public List<Result<Map<Rectangle2D,List<ITextString>>>> extract(
+    final TextExtractor extractor
+    )
+  {
+    return process(
+      new ITask<Map<Rectangle2D,List<ITextString>>>()
+      {
+        @Override
+        public Map<Rectangle2D,List<ITextString>> process(
+          Page page
+          )
+        {return extractor.extract(page);}
+      }
+      );
+  }
+
+  /**
+    Gets the document whose pages have to be processed.
+  */
+  public Document getDocument(
+    )
+  {return document;}
+
+  /**
+    Gets the executor page tasks are run on.
+
+    @return <code>null</code> in case of transient thread pool.
+  */
+  public ExecutorService getExecutor(
+    )
+  {return executor;}
+
+  /**
+    Processes all the pages in the document.
+
+    @param task Task to apply to each page.
+    @return Page results, in page order.
+  */
+  public <T> List<Result<T>> process(
+    ITask<T> task
+    )
+  {return process(task, true);}
+
+  /**
+    Processes all the pages in the document.
+
+    @param task Task to apply to each page.
+    @param ordered Whether results have to be sorted in page order (otherwise, they are sorted in
+      completion order).
+    @return Page results.
+  */
+  public <T> List<Result<T>> process(
+    ITask<T> task,
+    boolean ordered
+    )
+  {return process(task, 0, document.getNumberOfPages(), ordered);}
+
+  /**
+    Processes the specified page range.
+
+    @param task Task to apply to each page.
+    @param startIndex Index of the first page to process (inclusive).
+    @param endIndex Index of the last page to process (exclusive).
+    @param ordered Whether results have to be sorted in page order (otherwise, they are sorted in
+      completion order).
+    @return Page results.
+  */
+  public <T> List<Result<T>> process(
+    ITask<T> task,
+    final int startIndex,
+    int endIndex,
+    final boolean ordered
+    )
+  {
+    final List<Result<T>> results = new ArrayList<Result<T>>(
+      Collections.<Result<T>>nCopies(endIndex - startIndex, null)
+      );
+    process(
+      task,
+      startIndex,
+      endIndex,
+      new IListener<T>()
+      {
+        int index = 0;
+
+        @Override
+        public void onResult(
+          Result<T> result
+          )
+        {results.set(ordered ? result.getPageIndex() - startIndex : index++, result);}
+      }
+      );
+    return results;
+  }
+
+  /**
+    Processes the specified page range, notifying the results as soon as they are available.
+
+    @param task Task to apply to each page.
+    @param startIndex Index of the first page to process (inclusive).
+    @param endIndex Index of the last page to process (exclusive).
+    @param listener Result listener.
+  */
+  public <T> void process(
+    final ITask<T> task,
+    int startIndex,
+    int endIndex,
+    IListener<T> listener
+    )
+  {
+    if(startIndex < 0 || endIndex > document.getNumberOfPages() || startIndex > endIndex)
+      throw new IndexOutOfBoundsException();
+
+    // Collect the pages to process!
+    /*
+      NOTE: Page tree traversal happens on the current thread, so that workers just receive their
+      own page.
+    */
+    List<Page> pages = new ArrayList<Page>(endIndex - startIndex);
+    {
+      Iterator<Page> pageIterator = document.getPages().iterator();
+      for(int index = 0; index < endIndex; index++)
+      {
+        Page page = pageIterator.next();
+        if(index >= startIndex)
+        {pages.add(page);}
+      }
+    }
+
+    ExecutorService executor = this.executor;
+    if(executor == null)
+    {executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());}
+    try
+    {
+      CompletionService<Result<T>> completionService = new ExecutorCompletionService<Result<T>>(executor);
+      List<Future<Result<T>>> futures = new ArrayList<Future<Result<T>>>(pages.size());
+      {
+        int pageIndex = startIndex;
+        for(final Page page : pages)
+        {
+          final int index = pageIndex++;
+          futures.add(
+            completionService.submit(
+              new Callable<Result<T>>()
+              {
+                @Override
+                public Result<T> call(
+                  )
+                {
+                  try
+                  {return new Result<T>(page, index, task.process(page), null);}
+                  catch(Throwable e)
+                  {return new Result<T>(page, index, null, e);}
+                }
+              }
+              )
+            );
+        }
+      }
+
+      try
+      {
+        for(int count = pages.size(); count > 0; count--)
+        {listener.onResult(completionService.take().get());}
+      }
+      catch(InterruptedException e)
+      {
+        for(Future<Result<T>> future : futures)
+        {future.cancel(true);}
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      }
+      catch(ExecutionException e)
+      {throw new RuntimeException(e.getCause());} // NOTE: It should never happen (tasks trap their errors).
+    }
+    finally
+    {
+      if(executor != this.executor)
+      {executor.shutdown();}
+    }
+  }
+
+  /**
+    Renders each page in the document.
+
+    @param renderer Renderer to apply.
+    @param scale Scale factor from page size (user-space units) to image size (pixels).
+    @return Page results, in page order.
+  */
+  public List<Result<BufferedImage>> render(
+    final Renderer renderer,
+    final double scale
+    )
+  {
+    return process(
+      new ITask<BufferedImage>()
+      {
+        @Override
+        public BufferedImage process(
+          Page page
+          )
+        {
+          Dimension2D pageSize = page.getSize();
+          return renderer.render(
+            page,
+            new Dimension(pageSize.getWidth() * scale, pageSize.getHeight() * scale)
+            );
+        }
+      }
+      );
+  }
+
+  /**
+    @see #getDocument()
+  */
+  public void setDocument(
+    Document value
+    )
+  {document = value;}
+
+  /**
+    @see #getExecutor()
+  */
+  public void setExecutor(
+    ExecutorService value
+    )
+  {executor = value;}
+  // </public>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
@@ -25,12 +25,21 @@
 
 package org.pdfclown.tools;
 
+import java.awt.geom.AffineTransform;
+
+import org.pdfclown.bytes.IBuffer;
+import org.pdfclown.documents.Document;
 import org.pdfclown.documents.Page;
 import org.pdfclown.documents.contents.ContentScanner;
 import org.pdfclown.documents.contents.Contents;
+import org.pdfclown.documents.contents.XObjectResources;
 import org.pdfclown.documents.contents.composition.PrimitiveComposer;
+import org.pdfclown.documents.contents.objects.LocalGraphicsState;
+import org.pdfclown.documents.contents.objects.ModifyCTM;
+import org.pdfclown.documents.contents.objects.PaintXObject;
 import org.pdfclown.documents.contents.objects.RestoreGraphicsState;
 import org.pdfclown.documents.contents.objects.SaveGraphicsState;
+import org.pdfclown.documents.contents.xObjects.FormXObject;
 import org.pdfclown.objects.PdfArray;
 import org.pdfclown.objects.PdfDataObject;
 import org.pdfclown.objects.PdfDirectObject;
@@ -47,31 +56,128 @@ import org.pdfclown.objects.PdfStream;
 public final class PageStamper
 {
   // <class>
-  // <dynamic>
-  // <fields>
-  private Page page;
+  // <static>
+  // <interface>
+  // <public>
+  /**
+    Stamps an external form onto the pages within the specified range.
 
-  private PrimitiveComposer background;
-  private PrimitiveComposer foreground;
-  // </fields>
+    @param document Document to stamp.
+    @param startIndex Index of the first page to stamp (inclusive).
+    @param endIndex Index of the last page to stamp (exclusive).
+    @param stamp External form to stamp.
+    @param matrix Transformation from form space to page user space (<code>null</code> for
+      identity).
+    @param foreground Whether the stamp has to be put over the existing page contents (otherwise,
+      under them).
+    @see #stamp(Iterable, FormXObject, AffineTransform, boolean)
+    @since 0.1.3
+  */
+  public static void stamp(
+    Document document,
+    int startIndex,
+    int endIndex,
+    FormXObject stamp,
+    AffineTransform matrix,
+    boolean foreground
+    )
+  {stamp(document.getPages().subList(startIndex, endIndex), stamp, matrix, foreground);}
 
-  // <constructors>
-  public PageStamper(
+  /**
+    Stamps an external form onto the specified pages.
+    <p>Contrary to page-by-page stamping, the stamp is drawn once (typically composing the form
+    through a {@link PrimitiveComposer}) and shared by all the pages: each page just gets a
+    reference to it in its resources and a tiny invocation chunk (<code>q cm /Fx Do Q</code>) in its
+    content stream, so that output size and stamping time are nearly independent of the stamp
+    complexity.</p>
+
+    @param pages Pages to stamp.
+    @param stamp External form to stamp.
+    @param matrix Transformation from form space to page user space (<code>null</code> for
+      identity).
+    @param foreground Whether the stamp has to be put over the existing page contents (otherwise,
+      under them).
+    @since 0.1.3
+  */
+  public static void stamp(
+    Iterable<Page> pages,
+    FormXObject stamp,
+    AffineTransform matrix,
+    boolean foreground
     )
-  {this(null);}
+  {
+    PdfDirectObject stampObject = stamp.getBaseObject();
+    ModifyCTM stampMatrix = (matrix != null && !matrix.isIdentity() ? new ModifyCTM(matrix) : null);
+    for(Page page : pages)
+    {
+      Document context = page.getDocument();
 
-  public PageStamper(
+      // Ensure the stamp is available in the page resources!
+      PdfName stampName;
+      {
+        XObjectResources xObjects = page.getResources().getXObjects();
+        stampName = xObjects.getBaseDataObject().getKey(stampObject);
+        if(stampName == null)
+        {
+          int stampIndex = 0;
+          do
+          {stampName = new PdfName("Stamp" + (++stampIndex));}
+          while(xObjects.containsKey(stampName));
+          xObjects.put(stampName, stamp);
+        }
+      }
+
+      // Stamp invocation.
+      LocalGraphicsState stampInvocation = new LocalGraphicsState();
+      {
+        if(stampMatrix != null)
+        {stampInvocation.getObjects().add(stampMatrix);}
+        stampInvocation.getObjects().add(new PaintXObject(stampName));
+      }
+
+      PdfArray streams = getContentStreams(page);
+      if(foreground)
+      {
+        /*
+          NOTE: Existing contents are isolated into a local graphics state, so that the stamp is
+          unaffected by their possibly unbalanced graphics state changes.
+        */
+        IBuffer prefixBuffer = addContentStream(streams, 0, page);
+        SaveGraphicsState.Value.writeTo(prefixBuffer, context);
+        IBuffer suffixBuffer = addContentStream(streams, streams.size(), page);
+        RestoreGraphicsState.Value.writeTo(suffixBuffer, context);
+        stampInvocation.writeTo(suffixBuffer, context);
+      }
+      else
+      {stampInvocation.writeTo(addContentStream(streams, 0, page), context);}
+    }
+  }
+  // </public>
+
+  // <private>
+  /**
+    Inserts a new data stream into the content stream of the specified page.
+
+    @return Body of the new data stream.
+  */
+  private static IBuffer addContentStream(
+    PdfArray streams,
+    int index,
     Page page
     )
-  {setPage(page);}
-  // </constructors>
+  {
+    PdfStream stream = new PdfStream();
+    streams.add(index, page.getFile().register(stream));
+    return stream.getBody();
+  }
 
-  // <interface>
-  // <public>
-  public void flush(
+  /**
+    Gets the content stream of the specified page as an array of data streams.
+  */
+  private static PdfArray getContentStreams(
+    Page page
     )
   {
-    // Ensuring that there's room for the new content chunks inside the page's content stream...
     /*
       NOTE: This specialized stamper is optimized for content insertion without modifying
       existing content representations, leveraging the peculiar feature of page structures
@@ -92,9 +198,46 @@ public final class PageStamper
         streams.add(contentsObject);
         page.getBaseDataObject().put(PdfName.Contents,streams);
       }
+      else if(contentsDataObject == null)
+      {
+        streams = new PdfArray();
+        page.getBaseDataObject().put(PdfName.Contents,streams);
+      }
       else
       {streams = (PdfArray)contentsDataObject;}
     }
+    return streams;
+  }
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  private Page page;
+
+  private PrimitiveComposer background;
+  private PrimitiveComposer foreground;
+  // </fields>
+
+  // <constructors>
+  public PageStamper(
+    )
+  {this(null);}
+
+  public PageStamper(
+    Page page
+    )
+  {setPage(page);}
+  // </constructors>
+
+  // <interface>
+  // <public>
+  public void flush(
+    )
+  {
+    // Ensuring that there's room for the new content chunks inside the page's content stream...
+    PdfArray streams = getContentStreams(page);
 
     // Background.
     // Serialize the content!
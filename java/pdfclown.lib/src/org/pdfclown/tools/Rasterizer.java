@@ -0,0 +1,432 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.tools;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Dimension2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import javax.imageio.ImageIO;
+
+import org.pdfclown.documents.Document;
+import org.pdfclown.documents.Page;
+import org.pdfclown.util.math.geom.Dimension;
+
+/**
+  Tool for rasterizing the pages of a document in batch.
+  <p>Pages are rendered in parallel (see {@link PageProcessor}) at a given resolution, each into a
+  raster which is handed to a {@link ISink sink} (for example, an {@link ImageFileSink image file
+  writer}) and then recycled for the next pages: no image is allocated per page, and the overall
+  footprint of the rasters is kept within a {@link #getMaxMemory() maximum size}, throttling the
+  parallelism if needed. Rasters are released as soon as the rasterization ends, so that idle
+  instances don't retain memory. No display is required (headless environments are supported).
+  </p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+public final class Rasterizer
+{
+  // <class>
+  // <classes>
+  /**
+    Page raster consumer.
+  */
+  public interface ISink
+  {
+    /**
+      Consumes the raster of the specified page.
+      <p>This method is called concurrently by the worker threads, in completion order. The raster
+      is an sRGB image of type {@link BufferedImage#TYPE_INT_RGB} (whose raw pixels are available
+      through its {@link java.awt.image.DataBufferInt data buffer}); as it is recycled as soon as
+      this method returns, it MUST NOT be retained.</p>
+
+      @param page Rasterized page.
+      @param pageIndex Index of the rasterized page.
+      @param raster Page raster.
+    */
+    void write(
+      Page page,
+      int pageIndex,
+      BufferedImage raster
+      ) throws Exception;
+  }
+
+  /**
+    Sink writing each page raster to its own image file.
+  */
+  public static final class ImageFileSink
+    implements ISink
+  {
+    private final File directory;
+    private final String fileNamePattern;
+    private final String formatName;
+
+    /**
+      @param directory Directory to write the image files into.
+      @param fileNamePattern {@link String#format(String, Object...) Format} of the image file names,
+        applied to the page number (for example, <code>"page-%03d.png"</code>).
+      @param formatName Informal name of the image file format (for example, <code>"png"</code> or
+        <code>"tiff"</code>), as known to {@link ImageIO}.
+      @throws IllegalArgumentException If no image writer supports the format (for example, TIFF
+        requires either Java 9 or a third-party plugin).
+    */
+    public ImageFileSink(
+      File directory,
+      String fileNamePattern,
+      String formatName
+      )
+    {
+      if(!ImageIO.getImageWritersByFormatName(formatName).hasNext())
+        throw new IllegalArgumentException("Unsupported image format: " + formatName);
+
+      this.directory = directory;
+      this.fileNamePattern = fileNamePattern;
+      this.formatName = formatName;
+    }
+
+    /**
+      Gets the image file corresponding to the specified page.
+
+      @param pageIndex Page index.
+    */
+    public File getFile(
+      int pageIndex
+      )
+    {return new File(directory, String.format(fileNamePattern, pageIndex + 1));}
+
+    @Override
+    public void write(
+      Page page,
+      int pageIndex,
+      BufferedImage raster
+      ) throws IOException
+    {
+      File file = getFile(pageIndex);
+      if(!ImageIO.write(raster, formatName, file))
+        throw new IOException("No image writer available for " + formatName + " format (" + file + ").");
+    }
+  }
+  // </classes>
+
+  // <dynamic>
+  // <fields>
+  private ExecutorService executor;
+  private long maxMemory = Runtime.getRuntime().maxMemory() / 4;
+  private double resolution = 72;
+
+  /**
+    Rasters available for reuse.
+  */
+  private final List<BufferedImage> freeRasters = new LinkedList<BufferedImage>();
+  /**
+    Footprint (in bytes) of the allocated rasters (either in use or available for reuse).
+  */
+  private long rasterMemory;
+  // </fields>
+
+  // <constructors>
+  public Rasterizer(
+    )
+  {this(null);}
+
+  /**
+    @param executor Executor to rasterize pages on; <code>null</code> to use a transient thread pool
+      sized after the available processors.
+  */
+  public Rasterizer(
+    ExecutorService executor
+    )
+  {setExecutor(executor);}
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Releases the rasters kept for reuse.
+    <p>Rasters are released at the end of each rasterization anyway: this method is useful to free
+    memory while other rasterizations are still running.</p>
+  */
+  public synchronized void clear(
+    )
+  {
+    for(BufferedImage raster : freeRasters)
+    {rasterMemory -= getFootprint(raster.getWidth(), raster.getHeight());}
+    freeRasters.clear();
+  }
+
+  /**
+    Gets the executor pages are rasterized on.
+
+    @return <code>null</code> in case of transient thread pool.
+  */
+  public ExecutorService getExecutor(
+    )
+  {return executor;}
+
+  /**
+    Gets the maximum footprint (in bytes) of the rasters.
+    <p>Pages wait for rasters to be recycled as long as a new raster would exceed this size;
+    anyway, a single page is rasterized even if its raster alone exceeds it. By default, it's a
+    quarter of the maximum heap size.</p>
+  */
+  public synchronized long getMaxMemory(
+    )
+  {return maxMemory;}
+
+  /**
+    Gets the rasterization resolution (in dots per inch).
+    <p>By default, it's 72 DPI (that is, one pixel per user-space unit).</p>
+  */
+  public double getResolution(
+    )
+  {return resolution;}
+
+  /**
+    Gets the raster size of the specified page at the current resolution.
+
+    @param page Page to rasterize.
+    @return Size expressed in pixels, accounting for the page rotation.
+  */
+  public Dimension2D getSize(
+    Page page
+    )
+  {
+    Dimension2D pageSize = page.getRotation().transform(page.getSize());
+    double scale = resolution / 72;
+    return new Dimension(
+      Math.max(Math.round(pageSize.getWidth() * scale), 1),
+      Math.max(Math.round(pageSize.getHeight() * scale), 1)
+      );
+  }
+
+  /**
+    Rasterizes all the pages of the specified document.
+
+    @param document Document to rasterize.
+    @param sink Raster consumer.
+    @return Page results (raster sizes), in page order.
+  */
+  public List<PageProcessor.Result<Dimension2D>> rasterize(
+    Document document,
+    ISink sink
+    )
+  {return rasterize(document, 0, document.getNumberOfPages(), sink);}
+
+  /**
+    Rasterizes the specified page range.
+    <p>Failures are isolated per page (see {@link PageProcessor}): errors thrown either by the
+    rendering or by the sink are reported in the respective results. On return, the rasters kept
+    for reuse are released.</p>
+
+    @param document Document to rasterize.
+    @param startIndex Index of the first page to rasterize (inclusive).
+    @param endIndex Index of the last page to rasterize (exclusive).
+    @param sink Raster consumer.
+    @return Page results (raster sizes), in page order.
+  */
+  public List<PageProcessor.Result<Dimension2D>> rasterize(
+    Document document,
+    int startIndex,
+    int endIndex,
+    final ISink sink
+    )
+  {
+    try
+    {
+      return new PageProcessor(document, executor).process(
+        new PageProcessor.ITask<Dimension2D>()
+        {
+          @Override
+          public Dimension2D process(
+            Page page
+            ) throws Exception
+          {
+            Dimension2D size = getSize(page);
+            BufferedImage raster;
+            try
+            {raster = acquireRaster((int)size.getWidth(), (int)size.getHeight());}
+            catch(InterruptedException e)
+            {
+              // NOTE: The interrupt status is restored for the executor to see it.
+              Thread.currentThread().interrupt();
+              throw e;
+            }
+            try
+            {
+              Graphics2D context = raster.createGraphics();
+              try
+              {page.render(context, size);}
+              finally
+              {context.dispose();}
+
+              sink.write(page, page.getIndex(), raster);
+            }
+            finally
+            {releaseRaster(raster);}
+            return size;
+          }
+        },
+        startIndex,
+        endIndex,
+        true
+        );
+    }
+    finally
+    {clear();}
+  }
+
+  /**
+    @see #getExecutor()
+  */
+  public void setExecutor(
+    ExecutorService value
+    )
+  {executor = value;}
+
+  /**
+    @see #getMaxMemory()
+  */
+  public synchronized void setMaxMemory(
+    long value
+    )
+  {
+    if(value <= 0)
+      throw new IllegalArgumentException("Maximum memory MUST be positive.");
+
+    maxMemory = value;
+    notifyAll();
+  }
+
+  /**
+    @see #getResolution()
+  */
+  public void setResolution(
+    double value
+    )
+  {
+    if(value <= 0)
+      throw new IllegalArgumentException("Resolution MUST be positive.");
+
+    resolution = value;
+  }
+  // </public>
+
+  // <private>
+  /**
+    Gets a raster of the specified size, waiting for memory to be available.
+  */
+  private BufferedImage acquireRaster(
+    int width,
+    int height
+    ) throws InterruptedException
+  {
+    long footprint = getFootprint(width, height);
+    synchronized(this)
+    {
+      while(true)
+      {
+        // Reusable raster?
+        for(Iterator<BufferedImage> iterator = freeRasters.iterator(); iterator.hasNext();)
+        {
+          BufferedImage raster = iterator.next();
+          if(raster.getWidth() == width && raster.getHeight() == height)
+          {
+            iterator.remove();
+            return raster;
+          }
+        }
+
+        // Make room for a new raster, discarding the unsuitable ones!
+        while(rasterMemory + footprint > maxMemory && !freeRasters.isEmpty())
+        {
+          BufferedImage raster = freeRasters.remove(0);
+          rasterMemory -= getFootprint(raster.getWidth(), raster.getHeight());
+        }
+        /*
+          NOTE: In case no raster is allocated, the new one is allowed even beyond the maximum
+          memory, as otherwise the page could never be rasterized.
+        */
+        if(rasterMemory + footprint <= maxMemory || rasterMemory == 0)
+        {
+          rasterMemory += footprint;
+          break;
+        }
+
+        wait();
+      }
+    }
+
+    // NOTE: Allocation happens outside the lock, as it's relatively expensive.
+    try
+    {return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);}
+    catch(RuntimeException e)
+    {
+      releaseMemory(footprint);
+      throw e;
+    }
+    catch(Error e)
+    {
+      releaseMemory(footprint);
+      throw e;
+    }
+  }
+
+  private static long getFootprint(
+    int width,
+    int height
+    )
+  {return (long)width * height * 4;}
+
+  private synchronized void releaseMemory(
+    long footprint
+    )
+  {
+    rasterMemory -= footprint;
+    notifyAll();
+  }
+
+  /**
+    Makes the specified raster available for reuse.
+  */
+  private synchronized void releaseRaster(
+    BufferedImage raster
+    )
+  {
+    freeRasters.add(raster);
+    notifyAll();
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
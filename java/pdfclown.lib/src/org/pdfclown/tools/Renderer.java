@@ -25,6 +25,9 @@
 
 package org.pdfclown.tools;
 
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.geom.Dimension2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
@@ -32,11 +35,27 @@ import java.awt.print.Book;
 import java.awt.print.Pageable;
 import java.awt.print.PrinterException;
 import java.awt.print.PrinterJob;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.pdfclown.documents.Document;
 import org.pdfclown.documents.Page;
 import org.pdfclown.documents.contents.Contents;
+import org.pdfclown.documents.contents.DisplayList;
 import org.pdfclown.documents.contents.IContentContext;
+import org.pdfclown.documents.contents.RenderingHintKey;
+import org.pdfclown.documents.contents.xObjects.ImageCache;
+import org.pdfclown.documents.contents.xObjects.ImageXObject;
+import org.pdfclown.util.math.geom.Dimension;
 
 /**
   Tool for rendering {@link IContentContext content contexts}.
@@ -47,6 +66,43 @@ import org.pdfclown.documents.contents.IContentContext;
 */
 public final class Renderer
 {
+  /**
+    Maximum relative difference between the aspect ratios of an embedded thumbnail and its page
+    for the thumbnail to be used.
+  */
+  private static final double ThumbnailAspectTolerance = .05;
+  /**
+    Maximum number of content objects scanned while rendering a thumbnail.
+  */
+  private static final int ThumbnailMaxObjectCount = 20000;
+  /**
+    Minimum device-space extent of the paths painted in thumbnails (sub-pixel paths are skipped).
+  */
+  private static final double ThumbnailMinPathSize = 1;
+  /**
+    Minimum device-space font size of the text painted as glyphs in thumbnails.
+  */
+  private static final double ThumbnailMinTextSize = 4;
+
+  /**
+    Tile rendering listener.
+  */
+  public interface ITileListener
+  {
+    /**
+      Notifies the completion of a tile.
+      <p>Notifications are delivered on the thread which started the rendering, in completion
+      order.</p>
+
+      @param area Tile area, expressed in device-space units.
+      @param image Image representing the tile.
+    */
+    void onTile(
+      Rectangle area,
+      BufferedImage image
+      );
+  }
+
   /**
     Prints the specified document.
     <p>The <code>document</code> can be either a {@link Document} object
@@ -149,4 +205,300 @@ public final class Renderer
     contentContext.render(image.createGraphics(),size);
     return image;
   }
+
+  /**
+    Renders the specified content context into an image context, by tiles rasterized in parallel.
+    <p>Contents are scanned just once into a {@link DisplayList display list}, whose tiles are then
+    rasterized concurrently; the resulting image is the same regardless of the tile size and the
+    execution order.</p>
+
+    @param contentContext Source content context.
+    @param size Image size expressed in device-space units (that is typically pixels).
+    @param tileSize Tile side length, expressed in device-space units.
+    @param executor Executor to rasterize tiles on; <code>null</code> to use a transient thread pool
+      sized after the available processors.
+    @return Image representing the rendered contents.
+    @since 0.1.3
+   */
+  public BufferedImage render(
+    IContentContext contentContext,
+    Dimension2D size,
+    int tileSize,
+    ExecutorService executor
+    )
+  {
+    final BufferedImage image = new BufferedImage(
+      (int)size.getWidth(),
+      (int)size.getHeight(),
+      BufferedImage.TYPE_INT_BGR
+      );
+    render(
+      new DisplayList(contentContext, size),
+      null,
+      tileSize,
+      executor,
+      new ITileListener()
+      {
+        @Override
+        public void onTile(
+          Rectangle area,
+          BufferedImage tile
+          )
+        {image.getRaster().setDataElements(area.x, area.y, tile.getRaster());}
+      }
+      );
+    return image;
+  }
+
+  /**
+    Renders the specified display list into an image context.
+    <p>Display lists can be replayed at any size (for example, at the zoom levels of a viewer) with
+    no need to scan the contents again.</p>
+
+    @param displayList Source display list.
+    @param size Image size expressed in device-space units (that is typically pixels).
+    @return Image representing the rendered contents.
+    @since 0.1.3
+   */
+  public BufferedImage render(
+    DisplayList displayList,
+    Dimension2D size
+    )
+  {
+    BufferedImage image = new BufferedImage(
+      (int)size.getWidth(),
+      (int)size.getHeight(),
+      BufferedImage.TYPE_INT_BGR
+      );
+    Graphics2D context = image.createGraphics();
+    try
+    {displayList.render(context, size);}
+    finally
+    {context.dispose();}
+    return image;
+  }
+
+  /**
+    Renders the tiles of the specified display list in parallel, notifying them as soon as they are
+    available.
+
+    @param displayList Source display list.
+    @param area Canvas area whose intersecting tiles have to be rendered, expressed in device-space
+      units; <code>null</code> corresponds to the whole {@link DisplayList#getSize() canvas}.
+    @param tileSize Tile side length, expressed in device-space units.
+    @param executor Executor to rasterize tiles on; <code>null</code> to use a transient thread pool
+      sized after the available processors.
+    @param listener Tile listener.
+    @since 0.1.3
+   */
+  public void render(
+    DisplayList displayList,
+    Rectangle area,
+    int tileSize,
+    ExecutorService executor,
+    ITileListener listener
+    )
+  {render(displayList, displayList.getSize(), area, tileSize, executor, listener);}
+
+  /**
+    Renders the tiles of the specified display list in parallel, notifying them as soon as they are
+    available.
+    <p>Tiles are laid out on a fixed grid originating at the top-left corner of the canvas, so that
+    the same tile is rendered identically whatever the requested area (for example, the visible
+    portion of a viewer).</p>
+
+    @param displayList Source display list.
+    @param size Canvas size the display list is scaled to, expressed in device-space units.
+    @param area Canvas area whose intersecting tiles have to be rendered, expressed in device-space
+      units; <code>null</code> corresponds to the whole canvas.
+    @param tileSize Tile side length, expressed in device-space units.
+    @param executor Executor to rasterize tiles on; <code>null</code> to use a transient thread pool
+      sized after the available processors.
+    @param listener Tile listener.
+    @since 0.1.3
+   */
+  public void render(
+    final DisplayList displayList,
+    final Dimension2D size,
+    Rectangle area,
+    int tileSize,
+    ExecutorService executor,
+    ITileListener listener
+    )
+  {
+    if(tileSize <= 0)
+      throw new IllegalArgumentException("tileSize MUST be positive.");
+
+    // Collect the tiles to render!
+    List<Rectangle> tileAreas = new ArrayList<Rectangle>();
+    {
+      Rectangle canvasArea = new Rectangle(0, 0, (int)size.getWidth(), (int)size.getHeight());
+      area = (area == null ? canvasArea : area.intersection(canvasArea));
+      if(area.isEmpty())
+        return;
+
+      for(
+        int y = area.y / tileSize * tileSize,
+          yEnd = area.y + area.height;
+        y < yEnd;
+        y += tileSize
+        )
+      {
+        for(
+          int x = area.x / tileSize * tileSize,
+            xEnd = area.x + area.width;
+          x < xEnd;
+          x += tileSize
+          )
+        {tileAreas.add(new Rectangle(x, y, tileSize, tileSize).intersection(canvasArea));}
+      }
+    }
+
+    boolean transientExecutor = (executor == null);
+    if(transientExecutor)
+    {executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());}
+    Map<Future<BufferedImage>,Rectangle> futures = new HashMap<Future<BufferedImage>,Rectangle>();
+    try
+    {
+      CompletionService<BufferedImage> completionService = new ExecutorCompletionService<BufferedImage>(executor);
+      for(final Rectangle tileArea : tileAreas)
+      {
+        futures.put(
+          completionService.submit(
+            new Callable<BufferedImage>()
+            {
+              @Override
+              public BufferedImage call(
+                )
+              {
+                BufferedImage tile = new BufferedImage(
+                  tileArea.width,
+                  tileArea.height,
+                  BufferedImage.TYPE_INT_BGR
+                  );
+                Graphics2D context = tile.createGraphics();
+                try
+                {
+                  context.translate(-tileArea.x, -tileArea.y);
+                  displayList.render(context, size);
+                }
+                finally
+                {context.dispose();}
+                return tile;
+              }
+            }
+            ),
+          tileArea
+          );
+      }
+
+      for(int count = futures.size(); count > 0; count--)
+      {
+        Future<BufferedImage> future = completionService.take();
+        listener.onTile(futures.get(future), future.get());
+      }
+    }
+    catch(InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+    catch(ExecutionException e)
+    {throw new RuntimeException(e.getCause());}
+    finally
+    {
+      for(Future<BufferedImage> future : futures.keySet())
+      {future.cancel(true);}
+      if(transientExecutor)
+      {executor.shutdown();}
+    }
+  }
+
+  /**
+    Renders the specified content context into a thumbnail image.
+    <p>Thumbnail rendering trades fidelity for speed where the resolution can't show the
+    difference (see {@link RenderingHintKey}): sub-pixel paths are skipped, text smaller than a few
+    pixels is greeked, images are resolved in draft quality and the rendering is truncated after a
+    fixed number of content objects, capping the work spent on each page. Pages embedding a
+    thumbnail image use it instead of rendering their contents.</p>
+
+    @param contentContext Source content context.
+    @param maxSize Maximum side length of the thumbnail, expressed in device-space units (that is
+      typically pixels); the aspect ratio of the content context is preserved.
+    @return Image representing the rendered contents.
+    @since 0.1.3
+   */
+  public BufferedImage renderThumbnail(
+    IContentContext contentContext,
+    int maxSize
+    )
+  {
+    if(maxSize <= 0)
+      throw new IllegalArgumentException("maxSize MUST be positive.");
+
+    Rectangle2D box = contentContext.getBox();
+    Dimension2D contentSize = contentContext.getRotation().transform(new Dimension(box.getWidth(), box.getHeight()));
+    double scale = maxSize / Math.max(contentSize.getWidth(), contentSize.getHeight());
+    Dimension2D size = new Dimension(
+      Math.max(Math.round(contentSize.getWidth() * scale), 1),
+      Math.max(Math.round(contentSize.getHeight() * scale), 1)
+      );
+    BufferedImage image = new BufferedImage(
+      (int)size.getWidth(),
+      (int)size.getHeight(),
+      BufferedImage.TYPE_INT_BGR
+      );
+    Graphics2D context = image.createGraphics();
+    try
+    {
+      // Embedded thumbnail?
+      BufferedImage thumbnailImage = (contentContext instanceof Page ? getThumbnail((Page)contentContext, size) : null);
+      if(thumbnailImage != null)
+      {
+        context.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        context.drawImage(thumbnailImage, 0, 0, image.getWidth(), image.getHeight(), null);
+      }
+      else
+      {
+        context.setRenderingHint(RenderingHintKey.DraftImages, Boolean.TRUE);
+        context.setRenderingHint(RenderingHintKey.MaxObjectCount, ThumbnailMaxObjectCount);
+        context.setRenderingHint(RenderingHintKey.MinPathSize, ThumbnailMinPathSize);
+        context.setRenderingHint(RenderingHintKey.MinTextSize, ThumbnailMinTextSize);
+        contentContext.render(context, size);
+      }
+    }
+    finally
+    {context.dispose();}
+    return image;
+  }
+
+  /**
+    Gets the raster of the thumbnail image embedded in the specified page.
+
+    @param page Page whose thumbnail has to be retrieved.
+    @param size Device-space size the thumbnail is going to be painted at.
+    @return <code>null</code>, if the page has no usable thumbnail (missing, damaged or not
+      matching the page aspect ratio).
+  */
+  private static BufferedImage getThumbnail(
+    Page page,
+    Dimension2D size
+    )
+  {
+    ImageXObject thumbnail = page.getThumbnail();
+    if(thumbnail == null)
+      return null;
+
+    BufferedImage thumbnailImage = ImageCache.get(thumbnail, size);
+    if(thumbnailImage == null)
+      return null;
+
+    /*
+      NOTE: Thumbnails whose aspect ratio doesn't match the displayed page (for example, because
+      they disregard its rotation) are discarded, as stretching them would be misleading.
+    */
+    double aspectRatio = (double)thumbnailImage.getWidth() / thumbnailImage.getHeight();
+    double pageAspectRatio = size.getWidth() / size.getHeight();
+    return Math.abs(aspectRatio / pageAspectRatio - 1) <= ThumbnailAspectTolerance ? thumbnailImage : null;
+  }
 }
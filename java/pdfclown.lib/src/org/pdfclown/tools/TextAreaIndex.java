@@ -0,0 +1,458 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.tools;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.pdfclown.documents.contents.ITextString;
+import org.pdfclown.documents.contents.TextChar;
+import org.pdfclown.tools.TextExtractor.AreaModeEnum;
+
+/**
+  Spatial index of text strings.
+  <p>Text strings are bucketed into a uniform grid covering their bounds, so that area and point
+  queries visit just the text strings laying in the neighborhood of the query instead of the
+  whole page. It's meant to be built once per page (for example, on the result of {@link
+  TextExtractor#extract(org.pdfclown.documents.contents.IContentContext)}) and queried
+  repeatedly.</p>
+  <p>Instances are immutable, so they can be queried concurrently.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+public final class TextAreaIndex
+{
+  // <class>
+  // <static>
+  // <fields>
+  /**
+    Maximum number of grid cells per side.
+  */
+  private static final int GridSideMax = 1024;
+  // </fields>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  /**
+    Text string boxes (<code>null</code> in case of empty text string).
+  */
+  private final Rectangle2D[] boxes;
+  private final List<ITextString> textStrings;
+
+  private final double gridX;
+  private final double gridY;
+  private final double cellWidth;
+  private final double cellHeight;
+  private final int columnCount;
+  private final int rowCount;
+  /**
+    Text string indexes by cell (cell <code>i</code> covers <code>cellItems[cellStarts[i]]</code>
+    to <code>cellItems[cellStarts[i + 1] - 1]</code>).
+  */
+  private final int[] cellItems;
+  private final int[] cellStarts;
+  // </fields>
+
+  // <constructors>
+  /**
+    @param textStrings Text strings to index, grouped by source area (as returned by {@link
+      TextExtractor#extract(org.pdfclown.documents.contents.IContentContext)}).
+  */
+  public TextAreaIndex(
+    Map<Rectangle2D,List<ITextString>> textStrings
+    )
+  {this(flatten(textStrings));}
+
+  /**
+    @param textStrings Text strings to index.
+  */
+  public TextAreaIndex(
+    List<? extends ITextString> textStrings
+    )
+  {
+    this.textStrings = Collections.unmodifiableList(new ArrayList<ITextString>(textStrings));
+
+    int count = this.textStrings.size();
+    boxes = new Rectangle2D[count];
+    double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+    for(int index = 0; index < count; index++)
+    {
+      Rectangle2D box = this.textStrings.get(index).getBox();
+      if(box == null
+        || !isFinite(box))
+        continue;
+
+      boxes[index] = box;
+      minX = Math.min(minX, box.getMinX()); minY = Math.min(minY, box.getMinY());
+      maxX = Math.max(maxX, box.getMaxX()); maxY = Math.max(maxY, box.getMaxY());
+    }
+
+    // Grid layout.
+    /*
+      NOTE: The grid has roughly as many cells as text strings, proportioned to the bounds.
+    */
+    if(minX > maxX) // No text.
+    {
+      gridX = gridY = 0;
+      cellWidth = cellHeight = 1;
+      columnCount = rowCount = 1;
+    }
+    else
+    {
+      double width = Math.max(maxX - minX, 1);
+      double height = Math.max(maxY - minY, 1);
+      gridX = minX;
+      gridY = minY;
+      columnCount = (int)Math.max(1, Math.min(GridSideMax, Math.ceil(Math.sqrt(count * width / height))));
+      rowCount = (int)Math.max(1, Math.min(GridSideMax, Math.ceil((double)count / columnCount)));
+      cellWidth = width / columnCount;
+      cellHeight = height / rowCount;
+    }
+
+    // Cell buckets.
+    cellStarts = new int[columnCount * rowCount + 1];
+    for(Rectangle2D box : boxes)
+    {
+      if(box == null)
+        continue;
+
+      int startColumn = getColumn(box.getMinX()), endColumn = getColumn(box.getMaxX());
+      for(int row = getRow(box.getMinY()), endRow = getRow(box.getMaxY()); row <= endRow; row++)
+      {
+        for(int column = startColumn; column <= endColumn; column++)
+        {cellStarts[row * columnCount + column + 1]++;}
+      }
+    }
+    for(int index = 1; index < cellStarts.length; index++)
+    {cellStarts[index] += cellStarts[index - 1];}
+    cellItems = new int[cellStarts[cellStarts.length - 1]];
+    int[] cellEnds = Arrays.copyOf(cellStarts, cellStarts.length - 1);
+    for(int index = 0; index < count; index++)
+    {
+      Rectangle2D box = boxes[index];
+      if(box == null)
+        continue;
+
+      int startColumn = getColumn(box.getMinX()), endColumn = getColumn(box.getMaxX());
+      for(int row = getRow(box.getMinY()), endRow = getRow(box.getMaxY()); row <= endRow; row++)
+      {
+        for(int column = startColumn; column <= endColumn; column++)
+        {cellItems[cellEnds[row * columnCount + column]++] = index;}
+      }
+    }
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Gets the text string nearest to the specified point.
+
+    @return <code>null</code> if no text string is available.
+  */
+  public ITextString getNearestTextString(
+    Point2D point
+    )
+  {
+    int startColumn = getColumn(point.getX());
+    int startRow = getRow(point.getY());
+    double minCellSize = Math.min(cellWidth, cellHeight);
+    int nearestIndex = -1;
+    double nearestDistance = Double.POSITIVE_INFINITY;
+    for(int ring = 0, ringMax = Math.max(columnCount, rowCount); ring < ringMax; ring++)
+    {
+      for(int row = startRow - ring; row <= startRow + ring; row++)
+      {
+        if(row < 0 || row >= rowCount)
+          continue;
+
+        boolean rowEdge = (row == startRow - ring || row == startRow + ring);
+        for(int column = startColumn - ring; column <= startColumn + ring; column += (rowEdge ? 1 : ring * 2))
+        {
+          if(column >= 0 && column < columnCount)
+          {
+            for(int itemIndex = cellStarts[row * columnCount + column], itemEndIndex = cellStarts[row * columnCount + column + 1]; itemIndex < itemEndIndex; itemIndex++)
+            {
+              int index = cellItems[itemIndex];
+              double distance = getDistance(boxes[index], point);
+              if(distance < nearestDistance
+                || (distance == nearestDistance && index < nearestIndex))
+              {
+                nearestDistance = distance;
+                nearestIndex = index;
+              }
+            }
+          }
+          if(ring == 0)
+            break;
+        }
+      }
+      // NOTE: Cells beyond the current ring are at least 'ring' cells far from the point.
+      if(nearestDistance <= ring * minCellSize)
+        break;
+    }
+    return nearestIndex >= 0 ? textStrings.get(nearestIndex) : null;
+  }
+
+  /**
+    Gets the character at the specified point.
+
+    @return <code>null</code> if no character contains the point.
+  */
+  public TextChar getTextChar(
+    Point2D point
+    )
+  {
+    for(int index : getCandidates(point))
+    {
+      if(!boxes[index].contains(point))
+        continue;
+
+      for(TextChar textChar : textStrings.get(index).getTextChars())
+      {
+        if(textChar.getBox().contains(point))
+          return textChar;
+      }
+    }
+    return null;
+  }
+
+  /**
+    Gets the characters matching the specified area.
+
+    @param area Graphic area which characters have to be matched to.
+    @param mode Character-to-area matching mode.
+    @return Matching characters, in index order.
+  */
+  public List<TextChar> getTextChars(
+    Rectangle2D area,
+    AreaModeEnum mode
+    )
+  {
+    List<TextChar> textChars = new ArrayList<TextChar>();
+    for(int index : getCandidates(area))
+    {
+      if(!area.intersects(boxes[index]))
+        continue;
+
+      for(TextChar textChar : textStrings.get(index).getTextChars())
+      {
+        if(matches(area, textChar.getBox(), mode))
+        {textChars.add(textChar);}
+      }
+    }
+    return textChars;
+  }
+
+  /**
+    Gets the indexed text strings.
+  */
+  public List<ITextString> getTextStrings(
+    )
+  {return textStrings;}
+
+  /**
+    Gets the text strings matching the specified area.
+
+    @param area Graphic area which text strings have to be matched to.
+    @param mode Text-to-area matching mode.
+    @return Matching text strings, in index order.
+  */
+  public List<ITextString> getTextStrings(
+    Rectangle2D area,
+    AreaModeEnum mode
+    )
+  {
+    List<ITextString> matches = new ArrayList<ITextString>();
+    for(int index : getCandidates(area))
+    {
+      if(matches(area, boxes[index], mode))
+      {matches.add(textStrings.get(index));}
+    }
+    return matches;
+  }
+
+  /**
+    Gets the text string at the specified point.
+
+    @return <code>null</code> if no text string contains the point (in case of overlapping text
+      strings, the first one in index order).
+  */
+  public ITextString getTextString(
+    Point2D point
+    )
+  {
+    for(int index : getCandidates(point))
+    {
+      if(boxes[index].contains(point))
+        return textStrings.get(index);
+    }
+    return null;
+  }
+  // </public>
+
+  // <private>
+  private static List<ITextString> flatten(
+    Map<Rectangle2D,List<ITextString>> textStrings
+    )
+  {
+    List<ITextString> flattenedTextStrings = new ArrayList<ITextString>();
+    for(List<ITextString> areaTextStrings : textStrings.values())
+    {flattenedTextStrings.addAll(areaTextStrings);}
+    return flattenedTextStrings;
+  }
+
+  private static double getDistance(
+    Rectangle2D box,
+    Point2D point
+    )
+  {
+    double dx = Math.max(0, Math.max(box.getMinX() - point.getX(), point.getX() - box.getMaxX()));
+    double dy = Math.max(0, Math.max(box.getMinY() - point.getY(), point.getY() - box.getMaxY()));
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+  private static boolean isFinite(
+    Rectangle2D box
+    )
+  {
+    return !(Double.isNaN(box.getX()) || Double.isInfinite(box.getX())
+      || Double.isNaN(box.getY()) || Double.isInfinite(box.getY())
+      || Double.isNaN(box.getWidth()) || Double.isInfinite(box.getWidth())
+      || Double.isNaN(box.getHeight()) || Double.isInfinite(box.getHeight()));
+  }
+
+  private static boolean matches(
+    Rectangle2D area,
+    Rectangle2D box,
+    AreaModeEnum mode
+    )
+  {
+    switch(mode)
+    {
+      case Containment:
+        return area.contains(box);
+      case Intersection:
+        return area.intersects(box);
+      default:
+        throw new UnsupportedOperationException(mode + " mode unknown.");
+    }
+  }
+
+  /**
+    Gets the indexes of the text strings whose cells overlap the specified area.
+
+    @return Sorted indexes, without duplicates.
+  */
+  private int[] getCandidates(
+    Rectangle2D area
+    )
+  {
+    if(area.getMaxX() < gridX || area.getMaxY() < gridY
+      || area.getMinX() > gridX + cellWidth * columnCount
+      || area.getMinY() > gridY + cellHeight * rowCount)
+      return new int[0];
+
+    return getCandidates(
+      getColumn(area.getMinX()), getRow(area.getMinY()),
+      getColumn(area.getMaxX()), getRow(area.getMaxY())
+      );
+  }
+
+  /**
+    Gets the indexes of the text strings whose cells contain the specified point.
+
+    @return Sorted indexes, without duplicates.
+  */
+  private int[] getCandidates(
+    Point2D point
+    )
+  {
+    int column = getColumn(point.getX()), row = getRow(point.getY());
+    return getCandidates(column, row, column, row);
+  }
+
+  private int[] getCandidates(
+    int startColumn,
+    int startRow,
+    int endColumn,
+    int endRow
+    )
+  {
+    int candidateCount = 0;
+    for(int row = startRow; row <= endRow; row++)
+    {candidateCount += cellStarts[row * columnCount + endColumn + 1] - cellStarts[row * columnCount + startColumn];}
+    int[] candidates = new int[candidateCount];
+    candidateCount = 0;
+    for(int row = startRow; row <= endRow; row++)
+    {
+      int itemStartIndex = cellStarts[row * columnCount + startColumn];
+      int itemCount = cellStarts[row * columnCount + endColumn + 1] - itemStartIndex;
+      System.arraycopy(cellItems, itemStartIndex, candidates, candidateCount, itemCount);
+      candidateCount += itemCount;
+    }
+    if(startColumn == endColumn && startRow == endRow) // Single cell (already sorted, unique).
+      return candidates;
+
+    // Remove duplicates (text strings spanning multiple cells)!
+    Arrays.sort(candidates);
+    int uniqueCount = 0;
+    for(int index = 0; index < candidateCount; index++)
+    {
+      if(uniqueCount == 0 || candidates[uniqueCount - 1] != candidates[index])
+      {candidates[uniqueCount++] = candidates[index];}
+    }
+    return uniqueCount < candidateCount ? Arrays.copyOf(candidates, uniqueCount) : candidates;
+  }
+
+  /**
+    Gets the grid column (clamped) of the specified abscissa.
+  */
+  private int getColumn(
+    double x
+    )
+  {return (int)Math.max(0, Math.min(columnCount - 1, Math.floor((x - gridX) / cellWidth)));}
+
+  /**
+    Gets the grid row (clamped) of the specified ordinate.
+  */
+  private int getRow(
+    double y
+    )
+  {return (int)Math.max(0, Math.min(rowCount - 1, Math.floor((y - gridY) / cellHeight)));}
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
@@ -25,8 +25,12 @@
 
 package org.pdfclown.tools;
 
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -40,8 +44,11 @@ import org.pdfclown.documents.contents.IContentContext;
 import org.pdfclown.documents.contents.ITextString;
 import org.pdfclown.documents.contents.TextChar;
 import org.pdfclown.documents.contents.TextStyle;
+import org.pdfclown.documents.contents.fonts.Font;
 import org.pdfclown.documents.contents.objects.ContainerObject;
 import org.pdfclown.documents.contents.objects.ContentObject;
+import org.pdfclown.documents.contents.objects.ShowText;
+import org.pdfclown.documents.contents.objects.ShowTextToNextLine;
 import org.pdfclown.documents.contents.objects.Text;
 import org.pdfclown.documents.contents.objects.XObject;
 import org.pdfclown.util.math.Interval;
@@ -91,6 +98,246 @@ public final class TextExtractor
       );
   }
 
+  /**
+    Text listener for streaming extraction.
+  */
+  public interface ITextListener
+  {
+    /**
+      Notifies a text character.
+
+      @param textChar Character.
+      @param box Character bounds (<code>null</code> in case geometry isn't extracted).
+      @param virtual Whether the character has been synthesized (typically, inferred spaces).
+    */
+    void onChar(
+      char textChar,
+      Rectangle2D box,
+      boolean virtual
+      );
+
+    /**
+      Notifies a line break.
+    */
+    void onLineBreak(
+      );
+  }
+
+  /**
+    Streaming text extraction state.
+    <p>Only the current text-showing operation and the position of the current line are retained,
+    so memory is bounded regardless of the content size.</p>
+  */
+  private static final class TextStreamer
+    implements ShowText.IScanner
+  {
+    private final boolean geometric;
+    private final ITextListener listener;
+
+    /**
+      Current text string bounds (geometric streaming).
+    */
+    private final List<Rectangle2D> textCharBoxes = new ArrayList<Rectangle2D>();
+    /**
+      Current text string characters (geometric streaming).
+    */
+    private final StringBuilder textChars = new StringBuilder();
+
+    private boolean empty = true;
+    /**
+      Latest text string bounds (geometric streaming).
+    */
+    private Rectangle2D previousTextStringBox;
+    /**
+      Latest character bounds (geometric streaming).
+    */
+    private Rectangle2D previousBox;
+    /**
+      Latest text end (non-geometric streaming).
+    */
+    private final Point2D previousEnd = new Point2D.Double();
+    private double spaceWidth;
+
+    TextStreamer(
+      ITextListener listener,
+      boolean geometric
+      )
+    {
+      this.listener = listener;
+      this.geometric = geometric;
+    }
+
+    @Override
+    public void scanChar(
+      char textChar,
+      Rectangle2D textCharBox
+      )
+    {
+      textChars.append(textChar);
+      textCharBoxes.add(textCharBox);
+    }
+
+    /**
+      Streams the specified text-showing operation.
+    */
+    void scan(
+      ShowText showText,
+      ContentScanner.GraphicsState state
+      )
+    {
+      Font font = state.getFont();
+      if(font == null)
+        return;
+
+      if(geometric)
+      {
+        double fontSize = state.getFontSize() * state.getTm().getScaleY();
+        spaceWidth = font.getWidth(' ', fontSize);
+        if(spaceWidth == 0)
+        {spaceWidth = fontSize * .25f;} // NOTE: as a rule of thumb, space width is estimated according to the font size.
+        showText.scan(state, this);
+        scan_geometric();
+      }
+      else
+      {scan_positional(showText, state, font);}
+    }
+
+    /**
+      Streams the scanned text string inferring spaces and line breaks from its character bounds,
+      as in sorted extraction (see {@link TextExtractor#sort(List, List) sort}).
+    */
+    private void scan_geometric(
+      )
+    {
+      int textCharCount = textChars.length();
+      if(textCharCount > 0)
+      {
+        Rectangle2D textStringBox = (Rectangle2D)textCharBoxes.get(0).clone();
+        for(int index = 1; index < textCharCount; index++)
+        {textStringBox.add(textCharBoxes.get(index));}
+        // NOTE: As text isn't sorted, lines are delimited comparing consecutive text strings.
+        if(previousTextStringBox != null
+          && !TextLineSorter.isOnTheSameLine(previousTextStringBox, textStringBox))
+        {
+          listener.onLineBreak();
+          previousBox = null;
+        }
+        previousTextStringBox = textStringBox;
+
+        for(int index = 0; index < textCharCount; index++)
+        {
+          Rectangle2D textCharBox = textCharBoxes.get(index);
+          if(previousBox != null)
+          {
+            double characterSpace = textCharBox.getX() - previousBox.getMaxX();
+            if(characterSpace >= spaceWidth)
+            {
+              listener.onChar(
+                ' ',
+                new Rectangle2D.Double(
+                  previousBox.getMaxX(),
+                  textCharBox.getY(),
+                  characterSpace,
+                  textCharBox.getHeight()
+                  ),
+                true
+                );
+            }
+          }
+          listener.onChar(textChars.charAt(index), textCharBox, false);
+          previousBox = textCharBox;
+        }
+      }
+      textChars.setLength(0);
+      textCharBoxes.clear();
+    }
+
+    /**
+      Streams the specified text-showing operation inferring spaces and line breaks from its
+      position and glyph advances only (no character bounds are computed).
+    */
+    private void scan_positional(
+      ShowText showText,
+      ContentScanner.GraphicsState state,
+      Font font
+      )
+    {
+      double fontSize = state.getFontSize();
+      double scale = state.getScale() / 100;
+      final double scaledFactor = Font.getScalingFactor(fontSize) * scale;
+      double wordSpace = state.getWordSpace() * scale;
+      double charSpace = state.getCharSpace() * scale;
+      AffineTransform trm = (AffineTransform)state.getCtm().clone();
+      if(showText instanceof ShowTextToNextLine)
+      {
+        ShowTextToNextLine showTextToNextLine = (ShowTextToNextLine)showText;
+        if(showTextToNextLine.getWordSpace() != null)
+        {wordSpace = showTextToNextLine.getWordSpace() * scale;}
+        if(showTextToNextLine.getCharSpace() != null)
+        {charSpace = showTextToNextLine.getCharSpace() * scale;}
+        trm.concatenate(state.getTlm());
+        trm.translate(0, -state.getLead());
+      }
+      else
+      {trm.concatenate(state.getTm());}
+
+      // Line break or space inference.
+      Point2D start = trm.transform(new Point2D.Double(), null);
+      double lineHeight = fontSize * Math.hypot(trm.getShearX(), trm.getScaleY());
+      double charSpaceWidth = font.getWidth(' ', fontSize) * Math.abs(trm.getScaleX());
+      if(charSpaceWidth == 0)
+      {charSpaceWidth = fontSize * Math.abs(trm.getScaleX()) * .25f;}
+      if(!empty)
+      {
+        if(Math.abs(start.getY() - previousEnd.getY()) > lineHeight * .75)
+        {listener.onLineBreak();}
+        else if(start.getX() - previousEnd.getX() >= spaceWidth)
+        {listener.onChar(' ', null, true);}
+      }
+      spaceWidth = charSpaceWidth;
+
+      // Text.
+      /*
+        NOTE: Glyph advances are accumulated in text space, along with the gap (spacing and
+        position adjustments) following the latest glyph.
+      */
+      final double[] advance = new double[2]; // {advance, gap}.
+      final double finalWordSpace = wordSpace;
+      final double finalCharSpace = charSpace;
+      final double spaceGap = charSpaceWidth / Math.abs(trm.getScaleX());
+      Font.IDecodeListener charListener = new Font.IDecodeListener()
+      {
+        @Override
+        public void onChar(
+          char textChar,
+          int width,
+          int codeLength
+          )
+        {
+          if(advance[1] >= spaceGap)
+          {listener.onChar(' ', null, true);}
+          listener.onChar(textChar, null, false);
+          double gap = finalCharSpace + (textChar == ' ' ? finalWordSpace : 0);
+          advance[0] += width * scaledFactor + gap;
+          advance[1] = gap;
+        }
+      };
+      for(Object textElement : showText.getValue())
+      {
+        if(textElement instanceof byte[]) // Text string.
+        {font.decode((byte[])textElement, charListener);}
+        else // Text position adjustment.
+        {
+          double adjustment = -((Number)textElement).doubleValue() * scaledFactor;
+          advance[0] += adjustment;
+          advance[1] += adjustment;
+        }
+      }
+      trm.transform(new Point2D.Double(advance[0], 0), previousEnd);
+      empty = false;
+    }
+  }
+
   /**
     Text string.
     <p>This is typically used to assemble contiguous raw text strings.</p>
@@ -142,13 +389,21 @@ public final class TextExtractor
   }
 
   /**
-    Text string position comparator.
-   */
-  private static class TextStringPositionComparator
-    implements Comparator<ITextString>
+    Reading-order engine.
+    <p>Text strings are clustered into lines sorting them by vertical position, then each line is
+    ordered by horizontal position; lines are ordered top-down, optionally column by column. All
+    the orderings are based on precomputed positions, so they are total and stable (ties keep the
+    content stream order), and no text string is compared to all the others.</p>
+  */
+  private static final class TextLineSorter
   {
     // <class>
     // <static>
+    /**
+      Minimum width of the gap separating text columns, relative to the median text height.
+    */
+    private static final double ColumnGapRatio = 1.5;
+
     /**
       Gets whether the specified boxes lay on the same text line.
     */
@@ -169,34 +424,211 @@ public final class TextExtractor
         || (box2.getY() > box1.getY() - yThreshold
           && box2.getY() < box1.getMaxY() + yThreshold - minHeight));
     }
-    // </static>
 
-    // <dynamic>
-    // <Comparator>
-    @Override
-    public int compare(
-      ITextString textString1,
-      ITextString textString2
+    /**
+      Sorts the specified boxes in reading order.
+
+      @param boxes Text string boxes.
+      @param multicolumn Whether text columns have to be detected.
+      @return Lines in reading order, each one consisting of text string indexes (referring to
+        <code>boxes</code>) in reading order.
+    */
+    public static List<int[]> sort(
+      Rectangle2D[] boxes,
+      boolean multicolumn
+      )
+    {
+      List<int[]> lines = new ArrayList<int[]>();
+      for(int[] column : multicolumn ? getColumns(boxes) : Collections.singletonList(getRange(boxes.length)))
+      {sortLines(boxes, column, lines);}
+      return lines;
+    }
+
+    /**
+      Groups the specified boxes into columns, separated by vertical gaps no text crosses.
+      <p>Text spanning most of the text width (such as headings) is ignored to detect the gaps;
+      each box is assigned to the column its left edge falls into.</p>
+
+      @return Box indexes by column, left to right.
+    */
+    private static List<int[]> getColumns(
+      Rectangle2D[] boxes
       )
     {
-      Rectangle2D box1 = textString1.getBox();
-      Rectangle2D box2 = textString2.getBox();
-      if(isOnTheSameLine(box1,box2))
+      int count = boxes.length;
+      if(count == 0)
+        return Collections.emptyList();
+
+      double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+      double[] heights = new double[count];
+      for(int index = 0; index < count; index++)
       {
-        if(box1.getX() < box2.getX())
-          return -1;
-        else if(box1.getX() > box2.getX())
-          return 1;
-        else
-          return 0;
+        minX = Math.min(minX, boxes[index].getMinX());
+        maxX = Math.max(maxX, boxes[index].getMaxX());
+        heights[index] = boxes[index].getHeight();
       }
-      else if(box1.getY() < box2.getY())
-        return -1;
-      else
-        return 1;
+      Arrays.sort(heights);
+      double minGap = heights[count / 2] * ColumnGapRatio;
+      double maxSpan = (maxX - minX) / 2;
+
+      // Occupied horizontal ranges.
+      Integer[] spanOrder = new Integer[count];
+      final double[] starts = new double[count];
+      for(int index = 0; index < count; index++)
+      {
+        spanOrder[index] = index;
+        starts[index] = boxes[index].getMinX();
+      }
+      Arrays.sort(
+        spanOrder,
+        new Comparator<Integer>()
+        {
+          @Override
+          public int compare(
+            Integer index1,
+            Integer index2
+            )
+          {return Double.compare(starts[index1], starts[index2]);}
+        }
+        );
+      List<Double> columnStarts = new ArrayList<Double>();
+      double occupiedEnd = Double.NEGATIVE_INFINITY;
+      for(int index : spanOrder)
+      {
+        Rectangle2D box = boxes[index];
+        if(box.getWidth() > maxSpan)
+          continue;
+
+        if(columnStarts.isEmpty()
+          || box.getMinX() - occupiedEnd >= minGap)
+        {columnStarts.add(box.getMinX());}
+        occupiedEnd = Math.max(occupiedEnd, box.getMaxX());
+      }
+      if(columnStarts.size() < 2)
+        return Collections.singletonList(getRange(count));
+
+      // Column assignment.
+      int[] columnSizes = new int[columnStarts.size()];
+      int[] boxColumns = new int[count];
+      for(int index = 0; index < count; index++)
+      {
+        int column = columnStarts.size() - 1;
+        while(column > 0 && boxes[index].getMinX() < columnStarts.get(column))
+        {column--;}
+        boxColumns[index] = column;
+        columnSizes[column]++;
+      }
+      List<int[]> columns = new ArrayList<int[]>(columnSizes.length);
+      for(int columnSize : columnSizes)
+      {columns.add(new int[columnSize]);}
+      Arrays.fill(columnSizes, 0);
+      for(int index = 0; index < count; index++)
+      {
+        int column = boxColumns[index];
+        columns.get(column)[columnSizes[column]++] = index;
+      }
+      return columns;
     }
-    // </Comparator>
-    // </dynamic>
+
+    private static int[] getRange(
+      int count
+      )
+    {
+      int[] range = new int[count];
+      for(int index = 0; index < count; index++)
+      {range[index] = index;}
+      return range;
+    }
+
+    /**
+      Groups the specified boxes into lines.
+
+      @param boxes Text string boxes.
+      @param indexes Indexes of the boxes to group (in content stream order).
+      @param lines Target lines.
+    */
+    private static void sortLines(
+      final Rectangle2D[] boxes,
+      int[] indexes,
+      List<int[]> lines
+      )
+    {
+      int count = indexes.length;
+      if(count == 0)
+        return;
+
+      // 1. Vertical ordering.
+      /*
+        NOTE: Merge sort takes O(n log n) time whatever the vertical distribution of the boxes,
+        preserving the content stream order in case of ties (stable); on already-ordered content
+        streams (the most common case) it runs in linear time.
+      */
+      Integer[] sortedIndexes = new Integer[count];
+      {
+        for(int index = 0; index < count; index++)
+        {sortedIndexes[index] = indexes[index];}
+        Arrays.sort(
+          sortedIndexes,
+          new Comparator<Integer>()
+          {
+            @Override
+            public int compare(
+              Integer index1,
+              Integer index2
+              )
+            {return Double.compare(boxes[index1].getY(), boxes[index2].getY());}
+          }
+          );
+      }
+
+      // 2. Line clustering.
+      Comparator<Integer> horizontalComparator = new Comparator<Integer>()
+      {
+        @Override
+        public int compare(
+          Integer index1,
+          Integer index2
+          )
+        {return Double.compare(boxes[index1].getX(), boxes[index2].getX());}
+      };
+      /*
+        NOTE: Each line is anchored to its topmost box: growing the line bounds instead would let
+        lines absorb their neighbors on dense layouts.
+      */
+      List<Integer> line = new ArrayList<Integer>();
+      Rectangle2D lineBox = null;
+      for(int index : sortedIndexes)
+      {
+        Rectangle2D box = boxes[index];
+        if(lineBox != null
+          && !isOnTheSameLine(lineBox, box))
+        {
+          lines.add(sortLine(line, horizontalComparator));
+          line.clear();
+          lineBox = null;
+        }
+        line.add(index);
+        if(lineBox == null)
+        {lineBox = box;}
+      }
+      lines.add(sortLine(line, horizontalComparator));
+    }
+
+    /**
+      Orders the specified line horizontally (stable).
+    */
+    private static int[] sortLine(
+      List<Integer> line,
+      Comparator<Integer> horizontalComparator
+      )
+    {
+      Collections.sort(line, horizontalComparator);
+      int[] sortedLine = new int[line.size()];
+      for(int index = 0; index < sortedLine.length; index++)
+      {sortedLine[index] = line.get(index);}
+      return sortedLine;
+    }
+    // </static>
     // </class>
   }
   // </classes>
@@ -250,6 +682,7 @@ public final class TextExtractor
   private List<Rectangle2D> areas;
   private double areaTolerance = 0;
   private boolean dehyphenated;
+  private boolean multicolumn;
   private boolean sorted;
   // </fields>
 
@@ -317,6 +750,87 @@ public final class TextExtractor
     return extractedTextStrings;
   }
 
+  /**
+    Extracts the text from the specified content context, streaming it to the given listener.
+    <p>Contrary to {@link #extract(IContentContext)}, text isn't collected, so memory usage is
+    bounded regardless of the content size; as a consequence, text is notified in content stream
+    order (neither sorted nor dehyphenated, as these require the whole text), and {@link
+    #getAreas() areas} aren't applied. Spaces and line breaks are inferred from character
+    positions.</p>
+
+    @param contentContext Source content context.
+    @param listener Target of the extracted text.
+    @param geometric Whether character bounds have to be computed; otherwise, characters are
+      notified without bounds, saving the corresponding computational cost.
+    @since 0.1.3
+  */
+  public void extract(
+    IContentContext contentContext,
+    ITextListener listener,
+    boolean geometric
+    )
+  {
+    extract(
+      new ContentScanner(contentContext),
+      new TextStreamer(listener, geometric)
+      );
+  }
+
+  /**
+    Extracts the plain text from the specified content context, streaming it to the given target.
+
+    @param contentContext Source content context.
+    @param target Target of the extracted text.
+    @param lineSeparator Separator to apply on line break.
+    @see #extract(IContentContext, ITextListener, boolean)
+    @since 0.1.3
+  */
+  public void extract(
+    IContentContext contentContext,
+    final Appendable target,
+    final String lineSeparator
+    ) throws IOException
+  {
+    final IOException[] exception = new IOException[1];
+    extract(
+      contentContext,
+      new ITextListener()
+      {
+        @Override
+        public void onChar(
+          char textChar,
+          Rectangle2D box,
+          boolean virtual
+          )
+        {
+          if(exception[0] != null)
+            return;
+
+          try
+          {target.append(textChar);}
+          catch(IOException e)
+          {exception[0] = e;}
+        }
+
+        @Override
+        public void onLineBreak(
+          )
+        {
+          if(exception[0] != null)
+            return;
+
+          try
+          {target.append(lineSeparator);}
+          catch(IOException e)
+          {exception[0] = e;}
+        }
+      },
+      false
+      );
+    if(exception[0] != null)
+      throw exception[0];
+  }
+
   /**
     Extracts text strings from the specified contents.
 
@@ -492,6 +1006,8 @@ public final class TextExtractor
     )
   {
     Map<Rectangle2D,List<ITextString>> filteredAreasTextStrings = new HashMap<Rectangle2D,List<ITextString>>();
+    // NOTE: Text strings are spatially indexed to avoid scanning all of them for each area.
+    TextAreaIndex textIndex = new TextAreaIndex(textStrings);
     for(Rectangle2D area : areas)
     {
       List<ITextString> filteredAreaTextStrings = new ArrayList<ITextString>();
@@ -504,22 +1020,18 @@ public final class TextExtractor
           area.getHeight() + areaTolerance * 2
           )
         : area);
-      for(ITextString textString : textStrings)
+      for(ITextString textString : textIndex.getTextStrings(toleratedArea, AreaModeEnum.Intersection))
       {
-        Rectangle2D textStringBox = textString.getBox();
-        if(toleratedArea.intersects(textStringBox))
+        TextString filteredTextString = new TextString();
+        List<TextChar> filteredTextStringChars = filteredTextString.getTextChars();
+        for(TextChar textChar : textString.getTextChars())
         {
-          TextString filteredTextString = new TextString();
-          List<TextChar> filteredTextStringChars = filteredTextString.getTextChars();
-          for(TextChar textChar : textString.getTextChars())
-          {
-            Rectangle2D textCharBox = textChar.getBox();
-            if((areaMode == AreaModeEnum.Containment && toleratedArea.contains(textCharBox))
-              || (areaMode == AreaModeEnum.Intersection && toleratedArea.intersects(textCharBox)))
-            {filteredTextStringChars.add(textChar);}
-          }
-          filteredAreaTextStrings.add(filteredTextString);
+          Rectangle2D textCharBox = textChar.getBox();
+          if((areaMode == AreaModeEnum.Containment && toleratedArea.contains(textCharBox))
+            || (areaMode == AreaModeEnum.Intersection && toleratedArea.intersects(textCharBox)))
+          {filteredTextStringChars.add(textChar);}
         }
+        filteredAreaTextStrings.add(filteredTextString);
       }
     }
     return filteredAreasTextStrings;
@@ -555,6 +1067,18 @@ public final class TextExtractor
     )
   {return dehyphenated;}
 
+  /**
+    Gets whether text columns have to be detected on sorting.
+    <p>In case of multi-column layout, text is sorted column by column (otherwise, lines run across
+    columns).</p>
+
+    @see #isSorted()
+    @since 0.1.3
+  */
+  public boolean isMulticolumn(
+    )
+  {return multicolumn;}
+
   /**
     Gets whether the text strings have to be sorted.
   */
@@ -598,6 +1122,14 @@ public final class TextExtractor
     {setSorted(true);}
   }
 
+  /**
+    @see #isMulticolumn()
+  */
+  public void setMulticolumn(
+    boolean value
+    )
+  {multicolumn = value;}
+
   /**
     @see #isSorted()
   */
@@ -652,6 +1184,42 @@ public final class TextExtractor
     }
   }
 
+  /**
+    Scans a content level streaming its text.
+  */
+  private void extract(
+    ContentScanner level,
+    TextStreamer streamer
+    )
+  {
+    if(level == null)
+      return;
+
+    while(level.moveNext())
+    {
+      ContentObject content = level.getCurrent();
+      if(content instanceof ShowText)
+      {streamer.scan((ShowText)content, level.getState());}
+      else if(content instanceof XObject)
+      {
+        // Scan the external level!
+        extract(
+          ((XObject)content).getScanner(level),
+          streamer
+          );
+      }
+      else if(content instanceof Text
+        || content instanceof ContainerObject)
+      {
+        // Scan the inner level!
+        extract(
+          level.getChildLevel(),
+          streamer
+          );
+      }
+    }
+  }
+
   /**
     Sorts the extracted text strings.
     <h3>Remarks</h3>
@@ -666,99 +1234,111 @@ public final class TextExtractor
     )
   {
     // Sorting the source text strings...
+    /*
+      NOTE: Text string boxes are computed once, as they are aggregated from their characters.
+    */
+    List<ContentScanner.TextStringWrapper> sortedTextStrings = new ArrayList<ContentScanner.TextStringWrapper>(rawTextStrings.size());
+    List<Rectangle2D> boxes = new ArrayList<Rectangle2D>(rawTextStrings.size());
+    for(ContentScanner.TextStringWrapper rawTextString : rawTextStrings)
     {
-      TextStringPositionComparator positionComparator = new TextStringPositionComparator();
-      Collections.sort(rawTextStrings, positionComparator);
+      Rectangle2D box = rawTextString.getBox();
+      if(box == null) // Empty text string.
+        continue;
+
+      sortedTextStrings.add(rawTextString);
+      boxes.add(box);
     }
+    List<int[]> lines = TextLineSorter.sort(boxes.toArray(new Rectangle2D[boxes.size()]), multicolumn);
 
     // Aggregating and integrating the source text strings into the target ones...
     TextString textString = null;
     TextStyle textStyle = null;
     TextChar previousTextChar = null;
     boolean dehyphenating = false;
-    for(ContentScanner.TextStringWrapper rawTextString : rawTextStrings)
+    for(int[] line : lines)
     {
-      /*
-        NOTE: Contents on the same line are grouped together within the same text string.
-      */
-      // Add a new text string in case of new line!
-      if(textString != null
-        && !textString.textChars.isEmpty()
-        && !TextStringPositionComparator.isOnTheSameLine(
-          textString.getBox(),
-          rawTextString.getBox()
-          ))
-      {
-        if(dehyphenated
-          && previousTextChar.getValue() == '-') // Hyphened word.
-        {
-          textString.textChars.remove(previousTextChar);
-          dehyphenating = true;
-        }
-        else // Full word.
-        {
-          // Add synthesized space character!
-          textString.textChars.add(
-            new TextChar(
-              ' ',
-              new Rectangle2D.Double(
-                previousTextChar.getBox().getMaxX(),
-                previousTextChar.getBox().getY(),
-                0,
-                previousTextChar.getBox().getHeight()
-                ),
-              textStyle,
-              true
-              )
-            );
-          textString = null;
-          dehyphenating = false;
-        }
-        previousTextChar = null;
-      }
-      if(textString == null)
-      {textStrings.add(textString = new TextString());}
-
-      textStyle = rawTextString.getStyle();
-      double spaceWidth = textStyle.getFont().getWidth(' ', textStyle.getFontSize());
-      if(spaceWidth == 0)
-      {spaceWidth = textStyle.getFontSize() * .25f;} // NOTE: as a rule of thumb, space width is estimated according to the font size.
-      for(TextChar textChar : rawTextString.getTextChars())
+      for(int lineIndex = 0; lineIndex < line.length; lineIndex++)
       {
-        if(previousTextChar != null)
+        ContentScanner.TextStringWrapper rawTextString = sortedTextStrings.get(line[lineIndex]);
+        /*
+          NOTE: Contents on the same line are grouped together within the same text string.
+        */
+        // Add a new text string in case of new line!
+        if(lineIndex == 0
+          && textString != null
+          && !textString.textChars.isEmpty())
         {
-          /*
-            NOTE: PDF files may have text contents omitting space characters,
-            so they must be inferred and synthesized, marking them as virtual
-            in order to allow the user to distinguish between original contents
-            and augmented ones.
-          */
-          double characterSpace = textChar.getBox().getX() - previousTextChar.getBox().getMaxX();
-          if(characterSpace >= spaceWidth)
+          if(dehyphenated
+            && previousTextChar.getValue() == '-') // Hyphened word.
+          {
+            textString.textChars.remove(previousTextChar);
+            dehyphenating = true;
+          }
+          else // Full word.
           {
             // Add synthesized space character!
             textString.textChars.add(
-              previousTextChar = new TextChar(
+              new TextChar(
                 ' ',
                 new Rectangle2D.Double(
                   previousTextChar.getBox().getMaxX(),
-                  textChar.getBox().getY(),
-                  characterSpace,
-                  textChar.getBox().getHeight()
+                  previousTextChar.getBox().getY(),
+                  0,
+                  previousTextChar.getBox().getHeight()
                   ),
                 textStyle,
                 true
                 )
               );
+            textString = null;
+            dehyphenating = false;
           }
-          if(dehyphenating
-            && previousTextChar.getValue() == ' ')
+          previousTextChar = null;
+        }
+        if(textString == null)
+        {textStrings.add(textString = new TextString());}
+
+        textStyle = rawTextString.getStyle();
+        double spaceWidth = textStyle.getFont().getWidth(' ', textStyle.getFontSize());
+        if(spaceWidth == 0)
+        {spaceWidth = textStyle.getFontSize() * .25f;} // NOTE: as a rule of thumb, space width is estimated according to the font size.
+        for(TextChar textChar : rawTextString.getTextChars())
+        {
+          if(previousTextChar != null)
           {
-            textStrings.add(textString = new TextString());
-            dehyphenating = false;
+            /*
+              NOTE: PDF files may have text contents omitting space characters,
+              so they must be inferred and synthesized, marking them as virtual
+              in order to allow the user to distinguish between original contents
+              and augmented ones.
+            */
+            double characterSpace = textChar.getBox().getX() - previousTextChar.getBox().getMaxX();
+            if(characterSpace >= spaceWidth)
+            {
+              // Add synthesized space character!
+              textString.textChars.add(
+                previousTextChar = new TextChar(
+                  ' ',
+                  new Rectangle2D.Double(
+                    previousTextChar.getBox().getMaxX(),
+                    textChar.getBox().getY(),
+                    characterSpace,
+                    textChar.getBox().getHeight()
+                    ),
+                  textStyle,
+                  true
+                  )
+                );
+            }
+            if(dehyphenating
+              && previousTextChar.getValue() == ' ')
+            {
+              textStrings.add(textString = new TextString());
+              dehyphenating = false;
+            }
           }
+          textString.textChars.add(previousTextChar = textChar);
         }
-        textString.textChars.add(previousTextChar = textChar);
       }
     }
   }
@@ -0,0 +1,805 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.tools;
+
+import java.awt.geom.Rectangle2D;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.pdfclown.bytes.IInputStream;
+import org.pdfclown.documents.Document;
+import org.pdfclown.documents.Page;
+import org.pdfclown.documents.contents.ITextString;
+import org.pdfclown.documents.contents.TextChar;
+import org.pdfclown.files.File;
+import org.pdfclown.tokens.Reader;
+import org.pdfclown.util.math.geom.Quad;
+
+/**
+  Full-text search index of a document.
+  <p>It's built once running {@link TextExtractor} over each page of the document; then it can be
+  queried repeatedly for words and phrases, getting their locations (page, character offsets and
+  highlight quads) without extracting the text again.</p>
+  <p>Text is indexed by terms, that is maximal runs of letters and digits, case-insensitively.
+  Queries are matched as sequences of consecutive terms (punctuation and spacing are ignored), so
+  that, for example, <code>"full-text search"</code> matches <code>"Full text, search"</code>.</p>
+  <p>The index can be {@link #write(OutputStream) saved} (for example, to a file next to its PDF)
+  and {@link #read(InputStream, Document) loaded} back without parsing the document anymore. Saved
+  indexes carry the fingerprint of their source file, so that they can be checked against later
+  changes of the document.</p>
+  <p>Instances are immutable, so they can be queried concurrently.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+public final class TextSearchIndex
+{
+  // <class>
+  // <classes>
+  /**
+    Text match.
+  */
+  public static final class Match
+  {
+    private final int end;
+    private final int pageIndex;
+    private final int start;
+    private final TextSearchIndex index;
+
+    private Match(
+      TextSearchIndex index,
+      int pageIndex,
+      int start,
+      int end
+      )
+    {
+      this.index = index;
+      this.pageIndex = pageIndex;
+      this.start = start;
+      this.end = end;
+    }
+
+    /**
+      Gets the boxes of the matching characters.
+    */
+    public List<Rectangle2D> getBoxes(
+      )
+    {
+      int[] pageBoxes = index.pageBoxes[pageIndex];
+      List<Rectangle2D> boxes = new ArrayList<Rectangle2D>(end - start);
+      for(int charIndex = start; charIndex < end; charIndex++)
+      {boxes.add(getBox(pageBoxes, charIndex));}
+      return boxes;
+    }
+
+    /**
+      Gets the offset of the character following the match within its {@link
+      TextSearchIndex#getPageText(int) page text}.
+    */
+    public int getEnd(
+      )
+    {return end;}
+
+    /**
+      Gets the index of the page the match belongs to.
+    */
+    public int getPageIndex(
+      )
+    {return pageIndex;}
+
+    /**
+      Gets the highlight quads of the match.
+      <p>As a match may be split across multiple contiguous lines, a distinct quad is defined for
+      each line chunk.</p>
+    */
+    public List<Quad> getQuads(
+      )
+    {
+      int[] pageBoxes = index.pageBoxes[pageIndex];
+      List<Quad> quads = new ArrayList<Quad>();
+      Rectangle2D textBox = null;
+      for(int charIndex = start; charIndex < end; charIndex++)
+      {
+        Rectangle2D charBox = getBox(pageBoxes, charIndex);
+        if(textBox == null)
+        {textBox = charBox;}
+        else if(charBox.getY() > textBox.getMaxY())
+        {
+          quads.add(Quad.get(textBox));
+          textBox = charBox;
+        }
+        else
+        {textBox.add(charBox);}
+      }
+      if(textBox != null)
+      {quads.add(Quad.get(textBox));}
+      return quads;
+    }
+
+    /**
+      Gets the offset of the first matching character within its {@link
+      TextSearchIndex#getPageText(int) page text}.
+    */
+    public int getStart(
+      )
+    {return start;}
+
+    /**
+      Gets the matching text.
+    */
+    public String getText(
+      )
+    {return index.pageTexts[pageIndex].substring(start, end);}
+
+    @Override
+    public String toString(
+      )
+    {return "Match {page: " + pageIndex + ", start: " + start + ", end: " + end + ", text: \"" + getText() + "\"}";}
+  }
+  // </classes>
+
+  // <static>
+  // <fields>
+  private static final int Magic = 0x50435449; // "PCTI".
+  private static final int Version = 2;
+
+  /**
+    Source file fingerprint algorithm.
+  */
+  private static final String DigestAlgorithm = "SHA-1";
+  /**
+    Maximum fingerprint length accepted on loading.
+  */
+  private static final int MaxFingerprintLength = 64;
+
+  /**
+    Box coordinates resolution (units per point).
+  */
+  private static final int BoxScale = 1000;
+
+  private static final byte[] EmptyFingerprint = new byte[0];
+  private static final int[] EmptyPostings = new int[0];
+  // </fields>
+
+  // <interface>
+  // <public>
+  /**
+    Loads an index from the specified stream.
+    <p>As no document is specified, the index isn't checked against its source file (see {@link
+    #read(InputStream, Document)}).</p>
+
+    @param stream Source stream (it's left open).
+    @see #write(OutputStream)
+  */
+  public static TextSearchIndex read(
+    InputStream stream
+    ) throws IOException
+  {return read(stream, null);}
+
+  /**
+    Loads the index of the specified document from the specified stream.
+
+    @param stream Source stream (it's left open).
+    @param document Document the index is expected to belong to; <code>null</code> to skip the
+      check.
+    @throws IOException If the index is corrupt or doesn't match the current source file of the
+      document (that is, the index is stale).
+    @see #write(OutputStream)
+  */
+  public static TextSearchIndex read(
+    InputStream stream,
+    Document document
+    ) throws IOException
+  {
+    GZIPInputStream gzipStream = new GZIPInputStream(stream);
+    DataInputStream dataStream = new DataInputStream(new BufferedInputStream(gzipStream));
+    if(dataStream.readInt() != Magic)
+      throw new IOException("Not a text search index.");
+    int version = dataStream.readUnsignedByte();
+    if(version != Version)
+      throw new IOException("Unsupported text search index version: " + version);
+
+    byte[] fingerprint = new byte[readLength(dataStream, MaxFingerprintLength)];
+    dataStream.readFully(fingerprint);
+    if(document != null
+      && !Arrays.equals(fingerprint, getFingerprint(document)))
+      throw new IOException("Stale text search index: the document has changed since indexing.");
+
+    /*
+      NOTE: Stored counts can't be trusted to preallocate buffers, as a corrupt index might exhaust
+      memory: buffers grow along with the data actually read, so that truncated streams fail with an
+      EOFException.
+    */
+    int pageCount = readLength(dataStream, Integer.MAX_VALUE);
+    List<String> pageTexts = new ArrayList<String>();
+    List<int[]> pageBoxes = new ArrayList<int[]>();
+    for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+    {
+      int charCount = readLength(dataStream, Integer.MAX_VALUE / 4);
+      char[] chars = new char[Math.min(charCount, 1024)];
+      for(int charIndex = 0; charIndex < charCount; charIndex++)
+      {
+        if(charIndex == chars.length)
+        {chars = Arrays.copyOf(chars, (int)Math.min(charCount, chars.length * 2L));}
+        chars[charIndex] = (char)readNumber(dataStream);
+      }
+      pageTexts.add(new String(chars));
+
+      int[] boxes = new int[charCount * 4];
+      pageBoxes.add(boxes);
+      // NOTE: Widths are read before horizontal coordinates, as these are predicted from those.
+      for(int component = 3; component >= 0; component--)
+      {
+        for(int boxIndex = component, boxLength = boxes.length; boxIndex < boxLength; boxIndex += 4)
+        {boxes[boxIndex] = predict(boxes, boxIndex) + readSignedNumber(dataStream);}
+      }
+    }
+    return new TextSearchIndex(
+      pageTexts.toArray(new String[pageTexts.size()]),
+      pageBoxes.toArray(new int[pageBoxes.size()][]),
+      fingerprint
+      );
+  }
+
+  /**
+    Loads an index from the specified file.
+    <p>As no document is specified, the index isn't checked against its source file (see {@link
+    #read(java.io.File, Document)}).</p>
+
+    @see #write(java.io.File)
+  */
+  public static TextSearchIndex read(
+    java.io.File file
+    ) throws IOException
+  {return read(file, null);}
+
+  /**
+    Loads the index of the specified document from the specified file.
+
+    @param file Source file.
+    @param document Document the index is expected to belong to; <code>null</code> to skip the
+      check.
+    @throws IOException If the index doesn't match the current source file of the document (that
+      is, the index is stale).
+    @see #write(java.io.File)
+  */
+  public static TextSearchIndex read(
+    java.io.File file,
+    Document document
+    ) throws IOException
+  {
+    InputStream stream = new java.io.FileInputStream(file);
+    try
+    {return read(stream, document);}
+    finally
+    {stream.close();}
+  }
+  // </public>
+
+  // <private>
+  /**
+    Gets the fingerprint of the source file of the specified document.
+    <p>The fingerprint is the digest of the whole file as it was loaded, so that any change to it
+    (whether incremental or not) is detected.</p>
+
+    @return Empty, if the document is newly-created (no source file).
+  */
+  private static byte[] getFingerprint(
+    Document document
+    )
+  {
+    File file = document.getFile();
+    Reader reader = file.getReader();
+    if(reader == null)
+      return EmptyFingerprint;
+
+    MessageDigest digest;
+    try
+    {digest = MessageDigest.getInstance(DigestAlgorithm);}
+    catch(NoSuchAlgorithmException e)
+    {throw new RuntimeException(e);}
+    // NOTE: The file stream is shared with the file parser, whose access is serialized on the file.
+    synchronized(file)
+    {
+      IInputStream stream = reader.getParser().getStream();
+      long position = stream.getPosition();
+      try
+      {
+        stream.seek(0);
+        byte[] chunk = new byte[8192];
+        for(long remaining = stream.getLength(); remaining > 0;)
+        {
+          int chunkLength = (int)Math.min(chunk.length, remaining);
+          stream.read(chunk, 0, chunkLength);
+          digest.update(chunk, 0, chunkLength);
+          remaining -= chunkLength;
+        }
+      }
+      catch(EOFException e)
+      {throw new RuntimeException(e);}
+      finally
+      {stream.seek(position);}
+    }
+    return digest.digest();
+  }
+
+  private static Rectangle2D getBox(
+    int[] boxes,
+    int charIndex
+    )
+  {
+    int offset = charIndex * 4;
+    return new Rectangle2D.Double(
+      (double)boxes[offset] / BoxScale,
+      (double)boxes[offset + 1] / BoxScale,
+      (double)boxes[offset + 2] / BoxScale,
+      (double)boxes[offset + 3] / BoxScale
+      );
+  }
+
+  /**
+    Gets the offset of the first term character starting from the specified position.
+
+    @return Text length, if no more terms are available.
+  */
+  private static int getTermStart(
+    String text,
+    int index
+    )
+  {
+    for(int length = text.length(); index < length; index++)
+    {
+      if(Character.isLetterOrDigit(text.charAt(index)))
+        break;
+    }
+    return index;
+  }
+
+  /**
+    Gets the offset of the character following the term starting at the specified position.
+  */
+  private static int getTermEnd(
+    String text,
+    int index
+    )
+  {
+    for(int length = text.length(); index < length; index++)
+    {
+      if(!Character.isLetterOrDigit(text.charAt(index)))
+        break;
+    }
+    return index;
+  }
+
+  /**
+    Gets the term locations within the specified texts.
+  */
+  private static Map<String,int[]> index(
+    String[] pageTexts
+    )
+  {
+    // 1. Collect the term locations!
+    Map<String,int[]> postings = new HashMap<String,int[]>();
+    Map<String,Integer> postingsLengths = new HashMap<String,Integer>();
+    for(int pageIndex = 0, pageCount = pageTexts.length; pageIndex < pageCount; pageIndex++)
+    {
+      String pageText = pageTexts[pageIndex];
+      for(int start = getTermStart(pageText, 0), length = pageText.length(); start < length;)
+      {
+        int end = getTermEnd(pageText, start);
+        String term = normalize(pageText, start, end);
+        int[] locations = postings.get(term);
+        int locationsLength;
+        if(locations == null)
+        {
+          postings.put(term, locations = new int[4]);
+          locationsLength = 0;
+        }
+        else
+        {
+          locationsLength = postingsLengths.get(term);
+          if(locationsLength == locations.length)
+          {postings.put(term, locations = Arrays.copyOf(locations, locationsLength * 2));}
+        }
+        locations[locationsLength++] = pageIndex;
+        locations[locationsLength++] = start;
+        postingsLengths.put(term, locationsLength);
+
+        start = getTermStart(pageText, end);
+      }
+    }
+
+    // 2. Trim the term locations!
+    for(Map.Entry<String,int[]> entry : postings.entrySet())
+    {
+      int locationsLength = postingsLengths.get(entry.getKey());
+      if(locationsLength < entry.getValue().length)
+      {entry.setValue(Arrays.copyOf(entry.getValue(), locationsLength));}
+    }
+    return postings;
+  }
+
+  /**
+    Gets the expected value of the specified box item, based on the previous box (the
+    characters of a line usually share their vertical coordinates, and each one follows the
+    previous one).
+  */
+  private static int predict(
+    int[] boxes,
+    int boxIndex
+    )
+  {
+    if(boxIndex < 4)
+      return 0;
+
+    switch(boxIndex % 4)
+    {
+      case 0: // x.
+        return boxes[boxIndex - 4] + boxes[boxIndex - 2];
+      default: // y, width, height.
+        return boxes[boxIndex - 4];
+    }
+  }
+
+  /**
+    Reads a count, checking it against the specified maximum.
+  */
+  private static int readLength(
+    DataInputStream stream,
+    int maxValue
+    ) throws IOException
+  {
+    int value = readNumber(stream);
+    if(value < 0 || value > maxValue)
+      throw new IOException("Corrupt text search index.");
+
+    return value;
+  }
+
+  private static int readNumber(
+    DataInputStream stream
+    ) throws IOException
+  {
+    int value = 0;
+    for(int shift = 0;; shift += 7)
+    {
+      if(shift > 28) // NOTE: Numbers take at most 5 bytes.
+        throw new IOException("Corrupt text search index.");
+
+      int b = stream.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      if((b & 0x80) == 0)
+        return value;
+    }
+  }
+
+  private static int readSignedNumber(
+    DataInputStream stream
+    ) throws IOException
+  {
+    int value = readNumber(stream);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+    Gets the normalized form of the specified term.
+    <p>NOTE: Case folding is applied char by char, so that term offsets are preserved.</p>
+  */
+  private static String normalize(
+    String text,
+    int start,
+    int end
+    )
+  {
+    char[] chars = new char[end - start];
+    for(int index = start; index < end; index++)
+    {chars[index - start] = Character.toLowerCase(text.charAt(index));}
+    return new String(chars);
+  }
+
+  private static List<String> tokenize(
+    String text
+    )
+  {
+    List<String> terms = new ArrayList<String>();
+    for(int start = getTermStart(text, 0), length = text.length(); start < length;)
+    {
+      int end = getTermEnd(text, start);
+      terms.add(normalize(text, start, end));
+      start = getTermStart(text, end);
+    }
+    return terms;
+  }
+
+  /**
+    Writes the specified non-negative number in variable-length format (7 bits per byte, least
+    significant group first).
+  */
+  private static void writeNumber(
+    DataOutputStream stream,
+    int value
+    ) throws IOException
+  {
+    while((value & ~0x7F) != 0)
+    {
+      stream.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    stream.writeByte(value);
+  }
+
+  private static void writeSignedNumber(
+    DataOutputStream stream,
+    int value
+    ) throws IOException
+  {writeNumber(stream, (value << 1) ^ (value >> 31));}
+  // </private>
+  // </interface>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  /**
+    Source file fingerprint (see {@link #getFingerprint(Document)}).
+  */
+  private final byte[] fingerprint;
+  /**
+    Character boxes by page (each box is represented by 4 consecutive items: x, y, width and
+    height, in {@link #BoxScale} units; item <code>i * 4</code> corresponds to character
+    <code>i</code> of the page text).
+  */
+  private final int[][] pageBoxes;
+  private final String[] pageTexts;
+  /**
+    Term locations (each location is represented by 2 consecutive items: page index and term
+    start offset within the page text), sorted by page and offset.
+  */
+  private final Map<String,int[]> postings;
+  // </fields>
+
+  // <constructors>
+  /**
+    Indexes the text of the specified document.
+  */
+  public TextSearchIndex(
+    Document document
+    )
+  {this(document, new TextExtractor());}
+
+  /**
+    Indexes the text of the specified document.
+
+    @param document Document to index.
+    @param extractor Text extractor to apply to each page.
+  */
+  public TextSearchIndex(
+    Document document,
+    TextExtractor extractor
+    )
+  {
+    List<Page> pages = document.getPages();
+    int pageCount = pages.size();
+    pageTexts = new String[pageCount];
+    pageBoxes = new int[pageCount][];
+    for(int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+    {
+      StringBuilder textBuilder = new StringBuilder();
+      int[] boxes = new int[256];
+      int boxesLength = 0;
+      for(List<ITextString> areaTextStrings : extractor.extract(pages.get(pageIndex)).values())
+      {
+        for(ITextString textString : areaTextStrings)
+        {
+          for(TextChar textChar : textString.getTextChars())
+          {
+            textBuilder.append(textChar.getValue());
+
+            if(boxesLength == boxes.length)
+            {boxes = Arrays.copyOf(boxes, boxesLength * 2);}
+            Rectangle2D box = textChar.getBox();
+            boxes[boxesLength++] = (int)Math.round(box.getX() * BoxScale);
+            boxes[boxesLength++] = (int)Math.round(box.getY() * BoxScale);
+            boxes[boxesLength++] = (int)Math.round(box.getWidth() * BoxScale);
+            boxes[boxesLength++] = (int)Math.round(box.getHeight() * BoxScale);
+          }
+        }
+      }
+      pageTexts[pageIndex] = textBuilder.toString();
+      pageBoxes[pageIndex] = Arrays.copyOf(boxes, boxesLength);
+    }
+    postings = index(pageTexts);
+    fingerprint = getFingerprint(document);
+  }
+
+  private TextSearchIndex(
+    String[] pageTexts,
+    int[][] pageBoxes,
+    byte[] fingerprint
+    )
+  {
+    this.pageTexts = pageTexts;
+    this.pageBoxes = pageBoxes;
+    this.fingerprint = fingerprint;
+    postings = index(pageTexts);
+  }
+  // </constructors>
+
+  // <interface>
+  // <public>
+  /**
+    Finds the occurrences of the specified text.
+
+    @param text Word or phrase to search (case-insensitive; punctuation and spacing are ignored).
+    @return Matches sorted by page and offset.
+  */
+  public List<Match> find(
+    String text
+    )
+  {
+    List<String> terms = tokenize(text);
+    if(terms.isEmpty())
+      return Collections.emptyList();
+
+    int[] locations = getPostings(terms.get(0));
+    List<Match> matches = new ArrayList<Match>();
+    for(int locationIndex = 0, locationsLength = locations.length; locationIndex < locationsLength; locationIndex += 2)
+    {
+      int pageIndex = locations[locationIndex];
+      int start = locations[locationIndex + 1];
+      String pageText = pageTexts[pageIndex];
+      // Checking the following terms...
+      int end = start + terms.get(0).length();
+      for(int termIndex = 1, termsLength = terms.size(); termIndex < termsLength; termIndex++)
+      {
+        int termStart = getTermStart(pageText, end);
+        int termEnd = getTermEnd(pageText, termStart);
+        if(termStart == termEnd
+          || !normalize(pageText, termStart, termEnd).equals(terms.get(termIndex)))
+        {
+          end = -1;
+          break;
+        }
+        end = termEnd;
+      }
+      if(end != -1)
+      {matches.add(new Match(this, pageIndex, start, end));}
+    }
+    return matches;
+  }
+
+  /**
+    Gets the number of occurrences of the specified term.
+
+    @param term Word to count (case-insensitive).
+  */
+  public int getFrequency(
+    String term
+    )
+  {return getPostings(normalize(term, 0, term.length())).length / 2;}
+
+  /**
+    Gets the number of indexed pages.
+  */
+  public int getPageCount(
+    )
+  {return pageTexts.length;}
+
+  /**
+    Gets the indexed text of the specified page.
+    <p>Match offsets refer to this text.</p>
+
+    @param pageIndex Page index.
+  */
+  public String getPageText(
+    int pageIndex
+    )
+  {return pageTexts[pageIndex];}
+
+  /**
+    Saves this index into the specified stream.
+    <p>Just the indexed text along with its character boxes and the fingerprint of its source file
+    is saved (compressed), as term locations are cheaply rebuilt on {@link #read(InputStream,
+    Document) loading}. Box items are grouped by
+    kind and encoded as differences from their {@link #predict(int[], int) expected values}, so
+    that they compress well.</p>
+
+    @param stream Target stream (it's left open).
+  */
+  public void write(
+    OutputStream stream
+    ) throws IOException
+  {
+    GZIPOutputStream gzipStream = new GZIPOutputStream(stream);
+    DataOutputStream dataStream = new DataOutputStream(new BufferedOutputStream(gzipStream));
+    dataStream.writeInt(Magic);
+    dataStream.writeByte(Version);
+    writeNumber(dataStream, fingerprint.length);
+    dataStream.write(fingerprint);
+    writeNumber(dataStream, pageTexts.length);
+    for(int pageIndex = 0, pageCount = pageTexts.length; pageIndex < pageCount; pageIndex++)
+    {
+      String pageText = pageTexts[pageIndex];
+      writeNumber(dataStream, pageText.length());
+      for(int charIndex = 0, charCount = pageText.length(); charIndex < charCount; charIndex++)
+      {writeNumber(dataStream, pageText.charAt(charIndex));}
+
+      int[] boxes = pageBoxes[pageIndex];
+      for(int component = 3; component >= 0; component--) // NOTE: See read(InputStream).
+      {
+        for(int boxIndex = component, boxLength = boxes.length; boxIndex < boxLength; boxIndex += 4)
+        {writeSignedNumber(dataStream, boxes[boxIndex] - predict(boxes, boxIndex));}
+      }
+    }
+    dataStream.flush();
+    gzipStream.finish();
+  }
+
+  /**
+    Saves this index into the specified file.
+
+    @see #read(java.io.File, Document)
+  */
+  public void write(
+    java.io.File file
+    ) throws IOException
+  {
+    OutputStream stream = new java.io.FileOutputStream(file);
+    try
+    {write(stream);}
+    finally
+    {stream.close();}
+  }
+  // </public>
+
+  // <private>
+  private int[] getPostings(
+    String term
+    )
+  {
+    int[] locations = postings.get(term);
+    return locations != null ? locations : EmptyPostings;
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
@@ -0,0 +1,451 @@
+/*
+  Copyright 2013 Stefano Chizzolini. http://www.pdfclown.org
+
+  Contributors:
+    * Stefano Chizzolini (original code developer, http://www.stefanochizzolini.it)
+
+  This file should be part of the source code distribution of "PDF Clown library"
+  (the Program): see the accompanying README files for more info.
+
+  This Program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU Lesser General Public License as published by the Free Software Foundation;
+  either version 3 of the License, or (at your option) any later version.
+
+  This Program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY,
+  either expressed or implied; without even the implied warranty of MERCHANTABILITY or
+  FITNESS FOR A PARTICULAR PURPOSE. See the License for more details.
+
+  You should have received a copy of the GNU Lesser General Public License along with this
+  Program (see README files); if not, go to the GNU website (http://www.gnu.org/licenses/).
+
+  Redistribution and use, with or without modification, are permitted provided that such
+  redistributions retain the above copyright notice, license and disclaimer, along with
+  this list of conditions.
+*/
+
+package org.pdfclown.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+  Map of primitive integers.
+  <p>Small non-negative keys (such as glyph indexes and unicodes) are stored into a direct-indexed
+  table, as long as it's reasonably dense; any other key is stored into an open-addressing hash
+  table. Primitive accessors ({@link #get(int, int)}, {@link #put(int, int)}, {@link
+  #containsKey(int)}) avoid boxing; the {@link Map} interface is supported for compatibility
+  (its entry set iterator doesn't support removal).</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+public final class IntMap
+  extends AbstractMap<Integer,Integer>
+{
+  // <class>
+  // <static>
+  // <fields>
+  /**
+    Maximum size of the direct-indexed table.
+  */
+  private static final int DirectLengthMax = 0x10000;
+  /**
+    Minimum density (entry count to table size ratio) of the direct-indexed table.
+  */
+  private static final int DirectDensityMin = 4;
+  private static final int HashLengthMin = 8;
+  // </fields>
+  // </static>
+
+  // <dynamic>
+  // <fields>
+  private boolean[] directUsed = new boolean[0];
+  private int[] directValues = new int[0];
+  private int directSize;
+
+  private int[] hashKeys;
+  private boolean[] hashUsed;
+  private int[] hashValues;
+  private int hashSize;
+
+  private Set<Map.Entry<Integer,Integer>> entrySet;
+  // </fields>
+
+  // <constructors>
+  public IntMap(
+    )
+  {}
+
+  public IntMap(
+    Map<Integer,Integer> map
+    )
+  {putAll(map);}
+  // </constructors>
+
+  // <interface>
+  // <public>
+  @Override
+  public void clear(
+    )
+  {
+    directUsed = new boolean[0];
+    directValues = new int[0];
+    directSize = 0;
+    hashKeys = null;
+    hashUsed = null;
+    hashValues = null;
+    hashSize = 0;
+  }
+
+  /**
+    Gets whether the specified key is mapped.
+  */
+  public boolean containsKey(
+    int key
+    )
+  {
+    if(key >= 0 && key < directUsed.length)
+      return directUsed[key];
+    else
+      return getHashIndex(key) >= 0;
+  }
+
+  @Override
+  public boolean containsKey(
+    Object key
+    )
+  {return key instanceof Integer && containsKey(((Integer)key).intValue());}
+
+  @Override
+  public Set<Map.Entry<Integer,Integer>> entrySet(
+    )
+  {
+    if(entrySet == null)
+    {
+      entrySet = new AbstractSet<Map.Entry<Integer,Integer>>()
+      {
+        @Override
+        public Iterator<Map.Entry<Integer,Integer>> iterator(
+          )
+        {
+          return new Iterator<Map.Entry<Integer,Integer>>()
+          {
+            /**
+              Index of the next entry (direct table entries followed by hash table entries).
+            */
+            private int index = seek(0);
+
+            @Override
+            public boolean hasNext(
+              )
+            {return index >= 0;}
+
+            @Override
+            public Map.Entry<Integer,Integer> next(
+              )
+            {
+              if(index < 0)
+                throw new NoSuchElementException();
+
+              Map.Entry<Integer,Integer> entry;
+              if(index < directUsed.length)
+              {entry = new SimpleImmutableEntry<Integer,Integer>(index, directValues[index]);}
+              else
+              {
+                int hashIndex = index - directUsed.length;
+                entry = new SimpleImmutableEntry<Integer,Integer>(hashKeys[hashIndex], hashValues[hashIndex]);
+              }
+              index = seek(index + 1);
+              return entry;
+            }
+
+            @Override
+            public void remove(
+              )
+            {throw new UnsupportedOperationException();}
+
+            private int seek(
+              int index
+              )
+            {
+              for(int length = directUsed.length; index < length; index++)
+              {
+                if(directUsed[index])
+                  return index;
+              }
+              if(hashUsed != null)
+              {
+                for(int hashIndex = index - directUsed.length, length = hashUsed.length; hashIndex < length; hashIndex++)
+                {
+                  if(hashUsed[hashIndex])
+                    return directUsed.length + hashIndex;
+                }
+              }
+              return -1;
+            }
+          };
+        }
+
+        @Override
+        public int size(
+          )
+        {return IntMap.this.size();}
+      };
+    }
+    return entrySet;
+  }
+
+  /**
+    Gets the value mapped to the specified key.
+
+    @param key Key.
+    @param defaultValue Value to return in case the key isn't mapped.
+  */
+  public int get(
+    int key,
+    int defaultValue
+    )
+  {
+    if(key >= 0 && key < directUsed.length)
+      return directUsed[key] ? directValues[key] : defaultValue;
+    else
+    {
+      int hashIndex = getHashIndex(key);
+      return hashIndex >= 0 ? hashValues[hashIndex] : defaultValue;
+    }
+  }
+
+  @Override
+  public Integer get(
+    Object key
+    )
+  {
+    if(!(key instanceof Integer))
+      return null;
+
+    int intKey = (Integer)key;
+    return containsKey(intKey) ? get(intKey, 0) : null;
+  }
+
+  /**
+    Maps the specified key to the specified value.
+  */
+  public void put(
+    int key,
+    int value
+    )
+  {
+    if(key >= 0)
+    {
+      if(key >= directUsed.length && key < DirectLengthMax)
+      {
+        int length = Math.max(Integer.highestOneBit(key) << 1, 16);
+        if((size() + 1) * DirectDensityMin >= length)
+        {growDirect(length);}
+      }
+      if(key < directUsed.length)
+      {
+        if(!directUsed[key])
+        {
+          directUsed[key] = true;
+          directSize++;
+        }
+        directValues[key] = value;
+        return;
+      }
+    }
+
+    if(hashUsed == null)
+    {
+      hashKeys = new int[HashLengthMin];
+      hashUsed = new boolean[HashLengthMin];
+      hashValues = new int[HashLengthMin];
+    }
+    else if((hashSize + 1) * 4 > hashUsed.length * 3) // Load factor: 0.75.
+    {rehash(hashUsed.length << 1);}
+    putHash(key, value);
+  }
+
+  @Override
+  public Integer put(
+    Integer key,
+    Integer value
+    )
+  {
+    Integer oldValue = get(key);
+    put(key.intValue(), value.intValue());
+    return oldValue;
+  }
+
+  /**
+    Unmaps the specified key.
+
+    @return Whether the key was mapped.
+  */
+  public boolean remove(
+    int key
+    )
+  {
+    if(key >= 0 && key < directUsed.length)
+    {
+      if(!directUsed[key])
+        return false;
+
+      directUsed[key] = false;
+      directSize--;
+      return true;
+    }
+
+    int hashIndex = getHashIndex(key);
+    if(hashIndex < 0)
+      return false;
+
+    // Backward-shift deletion (keeps the probe sequences intact).
+    int mask = hashUsed.length - 1;
+    int emptyIndex = hashIndex;
+    for(int index = (emptyIndex + 1) & mask; hashUsed[index]; index = (index + 1) & mask)
+    {
+      int homeIndex = hash(hashKeys[index]) & mask;
+      if(((index - homeIndex) & mask) >= ((index - emptyIndex) & mask))
+      {
+        hashKeys[emptyIndex] = hashKeys[index];
+        hashValues[emptyIndex] = hashValues[index];
+        emptyIndex = index;
+      }
+    }
+    hashUsed[emptyIndex] = false;
+    hashSize--;
+    return true;
+  }
+
+  @Override
+  public Integer remove(
+    Object key
+    )
+  {
+    Integer oldValue = get(key);
+    if(oldValue != null)
+    {remove(((Integer)key).intValue());}
+    return oldValue;
+  }
+
+  @Override
+  public int size(
+    )
+  {return directSize + hashSize;}
+  // </public>
+
+  // <private>
+  private static int hash(
+    int key
+    )
+  {
+    int hash = key * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+    Gets the hash table index of the specified key.
+
+    @return Negative, if the key isn't mapped.
+  */
+  private int getHashIndex(
+    int key
+    )
+  {
+    if(hashUsed == null)
+      return -1;
+
+    int mask = hashUsed.length - 1;
+    int hashIndex = hash(key) & mask;
+    while(hashUsed[hashIndex])
+    {
+      if(hashKeys[hashIndex] == key)
+        return hashIndex;
+
+      hashIndex = (hashIndex + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+    Enlarges the direct-indexed table, moving into it the hashed keys it covers.
+  */
+  private void growDirect(
+    int length
+    )
+  {
+    directUsed = Arrays.copyOf(directUsed, length);
+    directValues = Arrays.copyOf(directValues, length);
+    if(hashSize > 0)
+    {rehash(hashUsed.length);}
+  }
+
+  /**
+    Rebuilds the hash table, moving into the direct-indexed table the keys it covers.
+  */
+  private void rehash(
+    int length
+    )
+  {
+    int[] oldHashKeys = hashKeys;
+    boolean[] oldHashUsed = hashUsed;
+    int[] oldHashValues = hashValues;
+    hashKeys = new int[length];
+    hashUsed = new boolean[length];
+    hashValues = new int[length];
+    hashSize = 0;
+    for(int index = 0; index < oldHashUsed.length; index++)
+    {
+      if(!oldHashUsed[index])
+        continue;
+
+      int key = oldHashKeys[index];
+      if(key >= 0 && key < directUsed.length)
+      {
+        if(!directUsed[key])
+        {
+          directUsed[key] = true;
+          directSize++;
+        }
+        directValues[key] = oldHashValues[index];
+      }
+      else
+      {putHash(key, oldHashValues[index]);}
+    }
+  }
+
+  /**
+    Maps the specified key into the hash table (assuming it has room enough).
+  */
+  private void putHash(
+    int key,
+    int value
+    )
+  {
+    int mask = hashUsed.length - 1;
+    int hashIndex = hash(key) & mask;
+    while(hashUsed[hashIndex])
+    {
+      if(hashKeys[hashIndex] == key)
+      {
+        hashValues[hashIndex] = value;
+        return;
+      }
+      hashIndex = (hashIndex + 1) & mask;
+    }
+    hashUsed[hashIndex] = true;
+    hashKeys[hashIndex] = key;
+    hashValues[hashIndex] = value;
+    hashSize++;
+  }
+  // </private>
+  // </interface>
+  // </dynamic>
+  // </class>
+}
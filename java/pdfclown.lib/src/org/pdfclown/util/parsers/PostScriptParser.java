@@ -60,6 +60,8 @@ public class PostScriptParser
     ArrayEnd,
     DictionaryBegin,
     DictionaryEnd,
+    ProcedureBegin,
+    ProcedureEnd,
     Null
   }
   // </classes>
@@ -94,6 +96,8 @@ public class PostScriptParser
       || c == Symbol.CloseAngleBracket
       || c == Symbol.OpenSquareBracket
       || c == Symbol.CloseSquareBracket
+      || c == Symbol.OpenCurlyBracket
+      || c == Symbol.CloseCurlyBracket
       || c == Symbol.Slash
       || c == Symbol.Percent;
   }
@@ -299,6 +303,12 @@ public class PostScriptParser
       case Symbol.CloseSquareBracket: // Array (end).
         tokenType = TokenTypeEnum.ArrayEnd;
         break;
+      case Symbol.OpenCurlyBracket: // Procedure (begin).
+        tokenType = TokenTypeEnum.ProcedureBegin;
+        break;
+      case Symbol.CloseCurlyBracket: // Procedure (end).
+        tokenType = TokenTypeEnum.ProcedureEnd;
+        break;
       case Symbol.OpenAngleBracket: // Dictionary (begin) | Hexadecimal string.
       {
         try
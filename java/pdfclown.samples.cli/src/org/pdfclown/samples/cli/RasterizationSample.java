@@ -0,0 +1,102 @@
+package org.pdfclown.samples.cli;
+
+import java.awt.geom.Dimension2D;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pdfclown.documents.Document;
+import org.pdfclown.files.File;
+import org.pdfclown.tools.PageProcessor;
+import org.pdfclown.tools.Rasterizer;
+
+/**
+  This sample demonstrates <b>how to rasterize a range of PDF pages in batch</b>, writing them as
+  image files.
+  <p>Pages are rendered in parallel into recycled rasters, so that batch conversions keep a bounded
+  memory footprint; no display is required.</p>
+
+  @author Stefano Chizzolini (http://www.stefanochizzolini.it)
+  @since 0.1.3
+*/
+public class RasterizationSample
+  extends Sample
+{
+  @Override
+  public void run(
+    )
+  {
+    File file = null;
+    try
+    {
+      // 1. Opening the PDF file...
+      {
+        String filePath = promptFileChoice("Please select a PDF file");
+        try
+        {file = new File(filePath);}
+        catch(Exception e)
+        {throw new RuntimeException(filePath + " file access error.",e);}
+      }
+      Document document = file.getDocument();
+      int pageCount = document.getNumberOfPages();
+
+      // 2. Rasterization options.
+      int startPageIndex = promptPageChoice("Select the start page to rasterize", pageCount);
+      int endPageIndex = promptPageChoice("Select the end page to rasterize", startPageIndex, pageCount) + 1;
+      double resolution;
+      try
+      {resolution = Double.parseDouble(promptChoice("Resolution (DPI) [150]: "));}
+      catch(Exception e)
+      {resolution = 150;}
+      String formatName;
+      {
+        Map<String,String> options = new HashMap<String,String>();
+        options.put("", "PNG");
+        options.put("T", "TIFF");
+        formatName = ("T".equalsIgnoreCase(promptChoice(options)) ? "tiff" : "png");
+      }
+
+      // 3. Page rasterization.
+      Rasterizer rasterizer = new Rasterizer();
+      rasterizer.setResolution(resolution);
+      Rasterizer.ImageFileSink sink = new Rasterizer.ImageFileSink(
+        new java.io.File(getOutputPath()),
+        "RasterizationSample_%03d." + formatName,
+        formatName
+        );
+      long startTime = System.currentTimeMillis();
+      List<PageProcessor.Result<Dimension2D>> results = rasterizer.rasterize(
+        document,
+        startPageIndex,
+        endPageIndex,
+        sink
+        );
+
+      // 4. Show the results!
+      for(PageProcessor.Result<Dimension2D> result : results)
+      {
+        int pageIndex = result.getPageIndex();
+        if(result.isSucceeded())
+        {
+          Dimension2D size = result.getValue();
+          System.out.println("Page " + (pageIndex + 1) + ": " + (int)size.getWidth() + "x" + (int)size.getHeight() + " pixels -> " + sink.getFile(pageIndex).getName());
+        }
+        else
+        {System.out.println("Page " + (pageIndex + 1) + ": FAILED (" + result.getError() + ")");}
+      }
+      System.out.println("\n" + results.size() + " pages rasterized in " + (System.currentTimeMillis() - startTime) + " ms.");
+    }
+    finally
+    {
+      // 5. Closing the PDF file...
+      if(file != null)
+      {
+        try
+        {file.close();}
+        catch(IOException e)
+        {/* NOOP */}
+      }
+    }
+  }
+}